@@ -8,6 +8,8 @@ import de.charite.compbio.jannovar.cmd.annotate_pos.AnnotatePositionCommand;
 import de.charite.compbio.jannovar.cmd.annotate_vcf.AnnotateVCFCommand;
 import de.charite.compbio.jannovar.cmd.db_list.DatabaseListCommand;
 import de.charite.compbio.jannovar.cmd.download.DownloadCommand;
+import de.charite.compbio.jannovar.cmd.generate_vcf.GenerateVCFCommand;
+import de.charite.compbio.jannovar.cmd.merge_shards.MergeShardsCommand;
 
 /**
  * This is the driver class for a program called Jannovar. It has two purposes
@@ -83,6 +85,10 @@ public final class Jannovar {
 				cmd = new AnnotateVCFCommand(argv);
 			} else if (argv[0].equals("annotate-pos")) {
 				cmd = new AnnotatePositionCommand(argv);
+			} else if (argv[0].equals("merge-shards")) {
+				cmd = new MergeShardsCommand(argv);
+			} else if (argv[0].equals("generate-vcf")) {
+				cmd = new GenerateVCFCommand(argv);
 			} else {
 				System.err.println("unrecognized command " + argv[0]);
 				printTopLevelHelp();
@@ -122,6 +128,8 @@ public final class Jannovar {
 		System.err.println("         db-list       list downloadable databases");
 		System.err.println("         annotate      functional annotation of VCF files");
 		System.err.println("         annotate-pos  functional annotation of genomic change");
+		System.err.println("         merge-shards  merge output of annotate --shard");
+		System.err.println("         generate-vcf  generate synthetic VCF and PED file for testing");
 		System.err.println("");
 		System.err.println("Example: java -jar de.charite.compbio.jannovar.jar download hg19/ucsc");
 		System.err.println("         java -jar de.charite.compbio.jannovar.jar db-list");
@@ -6,6 +6,8 @@ import java.util.ArrayList;
 
 import com.google.common.collect.ImmutableList;
 
+import de.charite.compbio.jannovar.simulation.SimulationOptions;
+
 /**
  * Configuration for the Jannovar program.
  *
@@ -48,6 +50,9 @@ public final class JannovarOptions {
 	/** proxy for FTP */
 	public URL ftpProxy = null;
 
+	/** path to the TSV file with the transcripts added, removed, or changed by the download, <code>null</code> for none */
+	public String diffReportPath = null;
+
 	// Configuration for the annotate command
 
 	/** path to a VCF file to be annotated */
@@ -56,6 +61,9 @@ public final class JannovarOptions {
 	/** path to the file with the serialized data */
 	public String dataFile = null;
 
+	/** paths to further files with serialized data, merged with {@link #dataFile} for annotation */
+	public ArrayList<String> additionalDataFiles = new ArrayList<String>();
+
 	/** whether to write the result in the Jannovar format */
 	public boolean jannovarFormat = false;
 
@@ -77,9 +85,60 @@ public final class JannovarOptions {
 	/** whether or not to shift variants towards the 3' end of the transcript */
 	public boolean nt3PrimeShifting = true;
 
+	/** whether or not to splice the annotations into the raw VCF text instead of re-encoding records via HTSJDK */
+	public boolean rawVCFPassThrough = false;
+
+	/** whether or not to annotate the unique sites first and merge the annotations into the records in a second pass */
+	public boolean siteMerge = false;
+
+	/** number of threads to use for loading or building the database and for annotating the unique sites */
+	public int numThreads = Runtime.getRuntime().availableProcessors();
+
+	/** number of VCF files to annotate at the same time */
+	public int numParallelFiles = 1;
+
+	/** number of threads for decompressing the input when reading ahead, 0 for reading in the annotating thread */
+	public int readAheadThreads = 0;
+
+	/** number of threads for compressing <code>.vcf.gz</code> output, 1 for using HTSJDK's single-threaded writer */
+	public int bgzfThreads = 1;
+
+	/** path to BED file with regions to restrict the annotation to, <code>null</code> for none */
+	public String intervalsBEDPath = null;
+
+	/** regions (<code>chr:from-to</code>) to restrict the annotation to */
+	public ArrayList<String> regions = new ArrayList<String>();
+
+	/** whether or not to only load the transcripts near the regions to restrict the annotation to */
+	public boolean restrictTranscripts = false;
+
+	/** one-based number of the genome shard to annotate, only used if {@link #numShards} is not 0 */
+	public int shard = 0;
+
+	/** number of shards that the genome is split into, 0 for annotating the whole genome */
+	public int numShards = 0;
+
+	/** path to the output file of the merge-shards command */
+	public String mergedOutputPath = null;
+
 	/** infix added to output file name before .vcf/.vcf.gz/.bcf output */
 	public String outputInfix = ".jv";
 
+	/** path to JSON file to write the metrics to after annotation, <code>null</code> for not writing metrics */
+	public String metricsJSONPath = null;
+
+	/** whether or not to expose the metrics via JMX during annotation */
+	public boolean metricsJMX = false;
+
+	/** path to JDK Flight Recorder file to write, <code>null</code> for not recording */
+	public String jfrPath = null;
+
+	/** path to the directory of the persistent annotation cache, <code>null</code> for not using the cache */
+	public String annotationCacheDir = null;
+
+	/** maximal size of the annotation cache directory in bytes */
+	public long annotationCacheMaxBytes = 1024L * 1024 * 1024;
+
 	// TODO(holtgrem): enable and use this!
 	/** path to output VCF file path (overrides generation of file name from input file name) */
 	public String outVCFFile = null;
@@ -89,11 +148,25 @@ public final class JannovarOptions {
 	/** chromosomal position and a change, e.g. "chr1:12345C>A" */
 	public ArrayList<String> chromosomalChanges = new ArrayList<String>();
 
+	/** path to file with further chromosomal changes, one per line, "-" for stdin, <code>null</code> for none */
+	public String changesFilePath = null;
+
+	// Configuration for the generate-vcf command
+
+	/** configuration of the synthetic variants and samples */
+	public SimulationOptions simulationOptions = null;
+
+	/** path to the generated VCF file */
+	public String generatedVCFPath = null;
+
+	/** path to the generated PED file */
+	public String generatedPEDPath = null;
+
 	/**
 	 * The command that is to be executed.
 	 */
 	public enum Command {
-		DOWNLOAD, ANNOTATE_VCF, ANNOTATE_POSITION, DB_LIST
+		DOWNLOAD, ANNOTATE_VCF, ANNOTATE_POSITION, DB_LIST, MERGE_SHARDS, GENERATE_VCF
 	}
 
 	/**
@@ -108,17 +181,54 @@ public final class JannovarOptions {
 			out.println("HTTP proxy: " + httpProxy);
 			out.println("HTTPS proxy: " + httpsProxy);
 			out.println("FTP proxy: " + ftpProxy);
+			out.println("diff report path: " + diffReportPath);
+			out.println("threads: " + numThreads);
 		} else if (command == Command.ANNOTATE_VCF || command == Command.ANNOTATE_POSITION) {
 			out.println("dataFile: " + dataFile);
+			out.println("additional data files: " + additionalDataFiles);
 			out.println("vcfFilePaths: " + vcfFilePaths);
 			out.println("chromosomalChanges: " + chromosomalChanges);
+			out.println("changes file: " + changesFilePath);
 			out.println("showAll: " + showAll);
 			out.println("jannovarFormat: " + jannovarFormat);
 			out.println("writeJannovarInfoFields: " + writeJannovarInfoFields);
 			out.println("writeVCFAnnotationStandardInfoFields: " + writeVCFAnnotationStandardInfoFields);
 			out.println("output infix: " + outputInfix);
+			out.println("raw VCF pass-through: " + rawVCFPassThrough);
+			out.println("site merge: " + siteMerge);
+			out.println("threads: " + numThreads);
+			out.println("parallel files: " + numParallelFiles);
+			out.println("BGZF threads: " + bgzfThreads);
+			out.println("read-ahead threads: " + readAheadThreads);
+			out.println("intervals BED path: " + intervalsBEDPath);
+			out.println("regions: " + regions);
+			out.println("restrict transcripts: " + restrictTranscripts);
+			out.println("shard: " + ((numShards == 0) ? "none" : (shard + "/" + numShards)));
+			out.println("metrics JSON path: " + metricsJSONPath);
+			out.println("metrics JMX: " + metricsJMX);
+			out.println("JFR path: " + jfrPath);
+			out.println("annotation cache dir: " + annotationCacheDir);
+			out.println("annotation cache size: " + (annotationCacheMaxBytes / 1024 / 1024) + " MB");
 		} else if (command == Command.DB_LIST) {
 			out.println("dataSourceFiles: " + dataSourceFiles);
+		} else if (command == Command.MERGE_SHARDS) {
+			out.println("vcfFilePaths: " + vcfFilePaths);
+			out.println("merged output path: " + mergedOutputPath);
+		} else if (command == Command.GENERATE_VCF) {
+			out.println("dataFile: " + dataFile);
+			out.println("generated VCF path: " + generatedVCFPath);
+			out.println("generated PED path: " + generatedPEDPath);
+			out.println("variants: " + simulationOptions.getNumVariants());
+			out.println("seed: " + simulationOptions.getSeed());
+			out.println("variant type weights: " + simulationOptions.getVariantTypeWeights());
+			out.println("region type weights: " + simulationOptions.getRegionTypeWeights());
+			out.println("families: " + simulationOptions.getNumFamilies() + " x "
+					+ simulationOptions.getFamilyStructure());
+			out.println("genotype density: " + simulationOptions.getGenotypeDensity());
+			out.println("hom-alt rate: " + simulationOptions.getHomAltRate());
+			out.println("missing rate: " + simulationOptions.getMissingRate());
+			out.println("multi-allelic rate: " + simulationOptions.getMultiAllelicRate());
+			out.println("BGZF threads: " + bgzfThreads);
 		}
 	}
 
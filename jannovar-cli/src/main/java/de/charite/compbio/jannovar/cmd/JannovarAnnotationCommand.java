@@ -1,8 +1,13 @@
 package de.charite.compbio.jannovar.cmd;
 
+import java.util.ArrayList;
+import java.util.Collection;
+
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.JannovarOptions;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
@@ -16,10 +21,10 @@ import de.charite.compbio.jannovar.data.ReferenceDictionary;
 public abstract class JannovarAnnotationCommand extends JannovarCommand {
 
 	/** {@link ReferenceDictionary} with genome information. */
-	protected ReferenceDictionary refDict = null;
+	protected volatile ReferenceDictionary refDict = null;
 
-	/** Map of Chromosomes, used in the annotation. */
-	protected ImmutableMap<Integer, Chromosome> chromosomeMap = null;
+	/** Map of Chromosomes, used in the annotation, replaced when loading further contigs. */
+	protected volatile ImmutableMap<Integer, Chromosome> chromosomeMap = null;
 
 	public JannovarAnnotationCommand(String[] argv) throws CommandLineParsingException, HelpRequestedException {
 		super(argv);
@@ -39,9 +44,55 @@ public abstract class JannovarAnnotationCommand extends JannovarCommand {
 	 *             when the user requested the help page
 	 */
 	protected void deserializeTranscriptDefinitionFile() throws JannovarException, HelpRequestedException {
-		JannovarData data = new JannovarDataSerializer(this.options.dataFile).load();
+		final Collection<String> contigs = getContigsToLoad();
+		ArrayList<JannovarData> datas = new ArrayList<JannovarData>();
+		for (String dataFile : getDataFiles())
+			datas.add(new JannovarDataSerializer(dataFile, this.options.numThreads).load(contigs));
+		JannovarData data = datas.get(0);
+		if (datas.size() > 1) {
+			try {
+				data = JannovarData.merge(datas, this.options.numThreads);
+			} catch (IllegalArgumentException e) {
+				throw new JannovarException("Cannot merge the databases: " + e.getMessage());
+			}
+			System.err.println("Merged " + data.getNumTranscripts() + " transcripts of " + datas.size()
+					+ " databases.");
+		}
+		data = filterData(data);
+		if (contigs != null)
+			System.err.println("Loaded transcripts of " + data.getChromosomes().size() + " contigs.");
 		this.refDict = data.getRefDict();
 		this.chromosomeMap = data.getChromosomes();
 	}
 
+	/** @return paths of the serialized database files to load, {@link JannovarOptions#dataFile} first */
+	protected ImmutableList<String> getDataFiles() {
+		return new ImmutableList.Builder<String>().add(this.options.dataFile).addAll(this.options.additionalDataFiles)
+				.build();
+	}
+
+	/**
+	 * Select the contigs to load the transcripts for, called by {@link #deserializeTranscriptDefinitionFile}.
+	 *
+	 * @return names of the contigs to load, <code>null</code> (the default) for loading all contigs
+	 * @throws JannovarException
+	 *             on problems with selecting the contigs
+	 */
+	protected Collection<String> getContigsToLoad() throws JannovarException {
+		return null;
+	}
+
+	/**
+	 * Filter the deserialized data before use, called by {@link #deserializeTranscriptDefinitionFile}.
+	 *
+	 * @param data
+	 *            the deserialized {@link JannovarData}
+	 * @return the {@link JannovarData} to use, <code>data</code> by default
+	 * @throws JannovarException
+	 *             on problems with filtering the data
+	 */
+	protected JannovarData filterData(JannovarData data) throws JannovarException {
+		return data;
+	}
+
 }
\ No newline at end of file
@@ -1,10 +1,25 @@
 package de.charite.compbio.jannovar.cmd.annotate_pos;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.cli.ParseException;
 
+import com.google.common.base.Charsets;
+
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.JannovarOptions;
 import de.charite.compbio.jannovar.annotation.AllAnnotationListTextGenerator;
@@ -17,20 +32,28 @@ import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.HelpRequestedException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
-import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
-import de.charite.compbio.jannovar.reference.PositionType;
-import de.charite.compbio.jannovar.reference.Strand;
 
 /**
  * Allows the annotation of a single position.
  *
+ * The changes are taken from the command line and, if configured, read line by line from a file or from stdin
+ * (<tt>--changes-file</tt>). They are annotated in batches, using {@link JannovarOptions#numThreads} threads, and
+ * written to stdout in the input order. Changes that cannot be parsed or annotated yield an error record with the
+ * effect <tt>ERROR</tt>.
+ *
  * @author Marten Jaeger <marten.jaeger@charite.de>
  * @author Manuel Holtgrewe <manuel.holtgrewe@charite.de>
  * @author Max Schubach <max.schubach@charite.de>
  */
 public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 
+	/** number of changes per thread in one batch */
+	private static final int BATCH_SIZE_PER_THREAD = 1024;
+
+	/** parser for the chromosomal changes, set in {@link #run} */
+	private GenomeChangeParser changeParser;
+
 	public AnnotatePositionCommand(String argv[]) throws CommandLineParsingException, HelpRequestedException {
 		super(argv);
 	}
@@ -51,54 +74,127 @@ public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 
 		System.err.println("Deserializing transcripts...");
 		deserializeTranscriptDefinitionFile();
+		changeParser = new GenomeChangeParser(refDict);
 
+		final ExecutorService executor = (options.numThreads > 1) ? Executors
+				.newFixedThreadPool(options.numThreads) : null;
+		try {
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charsets.UTF_8), 64 * 1024);
+			out.write("#change\teffect\thgvs_annotation\n");
+			writeBatch(out, executor, options.chromosomalChanges);
+			if (options.changesFilePath != null)
+				annotateChangesFile(out, executor);
+			out.flush();
+		} catch (IOException e) {
+			throw new JannovarException("Problem with reading changes or writing annotations.", e);
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Annotate the changes from {@link JannovarOptions#changesFilePath} in batches and write them to <code>out</code>.
+	 *
+	 * Empty lines and lines starting with <tt>#</tt> are skipped.
+	 */
+	private void annotateChangesFile(Writer out, ExecutorService executor) throws IOException, JannovarException {
+		final boolean useStdin = options.changesFilePath.equals("-");
+		final InputStream in = useStdin ? System.in : new FileInputStream(options.changesFilePath);
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charsets.UTF_8), 64 * 1024);
+			final int batchSize = BATCH_SIZE_PER_THREAD * Math.max(1, options.numThreads);
+			ArrayList<String> batch = new ArrayList<String>(batchSize);
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+				batch.add(line);
+				if (batch.size() == batchSize) {
+					writeBatch(out, executor, batch);
+					batch.clear();
+				}
+			}
+			writeBatch(out, executor, batch);
+		} finally {
+			if (!useStdin)
+				in.close();
+		}
+	}
+
+	/**
+	 * Annotate <code>changes</code>, splitting them into one chunk per thread if <code>executor</code> is not
+	 * <code>null</code>, and write the records to <code>out</code> in the order of <code>changes</code>.
+	 */
+	private void writeBatch(Writer out, ExecutorService executor, List<String> changes) throws IOException,
+			JannovarException {
+		if (changes.isEmpty())
+			return;
+		if (executor == null || changes.size() == 1) {
+			out.append(annotateChunk(changes));
+			return;
+		}
+
+		final int chunkSize = (changes.size() + options.numThreads - 1) / options.numThreads;
+		ArrayList<Future<StringBuilder>> futures = new ArrayList<Future<StringBuilder>>();
+		for (int begin = 0; begin < changes.size(); begin += chunkSize) {
+			final List<String> chunk = new ArrayList<String>(changes.subList(begin,
+					Math.min(changes.size(), begin + chunkSize)));
+			futures.add(executor.submit(new Callable<StringBuilder>() {
+				public StringBuilder call() {
+					return annotateChunk(chunk);
+				}
+			}));
+		}
+		try {
+			for (Future<StringBuilder> future : futures)
+				out.append(future.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarException("Interrupted while annotating changes.", e);
+		} catch (ExecutionException e) {
+			throw new JannovarException("Problem with annotating changes.", e.getCause());
+		}
+	}
+
+	/**
+	 * Annotate <code>changes</code> with a new {@link VariantAnnotator}, as it is not thread-safe.
+	 *
+	 * @return the output records for <code>changes</code>, one line each
+	 */
+	private StringBuilder annotateChunk(List<String> changes) {
 		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions());
-		System.out.println("#change\teffect\thgvs_annotation");
-		for (String chromosomalChange : options.chromosomalChanges) {
-			// Parse the chromosomal change string into a GenomeChange object.
-			final GenomeVariant genomeChange = parseGenomeChange(chromosomalChange);
+		StringBuilder result = new StringBuilder(changes.size() * 128);
+		for (String chromosomalChange : changes) {
+			result.append(chromosomalChange).append('\t');
 
-			// Construct VariantAnnotator for building the variant annotations.
+			// Parse the chromosomal change string into a GenomeChange object and build the variant annotations.
 			VariantAnnotations annoList = null;
 			try {
+				final GenomeVariant genomeChange = changeParser.parse(chromosomalChange);
 				annoList = annotator.buildAnnotations(genomeChange);
 			} catch (Exception e) {
-				System.err.println(String.format("[ERROR] Could not annotate variant %s!", chromosomalChange));
-				e.printStackTrace(System.err);
+				result.append("ERROR\t").append(errorMessage(e)).append('\n');
 				continue;
 			}
 
 			// Obtain first or all functional annotation(s) and effect(s).
-			final String annotation;
-			final String effect;
 			VariantAnnotationsTextGenerator textGenerator;
 			if (options.showAll)
 				textGenerator = new AllAnnotationListTextGenerator(annoList, 0, 1);
 			else
 				textGenerator = new BestAnnotationListTextGenerator(annoList, 0, 1);
-			annotation = textGenerator.buildHGVSText();
-			effect = textGenerator.buildEffectText();
-
-			System.out.println(String.format("%s\t%s\t%s", chromosomalChange.toString(), effect, annotation));
+			result.append(textGenerator.buildEffectText()).append('\t').append(textGenerator.buildHGVSText())
+					.append('\n');
 		}
+		return result;
 	}
 
-	private GenomeVariant parseGenomeChange(String changeStr) throws JannovarException {
-		Pattern pat = Pattern.compile("(chr[0-9MXY]+):([0-9]+)([ACGTN]*)>([ACGTN]*)");
-		Matcher match = pat.matcher(changeStr);
-
-		if (!match.matches()) {
-			System.err.println("[ERROR] Input string for the chromosomal change " + changeStr
-					+ " does not fit the regular expression ... :(");
-			System.exit(3);
-		}
-
-		int chr = refDict.getContigNameToID().get(match.group(1));
-		int pos = Integer.parseInt(match.group(2));
-		String ref = match.group(3);
-		String alt = match.group(4);
-
-		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ONE_BASED), ref, alt);
+	/** @return message of <code>e</code> for an error record, on one line and without tabs */
+	private static String errorMessage(Exception e) {
+		final String message = (e.getMessage() == null) ? e.getClass().getSimpleName() : e.getMessage();
+		return message.replace('\t', ' ').replace('\n', ' ');
 	}
 
 	@Override
@@ -4,6 +4,7 @@ import java.io.PrintWriter;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
 import org.apache.commons.cli.ParseException;
 
 import de.charite.compbio.jannovar.JannovarOptions;
@@ -17,6 +18,16 @@ import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommandLineParser;
  */
 public class AnnotatePositionCommandLineParser extends JannovarAnnotationCommandLineParser {
 
+	@Override
+	protected void initializeParser() {
+		super.initializeParser();
+
+		options.addOption(new Option(null, "changes-file", true,
+				"read further changes from this file, one per line, \"-\" for stdin"));
+		options.addOption(new Option(null, "threads", true,
+				"number of threads for loading the database and annotating the changes (default is number of CPUs)"));
+	}
+
 	@Override
 	public JannovarOptions parse(String[] argv) throws ParseException, HelpRequestedException {
 		// Parse the command line.
@@ -37,9 +48,23 @@ public class AnnotatePositionCommandLineParser extends JannovarAnnotationCommand
 		if (cmd.hasOption("very-verbose"))
 			result.verbosity = 3;
 
+		if (cmd.hasOption("changes-file"))
+			result.changesFilePath = cmd.getOptionValue("changes-file");
+		if (cmd.hasOption("threads")) {
+			try {
+				result.numThreads = Integer.parseInt(cmd.getOptionValue("threads"));
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --threads: " + cmd.getOptionValue("threads"));
+			}
+			if (result.numThreads < 1)
+				throw new ParseException("--threads must be at least 1, was: " + result.numThreads);
+		}
+
 		String args[] = cmd.getArgs(); // get remaining arguments
-		if (args.length < 3)
+		if (result.changesFilePath == null && args.length < 3)
 			throw new ParseException("must have at least two none-option argument, had: " + (args.length - 1));
+		if (args.length < 2)
+			throw new ParseException("must have at least one none-option argument, had: " + (args.length - 1));
 
 		result.dataFile = args[1];
 
@@ -52,7 +77,8 @@ public class AnnotatePositionCommandLineParser extends JannovarAnnotationCommand
 	public void printHelp() {
 		final String HEADER = new StringBuilder().append("Jannovar Command: annotate-pos\n\n")
 				.append("Use this command to annotate a chromosomal change.\n\n")
-				.append("Usage: java -jar de.charite.compbio.jannovar.jar annotate-pos [options] <database.ser> <CHANGE>\n\n").toString();
+				.append("Usage: java -jar de.charite.compbio.jannovar.jar annotate-pos [options] <database.ser> <CHANGE>\n")
+				.append("       java -jar de.charite.compbio.jannovar.jar annotate-pos [options] --changes-file <FILE> <database.ser>\n\n").toString();
 		final String FOOTER = new StringBuilder().append(
 				"\n\nExample: java -jar de.charite.compbio.jannovar.jar annotate-pos data/hg19_ucsc.ser 'chr1:12345C>A'\n\n").toString();
 
@@ -0,0 +1,81 @@
+package de.charite.compbio.jannovar.cmd.annotate_pos;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+
+/**
+ * Parser for chromosomal changes of the form <tt>{CONTIG}:{POSITION}{REF}&gt;{ALT}</tt>, e.g.,
+ * <tt>chr1:12345C&gt;A</tt>.
+ *
+ * The contig can be given with or without the <tt>chr</tt> prefix, as <tt>M</tt> or <tt>MT</tt> for the
+ * mitochondrial genome, or by any other alias known to the {@link ReferenceDictionary} (e.g., the RefSeq accession
+ * <tt>NC_000001.10</tt>). Instances are thread-safe.
+ */
+public final class GenomeChangeParser {
+
+	/** pattern for the chromosomal changes */
+	private static final Pattern PATTERN = Pattern.compile("([^:\\s]+):([0-9]+)([ACGTN]*)>([ACGTN]*)");
+
+	/** the reference dictionary to look up the contigs in */
+	private final ReferenceDictionary refDict;
+
+	public GenomeChangeParser(ReferenceDictionary refDict) {
+		this.refDict = refDict;
+	}
+
+	/**
+	 * @param changeStr
+	 *            the chromosomal change to parse, surrounding white space is ignored
+	 * @return {@link GenomeVariant} for <code>changeStr</code>
+	 * @throws JannovarException
+	 *             if <code>changeStr</code> is malformed or its contig is unknown
+	 */
+	public GenomeVariant parse(String changeStr) throws JannovarException {
+		Matcher match = PATTERN.matcher(changeStr.trim());
+		if (!match.matches())
+			throw new JannovarException("malformed change, expected {CONTIG}:{POSITION}{REF}>{ALT}");
+
+		final Integer chr = lookupContig(match.group(1));
+		if (chr == null)
+			throw new JannovarException("unknown contig " + match.group(1));
+		final int pos;
+		try {
+			pos = Integer.parseInt(match.group(2));
+		} catch (NumberFormatException e) {
+			throw new JannovarException("invalid position " + match.group(2));
+		}
+		if (pos < 1)
+			throw new JannovarException("invalid position " + match.group(2));
+
+		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ONE_BASED),
+				match.group(3), match.group(4));
+	}
+
+	/** @return ID of contig <code>name</code>, trying common alternative spellings, <code>null</code> if unknown */
+	private Integer lookupContig(String name) {
+		Integer result = refDict.getContigNameToID().get(name);
+		if (result != null)
+			return result;
+
+		final String bare = name.startsWith("chr") ? name.substring(3) : name;
+		final String[] candidates;
+		if (bare.equals("M") || bare.equals("MT"))
+			candidates = new String[] { "M", "MT", "chrM", "chrMT" };
+		else
+			candidates = new String[] { bare, "chr" + bare };
+		for (String candidate : candidates) {
+			result = refDict.getContigNameToID().get(candidate);
+			if (result != null)
+				return result;
+		}
+		return null;
+	}
+
+}
@@ -1,18 +1,44 @@
 package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.Interval;
+import htsjdk.tribble.TribbleException;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.cli.ParseException;
 
+import com.google.common.base.Joiner;
+
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.JannovarOptions;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.HelpRequestedException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.htsjdk.ReadAheadVCFReader;
+import de.charite.compbio.jannovar.impl.jfr.JFRRecording;
+import de.charite.compbio.jannovar.impl.jfr.JFRSupport;
+import de.charite.compbio.jannovar.metrics.JMXMetricsReporter;
+import de.charite.compbio.jannovar.metrics.JSONMetricsReporter;
+import de.charite.compbio.jannovar.metrics.Metrics;
+import de.charite.compbio.jannovar.metrics.MetricsRegistry;
 
 /**
  * Run annotation steps (read in VCF, write out VCF or Jannovar file format).
@@ -21,6 +47,21 @@ import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
  */
 public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 
+	/**
+	 * number of bases to add around the regions when restricting the transcripts, such that the transcripts used for
+	 * annotating records that start before a region are kept, as for all but structural variants
+	 */
+	private static final int TRANSCRIPT_RESTRICTION_PADDING = 1000;
+
+	/** regions to restrict the annotation to, empty for annotating all records */
+	private RegionList regionList = null;
+
+	/** persistent cache for the INFO values, <code>null</code> if not used */
+	private AnnotationCache annotationCache = null;
+
+	/** whether or not to load all contigs, set when a record is on a contig that was not loaded */
+	private boolean loadAllContigs = false;
+
 	public AnnotateVCFCommand(String[] argv) throws CommandLineParsingException, HelpRequestedException {
 		super(argv);
 	}
@@ -37,42 +78,473 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 		System.err.println("Options");
 		options.print(System.err);
 
+		final JFRRecording recording = startJFRRecording();
+
+		regionList = RegionList.parse(options.intervalsBEDPath, options.regions);
 		deserializeTranscriptDefinitionFile();
+		openAnnotationCache();
+
+		final MetricsRegistry registry = setUpMetrics();
+		final long runStartTime = System.nanoTime();
+
+		final LinkedHashMap<String, Throwable> failures;
+		if (options.numParallelFiles > 1 && options.vcfFilePaths.size() > 1)
+			failures = annotateFilesConcurrently();
+		else
+			failures = annotateFilesSequentially();
+		closeAnnotationCache();
+
+		if (registry != null)
+			tearDownMetrics(registry, (System.nanoTime() - runStartTime) / 1000.0 / 1000.0 / 1000.0);
+		if (recording != null)
+			stopJFRRecording(recording);
 
+		if (!failures.isEmpty()) {
+			for (Map.Entry<String, Throwable> entry : failures.entrySet())
+				System.err.println("ERROR: annotation of \"" + entry.getKey() + "\" failed: " + entry.getValue());
+			throw new JannovarException("Annotation failed for " + failures.size() + " of "
+					+ options.vcfFilePaths.size() + " VCF files: " + Joiner.on(", ").join(failures.keySet()));
+		}
+	}
+
+	/**
+	 * Annotate the VCF files one after another, continuing with the next file if one fails.
+	 *
+	 * @return the failures by input file path, in the order of the files
+	 */
+	private LinkedHashMap<String, Throwable> annotateFilesSequentially() {
+		LinkedHashMap<String, Throwable> failures = new LinkedHashMap<String, Throwable>();
 		for (String vcfPath : options.vcfFilePaths) {
+			try {
+				annotateFile(vcfPath);
+			} catch (JannovarException e) {
+				failures.put(vcfPath, e);
+			} catch (RuntimeException e) {
+				failures.put(vcfPath, e);
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Annotate up to <code>options.numParallelFiles</code> VCF files at the same time, sharing the loaded database.
+	 *
+	 * @return the failures by input file path, in the order of the files
+	 * @throws JannovarException
+	 *             if interrupted while waiting for the annotation to finish
+	 */
+	private LinkedHashMap<String, Throwable> annotateFilesConcurrently() throws JannovarException {
+		ExecutorService executor = Executors.newFixedThreadPool(options.numParallelFiles);
+		try {
+			LinkedHashMap<String, Future<String>> futures = new LinkedHashMap<String, Future<String>>();
+			for (final String vcfPath : options.vcfFilePaths)
+				futures.put(vcfPath, executor.submit(new Callable<String>() {
+					public String call() throws JannovarException {
+						return annotateFile(vcfPath);
+					}
+				}));
+
+			LinkedHashMap<String, Throwable> failures = new LinkedHashMap<String, Throwable>();
+			for (Map.Entry<String, Future<String>> entry : futures.entrySet()) {
+				try {
+					entry.getValue().get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof Error)
+						throw (Error) e.getCause();
+					failures.put(entry.getKey(), e.getCause());
+				}
+			}
+			return failures;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarException("Interrupted while annotating VCF files.", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Annotate the VCF file at <code>vcfPath</code> with its own reader and writer, as configured in
+	 * {@link #options}.
+	 *
+	 * @return path to the output file
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private String annotateFile(String vcfPath) throws JannovarException {
+		System.err.println("Annotating VCF file \"" + vcfPath + "\"...");
+		final long startTime = System.nanoTime();
+
+		String outFileName;
+		try {
+			outFileName = annotateFileWithLoadedContigs(vcfPath);
+		} catch (UnloadedContigException e) {
+			System.err.println("Contig \"" + e.getContig() + "\" of \"" + vcfPath + "\" is not declared in its "
+					+ "header, loading all contigs and annotating the file again...");
+			loadAllContigs();
+			outFileName = annotateFileWithLoadedContigs(vcfPath);
+		}
+
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Wrote annotations to \"%s\", annotation and writing took %.2f sec.",
+				outFileName, (endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+		return outFileName;
+	}
+
+	/**
+	 * Annotate the VCF file at <code>vcfPath</code> with the currently loaded contigs.
+	 *
+	 * @return path to the output file
+	 * @throws UnloadedContigException
+	 *             if a record is on a contig that was not loaded
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private String annotateFileWithLoadedContigs(String vcfPath) throws JannovarException {
+		if (options.numShards > 0 || !regionList.isEmpty())
+			return annotateRegionsVCF(vcfPath);
+		else if (!options.jannovarFormat && options.siteMerge)
+			return annotateSiteMergeVCF(vcfPath);
+		else if (!options.jannovarFormat && options.rawVCFPassThrough
+				&& AnnotatedRawVCFWriter.canProcess(vcfPath, AnnotatedVCFWriter.buildOutFileName(vcfPath, options)))
+			return annotateRawVCF(vcfPath);
+		else
+			return annotateVCF(vcfPath);
+	}
+
+	/**
+	 * Load the transcripts of all contigs, unless done before, for annotating records on contigs that are not declared
+	 * in the header.
+	 *
+	 * The files that are annotated concurrently keep using the previously loaded contigs until they are done or also
+	 * find a record on a contig that was not loaded.
+	 *
+	 * @throws JannovarException
+	 *             on problems with loading the database
+	 */
+	private synchronized void loadAllContigs() throws JannovarException {
+		if (loadAllContigs)
+			return;
+		loadAllContigs = true;
+		deserializeTranscriptDefinitionFile();
+	}
+
+	/**
+	 * Restrict <code>data</code> to the transcripts near {@link #regionList} if configured in {@link #options}.
+	 */
+	@Override
+	protected JannovarData filterData(JannovarData data) throws JannovarException {
+		if (!options.restrictTranscripts)
+			return data;
+		final JannovarData result = data.restrictedTo(regionList.toGenomeIntervals(data.getRefDict(),
+				TRANSCRIPT_RESTRICTION_PADDING));
+		System.err.println("Restricted to " + result.getNumTranscripts() + " of " + data.getNumTranscripts()
+				+ " transcripts.");
+		return result;
+	}
+
+	/**
+	 * Only load the transcripts of the contigs in {@link #regionList} or, if no regions are given, of the contigs
+	 * declared in the headers of the input files.
+	 *
+	 * @return the contig names, <code>null</code> for loading all contigs if an input file has no contig lines, its
+	 *         header cannot be read, or a record was found on a contig that was not loaded before
+	 */
+	@Override
+	protected Collection<String> getContigsToLoad() throws JannovarException {
+		if (loadAllContigs)
+			return null;
+		LinkedHashSet<String> result = new LinkedHashSet<String>();
+		if (!regionList.isEmpty()) {
+			for (Interval interval : regionList.getIntervals())
+				result.add(interval.getSequence());
+			return result;
+		}
+
+		for (String vcfPath : options.vcfFilePaths) {
+			try {
+				VCFFileReader reader = new VCFFileReader(new File(vcfPath), false);
+				try {
+					final SAMSequenceDictionary dict = reader.getFileHeader().getSequenceDictionary();
+					if (dict == null || dict.isEmpty())
+						return null;
+					for (SAMSequenceRecord record : dict.getSequences())
+						result.add(record.getSequenceName());
+				} finally {
+					reader.close();
+				}
+			} catch (RuntimeException e) {
+				return null; // reported when annotating the file
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Open {@link #annotationCache} if configured in {@link #options}.
+	 *
+	 * @throws JannovarException
+	 *             on problems with opening the cache
+	 */
+	private void openAnnotationCache() throws JannovarException {
+		if (options.annotationCacheDir == null)
+			return;
+		annotationCache = AnnotationCache.open(options.annotationCacheDir, getDataFiles(), options,
+				options.annotationCacheMaxBytes);
+		System.err.println("Using annotation cache \"" + annotationCache.getFile() + "\"");
+	}
+
+	/**
+	 * Write out {@link #annotationCache} if it is used.
+	 *
+	 * @throws JannovarException
+	 *             on problems with writing the cache
+	 */
+	private void closeAnnotationCache() throws JannovarException {
+		if (annotationCache == null)
+			return;
+		System.err.println(String.format("Annotation cache: %d hits, %d misses.", annotationCache.getNumHits(),
+				annotationCache.getNumMisses()));
+		annotationCache.close();
+	}
+
+	/**
+	 * Start JDK Flight Recorder recording if configured in {@link #options}.
+	 *
+	 * @return the started {@link JFRRecording}, <code>null</code> if recording is disabled
+	 * @throws JannovarException
+	 *             if the JVM does not support JFR or on problems with starting the recording
+	 */
+	private JFRRecording startJFRRecording() throws JannovarException {
+		if (options.jfrPath == null)
+			return null;
+		if (!JFRSupport.isAvailable())
+			throw new JannovarException("JDK Flight Recorder is not available in this JVM, cannot use --jfr.");
+		try {
+			return new JFRRecording(options.jfrPath);
+		} catch (IOException e) {
+			throw new JannovarException("Problem with starting JFR recording.", e);
+		}
+	}
+
+	/**
+	 * Stop <code>recording</code> and write out the <code>.jfr</code> file.
+	 *
+	 * @param recording
+	 *            the recording started by {@link #startJFRRecording}
+	 * @throws JannovarException
+	 *             on problems with writing the recording
+	 */
+	private void stopJFRRecording(JFRRecording recording) throws JannovarException {
+		try {
+			recording.stop();
+		} catch (IOException e) {
+			throw new JannovarException("Problem with writing JFR recording.", e);
+		}
+		System.err.println("Wrote JFR recording to \"" + options.jfrPath + "\"");
+	}
+
+	/**
+	 * Annotate the VCF file at <code>vcfPath</code> through HTSJDK.
+	 *
+	 * The file is read through a {@link ReadAheadVCFReader} if configured in {@link #options}.
+	 *
+	 * @return path to the output file
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private String annotateVCF(String vcfPath) throws JannovarException {
+		if (options.readAheadThreads > 0 && ReadAheadVCFReader.canRead(vcfPath)) {
+			final ReadAheadVCFReader reader;
+			try {
+				reader = new ReadAheadVCFReader(new File(vcfPath), options.readAheadThreads);
+			} catch (IOException e) {
+				throw new JannovarException("Problem with opening VCF file.", e);
+			}
+			try {
+				return annotateVCF(vcfPath, reader.getFileHeader(), reader.iterator());
+			} finally {
+				reader.close();
+			}
+		} else {
 			// initialize the VCF reader
-			System.err.println("Annotating VCF...");
-			final long startTime = System.nanoTime();
 			VCFFileReader parser = new VCFFileReader(new File(vcfPath), false);
+			try {
+				return annotateVCF(vcfPath, parser.getFileHeader(), parser.iterator());
+			} finally {
+				parser.close();
+			}
+		}
+	}
 
-			AnnotatedVariantWriter writer = null;
+	/**
+	 * Annotate the records of the VCF file at <code>vcfPath</code> that overlap with {@link #regionList} or start in
+	 * the configured shard, using the index of the file.
+	 *
+	 * @return path to the output file
+	 * @throws JannovarException
+	 *             on problems with the annotation or if the VCF file has no index
+	 */
+	private String annotateRegionsVCF(String vcfPath) throws JannovarException {
+		final VCFFileReader parser;
+		try {
+			parser = new VCFFileReader(new File(vcfPath), true);
+		} catch (TribbleException e) {
+			throw new JannovarException("Could not open VCF file " + vcfPath + " with index, required for "
+					+ "--intervals, --region, and --shard.", e);
+		}
+		try {
+			final RegionList regions;
+			if (options.numShards > 0)
+				regions = RegionList.forShard(refDict, parser.getFileHeader().getSequenceDictionary(), options.shard,
+						options.numShards);
+			else
+				regions = regionList;
+			final CloseableIterator<VariantContext> it = regions.query(parser);
 			try {
-				// construct the variant writer
-				if (this.options.jannovarFormat)
-					writer = new AnnotatedJannovarWriter(refDict, chromosomeMap, vcfPath, options);
-				else
-					writer = new AnnotatedVCFWriter(refDict, parser, chromosomeMap, vcfPath, options, args);
+				return annotateVCF(vcfPath, parser.getFileHeader(), it);
+			} finally {
+				it.close();
+			}
+		} finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * Annotate the records from <code>it</code> and write them out.
+	 *
+	 * @param vcfPath
+	 *            path to the VCF file that is read
+	 * @param header
+	 *            header of the VCF file
+	 * @param it
+	 *            iterator over the records of the VCF file
+	 * @return path to the output file
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private String annotateVCF(String vcfPath, VCFHeader header, Iterator<VariantContext> it)
+			throws JannovarException {
+		AnnotatedVariantWriter writer = null;
+		try {
+			// construct the variant writer
+			if (this.options.jannovarFormat)
+				writer = new AnnotatedJannovarWriter(refDict, chromosomeMap, vcfPath, options);
+			else
+				writer = new AnnotatedVCFWriter(refDict, header, chromosomeMap, vcfPath, options, args,
+						annotationCache);
 
-				// annotate and write out all variants
-				for (VariantContext vc : parser)
-					writer.put(vc);
+			// annotate and write out all variants
+			while (true) {
+				final long readStartTime = Metrics.startTimer();
+				if (!it.hasNext())
+					break;
+				final VariantContext vc = it.next();
+				Metrics.stopTimer(Metrics.TIMER_VCF_READ, readStartTime);
+				writer.put(vc);
+			}
 
-				// close parser writer again
-				parser.close();
-				writer.close();
+			// close writer again
+			writer.close();
+		} catch (IOException e) {
+			// convert exception to JannovarException and throw
+			throw new JannovarException("Problem with VCF annotation.", e);
+		} catch (UnloadedContigException e) {
+			writer.close(); // the file is written again
+			throw e;
+		}
+		return writer.getOutFileName();
+	}
+
+	/**
+	 * Annotate the VCF file at <code>vcfPath</code> using {@link AnnotatedRawVCFWriter}.
+	 *
+	 * @return path to the output file
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private String annotateRawVCF(String vcfPath) throws JannovarException {
+		AnnotatedRawVCFWriter writer = new AnnotatedRawVCFWriter(refDict, chromosomeMap, vcfPath,
+				AnnotatedVCFWriter.buildOutFileName(vcfPath, options), options, args, annotationCache);
+		try {
+			writer.run();
+		} catch (IOException e) {
+			throw new JannovarException("Problem with VCF annotation.", e);
+		}
+		return writer.getOutFileName();
+	}
+
+	/**
+	 * Annotate the VCF file at <code>vcfPath</code> using {@link SiteMergeVCFAnnotator}.
+	 *
+	 * @return path to the output file
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private String annotateSiteMergeVCF(String vcfPath) throws JannovarException {
+		SiteMergeVCFAnnotator annotator = new SiteMergeVCFAnnotator(refDict, chromosomeMap, vcfPath, options, args,
+				annotationCache);
+		annotator.run();
+		return annotator.getOutFileName();
+	}
+
+	/**
+	 * Install a {@link MetricsRegistry} if configured in {@link #options}.
+	 *
+	 * @return the installed {@link MetricsRegistry}, <code>null</code> if metrics are disabled
+	 * @throws JannovarException
+	 *             on problems with registering the JMX MBean
+	 */
+	private MetricsRegistry setUpMetrics() throws JannovarException {
+		if (options.metricsJSONPath == null && !options.metricsJMX)
+			return null;
+		MetricsRegistry registry = new MetricsRegistry();
+		Metrics.setRegistry(registry);
+		if (options.metricsJMX) {
+			try {
+				new JMXMetricsReporter().report(registry);
 			} catch (IOException e) {
-				// convert exception to JannovarException and throw, writer can only be null here
-				parser.close();
-				throw new JannovarException("Problem with VCF annotation.", e);
+				throw new JannovarException("Problem with exposing metrics via JMX.", e);
 			}
+		}
+		return registry;
+	}
 
-			System.err.println("Wrote annotations to \"" + writer.getOutFileName() + "\"");
-			final long endTime = System.nanoTime();
-			System.err.println(String.format("Annotation and writing took %.2f sec.",
-					(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	/**
+	 * Print summary of <code>registry</code>, write out JSON file if configured, and uninstall the registry.
+	 *
+	 * @param registry
+	 *            the registry installed by {@link #setUpMetrics}
+	 * @param elapsedSeconds
+	 *            wall clock time of the annotation
+	 * @throws JannovarException
+	 *             on problems with writing the JSON file
+	 */
+	private void tearDownMetrics(MetricsRegistry registry, double elapsedSeconds) throws JannovarException {
+		Metrics.updateDerivedGauges(elapsedSeconds);
+		System.err.println(String.format("Annotated %d variants (%.1f variants/sec, %.2f annotations/variant).",
+				registry.getCounter(Metrics.COUNTER_VARIANTS).getCount(),
+				valueOrZero(registry.getGauges().get(Metrics.GAUGE_VARIANTS_PER_SECOND)),
+				valueOrZero(registry.getGauges().get(Metrics.GAUGE_ANNOTATIONS_PER_VARIANT))));
+		try {
+			if (options.metricsJSONPath != null) {
+				new JSONMetricsReporter(options.metricsJSONPath).report(registry);
+				System.err.println("Wrote metrics to \"" + options.metricsJSONPath + "\"");
+			}
+			if (options.metricsJMX)
+				new JMXMetricsReporter().unregister();
+		} catch (IOException e) {
+			throw new JannovarException("Problem with writing metrics.", e);
+		} finally {
+			Metrics.setRegistry(null);
 		}
 	}
 
+	private static double valueOrZero(Double value) {
+		return (value == null) ? 0.0 : value.doubleValue();
+	}
+
 	@Override
 	protected JannovarOptions parseCommandLine(String[] argv) throws CommandLineParsingException,
 	HelpRequestedException {
@@ -48,8 +48,98 @@ public class AnnotateVCFCommandLineParser extends JannovarAnnotationCommandLineP
 		result.writeVCFAnnotationStandardInfoFields = !cmd.hasOption("no-new-info-field");
 		result.escapeAnnField = !cmd.hasOption("no-escape-ann-field");
 		result.nt3PrimeShifting = !cmd.hasOption("no-3-prime-shifting");
+		result.rawVCFPassThrough = cmd.hasOption("raw-vcf");
+		result.siteMerge = cmd.hasOption("site-merge");
+		if (cmd.hasOption("threads")) {
+			try {
+				result.numThreads = Integer.parseInt(cmd.getOptionValue("threads"));
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --threads: " + cmd.getOptionValue("threads"));
+			}
+			if (result.numThreads < 1)
+				throw new ParseException("--threads must be at least 1, was: " + result.numThreads);
+		}
+		if (cmd.hasOption("parallel-files")) {
+			try {
+				result.numParallelFiles = Integer.parseInt(cmd.getOptionValue("parallel-files"));
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --parallel-files: " + cmd.getOptionValue("parallel-files"));
+			}
+			if (result.numParallelFiles < 1)
+				throw new ParseException("--parallel-files must be at least 1, was: " + result.numParallelFiles);
+		}
+		if (cmd.hasOption("bgzf-threads")) {
+			try {
+				result.bgzfThreads = Integer.parseInt(cmd.getOptionValue("bgzf-threads"));
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --bgzf-threads: " + cmd.getOptionValue("bgzf-threads"));
+			}
+			if (result.bgzfThreads < 1)
+				throw new ParseException("--bgzf-threads must be at least 1, was: " + result.bgzfThreads);
+		}
+		if (cmd.hasOption("read-ahead-threads")) {
+			try {
+				result.readAheadThreads = Integer.parseInt(cmd.getOptionValue("read-ahead-threads"));
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --read-ahead-threads: "
+						+ cmd.getOptionValue("read-ahead-threads"));
+			}
+			if (result.readAheadThreads < 0)
+				throw new ParseException("--read-ahead-threads must not be negative, was: " + result.readAheadThreads);
+		}
+		if (cmd.hasOption("intervals"))
+			result.intervalsBEDPath = cmd.getOptionValue("intervals");
+		if (cmd.hasOption("region"))
+			for (String region : cmd.getOptionValues("region"))
+				result.regions.add(region);
+		result.restrictTranscripts = cmd.hasOption("restrict-transcripts");
+		if (result.restrictTranscripts && result.intervalsBEDPath == null && result.regions.isEmpty())
+			throw new ParseException("--restrict-transcripts requires --intervals or --region");
+		if (cmd.hasOption("shard")) {
+			final String[] shardSpec = cmd.getOptionValue("shard").split("/");
+			try {
+				if (shardSpec.length != 2)
+					throw new NumberFormatException();
+				result.shard = Integer.parseInt(shardSpec[0]);
+				result.numShards = Integer.parseInt(shardSpec[1]);
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --shard: " + cmd.getOptionValue("shard"));
+			}
+			if (result.numShards < 1 || result.shard < 1 || result.shard > result.numShards)
+				throw new ParseException("--shard must be i/N with 1 <= i <= N, was: " + cmd.getOptionValue("shard"));
+			if (result.intervalsBEDPath != null || !result.regions.isEmpty())
+				throw new ParseException("--shard cannot be combined with --intervals or --region");
+			if (result.jannovarFormat)
+				throw new ParseException("--shard requires VCF output");
+		}
+		if (cmd.hasOption("data-file"))
+			for (String path : cmd.getOptionValues("data-file"))
+				result.additionalDataFiles.add(path);
 		if (cmd.hasOption("output-infix"))
 			result.outputInfix = cmd.getOptionValue("output-infix");
+		if (cmd.hasOption("metrics-json"))
+			result.metricsJSONPath = cmd.getOptionValue("metrics-json");
+		result.metricsJMX = cmd.hasOption("metrics-jmx");
+		if (cmd.hasOption("jfr"))
+			result.jfrPath = cmd.getOptionValue("jfr");
+		if (cmd.hasOption("annotation-cache"))
+			result.annotationCacheDir = cmd.getOptionValue("annotation-cache");
+		if (cmd.hasOption("annotation-cache-size")) {
+			final long sizeMB;
+			try {
+				sizeMB = Long.parseLong(cmd.getOptionValue("annotation-cache-size"));
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --annotation-cache-size: "
+						+ cmd.getOptionValue("annotation-cache-size"));
+			}
+			if (sizeMB < 1)
+				throw new ParseException("--annotation-cache-size must be at least 1, was: " + sizeMB);
+			result.annotationCacheMaxBytes = sizeMB * 1024 * 1024;
+		}
+		if (result.annotationCacheDir != null && result.jannovarFormat)
+			throw new ParseException("--annotation-cache requires VCF output");
+		if (result.annotationCacheDir != null && result.restrictTranscripts)
+			throw new ParseException("--annotation-cache cannot be combined with --restrict-transcripts");
 
 		String args[] = cmd.getArgs(); // get remaining arguments
 		if (args.length < 3)
@@ -82,8 +172,52 @@ public class AnnotateVCFCommandLineParser extends JannovarAnnotationCommandLineP
 				"do not escape characters in INFO field \"ANN\" (default is on)"));
 		options.addOption(new Option(null, "no-3-prime-shifting", false,
 				"disable shifting of variants towards the 3' end of the transcript (default is on)"));
+		options.addOption(new Option(null, "data-file", true,
+				"annotate against the transcripts of the given database as well, in the same INFO fields, "
+						+ "can be given multiple times (default is off)"));
 		options.addOption(new Option(null, "output-infix", true,
 				"output infix to place before .vcf/.vcf.gz/.bcf in output file name (default is \".jv\")"));
+		options.addOption(new Option(null, "raw-vcf", false,
+				"splice annotations into the raw VCF text, copying the genotype columns verbatim, for VCF input "
+						+ "and output (default is off)"));
+		options.addOption(new Option(null, "site-merge", false,
+				"annotate the unique sites first and merge the annotations into the records in a second pass, "
+						+ "for VCF output (default is off)"));
+		options.addOption(new Option(null, "threads", true,
+				"number of threads for loading the database and for annotating the unique sites with --site-merge "
+						+ "(default is number of CPUs)"));
+		options.addOption(new Option(null, "parallel-files", true,
+				"number of input VCF files to annotate at the same time, sharing one database (default is 1)"));
+		options.addOption(new Option(null, "bgzf-threads", true,
+				"number of threads for compressing .vcf.gz output (default is 1)"));
+		options.addOption(new Option(null, "read-ahead-threads", true,
+				"read and decode the input VCF file in the background, decompressing it with the given number "
+						+ "of threads (default is 0, i.e. off)"));
+		options.addOption(new Option(null, "intervals", true,
+				"only annotate the records overlapping with the regions from the given BED file, "
+						+ "requires an indexed VCF file (default is off)"));
+		options.addOption(new Option(null, "region", true,
+				"only annotate the records overlapping with the given region \"chr:from-to\" or contig \"chr\", "
+						+ "can be given multiple times, requires an indexed VCF file (default is off)"));
+		options.addOption(new Option(null, "restrict-transcripts", false,
+				"only keep the transcripts near the regions from --intervals and --region in memory "
+						+ "(default is off)"));
+		options.addOption(new Option(null, "shard", true,
+				"only annotate the records starting in shard i of the genome split into N pieces of equal length, "
+						+ "given as \"i/N\", requires an indexed VCF file, writes .shard-i-of-N.vcf.gz output for "
+						+ "merge-shards (default is off)"));
+		options.addOption(new Option(null, "metrics-json", true,
+				"collect timing and counter metrics and write them as JSON to the given path (default is off)"));
+		options.addOption(new Option(null, "metrics-jmx", false,
+				"collect timing and counter metrics and expose them via JMX during annotation (default is off)"));
+		options.addOption(new Option(null, "jfr", true,
+				"record JDK Flight Recorder events, including Jannovar's, to the given .jfr file (default is off)"));
+		options.addOption(new Option(null, "annotation-cache", true,
+				"reuse the annotations of sites from previous runs with the same database and options, stored in "
+						+ "the given directory, for VCF output without --restrict-transcripts (default is off)"));
+		options.addOption(new Option(null, "annotation-cache-size", true,
+				"maximal size of the --annotation-cache directory in MB, least recently used files are removed "
+						+ "(default is 1024)"));
 	}
 
 	private void printHelp() {
@@ -93,7 +227,9 @@ public class AnnotateVCFCommandLineParser extends JannovarAnnotationCommandLineP
 				.append("Usage: java -jar de.charite.compbio.jannovar.jar annotate [options] <database> [<IN.VCF>]+\n\n")
 				.toString();
 		final String FOOTER = new StringBuilder().append(
-				"\n\nExample: java -jar de.charite.compbio.jannovar.jar annotate data/hg19_ucsc.ser IN.vcf\n\n")
+				"\n\nExample: java -jar de.charite.compbio.jannovar.jar annotate data/hg19_ucsc.ser IN.vcf\n")
+				.append("         java -jar de.charite.compbio.jannovar.jar annotate --data-file data/hg19_ensembl.ser "
+						+ "data/hg19_refseq.ser IN.vcf\n\n")
 				.toString();
 
 		System.err.print(HEADER);
@@ -21,8 +21,11 @@ import de.charite.compbio.jannovar.annotation.VariantAnnotator;
 import de.charite.compbio.jannovar.annotation.VariantEffect;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.ContigIDCache;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.htsjdk.ContigNotLoadedException;
 import de.charite.compbio.jannovar.impl.util.PathUtil;
+import de.charite.compbio.jannovar.metrics.Metrics;
 import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.PositionType;
@@ -41,6 +44,12 @@ public class AnnotatedJannovarWriter extends AnnotatedVariantWriter {
 	 */
 	private final ReferenceDictionary refDict;
 
+	/** lookup of contig IDs in {@link #refDict} */
+	private final ContigIDCache contigIDCache;
+
+	/** the loaded chromosomes, by contig ID */
+	private final ImmutableMap<Integer, Chromosome> chromosomeMap;
+
 	/** the VCF file to process */
 	private String vcfPath;
 
@@ -59,6 +68,8 @@ public class AnnotatedJannovarWriter extends AnnotatedVariantWriter {
 	public AnnotatedJannovarWriter(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomeMap,
 			String vcfPath, JannovarOptions options) throws IOException {
 		this.refDict = refDict;
+		this.contigIDCache = new ContigIDCache(refDict);
+		this.chromosomeMap = chromosomeMap;
 		this.annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions());
 		this.vcfPath = vcfPath;
 		this.options = options;
@@ -124,9 +135,11 @@ public class AnnotatedJannovarWriter extends AnnotatedVariantWriter {
 		String chrStr = vc.getChr();
 		// Catch the case that vc.getChr() is not in ChromosomeMap.identifier2chromosom. This is the case
 		// for the "random" contigs etc. In this case, we simply ignore the record.
-		Integer boxedInt = refDict.getContigNameToID().get(vc.getChr());
+		Integer boxedInt = contigIDCache.getContigID(vc.getChr());
 		if (boxedInt == null)
 			return;
+		if (!chromosomeMap.containsKey(boxedInt))
+			throw new UnloadedContigException(new ContigNotLoadedException(chrStr));
 		int chr = boxedInt.intValue();
 
 		// FIXME(mjaeger): We should care about more than just the first alternative allele.
@@ -147,6 +160,7 @@ public class AnnotatedJannovarWriter extends AnnotatedVariantWriter {
 			throw new AnnotationException(e);
 		}
 
+		final long startTime = Metrics.startTimer();
 		for (Annotation a : anno.getAnnotations()) {
 			String effect = Joiner.on("+").join(
 					FluentIterable.from(a.getEffects()).transform(VariantEffect.TO_LEGACY_NAME));
@@ -157,6 +171,7 @@ public class AnnotatedJannovarWriter extends AnnotatedVariantWriter {
 					chrStr, change.getPos(), change.getRef(), change.getAlt(), gtype, qual);
 			out.write(s);
 		}
+		Metrics.stopTimer(Metrics.TIMER_VCF_WRITE, startTime);
 	}
 
 	/**
@@ -0,0 +1,351 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+import de.charite.compbio.jannovar.JannovarOptions;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.htsjdk.InfoFields;
+import de.charite.compbio.jannovar.htsjdk.ContigNotLoadedException;
+import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.htsjdk.ParallelBlockCompressedOutputStream;
+import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
+import de.charite.compbio.jannovar.metrics.Metrics;
+
+/**
+ * Annotate a VCF file by splicing the annotation into the raw text lines.
+ *
+ * Only the <code>CHROM</code>, <code>POS</code>, <code>REF</code>, <code>ALT</code>, and <code>INFO</code> columns of
+ * each record are tokenized. The annotation fields are appended to the INFO column (replacing previous values with the
+ * same key), all other columns, in particular <code>FORMAT</code> and the genotype columns, are copied verbatim. The
+ * header is written through HTSJDK, such that it is the same as the one written by {@link AnnotatedVCFWriter}.
+ *
+ * Records that cannot be processed on the raw text (e.g. symbolic alleles, missing <code>ALT</code> alleles, or
+ * malformed lines) are decoded, annotated, and encoded through HTSJDK. Only use this class for VCF input and output as
+ * checked by {@link #canProcess}.
+ */
+public class AnnotatedRawVCFWriter {
+
+	/** the logger object to use */
+	private static final Logger LOGGER = LoggerFactory.getLogger(AnnotatedRawVCFWriter.class);
+
+	/** counter for records that had to be processed through HTSJDK */
+	public static final String COUNTER_HTSJDK_FALLBACK = "vcf.raw.htsjdk_fallback";
+
+	/** path to VCF file to process */
+	private final String vcfPath;
+
+	/** path to the output file */
+	private final String outPath;
+
+	/** the {@link VariantContextAnnotator} to use. */
+	private final VariantContextAnnotator annotator;
+
+	/** selection of INFO fields to write */
+	private final InfoFields fields;
+
+	/** command line arguments to Jannovar */
+	private final ImmutableList<String> args;
+
+	/** number of threads for BGZF compression */
+	private final int bgzfThreads;
+
+	/** persistent cache for the INFO values, <code>null</code> if not used */
+	private final AnnotationCache cache;
+
+	/** codec for decoding records in the HTSJDK fallback, initialized from the header */
+	private final VCFCodec codec = new VCFCodec();
+
+	/** encoder for records in the HTSJDK fallback, initialized after reading the header */
+	private VCFEncoder encoder = null;
+
+	/** buffer for building the output line */
+	private final StringBuilder lineBuilder = new StringBuilder();
+
+	public AnnotatedRawVCFWriter(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomeMap,
+			String vcfPath, String outPath, JannovarOptions options, ImmutableList<String> args, AnnotationCache cache) {
+		this.fields = InfoFields.build(options.writeVCFAnnotationStandardInfoFields, options.writeJannovarInfoFields);
+		this.annotator = new VariantContextAnnotator(refDict, chromosomeMap, new VariantContextAnnotator.Options(
+				fields, !options.showAll, options.escapeAnnField, options.nt3PrimeShifting));
+		this.vcfPath = vcfPath;
+		this.outPath = outPath;
+		this.args = args;
+		this.bgzfThreads = options.bgzfThreads;
+		this.cache = cache;
+	}
+
+	/**
+	 * @return whether or not the raw text path can be used for reading <code>vcfPath</code> and writing
+	 *         <code>outPath</code>, i.e. both are plain or gzip-compressed VCF files
+	 */
+	public static boolean canProcess(String vcfPath, String outPath) {
+		return isVCFPath(vcfPath) && isVCFPath(outPath);
+	}
+
+	private static boolean isVCFPath(String path) {
+		final String lower = path.toLowerCase();
+		return lower.endsWith(".vcf") || lower.endsWith(".vcf.gz");
+	}
+
+	/**
+	 * @return path to the output file
+	 */
+	public String getOutFileName() {
+		return outPath;
+	}
+
+	/**
+	 * Read the VCF file, annotate all records, and write out the result.
+	 *
+	 * @throws IOException
+	 *             on problems with reading or writing
+	 */
+	public void run() throws IOException {
+		// Use ISO-8859-1 for a one-to-one mapping between bytes and characters such that unknown bytes are copied
+		// verbatim.
+		BufferedReader in = new BufferedReader(new InputStreamReader(IOUtil.openFileForReading(new File(vcfPath)),
+				Charsets.ISO_8859_1));
+		Writer out = null;
+		try {
+			out = new OutputStreamWriter(openOutputStream(), Charsets.ISO_8859_1);
+			processHeader(in, out);
+
+			String line;
+			while (true) {
+				final long readStartTime = Metrics.startTimer();
+				line = in.readLine();
+				if (line == null)
+					break;
+				Metrics.stopTimer(Metrics.TIMER_VCF_READ, readStartTime);
+				if (line.isEmpty())
+					continue;
+
+				lineBuilder.setLength(0);
+				if (line.startsWith("#"))
+					lineBuilder.append(line); // stray comment, copy verbatim
+				else if (!processRawLine(line))
+					processLineWithHTSJDK(line);
+
+				final long writeStartTime = Metrics.startTimer();
+				lineBuilder.append('\n');
+				out.append(lineBuilder);
+				Metrics.stopTimer(Metrics.TIMER_VCF_WRITE, writeStartTime);
+			}
+		} finally {
+			in.close();
+			if (out != null)
+				out.close();
+		}
+	}
+
+	/** @return {@link OutputStream} for {@link #outPath}, BGZF-compressed for <code>.gz</code> files */
+	private OutputStream openOutputStream() throws IOException {
+		if (outPath.toLowerCase().endsWith(".gz") && bgzfThreads > 1)
+			return new ParallelBlockCompressedOutputStream(outPath, bgzfThreads);
+		else if (outPath.toLowerCase().endsWith(".gz"))
+			return new BlockCompressedOutputStream(outPath);
+		else
+			return new BufferedOutputStream(new FileOutputStream(outPath));
+	}
+
+	/**
+	 * Read header lines from <code>in</code>, initialize {@link #codec} and {@link #encoder}, and write out the
+	 * extended header through HTSJDK.
+	 */
+	private void processHeader(BufferedReader in, Writer out) throws IOException {
+		ArrayList<String> headerLines = new ArrayList<String>();
+		String line;
+		do {
+			line = in.readLine();
+			if (line == null)
+				throw new IOException("VCF file " + vcfPath + " ends before the #CHROM header line");
+			headerLines.add(line);
+		} while (!line.startsWith("#CHROM"));
+
+		final VCFHeader header = (VCFHeader) codec.readActualHeader(new ListLineIterator(headerLines));
+
+		ImmutableSet<VCFHeaderLine> additionalLines = ImmutableSet.of(new VCFHeaderLine("jannovarVersion",
+				JannovarOptions.JANNOVAR_VERSION), new VCFHeaderLine("jannovarCommand", Joiner.on(' ').join(args)));
+		ByteArrayOutputStream headerOut = new ByteArrayOutputStream();
+		VariantContextWriter headerWriter = VariantContextWriterConstructionHelper.openVariantContextWriter(header,
+				headerOut, fields, additionalLines);
+		headerWriter.close();
+		out.write(new String(headerOut.toByteArray(), Charsets.ISO_8859_1));
+
+		this.encoder = new VCFEncoder(VariantContextWriterConstructionHelper.extendHeaderFields(new VCFHeader(
+				header), fields), true, false);
+	}
+
+	/**
+	 * Annotate the record in <code>line</code> on the raw text and write the result to {@link #lineBuilder}.
+	 *
+	 * @return <code>false</code> if the line cannot be processed on the raw text, {@link #lineBuilder} is unchanged then
+	 */
+	private boolean processRawLine(String line) {
+		// find the begin positions of the first eight columns, INFO is the last one of these
+		final int[] begins = new int[9];
+		int column = 1;
+		for (int i = 0; i < line.length() && column < 9; ++i)
+			if (line.charAt(i) == '\t')
+				begins[column++] = i + 1;
+		if (column < 8)
+			return false; // too few columns
+		final int infoEnd = (column == 9) ? begins[8] - 1 : line.length();
+
+		final String contig = line.substring(begins[0], begins[1] - 1);
+		final int pos;
+		try {
+			pos = Integer.parseInt(line.substring(begins[1], begins[2] - 1));
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		final String ref = line.substring(begins[3], begins[4] - 1).toUpperCase();
+		final String altColumn = line.substring(begins[4], begins[5] - 1);
+		if (contig.isEmpty() || !isPlainAllele(ref) || altColumn.equals("."))
+			return false;
+		ArrayList<String> alts = new ArrayList<String>();
+		for (String alt : altColumn.split(",", -1)) {
+			if (!isPlainAllele(alt))
+				return false; // symbolic or missing allele, leave to HTSJDK
+			alts.add(alt.toUpperCase());
+		}
+
+		ImmutableMap<String, String> values;
+		if (cache != null) {
+			values = cache.getInfoValues(annotator, contig, pos, ref, alts);
+		} else {
+			try {
+				values = annotator.buildInfoValues(alts, annotator.buildAnnotations(contig, pos, ref, alts));
+			} catch (ContigNotLoadedException e) {
+				throw new UnloadedContigException(e);
+			} catch (InvalidCoordinatesException e) {
+				values = annotator.buildErrorInfoValues(ImmutableSet.of(e.getAnnotationMessage()));
+			}
+		}
+
+		lineBuilder.append(line, 0, begins[7]);
+		appendInfo(line.substring(begins[7], infoEnd), values);
+		lineBuilder.append(line, infoEnd, line.length());
+		return true;
+	}
+
+	/** @return whether or not <code>allele</code> is a non-empty string of nucleotide characters as allowed by HTSJDK */
+	private static boolean isPlainAllele(String allele) {
+		if (allele.isEmpty())
+			return false;
+		for (int i = 0; i < allele.length(); ++i)
+			if ("ACGTNacgtn".indexOf(allele.charAt(i)) == -1)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Append INFO column to {@link #lineBuilder}, taking the entries from <code>info</code> except for the ones
+	 * overwritten by <code>values</code>, followed by <code>values</code>.
+	 */
+	private void appendInfo(String info, Map<String, String> values) {
+		final int lengthBefore = lineBuilder.length();
+		if (!info.equals(".")) {
+			for (String entry : info.split(";")) {
+				final int idx = entry.indexOf('=');
+				final String key = (idx == -1) ? entry : entry.substring(0, idx);
+				if (entry.isEmpty() || values.containsKey(key))
+					continue;
+				if (lineBuilder.length() != lengthBefore)
+					lineBuilder.append(';');
+				lineBuilder.append(entry);
+			}
+		}
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			if (lineBuilder.length() != lengthBefore)
+				lineBuilder.append(';');
+			lineBuilder.append(entry.getKey()).append('=').append(entry.getValue());
+		}
+		if (lineBuilder.length() == lengthBefore)
+			lineBuilder.append('.');
+	}
+
+	/**
+	 * Decode, annotate, and encode <code>line</code> through HTSJDK, in the same way as {@link AnnotatedVCFWriter}, and
+	 * write the result to {@link #lineBuilder}.
+	 */
+	private void processLineWithHTSJDK(String line) {
+		LOGGER.debug("Falling back to HTSJDK for line {}", new Object[] { line });
+		Metrics.incCounter(COUNTER_HTSJDK_FALLBACK, 1);
+
+		VariantContext vc = codec.decode(line);
+		try {
+			vc = annotator.applyAnnotations(vc, annotator.buildAnnotations(vc));
+		} catch (ContigNotLoadedException e) {
+			throw new UnloadedContigException(e);
+		} catch (InvalidCoordinatesException e) {
+			annotator.putErrorAnnotation(vc, ImmutableSet.of(e.getAnnotationMessage()));
+		}
+		vc.getCommonInfo().removeAttribute(""); // remove leading/trailing comma
+		lineBuilder.append(encoder.encode(vc));
+	}
+
+	/**
+	 * {@link LineIterator} over a list of header lines, for {@link VCFCodec#readActualHeader}.
+	 */
+	private static class ListLineIterator implements LineIterator {
+
+		private final PeekingIterator<String> it;
+
+		ListLineIterator(List<String> lines) {
+			this.it = Iterators.peekingIterator(lines.iterator());
+		}
+
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		public String next() {
+			return it.next();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public String peek() {
+			return it.peek();
+		}
+
+	}
+
+}
@@ -3,9 +3,12 @@ package de.charite.compbio.jannovar.cmd.annotate_vcf;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Map;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
@@ -16,10 +19,13 @@ import de.charite.compbio.jannovar.JannovarOptions;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.htsjdk.InfoFields;
+import de.charite.compbio.jannovar.htsjdk.ContigNotLoadedException;
 import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+import de.charite.compbio.jannovar.htsjdk.ParallelBlockCompressedOutputStream;
 import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
 import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
 import de.charite.compbio.jannovar.impl.util.PathUtil;
+import de.charite.compbio.jannovar.metrics.Metrics;
 
 /**
  * Annotate variant in {@link VariantContext} and write out through HTSJDK (i.e. in VCF/BCF format).
@@ -42,14 +48,24 @@ public class AnnotatedVCFWriter extends AnnotatedVariantWriter {
 	/** writer for annotated VariantContext objects */
 	private final VariantContextWriter out;
 
+	/** persistent cache for the INFO values, <code>null</code> if not used */
+	private final AnnotationCache cache;
+
 	/** command line arguments to Jannovar */
 	@SuppressWarnings("unused")
 	private final ImmutableList<String> args;
 
 	public AnnotatedVCFWriter(ReferenceDictionary refDict, VCFFileReader reader,
 			ImmutableMap<Integer, Chromosome> chromosomeMap, String vcfPath, JannovarOptions options,
-			ImmutableList<String> args) {
+			ImmutableList<String> args) throws IOException {
+		this(refDict, reader.getFileHeader(), chromosomeMap, vcfPath, options, args, null);
+	}
+
+	public AnnotatedVCFWriter(ReferenceDictionary refDict, VCFHeader header,
+			ImmutableMap<Integer, Chromosome> chromosomeMap, String vcfPath, JannovarOptions options,
+			ImmutableList<String> args, AnnotationCache cache) throws IOException {
 		this.refDict = refDict;
+		this.cache = cache;
 		this.annotator = new VariantContextAnnotator(refDict, chromosomeMap, new VariantContextAnnotator.Options(
 				InfoFields.build(options.writeVCFAnnotationStandardInfoFields, options.writeJannovarInfoFields),
 				!options.showAll, options.escapeAnnField, options.nt3PrimeShifting));
@@ -61,8 +77,13 @@ public class AnnotatedVCFWriter extends AnnotatedVariantWriter {
 				options.writeJannovarInfoFields);
 		ImmutableSet<VCFHeaderLine> additionalLines = ImmutableSet.of(new VCFHeaderLine("jannovarVersion",
 				JannovarOptions.JANNOVAR_VERSION), new VCFHeaderLine("jannovarCommand", Joiner.on(' ').join(args)));
-		this.out = VariantContextWriterConstructionHelper.openVariantContextWriter(reader.getFileHeader(),
-				getOutFileName(), fields, additionalLines);
+		final String outFileName = getOutFileName();
+		if (options.bgzfThreads > 1 && outFileName.toLowerCase().endsWith(".vcf.gz"))
+			this.out = VariantContextWriterConstructionHelper.openVariantContextWriter(header,
+					new ParallelBlockCompressedOutputStream(outFileName, options.bgzfThreads), fields, additionalLines);
+		else
+			this.out = VariantContextWriterConstructionHelper.openVariantContextWriter(header,
+					outFileName, fields, additionalLines);
 	}
 
 	/**
@@ -78,6 +99,19 @@ public class AnnotatedVCFWriter extends AnnotatedVariantWriter {
 	 */
 	@Override
 	public String getOutFileName() {
+		return buildOutFileName(vcfPath, options);
+	}
+
+	/**
+	 * Implementation of {@link #getOutFileName}, also used for {@link AnnotatedRawVCFWriter}.
+	 *
+	 * @param vcfPath
+	 *            path to the input VCF file
+	 * @param options
+	 *            configuration to use
+	 * @return output file name
+	 */
+	public static String buildOutFileName(String vcfPath, JannovarOptions options) {
 		File f = new File(vcfPath);
 		String outname = f.getName();
 		if (options.outVCFFolder != null)
@@ -90,22 +124,57 @@ public class AnnotatedVCFWriter extends AnnotatedVariantWriter {
 			if (outname.endsWith(x))
 				suffix = x;
 
+		// shards are always written as BGZF files for concatenation
+		String infix = options.outputInfix;
+		String outSuffix = suffix;
+		if (options.numShards > 0) {
+			infix += ".shard-" + options.shard + "-of-" + options.numShards;
+			outSuffix = ".vcf.gz";
+		}
+
 		int i = outname.toLowerCase().lastIndexOf(suffix);
 		if (i < 0)
-			return outname + options.outputInfix + ".vcf.gz";
+			return outname + infix + ".vcf.gz";
 		else
-			return outname.substring(0, i) + options.outputInfix + suffix;
+			return outname.substring(0, i) + infix + outSuffix;
 	}
 
 	@Override
 	public void put(VariantContext vc) {
+		if (cache != null) {
+			put(vc, cache.getInfoValues(annotator, vc));
+			return;
+		}
 		try {
 			vc = annotator.applyAnnotations(vc, annotator.buildAnnotations(vc));
+		} catch (ContigNotLoadedException e) {
+			throw new UnloadedContigException(e);
 		} catch (InvalidCoordinatesException e) {
 			annotator.putErrorAnnotation(vc, ImmutableSet.of(e.getAnnotationMessage()));
 		}
+		write(vc);
+	}
+
+	/**
+	 * Write out the given VariantContext with INFO values that were computed before, e.g. through
+	 * {@link VariantContextAnnotator#buildInfoValues}.
+	 *
+	 * @param vc
+	 *            the {@link VariantContext} to write
+	 * @param infoValues
+	 *            INFO values to put into <code>vc</code>, overwriting previous values
+	 */
+	public void put(VariantContext vc, Map<String, String> infoValues) {
+		for (Map.Entry<String, String> entry : infoValues.entrySet())
+			vc.getCommonInfo().putAttribute(entry.getKey(), entry.getValue(), true); // true allows overwriting
+		write(vc);
+	}
+
+	private void write(VariantContext vc) {
 		vc.getCommonInfo().removeAttribute(""); // remove leading/trailing comma
+		final long startTime = Metrics.startTimer();
 		out.add(vc);
+		Metrics.stopTimer(Metrics.TIMER_VCF_WRITE, startTime);
 	}
 
 	/** Close VariantContextWriter in out. */
@@ -0,0 +1,571 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CountingOutputStream;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.JannovarOptions;
+import de.charite.compbio.jannovar.htsjdk.ContigNotLoadedException;
+import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.metrics.Metrics;
+
+/**
+ * Persistent cache of the INFO values written for VCF sites, shared between runs.
+ *
+ * The cache maps the site (<code>CHROM</code>, <code>POS</code>, <code>REF</code>, <code>ALT</code>) to the INFO
+ * values built by {@link VariantContextAnnotator#buildInfoValues}. There is one file per database and configuration in
+ * the cache directory. Its name contains a checksum of the serialized database files and of the options that influence
+ * the INFO values, including the Jannovar version. Thus, the cache is invalidated when a <code>.ser</code> file or the
+ * options change.
+ *
+ * The file consists of a header, the records, a footer with a hash index (64 bit hash of the site and record offset),
+ * and the offset of the footer. On opening, only the footer is read, records are read on lookup. Sites that were not
+ * found are annotated and added in memory as encoded records, except for sites on unknown contigs. The new records
+ * are only kept as long as their total size is within the bound of the cache directory, since more could not be
+ * written anyway. On {@link #close}, a new file is written to a temporary file and moved over the old one atomically,
+ * such that concurrent readers (that have the old file open) are not affected. If two processes update the same cache
+ * file, the one that finishes last wins.
+ *
+ * The total size of the cache directory is bounded. When writing a file, the records that were accessed in this run
+ * and the new ones are written first, then the remaining old records, each only as long as the file stays within the
+ * bound. Afterwards, the least recently used cache files (including the current one, e.g. when the bound was lowered)
+ * are removed until the directory size is within the bound.
+ */
+public final class AnnotationCache {
+
+	/** counter for sites whose INFO values were found in the cache */
+	public static final String COUNTER_HITS = "annotation_cache.hits";
+
+	/** counter for sites that were annotated since they were not found in the cache */
+	public static final String COUNTER_MISSES = "annotation_cache.misses";
+
+	/** magic number at the beginning and the end of cache files */
+	private static final int MAGIC = 0x4a564143; // "JVAC"
+
+	/** version of the file format, version 1 files might contain errors for contigs that were not loaded */
+	private static final int FORMAT_VERSION = 2;
+
+	/** file name extension of the cache files */
+	private static final String EXTENSION = ".jvcache";
+
+	/** size of the trailer, footer offset and magic number */
+	private static final int TRAILER_SIZE = 8 + 4;
+
+	/** the cache file */
+	private final File file;
+
+	/** maximal size of the cache directory in bytes */
+	private final long maxBytes;
+
+	/** channel for reading records from the cache file, <code>null</code> if there is no cache file yet */
+	private final FileChannel channel;
+
+	/** open-addressing hash table with the 64 bit hashes of the sites in the cache file, <code>0</code> is empty */
+	private final long[] tableHashes;
+
+	/** offsets of the records for {@link #tableHashes} in the cache file */
+	private final long[] tableOffsets;
+
+	/** whether or not the record in the slot of {@link #tableHashes} was accessed in this run */
+	private final boolean[] tableAccessed;
+
+	/** number of records in the cache file */
+	private final int numRecords;
+
+	/** records of the sites that were not found in the cache file, as built by {@link #encodeRecord}, by site hash */
+	private final ConcurrentHashMap<Long, byte[]> added = new ConcurrentHashMap<Long, byte[]>();
+
+	/** total size of the records in {@link #added} in the cache file, at most {@link #maxBytes} */
+	private final AtomicLong addedBytes = new AtomicLong();
+
+	/** number of cache hits */
+	private final AtomicLong numHits = new AtomicLong();
+
+	/** number of cache misses */
+	private final AtomicLong numMisses = new AtomicLong();
+
+	/**
+	 * Open cache file for the given database and configuration in <code>cacheDir</code>, creating the directory if
+	 * necessary.
+	 *
+	 * @param cacheDir
+	 *            path to the cache directory
+	 * @param dataFiles
+	 *            paths to the serialized database files, their contents are checksummed
+	 * @param options
+	 *            configuration, the values that influence the INFO values are part of the cache file name
+	 * @param maxBytes
+	 *            maximal size of the cache directory in bytes
+	 * @throws JannovarException
+	 *             on problems with creating the directory or reading the cache file
+	 */
+	public static AnnotationCache open(String cacheDir, List<String> dataFiles, JannovarOptions options,
+			long maxBytes) throws JannovarException {
+		final File dir = new File(cacheDir);
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new JannovarException("Could not create annotation cache directory " + cacheDir);
+		StringBuilder name = new StringBuilder("jv-");
+		for (String dataFile : dataFiles) {
+			try {
+				name.append(checksumFile(new File(dataFile))).append('-');
+			} catch (IOException e) {
+				throw new JannovarException("Problem with computing checksum of " + dataFile, e);
+			}
+		}
+		name.append(checksumOptions(options)).append(EXTENSION);
+		try {
+			return new AnnotationCache(new File(dir, name.toString()), maxBytes);
+		} catch (IOException e) {
+			throw new JannovarException("Problem with reading annotation cache " + name, e);
+		}
+	}
+
+	/**
+	 * Open the cache file <code>file</code>, an empty cache is used if the file does not exist or is invalid.
+	 *
+	 * @param file
+	 *            the cache file
+	 * @param maxBytes
+	 *            maximal size of the cache directory in bytes
+	 */
+	AnnotationCache(File file, long maxBytes) throws IOException {
+		this.file = file;
+		this.maxBytes = maxBytes;
+
+		FileChannel channel = null;
+		long[] hashes = new long[0];
+		long[] offsets = new long[0];
+		if (file.exists()) {
+			channel = new RandomAccessFile(file, "r").getChannel();
+			final ByteBuffer footer = readFooter(channel);
+			if (footer == null) {
+				System.err.println("WARNING: ignoring invalid annotation cache file " + file);
+				channel.close();
+				channel = null;
+			} else {
+				final int count = footer.getInt();
+				hashes = new long[count];
+				offsets = new long[count];
+				for (int i = 0; i < count; ++i) {
+					hashes[i] = footer.getLong();
+					offsets[i] = footer.getLong();
+				}
+			}
+		}
+		this.channel = channel;
+		this.numRecords = hashes.length;
+
+		int tableSize = 16;
+		while (tableSize < 2 * numRecords)
+			tableSize *= 2;
+		this.tableHashes = new long[tableSize];
+		this.tableOffsets = new long[tableSize];
+		this.tableAccessed = new boolean[tableSize];
+		for (int i = 0; i < numRecords; ++i) {
+			int slot = slotFor(hashes[i]);
+			while (tableHashes[slot] != 0)
+				slot = (slot + 1) & (tableSize - 1);
+			tableHashes[slot] = hashes[i];
+			tableOffsets[slot] = offsets[i];
+		}
+	}
+
+	/** @return the cache file */
+	public File getFile() {
+		return file;
+	}
+
+	/** @return number of cache hits so far */
+	public long getNumHits() {
+		return numHits.get();
+	}
+
+	/** @return number of cache misses so far */
+	public long getNumMisses() {
+		return numMisses.get();
+	}
+
+	/**
+	 * Return the INFO values for <code>vc</code> from the cache or annotate it with <code>annotator</code> and add the
+	 * result to the cache.
+	 *
+	 * @param annotator
+	 *            the {@link VariantContextAnnotator} to use on cache misses
+	 * @param vc
+	 *            the record to get the INFO values for
+	 * @return INFO values for <code>vc</code>, as built by {@link VariantContextAnnotator#buildInfoValues}
+	 */
+	public ImmutableMap<String, String> getInfoValues(VariantContextAnnotator annotator, VariantContext vc) {
+		ArrayList<String> alts = new ArrayList<String>(vc.getAlternateAlleles().size());
+		for (Allele allele : vc.getAlternateAlleles())
+			alts.add(allele.getBaseString());
+		return getInfoValues(annotator, vc.getChr(), vc.getStart(), vc.getReference().getBaseString(), alts);
+	}
+
+	/**
+	 * Return the INFO values for the given site from the cache or annotate it with <code>annotator</code> and add the
+	 * result to the cache.
+	 *
+	 * This function is thread-safe, the <code>annotator</code> must only be used by the calling thread.
+	 *
+	 * @param annotator
+	 *            the {@link VariantContextAnnotator} to use on cache misses
+	 * @param contig
+	 *            name of the contig, as in the <code>CHROM</code> column
+	 * @param pos
+	 *            one-based position, as in the <code>POS</code> column
+	 * @param ref
+	 *            reference allele, as in the <code>REF</code> column
+	 * @param alts
+	 *            the alternative alleles from the <code>ALT</code> column
+	 * @return INFO values for the site, as built by {@link VariantContextAnnotator#buildInfoValues}
+	 */
+	public ImmutableMap<String, String> getInfoValues(VariantContextAnnotator annotator, String contig, int pos,
+			String ref, List<String> alts) {
+		final String key = buildKey(contig, pos, ref, alts);
+		ImmutableMap<String, String> values = get(key);
+		if (values != null) {
+			numHits.incrementAndGet();
+			Metrics.incCounter(COUNTER_HITS, 1);
+			return values;
+		}
+
+		numMisses.incrementAndGet();
+		Metrics.incCounter(COUNTER_MISSES, 1);
+		try {
+			values = annotator.buildInfoValues(alts, annotator.buildAnnotations(contig, pos, ref, alts));
+		} catch (ContigNotLoadedException e) {
+			throw new UnloadedContigException(e);
+		} catch (InvalidCoordinatesException e) {
+			// not cached, whether or not a contig is known depends on the loaded contigs
+			return annotator.buildErrorInfoValues(ImmutableSet.of(e.getAnnotationMessage()));
+		}
+		add(key, values);
+		return values;
+	}
+
+	/**
+	 * Add record for <code>key</code> to {@link #added} unless this would exceed {@link #maxBytes}.
+	 *
+	 * On the unlikely collision of the hashes of two keys, only the first one is kept.
+	 */
+	private void add(String key, ImmutableMap<String, String> values) {
+		final byte[] record = encodeRecord(key, values);
+		final long size = 4 + record.length;
+		if (addedBytes.addAndGet(size) > maxBytes || added.putIfAbsent(hash(key), record) != null)
+			addedBytes.addAndGet(-size);
+	}
+
+	/** @return key of the site in the cache */
+	static String buildKey(String contig, int pos, String ref, List<String> alts) {
+		return new StringBuilder().append(contig).append('\t').append(pos).append('\t').append(ref).append('\t')
+				.append(Joiner.on(',').join(alts)).toString();
+	}
+
+	/**
+	 * @param key
+	 *            key of the site, as built by {@link #buildKey}
+	 * @return INFO values for the site with the given key, <code>null</code> if not in the cache
+	 */
+	ImmutableMap<String, String> get(String key) {
+		final long hash = hash(key);
+		final byte[] addedRecord = added.get(hash);
+		if (addedRecord != null) {
+			final ByteBuffer record = ByteBuffer.wrap(addedRecord);
+			if (readString(record).equals(key))
+				return readValues(record);
+		}
+		if (numRecords == 0)
+			return null;
+
+		int slot = slotFor(hash);
+		while (tableHashes[slot] != 0) {
+			if (tableHashes[slot] == hash) {
+				try {
+					final ByteBuffer record = readRecord(tableOffsets[slot]);
+					if (readString(record).equals(key)) {
+						tableAccessed[slot] = true;
+						return readValues(record);
+					}
+				} catch (IOException e) {
+					throw new RuntimeException("Problem with reading annotation cache " + file, e);
+				}
+			}
+			slot = (slot + 1) & (tableHashes.length - 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Write out the cache file if there are new records, and remove least recently used cache files if the cache
+	 * directory is larger than the bound.
+	 *
+	 * @throws JannovarException
+	 *             on problems with writing the cache file
+	 */
+	public void close() throws JannovarException {
+		try {
+			if (added.isEmpty()) {
+				if (file.exists())
+					file.setLastModified(System.currentTimeMillis());
+			} else {
+				writeFile();
+			}
+			if (channel != null)
+				channel.close();
+			evictFiles();
+		} catch (IOException e) {
+			throw new JannovarException("Problem with writing annotation cache " + file, e);
+		}
+	}
+
+	/**
+	 * Write accessed old records, new records, and the other old records as long as the file stays within
+	 * {@link #maxBytes} to a temporary file and move it over {@link #file}.
+	 */
+	private void writeFile() throws IOException {
+		final File tmpFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+		boolean success = false;
+		try {
+			final CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tmpFile), 1024 * 1024));
+			final DataOutputStream out = new DataOutputStream(counter);
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+
+			final int maxRecords = numRecords + added.size();
+			long[] hashes = new long[maxRecords];
+			long[] offsets = new long[maxRecords];
+			int count = 0;
+
+			// first pass: accessed old records and new records, second pass: other old records, each if there is space
+			// for the record and the footer entries of all records written so far
+			for (int pass = 0; pass < 2; ++pass) {
+				for (int slot = 0; slot < tableHashes.length; ++slot) {
+					if (tableHashes[slot] == 0 || tableAccessed[slot] != (pass == 0))
+						continue;
+					final ByteBuffer record = readRecord(tableOffsets[slot]);
+					if (!fits(counter.getCount(), record.remaining(), count))
+						continue;
+					hashes[count] = tableHashes[slot];
+					offsets[count++] = counter.getCount();
+					out.writeInt(record.remaining());
+					out.write(record.array(), record.arrayOffset() + record.position(), record.remaining());
+				}
+				if (pass == 0) {
+					for (Map.Entry<Long, byte[]> entry : added.entrySet()) {
+						final byte[] record = entry.getValue();
+						if (!fits(counter.getCount(), record.length, count))
+							continue;
+						hashes[count] = entry.getKey();
+						offsets[count++] = counter.getCount();
+						out.writeInt(record.length);
+						out.write(record);
+					}
+				}
+			}
+
+			final long footerOffset = counter.getCount();
+			out.writeInt(count);
+			for (int i = 0; i < count; ++i) {
+				out.writeLong(hashes[i]);
+				out.writeLong(offsets[i]);
+			}
+			out.writeLong(footerOffset);
+			out.writeInt(MAGIC);
+			out.close();
+
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			success = true;
+		} finally {
+			if (!success)
+				tmpFile.delete();
+		}
+	}
+
+	/**
+	 * @param offset
+	 *            current size of the file
+	 * @param length
+	 *            length of the record to write
+	 * @param count
+	 *            number of records written so far
+	 * @return whether or not the file stays within {@link #maxBytes} after writing the record
+	 */
+	private boolean fits(long offset, int length, int count) {
+		return offset + 4 + length + 4 + 16L * (count + 1) + TRAILER_SIZE <= maxBytes;
+	}
+
+	/** Remove least recently used cache files until the directory is within the size bound. */
+	private void evictFiles() {
+		File[] files = file.getParentFile().listFiles();
+		if (files == null)
+			return;
+		ArrayList<File> cacheFiles = new ArrayList<File>();
+		for (File f : files)
+			if (f.getName().endsWith(EXTENSION))
+				cacheFiles.add(f);
+		Collections.sort(cacheFiles, new Comparator<File>() {
+			public int compare(File lhs, File rhs) {
+				return Long.compare(rhs.lastModified(), lhs.lastModified());
+			}
+		});
+
+		long total = 0;
+		for (File f : cacheFiles) {
+			total += f.length();
+			if (total > maxBytes) {
+				System.err.println("Removing least recently used annotation cache file " + f);
+				f.delete();
+			}
+		}
+	}
+
+	/** @return the footer of the cache file, positioned after the footer offset, <code>null</code> if invalid */
+	private static ByteBuffer readFooter(FileChannel channel) throws IOException {
+		final long size = channel.size();
+		if (size < 8 + 4 + TRAILER_SIZE)
+			return null;
+		final ByteBuffer header = readFully(channel, 0, 8);
+		if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION)
+			return null;
+		final ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+		final long footerOffset = trailer.getLong();
+		if (trailer.getInt() != MAGIC || footerOffset < 8 || footerOffset > size - TRAILER_SIZE - 4)
+			return null;
+		final ByteBuffer footer = readFully(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset));
+		if (footer.getInt(0) * 16L + 4 != footer.remaining())
+			return null;
+		return footer;
+	}
+
+	/** @return record at <code>offset</code> in the cache file, without the length */
+	private ByteBuffer readRecord(long offset) throws IOException {
+		final int length = readFully(channel, offset, 4).getInt();
+		return readFully(channel, offset + 4, length);
+	}
+
+	/** @return buffer with <code>length</code> bytes from <code>channel</code>, starting at <code>offset</code> */
+	private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			// positional reads are thread-safe
+			if (channel.read(buffer, offset + buffer.position()) < 0)
+				throw new IOException("Unexpected end of annotation cache file");
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * @return record with <code>key</code>, the number of <code>values</code>, and the keys and values, without the
+	 *         length; strings are stored as their length and UTF-8 bytes
+	 */
+	static byte[] encodeRecord(String key, ImmutableMap<String, String> values) {
+		ArrayList<byte[]> strings = new ArrayList<byte[]>();
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			strings.add(entry.getKey().getBytes(Charsets.UTF_8));
+			strings.add(entry.getValue().getBytes(Charsets.UTF_8));
+		}
+		final byte[] keyBytes = key.getBytes(Charsets.UTF_8);
+		int length = 4 + keyBytes.length + 4;
+		for (byte[] str : strings)
+			length += 4 + str.length;
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.putInt(keyBytes.length).put(keyBytes);
+		buffer.putInt(values.size());
+		for (byte[] str : strings)
+			buffer.putInt(str.length).put(str);
+		return buffer.array();
+	}
+
+	/** @return the INFO values from <code>record</code>, positioned after the key */
+	private static ImmutableMap<String, String> readValues(ByteBuffer record) {
+		final int count = record.getInt();
+		ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+		for (int i = 0; i < count; ++i)
+			builder.put(readString(record), readString(record));
+		return builder.build();
+	}
+
+	/** @return string at the current position of <code>buffer</code>, advancing the position */
+	private static String readString(ByteBuffer buffer) {
+		final int length = buffer.getInt();
+		final String result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+				Charsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return result;
+	}
+
+	/** @return 64 bit hash of <code>key</code>, never <code>0</code> */
+	private static long hash(String key) {
+		final long result = Hashing.murmur3_128().hashString(key, Charsets.UTF_8).asLong();
+		return (result == 0) ? 1 : result;
+	}
+
+	private int slotFor(long hash) {
+		return (int) (hash ^ (hash >>> 32)) & (tableHashes.length - 1);
+	}
+
+	/** @return hex string with the CRC32 checksum and the length of <code>file</code> */
+	private static String checksumFile(File file) throws IOException {
+		final CRC32 crc = new CRC32();
+		final byte[] buffer = new byte[1024 * 1024];
+		final InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			int n;
+			while ((n = in.read(buffer)) > 0)
+				crc.update(buffer, 0, n);
+		} finally {
+			in.close();
+		}
+		return Long.toHexString(crc.getValue()) + "-" + Long.toHexString(file.length());
+	}
+
+	/**
+	 * @return hex string with the checksum of the values of <code>options</code> that influence the INFO values;
+	 *         <code>restrictTranscripts</code> is not included since it cannot be combined with the cache
+	 */
+	private static String checksumOptions(JannovarOptions options) {
+		final String values = Joiner.on('|').join(
+				ImmutableList.of(JannovarOptions.JANNOVAR_VERSION, options.writeVCFAnnotationStandardInfoFields,
+						options.writeJannovarInfoFields, options.showAll, options.escapeAnnField,
+						options.nt3PrimeShifting));
+		final CRC32 crc = new CRC32();
+		crc.update(values.getBytes(Charsets.UTF_8));
+		return Long.toHexString(crc.getValue());
+	}
+
+}
@@ -0,0 +1,427 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Interval;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+
+/**
+ * List of genomic regions to restrict the annotation to, overlapping and adjacent regions are merged.
+ *
+ * The regions are given as HTSJDK {@link Interval}s with one-based, inclusive coordinates. On each contig, they are
+ * sorted by position, the contigs are in the order of their first occurence.
+ *
+ * A region list can also describe one shard of the genome, see {@link #forShard}. Then, each record is only returned
+ * for the shard that it starts in, such that the shards are disjoint.
+ */
+public final class RegionList {
+
+	/** the merged regions */
+	private final ImmutableList<Interval> intervals;
+
+	/** whether or not this is a shard, i.e. only records starting in the regions are returned, in the regions' order */
+	private final boolean isShard;
+
+	/**
+	 * Construct region list from the given intervals, merging overlapping and adjacent ones.
+	 *
+	 * @param intervals
+	 *            the {@link Interval}s to build the list from
+	 */
+	public RegionList(Collection<Interval> intervals) {
+		this(intervals, false);
+	}
+
+	private RegionList(Collection<Interval> intervals, boolean isShard) {
+		this.intervals = merge(intervals);
+		this.isShard = isShard;
+	}
+
+	/**
+	 * Build region list for shard <code>shard</code> of <code>numShards</code>.
+	 *
+	 * The contigs of <code>refDict</code> are concatenated in the order of their IDs and cut into
+	 * <code>numShards</code> pieces of the same length. Each contig is referred to by the names that it has in
+	 * <code>vcfDict</code> or, if <code>vcfDict</code> is <code>null</code> or empty, by all of its names in
+	 * <code>refDict</code>. Contigs in <code>vcfDict</code> that are unknown in <code>refDict</code> are added to the
+	 * last shard.
+	 *
+	 * @param refDict
+	 *            {@link ReferenceDictionary} with the contig lengths
+	 * @param vcfDict
+	 *            sequence dictionary of the VCF file, may be <code>null</code>
+	 * @param shard
+	 *            one-based number of the shard
+	 * @param numShards
+	 *            total number of shards
+	 * @return the regions of the shard
+	 */
+	public static RegionList forShard(ReferenceDictionary refDict, SAMSequenceDictionary vcfDict, int shard,
+			int numShards) {
+		final boolean useVCFNames = (vcfDict != null && !vcfDict.isEmpty());
+		// names of each contig, in the order of their IDs
+		final TreeMap<Integer, ArrayList<String>> names = new TreeMap<Integer, ArrayList<String>>();
+		for (Integer id : refDict.getContigIDToLength().keySet())
+			names.put(id, new ArrayList<String>());
+		final ArrayList<Interval> unknown = new ArrayList<Interval>();
+		if (useVCFNames) {
+			for (SAMSequenceRecord record : vcfDict.getSequences()) {
+				final Integer id = refDict.getContigNameToID().get(record.getSequenceName());
+				if (id != null && names.containsKey(id))
+					names.get(id).add(record.getSequenceName());
+				else
+					unknown.add(new Interval(record.getSequenceName(), 1, Integer.MAX_VALUE));
+			}
+		} else {
+			for (Map.Entry<String, Integer> entry : refDict.getContigNameToID().entrySet())
+				if (names.containsKey(entry.getValue()))
+					names.get(entry.getValue()).add(entry.getKey());
+		}
+
+		long totalLength = 0;
+		for (Integer id : names.keySet())
+			totalLength += refDict.getContigIDToLength().get(id);
+		final long shardBegin = totalLength * (shard - 1) / numShards;
+		final long shardEnd = totalLength * shard / numShards;
+
+		final ArrayList<Interval> intervals = new ArrayList<Interval>();
+		long offset = 0;
+		for (Map.Entry<Integer, ArrayList<String>> entry : names.entrySet()) {
+			final int length = refDict.getContigIDToLength().get(entry.getKey());
+			final long begin = Math.max(shardBegin, offset);
+			final long end = Math.min(shardEnd, offset + length);
+			if (begin < end)
+				for (String name : entry.getValue()) {
+					// the last base of a contig may be followed by records, e.g. on circular contigs
+					final int to = (offset + length == end) ? Integer.MAX_VALUE : (int) (end - offset);
+					intervals.add(new Interval(name, (int) (begin - offset) + 1, to));
+				}
+			offset += length;
+		}
+		if (shard == numShards)
+			intervals.addAll(unknown);
+		return new RegionList(intervals, true);
+	}
+
+	/**
+	 * Build region list from a BED file and region strings.
+	 *
+	 * @param bedPath
+	 *            path to BED file, <code>null</code> for none
+	 * @param regions
+	 *            region strings, see {@link #parseRegion}
+	 * @return the resulting {@link RegionList}
+	 * @throws JannovarException
+	 *             on problems with reading the BED file or parsing the regions
+	 */
+	public static RegionList parse(String bedPath, List<String> regions) throws JannovarException {
+		ArrayList<Interval> intervals = new ArrayList<Interval>();
+		if (bedPath != null)
+			intervals.addAll(readBED(bedPath));
+		for (String region : regions)
+			intervals.add(parseRegion(region));
+		return new RegionList(intervals);
+	}
+
+	/**
+	 * Parse region string of the form <code>"chr1:1,000-2,000"</code> (one-based, inclusive) or <code>"chr1"</code>
+	 * (the whole contig).
+	 *
+	 * @param region
+	 *            the region string to parse
+	 * @return the corresponding {@link Interval}
+	 * @throws JannovarException
+	 *             if the region string is invalid
+	 */
+	public static Interval parseRegion(String region) throws JannovarException {
+		final int colonPos = region.lastIndexOf(':');
+		if (colonPos < 0)
+			return new Interval(region, 1, Integer.MAX_VALUE);
+
+		final String contig = region.substring(0, colonPos);
+		final String[] range = region.substring(colonPos + 1).replace(",", "").split("-");
+		try {
+			if (contig.isEmpty() || range.length != 2)
+				throw new NumberFormatException();
+			final int from = Integer.parseInt(range[0]);
+			final int to = Integer.parseInt(range[1]);
+			if (from < 1 || to < from)
+				throw new NumberFormatException();
+			return new Interval(contig, from, to);
+		} catch (NumberFormatException e) {
+			throw new JannovarException("Invalid region \"" + region + "\", must be \"chr:from-to\" or \"chr\".");
+		}
+	}
+
+	/**
+	 * Read the regions from a BED file, converting the zero-based half-open BED intervals to one-based inclusive ones.
+	 * Empty lines, comment lines, and <code>track</code>/<code>browser</code> lines are skipped.
+	 *
+	 * @param path
+	 *            path to the BED file, may be gzip-compressed
+	 * @return list of regions in the BED file
+	 * @throws JannovarException
+	 *             on problems with reading or parsing the file
+	 */
+	public static ImmutableList<Interval> readBED(String path) throws JannovarException {
+		ImmutableList.Builder<Interval> builder = new ImmutableList.Builder<Interval>();
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(IOUtil.openFileForReading(new File(
+					path))));
+			try {
+				String line;
+				int lineNo = 0;
+				while ((line = in.readLine()) != null) {
+					++lineNo;
+					if (line.isEmpty() || line.startsWith("#") || line.startsWith("track")
+							|| line.startsWith("browser"))
+						continue;
+					final String[] fields = line.split("\t");
+					try {
+						if (fields.length < 3)
+							throw new NumberFormatException();
+						final int begin = Integer.parseInt(fields[1]);
+						final int end = Integer.parseInt(fields[2]);
+						if (begin < 0 || end <= begin)
+							throw new NumberFormatException();
+						builder.add(new Interval(fields[0], begin + 1, end));
+					} catch (NumberFormatException e) {
+						throw new JannovarException("Invalid BED line " + lineNo + " in " + path + ": " + line);
+					}
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new JannovarException("Problem reading BED file " + path, e);
+		}
+		return builder.build();
+	}
+
+	/** @return the merged regions */
+	public ImmutableList<Interval> getIntervals() {
+		return intervals;
+	}
+
+	/** @return whether or not there are no regions */
+	public boolean isEmpty() {
+		return intervals.isEmpty();
+	}
+
+	/**
+	 * Convert to {@link GenomeInterval}s for <code>refDict</code>, skipping contigs that are not known in
+	 * <code>refDict</code>.
+	 *
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to use for the conversion
+	 * @param padding
+	 *            number of bases to add to each side of the regions
+	 * @return list of {@link GenomeInterval}s on the forward strand
+	 */
+	public ImmutableList<GenomeInterval> toGenomeIntervals(ReferenceDictionary refDict, int padding) {
+		ImmutableList.Builder<GenomeInterval> builder = new ImmutableList.Builder<GenomeInterval>();
+		for (Interval interval : intervals) {
+			final Integer chr = refDict.getContigNameToID().get(interval.getSequence());
+			if (chr == null)
+				continue;
+			int end = interval.getEnd();
+			if (refDict.getContigIDToLength().containsKey(chr))
+				end = Math.min(end, refDict.getContigIDToLength().get(chr));
+			final int begin = Math.max(0, interval.getStart() - 1 - padding);
+			end = (int) Math.min(Integer.MAX_VALUE, (long) end + padding);
+			builder.add(new GenomeInterval(refDict, Strand.FWD, chr, begin, end, PositionType.ZERO_BASED));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Iterate over the records of <code>reader</code> overlapping with the regions, using the index of the VCF file.
+	 *
+	 * Each record is returned only once, even if it overlaps with more than one region. When <code>reader</code> has a
+	 * sequence dictionary, the contigs are visited in its order, such that the records are returned in the order of
+	 * the file. For shards, only the records starting in the regions are returned, in the order of the regions.
+	 *
+	 * @param reader
+	 *            {@link VCFFileReader} to query, must have an index
+	 * @return iterator over the records, has to be closed after use
+	 */
+	public CloseableIterator<VariantContext> query(VCFFileReader reader) {
+		if (isShard)
+			return new QueryIterator(reader, intervals, true);
+		else
+			return new QueryIterator(reader, sortedBy(reader.getFileHeader().getSequenceDictionary()), false);
+	}
+
+	/**
+	 * @return {@link #intervals}, sorted by the contig order in <code>dict</code> if not <code>null</code>
+	 */
+	private ImmutableList<Interval> sortedBy(final SAMSequenceDictionary dict) {
+		if (dict == null || dict.isEmpty())
+			return intervals;
+		ArrayList<Interval> result = new ArrayList<Interval>(intervals);
+		Collections.sort(result, new Comparator<Interval>() {
+			public int compare(Interval lhs, Interval rhs) {
+				return getIndex(lhs) - getIndex(rhs);
+			}
+
+			private int getIndex(Interval interval) {
+				final int idx = dict.getSequenceIndex(interval.getSequence());
+				return (idx < 0) ? Integer.MAX_VALUE : idx;
+			}
+		}); // stable, keeps the positional order within contigs
+		return ImmutableList.copyOf(result);
+	}
+
+	/**
+	 * @return sorted and merged version of <code>intervals</code>
+	 */
+	private static ImmutableList<Interval> merge(Collection<Interval> intervals) {
+		LinkedHashMap<String, ArrayList<Interval>> byContig = new LinkedHashMap<String, ArrayList<Interval>>();
+		for (Interval interval : intervals) {
+			if (!byContig.containsKey(interval.getSequence()))
+				byContig.put(interval.getSequence(), new ArrayList<Interval>());
+			byContig.get(interval.getSequence()).add(interval);
+		}
+
+		ImmutableList.Builder<Interval> builder = new ImmutableList.Builder<Interval>();
+		for (Map.Entry<String, ArrayList<Interval>> entry : byContig.entrySet()) {
+			ArrayList<Interval> lst = entry.getValue();
+			Collections.sort(lst, new Comparator<Interval>() {
+				public int compare(Interval lhs, Interval rhs) {
+					return (lhs.getStart() < rhs.getStart()) ? -1 : ((lhs.getStart() == rhs.getStart()) ? 0 : 1);
+				}
+			});
+			int start = lst.get(0).getStart();
+			int end = lst.get(0).getEnd();
+			for (Interval interval : lst.subList(1, lst.size())) {
+				if ((long) interval.getStart() <= (long) end + 1) {
+					end = Math.max(end, interval.getEnd());
+				} else {
+					builder.add(new Interval(entry.getKey(), start, end));
+					start = interval.getStart();
+					end = interval.getEnd();
+				}
+			}
+			builder.add(new Interval(entry.getKey(), start, end));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Iterator over the records overlapping with a list of merged regions.
+	 *
+	 * A record that overlaps with a region and started before it is skipped if it also overlaps with the previous
+	 * region on the same contig, as it was returned for that region already. If only records starting in the regions
+	 * are to be returned, all such records are skipped.
+	 */
+	private static final class QueryIterator implements CloseableIterator<VariantContext> {
+
+		/** the reader to query */
+		private final VCFFileReader reader;
+
+		/** the regions to query */
+		private final ImmutableList<Interval> regions;
+
+		/** whether or not to skip all records starting before the current region */
+		private final boolean startingOnly;
+
+		/** index of the currently queried region */
+		private int regionIdx = -1;
+
+		/** iterator over the records of the current region, <code>null</code> before the first region */
+		private CloseableIterator<VariantContext> current = null;
+
+		/** the next record to return, <code>null</code> if not yet known */
+		private VariantContext next = null;
+
+		QueryIterator(VCFFileReader reader, ImmutableList<Interval> regions, boolean startingOnly) {
+			this.reader = reader;
+			this.regions = regions;
+			this.startingOnly = startingOnly;
+		}
+
+		public boolean hasNext() {
+			while (next == null) {
+				if (current != null && current.hasNext()) {
+					final VariantContext vc = current.next();
+					if (!isDuplicate(vc))
+						next = vc;
+				} else if (!nextRegion()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public VariantContext next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			final VariantContext result = next;
+			next = null;
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void close() {
+			if (current != null)
+				current.close();
+			current = null;
+			regionIdx = regions.size();
+		}
+
+		/** @return whether or not <code>vc</code> was already returned for the previous region or is to be skipped */
+		private boolean isDuplicate(VariantContext vc) {
+			final Interval region = regions.get(regionIdx);
+			if (vc.getStart() >= region.getStart())
+				return false;
+			if (startingOnly)
+				return true;
+			if (regionIdx == 0)
+				return false;
+			final Interval prevRegion = regions.get(regionIdx - 1);
+			return prevRegion.getSequence().equals(region.getSequence()) && vc.getStart() <= prevRegion.getEnd();
+		}
+
+		/** @return whether or not there was a next region to query */
+		private boolean nextRegion() {
+			if (current != null)
+				current.close();
+			current = null;
+			if (regionIdx + 1 >= regions.size())
+				return false;
+			final Interval region = regions.get(++regionIdx);
+			current = reader.query(region.getSequence(), region.getStart(), region.getEnd());
+			return true;
+		}
+
+	}
+
+}
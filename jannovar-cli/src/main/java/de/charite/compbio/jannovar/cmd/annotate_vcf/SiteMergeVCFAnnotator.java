@@ -0,0 +1,249 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.JannovarOptions;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.htsjdk.InfoFields;
+import de.charite.compbio.jannovar.htsjdk.ContigNotLoadedException;
+import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.metrics.Metrics;
+
+/**
+ * Annotate a VCF file in two passes, decoupling the annotation from the number of samples.
+ *
+ * In the first pass, the sites (<code>CHROM</code>, <code>POS</code>, <code>REF</code>, <code>ALT</code>) are read and
+ * deduplicated, and the unique sites are annotated in parallel. In the second pass, the file is read again and the
+ * INFO values of each site are merged into the records, which are written through {@link AnnotatedVCFWriter}. Thus,
+ * the output is the same as when annotating each record with {@link AnnotatedVCFWriter#put(VariantContext)}.
+ *
+ * The INFO values of all unique sites are kept in memory between the two passes.
+ */
+public class SiteMergeVCFAnnotator {
+
+	/** timer for looking up the INFO values of a record in the second pass */
+	public static final String TIMER_MERGE_LOOKUP = "vcf.site_merge.lookup";
+
+	/** {@link ReferenceDictionary} object to use for information about the genome. */
+	private final ReferenceDictionary refDict;
+
+	/** {@link Chromosome} map with the transcripts */
+	private final ImmutableMap<Integer, Chromosome> chromosomeMap;
+
+	/** path to VCF file to process */
+	private final String vcfPath;
+
+	/** configuration to use */
+	private final JannovarOptions options;
+
+	/** command line arguments to Jannovar */
+	private final ImmutableList<String> args;
+
+	/** persistent cache for the INFO values, <code>null</code> if not used */
+	private final AnnotationCache cache;
+
+	public SiteMergeVCFAnnotator(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomeMap,
+			String vcfPath, JannovarOptions options, ImmutableList<String> args, AnnotationCache cache) {
+		this.refDict = refDict;
+		this.chromosomeMap = chromosomeMap;
+		this.vcfPath = vcfPath;
+		this.options = options;
+		this.args = args;
+		this.cache = cache;
+	}
+
+	/**
+	 * @return path to the output file
+	 */
+	public String getOutFileName() {
+		return AnnotatedVCFWriter.buildOutFileName(vcfPath, options);
+	}
+
+	/**
+	 * Run both passes and write out the annotated file.
+	 *
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	public void run() throws JannovarException {
+		final ImmutableList<Site> sites = collectSites();
+		System.err.println("Annotating " + sites.size() + " unique sites using " + options.numThreads + " thread(s)...");
+		final HashMap<Site, ImmutableMap<String, String>> infoValues = annotateSites(sites);
+		System.err.println("Merging annotations into records...");
+		mergeAnnotations(infoValues);
+	}
+
+	/**
+	 * First pass: read the unique sites from {@link #vcfPath}, in the order of their first occurence.
+	 */
+	private ImmutableList<Site> collectSites() {
+		LinkedHashSet<Site> sites = new LinkedHashSet<Site>();
+		VCFFileReader reader = new VCFFileReader(new File(vcfPath), false);
+		try {
+			for (VariantContext vc : reader)
+				sites.add(new Site(vc));
+		} finally {
+			reader.close();
+		}
+		return ImmutableList.copyOf(sites);
+	}
+
+	/**
+	 * Annotate <code>sites</code> in {@link JannovarOptions#numThreads} threads, each using its own
+	 * {@link VariantContextAnnotator}.
+	 *
+	 * @return map from site to the INFO values to write for it
+	 */
+	private HashMap<Site, ImmutableMap<String, String>> annotateSites(final ImmutableList<Site> sites)
+			throws JannovarException {
+		// use more chunks than threads for balancing the load
+		final int numChunks = Math.max(1, Math.min(sites.size(), options.numThreads * 4));
+		final int chunkSize = (sites.size() + numChunks - 1) / Math.max(1, numChunks);
+
+		ArrayList<Future<List<ImmutableMap<String, String>>>> futures = new ArrayList<Future<List<ImmutableMap<String, String>>>>();
+		ExecutorService executor = Executors.newFixedThreadPool(options.numThreads);
+		try {
+			for (int begin = 0; begin < sites.size(); begin += chunkSize) {
+				final List<Site> chunk = sites.subList(begin, Math.min(sites.size(), begin + chunkSize));
+				futures.add(executor.submit(new Callable<List<ImmutableMap<String, String>>>() {
+					public List<ImmutableMap<String, String>> call() {
+						return annotateChunk(chunk);
+					}
+				}));
+			}
+
+			HashMap<Site, ImmutableMap<String, String>> result = new HashMap<Site, ImmutableMap<String, String>>();
+			int siteIdx = 0;
+			for (Future<List<ImmutableMap<String, String>>> future : futures)
+				for (ImmutableMap<String, String> values : future.get())
+					result.put(sites.get(siteIdx++), values);
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarException("Interrupted while annotating sites.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UnloadedContigException)
+				throw (UnloadedContigException) e.getCause();
+			throw new JannovarException("Problem with annotating sites.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return INFO values for each site in <code>chunk</code>, in the same order
+	 */
+	private List<ImmutableMap<String, String>> annotateChunk(List<Site> chunk) {
+		final VariantContextAnnotator annotator = new VariantContextAnnotator(refDict, chromosomeMap,
+				new VariantContextAnnotator.Options(InfoFields.build(options.writeVCFAnnotationStandardInfoFields,
+						options.writeJannovarInfoFields), !options.showAll, options.escapeAnnField,
+						options.nt3PrimeShifting));
+		ArrayList<ImmutableMap<String, String>> result = new ArrayList<ImmutableMap<String, String>>(chunk.size());
+		for (Site site : chunk) {
+			if (cache != null) {
+				result.add(cache.getInfoValues(annotator, site.contig, site.pos, site.ref, site.alts));
+				continue;
+			}
+			try {
+				result.add(annotator.buildInfoValues(site.alts,
+						annotator.buildAnnotations(site.contig, site.pos, site.ref, site.alts)));
+			} catch (ContigNotLoadedException e) {
+				throw new UnloadedContigException(e);
+			} catch (InvalidCoordinatesException e) {
+				result.add(annotator.buildErrorInfoValues(ImmutableSet.of(e.getAnnotationMessage())));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Second pass: read {@link #vcfPath} again and write out the records with the annotations from
+	 * <code>infoValues</code>.
+	 */
+	private void mergeAnnotations(HashMap<Site, ImmutableMap<String, String>> infoValues) throws JannovarException {
+		VCFFileReader reader = new VCFFileReader(new File(vcfPath), false);
+		AnnotatedVCFWriter writer = null;
+		try {
+			writer = new AnnotatedVCFWriter(refDict, reader, chromosomeMap, vcfPath, options, args);
+			for (VariantContext vc : reader) {
+				final long startTime = Metrics.startTimer();
+				final ImmutableMap<String, String> values = infoValues.get(new Site(vc));
+				Metrics.stopTimer(TIMER_MERGE_LOOKUP, startTime);
+				writer.put(vc, values);
+			}
+		} catch (IOException e) {
+			throw new JannovarException("Problem with writing annotated VCF file.", e);
+		} finally {
+			reader.close();
+			if (writer != null)
+				writer.close();
+		}
+	}
+
+	/**
+	 * Key of a VCF record for the annotation, the values are the ones used by
+	 * {@link VariantContextAnnotator#buildAnnotations(VariantContext)}.
+	 */
+	private static final class Site {
+
+		final String contig;
+		final int pos;
+		final String ref;
+		final ImmutableList<String> alts;
+
+		Site(VariantContext vc) {
+			this.contig = vc.getChr();
+			this.pos = vc.getStart();
+			this.ref = vc.getReference().getBaseString();
+			ImmutableList.Builder<String> builder = ImmutableList.builder();
+			for (Allele allele : vc.getAlternateAlleles())
+				builder.add(allele.getBaseString());
+			this.alts = builder.build();
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + contig.hashCode();
+			result = prime * result + pos;
+			result = prime * result + ref.hashCode();
+			result = prime * result + alts.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			Site other = (Site) obj;
+			return pos == other.pos && contig.equals(other.contig) && ref.equals(other.ref)
+					&& alts.equals(other.alts);
+		}
+
+	}
+
+}
@@ -0,0 +1,22 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.htsjdk.ContigNotLoadedException;
+
+/**
+ * Thrown when a record is on a contig whose transcripts were not loaded since it was not declared in the header of the
+ * VCF file; {@link AnnotateVCFCommand} then loads all contigs and annotates the file again.
+ */
+class UnloadedContigException extends RuntimeException {
+
+	public UnloadedContigException(ContigNotLoadedException cause) {
+		super(cause.getMessage(), cause);
+	}
+
+	/** @return name of the contig that was not loaded */
+	public String getContig() {
+		return ((ContigNotLoadedException) getCause()).getContig();
+	}
+
+	private static final long serialVersionUID = 1L;
+
+}
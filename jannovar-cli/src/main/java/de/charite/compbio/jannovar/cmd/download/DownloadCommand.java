@@ -1,17 +1,25 @@
 package de.charite.compbio.jannovar.cmd.download;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+
 import org.apache.commons.cli.ParseException;
 
+import com.google.common.collect.ImmutableList;
+
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.JannovarOptions;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.HelpRequestedException;
 import de.charite.compbio.jannovar.cmd.JannovarCommand;
 import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataDiff;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
 import de.charite.compbio.jannovar.datasource.DataSourceFactory;
 import de.charite.compbio.jannovar.datasource.DatasourceOptions;
 import de.charite.compbio.jannovar.impl.util.PathUtil;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 /**
  * Implementation of download step in Jannovar.
@@ -26,23 +34,63 @@ public final class DownloadCommand extends JannovarCommand {
 
 	/**
 	 * Perform the downloading.
+	 *
+	 * If the serialization file already exists, the sections of the contigs whose transcripts did not change are
+	 * reused and the differences are reported.
 	 */
 	@Override
 	public void run() throws JannovarException {
 		System.err.println("Options");
 		options.print(System.err);
 
-		DatasourceOptions dsOptions = new DatasourceOptions(options.httpProxy, options.httpsProxy, options.ftpProxy,
-				options.printProgressBars);
-
-		DataSourceFactory factory = new DataSourceFactory(dsOptions, options.dataSourceFiles);
-		for (String name : options.dataSourceNames) {
-			System.err.println("Downloading/parsing for data source \"" + name + "\"");
-			JannovarData data = factory.getDataSource(name).getDataFactory()
-					.build(options.downloadPath, options.printProgressBars);
-			String filename = PathUtil.join(options.downloadPath, name.replace('/', '_').replace('\\', '_') + ".ser");
-			JannovarDataSerializer serializer = new JannovarDataSerializer(filename);
-			serializer.save(data);
+		PrintWriter diffReport = null;
+		if (options.diffReportPath != null) {
+			try {
+				diffReport = new PrintWriter(options.diffReportPath);
+			} catch (FileNotFoundException e) {
+				throw new JannovarException("Could not open diff report file " + options.diffReportPath, e);
+			}
+			diffReport.println("#source\tstatus\tcontig\taccession\tgene_symbol");
+		}
+
+		try {
+			DatasourceOptions dsOptions = new DatasourceOptions(options.httpProxy, options.httpsProxy,
+					options.ftpProxy, options.printProgressBars);
+
+			DataSourceFactory factory = new DataSourceFactory(dsOptions, options.dataSourceFiles);
+			for (String name : options.dataSourceNames) {
+				System.err.println("Downloading/parsing for data source \"" + name + "\"");
+				JannovarData data = factory.getDataSource(name).getDataFactory()
+						.build(options.downloadPath, options.printProgressBars, options.numThreads);
+				String filename = PathUtil.join(options.downloadPath, name.replace('/', '_').replace('\\', '_')
+						+ ".ser");
+				JannovarDataSerializer serializer = new JannovarDataSerializer(filename, options.numThreads);
+				final boolean exists = new File(filename).exists();
+				JannovarDataDiff diff = serializer.saveIncremental(data, filename);
+				if (exists)
+					System.err.println("Reused " + diff.getNumUnchangedContigs() + " unchanged contigs of " + filename
+							+ ", " + diff.getAdded().size() + " transcripts added, " + diff.getRemoved().size()
+							+ " removed, " + diff.getChanged().size() + " changed.");
+				if (diffReport != null) {
+					writeDiffReport(diffReport, name, "ADDED", diff.getAdded());
+					writeDiffReport(diffReport, name, "REMOVED", diff.getRemoved());
+					writeDiffReport(diffReport, name, "CHANGED", diff.getChanged());
+				}
+			}
+		} finally {
+			if (diffReport != null)
+				diffReport.close();
+		}
+	}
+
+	/** Write one line for each of <code>tms</code> to <code>out</code>. */
+	private static void writeDiffReport(PrintWriter out, String source, String status,
+			ImmutableList<TranscriptModel> tms) {
+		for (TranscriptModel tm : tms) {
+			// removed transcripts refer to the reference dictionary of the previous version
+			final String contig = tm.getTXRegion().getRefDict().getContigIDToName().get(tm.getChr());
+			out.println(source + "\t" + status + "\t" + contig + "\t" + tm.getAccession() + "\t"
+					+ tm.getGeneSymbol());
 		}
 	}
 
@@ -67,6 +67,12 @@ public final class DownloadCommandLineParser {
 		options.addOption(OptionBuilder
 				.withDescription("proxy to use for FTP downloads as \"<PROTOCOL>://<HOST>[:<PORT>]\"").hasArgs(1)
 				.withLongOpt("ftp-proxy").withArgName("ftp-proxy").create());
+		options.addOption(OptionBuilder
+				.withDescription("number of threads for building and writing the database (default is number of CPUs)")
+				.hasArgs(1).withLongOpt("threads").create());
+		options.addOption(OptionBuilder
+				.withDescription("write TSV file with the transcripts added, removed, or changed since the previous "
+						+ "version of the database").hasArgs(1).withLongOpt("diff-report").create());
 
 		parser = new GnuParser();
 	}
@@ -101,6 +107,19 @@ public final class DownloadCommandLineParser {
 		if (cmd.hasOption("data-dir"))
 			result.downloadPath = cmd.getOptionValue("data-dir");
 
+		if (cmd.hasOption("diff-report"))
+			result.diffReportPath = cmd.getOptionValue("diff-report");
+
+		if (cmd.hasOption("threads")) {
+			try {
+				result.numThreads = Integer.parseInt(cmd.getOptionValue("threads"));
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --threads: " + cmd.getOptionValue("threads"));
+			}
+			if (result.numThreads < 1)
+				throw new ParseException("--threads must be at least 1, was: " + result.numThreads);
+		}
+
 		// Get data source names from args.
 		String args[] = cmd.getArgs(); // get remaining arguments
 		if (args.length <= 1)
@@ -180,6 +199,8 @@ public final class DownloadCommandLineParser {
 		// TODO(holtgrem): Explain data sources and refer to manual.
 
 		final String FOOTER = new StringBuilder().append("\n\nExample: java -jar de.charite.compbio.jannovar.jar download hg19/ucsc\n\n")
+				.append("If the serialization file already exists, only the contigs whose transcripts changed are\n")
+				.append("written again.\n\n")
 				.append("Note that Jannovar also interprets the environment variables\n")
 				.append("HTTP_PROXY, HTTPS_PROXY and FTP_PROXY for downloading files.\n").toString();
 
@@ -0,0 +1,91 @@
+package de.charite.compbio.jannovar.cmd.generate_vcf;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.cli.ParseException;
+
+import com.google.common.base.Charsets;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.JannovarOptions;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.HelpRequestedException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.htsjdk.ParallelBlockCompressedOutputStream;
+import de.charite.compbio.jannovar.pedigree.PedFileWriter;
+import de.charite.compbio.jannovar.simulation.SyntheticVCFGenerator;
+
+/**
+ * Generate a synthetic VCF file with variants in the transcripts of a database and the matching PED file.
+ *
+ * The output only depends on the database and the options, including the seed. Thus, it can be used for reproducing
+ * performance measurements without sharing the input files.
+ */
+public class GenerateVCFCommand extends JannovarCommand {
+
+	public GenerateVCFCommand(String[] argv) throws CommandLineParsingException, HelpRequestedException {
+		super(argv);
+	}
+
+	/**
+	 * Perform the generation.
+	 *
+	 * @throws JannovarException
+	 *             on problems with loading the database or writing the files
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		options.print(System.err);
+
+		JannovarData data = new JannovarDataSerializer(options.dataFile, options.numThreads).load();
+		final long startTime = System.nanoTime();
+		final SyntheticVCFGenerator generator;
+		final long numRecords;
+		try {
+			generator = new SyntheticVCFGenerator(data, options.simulationOptions);
+			new PedFileWriter(new File(options.generatedPEDPath)).write(generator.getPedigree());
+
+			final OutputStream stream;
+			if (options.generatedVCFPath.endsWith(".gz"))
+				stream = new ParallelBlockCompressedOutputStream(options.generatedVCFPath, options.bgzfThreads);
+			else
+				stream = new FileOutputStream(options.generatedVCFPath);
+			Writer out = new BufferedWriter(new OutputStreamWriter(stream, Charsets.US_ASCII), 1024 * 1024);
+			try {
+				numRecords = generator.write(out);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new JannovarException("Problem with writing the generated files.", e);
+		} catch (IllegalArgumentException e) {
+			throw new JannovarException("Cannot generate variants: " + e.getMessage());
+		}
+		final long endTime = System.nanoTime();
+		System.err.println("Wrote " + numRecords + " records to \"" + options.generatedVCFPath + "\" and "
+				+ generator.getPedigree().getIndividuals().size() + " individuals to \"" + options.generatedPEDPath
+				+ "\"");
+		System.err.println(String.format("Generation took %.2f sec.",
+				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+	@Override
+	protected JannovarOptions parseCommandLine(String[] argv) throws CommandLineParsingException,
+			HelpRequestedException {
+		try {
+			return new GenerateVCFCommandLineParser().parse(argv);
+		} catch (ParseException e) {
+			throw new CommandLineParsingException("Could not parse the command line.", e);
+		}
+	}
+
+}
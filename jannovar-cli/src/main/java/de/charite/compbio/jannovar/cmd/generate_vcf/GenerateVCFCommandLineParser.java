@@ -0,0 +1,243 @@
+package de.charite.compbio.jannovar.cmd.generate_vcf;
+
+import java.io.PrintWriter;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.Parser;
+
+import de.charite.compbio.jannovar.JannovarOptions;
+import de.charite.compbio.jannovar.cmd.HelpRequestedException;
+import de.charite.compbio.jannovar.simulation.FamilyStructure;
+import de.charite.compbio.jannovar.simulation.SimulatedRegionType;
+import de.charite.compbio.jannovar.simulation.SimulatedVariantType;
+import de.charite.compbio.jannovar.simulation.SimulationOptionsBuilder;
+
+/**
+ * Parser for generate-vcf command line.
+ */
+public class GenerateVCFCommandLineParser {
+
+	/** options representation for the Apache commons command line parser */
+	protected Options options;
+	/** the Apache commons command line parser */
+	protected Parser parser;
+
+	/**
+	 * Calls initializeParser().
+	 */
+	public GenerateVCFCommandLineParser() {
+		initializeParser();
+	}
+
+	/**
+	 * Initialize {@link #parser} and {@link #options}.
+	 */
+	private void initializeParser() {
+		options = new Options();
+		options.addOption(new Option("h", "help", false, "show this help"));
+		options.addOption(new Option("o", "output", true, "path to the .vcf or .vcf.gz output file"));
+		options.addOption(new Option(null, "ped-file", true,
+				"path to the PED output file (default is the output path with extension .ped)"));
+		options.addOption(new Option(null, "num-variants", true, "number of sites to generate (default is 10000)"));
+		options.addOption(new Option(null, "seed", true, "seed for the random number generator (default is 1)"));
+		options.addOption(new Option(null, "variant-mix", true,
+				"relative weights of the variant types, e.g. \"snv=0.85,ins=0.05,del=0.06,mnv=0.03,sv=0.01\" "
+						+ "(the default), types not given have weight 0"));
+		options.addOption(new Option(null, "region-mix", true,
+				"relative weights of the region types, e.g. \"cds=0.02,utr=0.02,splice=0.01,intron=0.4,"
+						+ "intergenic=0.55\" (the default), types not given have weight 0"));
+		options.addOption(new Option(null, "families", true, "number of families (default is 1)"));
+		options.addOption(new Option(null, "family-structure", true,
+				"structure of the families, one of \"singleton\", \"trio\", and \"quartet\" (default is \"trio\")"));
+		options.addOption(new Option(null, "genotype-density", true,
+				"probability of a founder to carry an alternative allele (default is 0.5)"));
+		options.addOption(new Option(null, "hom-alt-rate", true,
+				"probability of a carrier founder to be homozygous (default is 0.3)"));
+		options.addOption(new Option(null, "missing-rate", true,
+				"probability of a genotype to be missing (default is 0.01)"));
+		options.addOption(new Option(null, "multi-allelic-rate", true,
+				"probability of a site to have two alternative alleles (default is 0.02)"));
+		options.addOption(new Option(null, "max-indel-length", true,
+				"maximal length of insertions and deletions (default is 10)"));
+		options.addOption(new Option(null, "max-sv-length", true, "maximal length of symbolic SVs (default is 10000)"));
+		options.addOption(new Option(null, "bgzf-threads", true,
+				"number of threads for compressing .vcf.gz output (default is 1)"));
+
+		parser = new GnuParser();
+	}
+
+	/**
+	 * Parse the command line.
+	 *
+	 * @throws ParseException
+	 *             on problems with the command line
+	 * @throws HelpRequestedException
+	 *             if the user requested help on the command line
+	 */
+	public JannovarOptions parse(String argv[]) throws ParseException, HelpRequestedException {
+		// Parse the command line.
+		CommandLine cmd = parser.parse(options, argv);
+
+		// Fill the resulting JannovarOptions.
+		JannovarOptions result = new JannovarOptions();
+		result.command = JannovarOptions.Command.GENERATE_VCF;
+
+		if (cmd.hasOption("help")) {
+			printHelp();
+			throw new HelpRequestedException();
+		}
+
+		String args[] = cmd.getArgs(); // get remaining arguments
+		if (args.length != 2)
+			throw new ParseException("must have exactly one database argument");
+		result.dataFile = args[1];
+
+		if (!cmd.hasOption("output"))
+			throw new ParseException("must give output path with --output");
+		result.generatedVCFPath = cmd.getOptionValue("output");
+		if (cmd.hasOption("ped-file"))
+			result.generatedPEDPath = cmd.getOptionValue("ped-file");
+		else
+			result.generatedPEDPath = result.generatedVCFPath.replaceAll("(\\.vcf)?(\\.gz)?$", "") + ".ped";
+
+		SimulationOptionsBuilder builder = new SimulationOptionsBuilder();
+		if (cmd.hasOption("num-variants"))
+			builder.setNumVariants(parseLong(cmd, "num-variants"));
+		if (cmd.hasOption("seed"))
+			builder.setSeed(parseLong(cmd, "seed"));
+		if (cmd.hasOption("variant-mix"))
+			parseVariantMix(cmd.getOptionValue("variant-mix"), builder);
+		if (cmd.hasOption("region-mix"))
+			parseRegionMix(cmd.getOptionValue("region-mix"), builder);
+		if (cmd.hasOption("families"))
+			builder.setNumFamilies((int) parseLong(cmd, "families"));
+		if (cmd.hasOption("family-structure")) {
+			try {
+				builder.setFamilyStructure(FamilyStructure.valueOf(cmd.getOptionValue("family-structure")
+						.toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				throw new ParseException("invalid value for --family-structure: "
+						+ cmd.getOptionValue("family-structure"));
+			}
+		}
+		if (cmd.hasOption("genotype-density"))
+			builder.setGenotypeDensity(parseDouble(cmd, "genotype-density"));
+		if (cmd.hasOption("hom-alt-rate"))
+			builder.setHomAltRate(parseDouble(cmd, "hom-alt-rate"));
+		if (cmd.hasOption("missing-rate"))
+			builder.setMissingRate(parseDouble(cmd, "missing-rate"));
+		if (cmd.hasOption("multi-allelic-rate"))
+			builder.setMultiAllelicRate(parseDouble(cmd, "multi-allelic-rate"));
+		if (cmd.hasOption("max-indel-length"))
+			builder.setMaxIndelLength((int) parseLong(cmd, "max-indel-length"));
+		if (cmd.hasOption("max-sv-length"))
+			builder.setMaxSVLength((int) parseLong(cmd, "max-sv-length"));
+		try {
+			result.simulationOptions = builder.build();
+		} catch (IllegalArgumentException e) {
+			throw new ParseException(e.getMessage());
+		}
+
+		if (cmd.hasOption("bgzf-threads")) {
+			result.bgzfThreads = (int) parseLong(cmd, "bgzf-threads");
+			if (result.bgzfThreads < 1)
+				throw new ParseException("--bgzf-threads must be at least 1, was: " + result.bgzfThreads);
+		}
+
+		return result;
+	}
+
+	/** @return value of option <code>name</code> as integer */
+	private static long parseLong(CommandLine cmd, String name) throws ParseException {
+		try {
+			return Long.parseLong(cmd.getOptionValue(name));
+		} catch (NumberFormatException e) {
+			throw new ParseException("invalid value for --" + name + ": " + cmd.getOptionValue(name));
+		}
+	}
+
+	/** @return value of option <code>name</code> as floating point number */
+	private static double parseDouble(CommandLine cmd, String name) throws ParseException {
+		try {
+			return Double.parseDouble(cmd.getOptionValue(name));
+		} catch (NumberFormatException e) {
+			throw new ParseException("invalid value for --" + name + ": " + cmd.getOptionValue(name));
+		}
+	}
+
+	/** Parse "key=weight,..." value of --variant-mix into <code>builder</code>. */
+	private static void parseVariantMix(String value, SimulationOptionsBuilder builder) throws ParseException {
+		for (SimulatedVariantType type : SimulatedVariantType.values())
+			builder.setVariantTypeWeight(type, 0.0);
+		for (String entry : value.split(",")) {
+			final String[] pair = entry.split("=", 2);
+			final double weight = parseWeight("variant-mix", entry, pair);
+			if (pair[0].equals("snv"))
+				builder.setVariantTypeWeight(SimulatedVariantType.SNV, weight);
+			else if (pair[0].equals("ins"))
+				builder.setVariantTypeWeight(SimulatedVariantType.INSERTION, weight);
+			else if (pair[0].equals("del"))
+				builder.setVariantTypeWeight(SimulatedVariantType.DELETION, weight);
+			else if (pair[0].equals("mnv"))
+				builder.setVariantTypeWeight(SimulatedVariantType.MNV, weight);
+			else if (pair[0].equals("sv"))
+				builder.setVariantTypeWeight(SimulatedVariantType.SYMBOLIC_SV, weight);
+			else
+				throw new ParseException("invalid variant type in --variant-mix: " + pair[0]);
+		}
+	}
+
+	/** Parse "key=weight,..." value of --region-mix into <code>builder</code>. */
+	private static void parseRegionMix(String value, SimulationOptionsBuilder builder) throws ParseException {
+		for (SimulatedRegionType type : SimulatedRegionType.values())
+			builder.setRegionTypeWeight(type, 0.0);
+		for (String entry : value.split(",")) {
+			final String[] pair = entry.split("=", 2);
+			final double weight = parseWeight("region-mix", entry, pair);
+			try {
+				builder.setRegionTypeWeight(SimulatedRegionType.valueOf(pair[0].toUpperCase()), weight);
+			} catch (IllegalArgumentException e) {
+				throw new ParseException("invalid region type in --region-mix: " + pair[0]);
+			}
+		}
+	}
+
+	/** @return weight from the "key=weight" entry <code>pair</code> */
+	private static double parseWeight(String name, String entry, String[] pair) throws ParseException {
+		if (pair.length != 2)
+			throw new ParseException("invalid value for --" + name + ": " + entry);
+		try {
+			return Double.parseDouble(pair[1]);
+		} catch (NumberFormatException e) {
+			throw new ParseException("invalid value for --" + name + ": " + entry);
+		}
+	}
+
+	private void printHelp() {
+		final String HEADER = new StringBuilder()
+				.append("Jannovar Command: generate-vcf\n\n")
+				.append("Use this command to generate a synthetic VCF file with variants in the transcripts of\n")
+				.append("a database and a matching PED file, e.g., for performance testing.\n\n")
+				.append("Usage: java -jar de.charite.compbio.jannovar.jar generate-vcf [options] -o OUT.vcf.gz ")
+				.append("<DATABASE.ser>\n\n").toString();
+
+		final String FOOTER = new StringBuilder()
+				.append("\n\nExample: java -jar de.charite.compbio.jannovar.jar generate-vcf --num-variants 4000000 \\\n")
+				.append("             --families 10 --family-structure trio -o wgs.vcf.gz data/hg19_refseq.ser\n\n")
+				.toString();
+
+		System.err.print(HEADER);
+
+		HelpFormatter hf = new HelpFormatter();
+		PrintWriter pw = new PrintWriter(System.err, true);
+		hf.printOptions(pw, 78, options, 2, 2);
+
+		System.err.print(FOOTER);
+	}
+
+}
@@ -0,0 +1,102 @@
+package de.charite.compbio.jannovar.cmd.merge_shards;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.cli.ParseException;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.JannovarOptions;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.HelpRequestedException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.htsjdk.BlockCompressedVCFConcatenator;
+
+/**
+ * Merge the shard files written by <code>annotate --shard i/N</code> into one VCF file.
+ *
+ * The shards are ordered by their number, parsed from the file names, and must be complete. As the shards cover the
+ * genome in the order of the contigs, the result has the records in contig order. The compressed blocks are
+ * concatenated without recompression.
+ */
+public class MergeShardsCommand extends JannovarCommand {
+
+	/** pattern for the shard number and count in shard file names */
+	private static final Pattern SHARD_PATTERN = Pattern.compile("\\.shard-([0-9]+)-of-([0-9]+)\\.vcf\\.gz$");
+
+	public MergeShardsCommand(String[] argv) throws CommandLineParsingException, HelpRequestedException {
+		super(argv);
+	}
+
+	/**
+	 * Perform the merging.
+	 *
+	 * @throws JannovarException
+	 *             if the shards are incomplete or on problems with reading and writing the files
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		options.print(System.err);
+
+		final TreeMap<Integer, String> shards = sortShards();
+		System.err.println("Merging " + shards.size() + " shards...");
+		final long startTime = System.nanoTime();
+		try {
+			BlockCompressedVCFConcatenator concatenator = new BlockCompressedVCFConcatenator(options.mergedOutputPath);
+			try {
+				for (String path : shards.values())
+					concatenator.append(new File(path));
+			} finally {
+				concatenator.close();
+			}
+		} catch (IOException e) {
+			throw new JannovarException("Problem with merging shards.", e);
+		}
+		System.err.println("Wrote merged shards to \"" + options.mergedOutputPath + "\"");
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Merging took %.2f sec.", (endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+	/**
+	 * @return the shard file paths by their shard number
+	 * @throws JannovarException
+	 *             if a file name is not a shard file name or if the shards are not complete
+	 */
+	private TreeMap<Integer, String> sortShards() throws JannovarException {
+		TreeMap<Integer, String> result = new TreeMap<Integer, String>();
+		int numShards = -1;
+		for (String path : options.vcfFilePaths) {
+			final Matcher matcher = SHARD_PATTERN.matcher(path);
+			if (!matcher.find())
+				throw new JannovarException("Not a shard file name (*.shard-i-of-N.vcf.gz): " + path);
+			final int shard = Integer.parseInt(matcher.group(1));
+			if (numShards != -1 && numShards != Integer.parseInt(matcher.group(2)))
+				throw new JannovarException("Shard files from different shard counts: " + path);
+			numShards = Integer.parseInt(matcher.group(2));
+			if (result.containsKey(shard))
+				throw new JannovarException("Shard " + shard + " given twice: " + result.get(shard) + ", " + path);
+			result.put(shard, path);
+		}
+		for (int shard = 1; shard <= numShards; ++shard)
+			if (!result.containsKey(shard))
+				throw new JannovarException("Shard " + shard + " of " + numShards + " is missing.");
+		if (result.size() != numShards)
+			throw new JannovarException("Invalid shard numbers in " + result.values());
+		return result;
+	}
+
+	@Override
+	protected JannovarOptions parseCommandLine(String[] argv) throws CommandLineParsingException,
+			HelpRequestedException {
+		try {
+			return new MergeShardsCommandLineParser().parse(argv);
+		} catch (ParseException e) {
+			throw new CommandLineParsingException("Could not parse command line", e);
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package de.charite.compbio.jannovar.cmd.merge_shards;
+
+import java.io.PrintWriter;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.OptionBuilder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.Parser;
+
+import de.charite.compbio.jannovar.JannovarOptions;
+import de.charite.compbio.jannovar.cmd.HelpRequestedException;
+
+/**
+ * Parser for merge-shards command line.
+ */
+public class MergeShardsCommandLineParser {
+
+	/** options representation for the Apache commons command line parser */
+	protected Options options;
+	/** the Apache commons command line parser */
+	protected Parser parser;
+
+	/**
+	 * Calls initializeParser().
+	 */
+	public MergeShardsCommandLineParser() {
+		initializeParser();
+	}
+
+	/**
+	 * Initialize {@link #parser} and {@link #options}.
+	 */
+	@SuppressWarnings("static-access")
+	// OptionBuilder causes this warning.
+	private void initializeParser() {
+		options = new Options();
+		options.addOption(OptionBuilder.withDescription("show this help").withLongOpt("help").create("h"));
+		options.addOption(OptionBuilder.withDescription("path to the merged .vcf.gz output file").hasArgs(1)
+				.withLongOpt("output").create("o"));
+
+		parser = new GnuParser();
+	}
+
+	/**
+	 * Parse the command line.
+	 *
+	 * @throws ParseException
+	 *             on problems with the command line
+	 * @throws HelpRequestedException
+	 *             if the user requested help on the command line
+	 */
+	public JannovarOptions parse(String argv[]) throws ParseException, HelpRequestedException {
+		// Parse the command line.
+		CommandLine cmd = parser.parse(options, argv);
+
+		// Fill the resulting JannovarOptions.
+		JannovarOptions result = new JannovarOptions();
+		result.command = JannovarOptions.Command.MERGE_SHARDS;
+
+		if (cmd.hasOption("help")) {
+			printHelp();
+			throw new HelpRequestedException();
+		}
+
+		if (!cmd.hasOption("output"))
+			throw new ParseException("must give output path with --output");
+		result.mergedOutputPath = cmd.getOptionValue("output");
+
+		String args[] = cmd.getArgs(); // get remaining arguments
+		if (args.length < 2)
+			throw new ParseException("must have at least one shard file argument");
+		for (int i = 1; i < args.length; ++i)
+			result.vcfFilePaths.add(args[i]);
+
+		return result;
+	}
+
+	private void printHelp() {
+		final String HEADER = new StringBuilder()
+				.append("Jannovar Command: merge-shards\n\n")
+				.append("Use this command to merge the shard files written by annotate --shard i/N.\n\n")
+				.append("Usage: java -jar de.charite.compbio.jannovar.jar merge-shards -o OUT.vcf.gz [<SHARD.vcf.gz>]+\n\n")
+				.toString();
+
+		System.err.print(HEADER);
+
+		HelpFormatter hf = new HelpFormatter();
+		PrintWriter pw = new PrintWriter(System.err, true);
+		hf.printOptions(pw, 78, options, 2, 2);
+	}
+
+}
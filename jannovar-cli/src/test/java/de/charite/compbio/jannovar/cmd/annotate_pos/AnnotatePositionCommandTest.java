@@ -0,0 +1,89 @@
+package de.charite.compbio.jannovar.cmd.annotate_pos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.JannovarException;
+
+/**
+ * This test runs the annotate-pos command.
+ */
+public class AnnotatePositionCommandTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer = null;
+
+	/** stdout before the test */
+	private PrintStream oldOut = null;
+
+	/** captured stdout */
+	private ByteArrayOutputStream out = null;
+
+	@Before
+	public void setUp() throws URISyntaxException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+		this.oldOut = System.out;
+		this.out = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(out, true));
+	}
+
+	@After
+	public void tearDown() {
+		System.setOut(oldOut);
+	}
+
+	@Test
+	public void testCommandLineChanges() throws JannovarException {
+		new AnnotatePositionCommand(new String[] { "annotate-pos", pathToSmallSer, "chr1:321052C>T",
+				"NC_000001.10:321060C>A" }).run();
+
+		Assert.assertEquals("#change\teffect\thgvs_annotation\n"
+				+ "chr1:321052C>T\tNON_CODING_TRANSCRIPT_EXON_VARIANT\tLOC100132287:XR_246673.1:n.571C>T\n"
+				+ "NC_000001.10:321060C>A\tNON_CODING_TRANSCRIPT_EXON_VARIANT\tLOC100132287:XR_246673.1:n.579C>A\n",
+				new String(out.toByteArray(), Charsets.UTF_8));
+	}
+
+	// Changes from a file, with malformed lines, must yield the same records on one and on multiple threads.
+	@Test
+	public void testChangesFile() throws JannovarException, IOException {
+		final File changesFile = tmpFolder.newFile("changes.txt");
+		StringBuilder changes = new StringBuilder("# comment\n\n");
+		for (int pos = 321000; pos < 321100; ++pos)
+			changes.append((pos % 3 == 0) ? "1" : "chr1").append(':').append(pos).append("C>T\n");
+		changes.append("garbage\nchrZZ:100A>C\n");
+		Files.write(changes, changesFile, Charsets.UTF_8);
+
+		new AnnotatePositionCommand(new String[] { "annotate-pos", "--threads", "1", "--changes-file",
+				changesFile.getPath(), pathToSmallSer }).run();
+		final String sequential = new String(out.toByteArray(), Charsets.UTF_8);
+		out.reset();
+		new AnnotatePositionCommand(new String[] { "annotate-pos", "--threads", "3", "--changes-file",
+				changesFile.getPath(), pathToSmallSer }).run();
+		final String parallel = new String(out.toByteArray(), Charsets.UTF_8);
+
+		Assert.assertEquals(sequential, parallel);
+		final String[] lines = sequential.split("\n");
+		Assert.assertEquals(1 + 100 + 2, lines.length);
+		Assert.assertTrue(lines[1].startsWith("1:321000C>T\t"));
+		Assert.assertTrue(lines[100].startsWith("1:321099C>T\t"));
+		Assert.assertEquals("garbage\tERROR\tmalformed change, expected {CONTIG}:{POSITION}{REF}>{ALT}", lines[101]);
+		Assert.assertEquals("chrZZ:100A>C\tERROR\tunknown contig chrZZ", lines[102]);
+	}
+
+}
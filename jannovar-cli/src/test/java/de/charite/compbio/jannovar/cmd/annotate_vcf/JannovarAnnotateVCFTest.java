@@ -1,8 +1,17 @@
 package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.variant.vcf.VCFCodec;
+
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -12,9 +21,20 @@ import org.junit.rules.TemporaryFolder;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 
+import de.charite.compbio.jannovar.Jannovar;
 import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.merge_shards.MergeShardsCommand;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.impl.jfr.JFRSupport;
+import de.charite.compbio.jannovar.impl.util.PathUtil;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 /**
  * This test runs the annotation command.
@@ -104,4 +124,484 @@ public class JannovarAnnotateVCFTest {
 		Assert.assertEquals(expected, actual);
 	}
 
+	// Test on small.vcf with metrics enabled, output must be unchanged and the metrics file must be written.
+	@Test
+	public void testOnSmallExampleWithMetrics() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		final File metricsFile = new File(outFolder, "metrics.json");
+		String[] argv = new String[] { "annotate", "--metrics-json", metricsFile.toString(), "-o",
+				outFolder.toString(), pathToSmallSer, inputFilePath };
+		System.err.println(Joiner.on(" ").join(argv));
+		new AnnotateVCFCommand(argv).run();
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assert.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.toString(expectedFile, Charsets.UTF_8);
+		final String actual = Files.toString(f, Charsets.UTF_8).replaceAll("##jannovarCommand.*", "##jannovarCommand");
+		Assert.assertEquals(expected, actual);
+
+		Assert.assertTrue(metricsFile.exists());
+		final String metrics = Files.toString(metricsFile, Charsets.UTF_8);
+		Assert.assertTrue(metrics.contains("\"annotation.variants\""));
+		Assert.assertTrue(metrics.contains("\"annotation.interval_query\""));
+		Assert.assertTrue(metrics.contains("\"vcf.read\""));
+		Assert.assertTrue(metrics.contains("\"vcf.write\""));
+		Assert.assertTrue(metrics.contains("\"vcf.ann_render\""));
+	}
+
+	// Test on small.vcf with JFR recording enabled, output must be unchanged and the recording must be written. Only
+	// checked when built with the profile "jfr", which adds jannovar-jfr to the class path.
+	@Test
+	public void testOnSmallExampleWithJFR() throws JannovarException, URISyntaxException, IOException {
+		if (!JFRSupport.isAvailable())
+			return;
+		final File outFolder = tmpFolder.newFolder();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		final File jfrFile = new File(outFolder, "small.jfr");
+		String[] argv = new String[] { "annotate", "--jfr", jfrFile.toString(), "-o", outFolder.toString(),
+				pathToSmallSer, inputFilePath };
+		System.err.println(Joiner.on(" ").join(argv));
+		new AnnotateVCFCommand(argv).run();
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assert.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.toString(expectedFile, Charsets.UTF_8);
+		final String actual = Files.toString(f, Charsets.UTF_8).replaceAll("##jannovarCommand.*", "##jannovarCommand");
+		Assert.assertEquals(expected, actual);
+
+		Assert.assertTrue(jfrFile.exists());
+		Assert.assertTrue(jfrFile.length() > 0);
+	}
+
+	// Test on small.vcf with raw VCF pass-through, the output must be the same as with HTSJDK.
+	@Test
+	public void testOnSmallExampleRawVCF() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[] { "annotate", "--raw-vcf", "--old-info-fields", "-o", outFolder.toString(),
+				pathToSmallSer, inputFilePath };
+		System.err.println(Joiner.on(" ").join(argv));
+		new AnnotateVCFCommand(argv).run();
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assert.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.bothinfo.jv.vcf").toURI().getPath());
+		final String expected = Files.toString(expectedFile, Charsets.UTF_8);
+		final String actual = Files.toString(f, Charsets.UTF_8).replaceAll("##jannovarCommand.*", "##jannovarCommand");
+		Assert.assertEquals(expected, actual);
+	}
+
+	// Test raw VCF pass-through on records that need the HTSJDK fallback or yield errors, compared to the HTSJDK path.
+	@Test
+	public void testRawVCFSameAsHTSJDK() throws JannovarException, URISyntaxException, IOException {
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "mixed.vcf");
+		final String genotypes = "\tGT:AD:DP:GQ:PL\t0/1:14,7:21:99:181,0,367\n";
+		Files.write("##fileformat=VCFv4.1\n" + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tindividual\n"
+				+ "NC_000001.10\t321052\t.\tC\tT\t.\t.\t." + genotypes
+				+ "NC_000001.10\t321060\trs1\tC\tA,G\t50\tPASS\t." + genotypes
+				+ "NC_000001.10\t321070\t.\tAC\tA\t.\t.\t." + genotypes
+				+ "NC_000001.10\t321080\t.\tA\t<DEL>\t.\t.\t." + genotypes
+				+ "chrUn\t100\t.\tA\tC\t.\t.\t." + genotypes, inputFile, Charsets.UTF_8);
+
+		final File htsjdkFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "-o", htsjdkFolder.toString(), pathToSmallSer,
+				inputFile.toString() }).run();
+		final File rawFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--raw-vcf", "-o", rawFolder.toString(), pathToSmallSer,
+				inputFile.toString() }).run();
+
+		final String expected = Files.toString(new File(htsjdkFolder, "mixed.jv.vcf"), Charsets.UTF_8).replaceAll(
+				"##jannovarCommand.*", "##jannovarCommand");
+		final String actual = Files.toString(new File(rawFolder, "mixed.jv.vcf"), Charsets.UTF_8).replaceAll(
+				"##jannovarCommand.*", "##jannovarCommand");
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testSiteMergeSameAsDirect() throws JannovarException, URISyntaxException, IOException {
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "cohort.vcf");
+		Files.write("##fileformat=VCFv4.1\n"
+				+ "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tindividual1\tindividual2\n"
+				+ "NC_000001.10\t321052\t.\tC\tT\t.\t.\t.\tGT\t0/1\t0/0\n"
+				+ "NC_000001.10\t321060\trs1\tC\tA,G\t50\tPASS\tX=1\tGT\t1/2\t0/1\n"
+				+ "NC_000001.10\t321060\trs2\tC\tA,G\t40\tPASS\t.\tGT\t0/1\t./.\n"
+				+ "NC_000001.10\t321060\t.\tC\tA\t.\t.\t.\tGT\t0/1\t0/0\n"
+				+ "NC_000001.10\t321070\t.\tAC\tA\t.\t.\t.\tGT\t1/1\t0/1\n"
+				+ "NC_000001.10\t321052\t.\tC\tT\t.\t.\t.\tGT\t0/0\t0/1\n"
+				+ "chrUn\t100\t.\tA\tC\t.\t.\t.\tGT\t0/1\t0/1\n", inputFile, Charsets.UTF_8);
+
+		final File directFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--old-info-fields", "-o", directFolder.toString(),
+				pathToSmallSer, inputFile.toString() }).run();
+		final File siteMergeFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--old-info-fields", "--site-merge", "--threads", "3",
+				"-o", siteMergeFolder.toString(), pathToSmallSer, inputFile.toString() }).run();
+
+		final String expected = Files.toString(new File(directFolder, "cohort.jv.vcf"), Charsets.UTF_8).replaceAll(
+				"##jannovarCommand.*", "##jannovarCommand");
+		final String actual = Files.toString(new File(siteMergeFolder, "cohort.jv.vcf"), Charsets.UTF_8).replaceAll(
+				"##jannovarCommand.*", "##jannovarCommand");
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testBGZFThreadsSameAsSingleThreaded() throws JannovarException, URISyntaxException, IOException {
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "small.vcf.gz");
+		final BlockCompressedOutputStream bgzfOut = new BlockCompressedOutputStream(inputFile);
+		bgzfOut.write(Files.toByteArray(new File(this.getClass().getResource("/small.vcf").toURI().getPath())));
+		bgzfOut.close();
+
+		final File singleFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "-o", singleFolder.toString(), pathToSmallSer,
+				inputFile.toString() }).run();
+		final File parallelFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--bgzf-threads", "3", "-o", parallelFolder.toString(),
+				pathToSmallSer, inputFile.toString() }).run();
+		final File parallelRawFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--raw-vcf", "--bgzf-threads", "3", "-o",
+				parallelRawFolder.toString(), pathToSmallSer, inputFile.toString() }).run();
+
+		final String expected = readBGZF(new File(singleFolder, "small.jv.vcf.gz"));
+		Assert.assertEquals(expected, readBGZF(new File(parallelFolder, "small.jv.vcf.gz")));
+		Assert.assertEquals(expected, readBGZF(new File(parallelRawFolder, "small.jv.vcf.gz")));
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(new File(parallelFolder, "small.jv.vcf.gz")));
+	}
+
+	@Test
+	public void testOnSmallExampleReadAhead() throws JannovarException, URISyntaxException, IOException {
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "small.vcf.gz");
+		final BlockCompressedOutputStream bgzfOut = new BlockCompressedOutputStream(inputFile);
+		bgzfOut.write(Files.toByteArray(new File(this.getClass().getResource("/small.vcf").toURI().getPath())));
+		bgzfOut.close();
+
+		final File outFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--read-ahead-threads", "2", "-o", outFolder.toString(),
+				pathToSmallSer, inputFile.toString() }).run();
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.toString(expectedFile, Charsets.UTF_8);
+		Assert.assertEquals(expected, readBGZF(new File(outFolder, "small.jv.vcf.gz")));
+	}
+
+	@Test
+	public void testRegionsSameAsSubsetOfAll() throws JannovarException, URISyntaxException, IOException {
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "regions.vcf");
+		Files.write("##fileformat=VCFv4.1\n"
+				+ "##contig=<ID=NC_000001.10,length=249250621>\n"
+				+ "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tindividual1\n"
+				+ "NC_000001.10\t321052\t.\tC\tT\t.\t.\t.\tGT\t0/1\n"
+				+ "NC_000001.10\t321060\t.\tC\tA\t.\t.\t.\tGT\t0/1\n"
+				+ "NC_000001.10\t321070\t.\tACGT\tA\t.\t.\t.\tGT\t1/1\n"
+				+ "NC_000001.10\t321100\t.\tC\tT\t.\t.\t.\tGT\t0/1\n", inputFile, Charsets.UTF_8);
+		IndexFactory.writeIndex(IndexFactory.createLinearIndex(inputFile, new VCFCodec()),
+				Tribble.indexFile(inputFile));
+		final File bedFile = new File(inFolder, "regions.bed");
+		Files.write("track name=test\nNC_000001.10\t321072\t321080\n", bedFile, Charsets.UTF_8);
+
+		final File allFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "-o", allFolder.toString(), pathToSmallSer,
+				inputFile.toString() }).run();
+		final String expected = Files.toString(new File(allFolder, "regions.jv.vcf"), Charsets.UTF_8)
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("NC_000001.10\t(321052|321100)\t.*\n", "");
+
+		// the overlapping regions are merged, the deletion overlaps with the merged and the BED region
+		final File regionsFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--region", "NC_000001.10:321,055-321,065", "--region",
+				"NC_000001.10:321060-321071", "--intervals", bedFile.toString(), "-o", regionsFolder.toString(),
+				pathToSmallSer, inputFile.toString() }).run();
+		Assert.assertEquals(expected, Files.toString(new File(regionsFolder, "regions.jv.vcf"), Charsets.UTF_8)
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand"));
+
+		final File restrictedFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--region", "NC_000001.10:321055-321071", "--intervals",
+				bedFile.toString(), "--restrict-transcripts", "-o", restrictedFolder.toString(), pathToSmallSer,
+				inputFile.toString() }).run();
+		Assert.assertEquals(expected, Files.toString(new File(restrictedFolder, "regions.jv.vcf"), Charsets.UTF_8)
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand"));
+	}
+
+	// Annotate three shards in separate processes, the merged shards must be the same as the annotated input.
+	@Test
+	public void testShardsSameAsAll() throws JannovarException, URISyntaxException, IOException, InterruptedException {
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "genome.vcf");
+		// with three shards of hg19, the first shard ends at NC_000005.9:150271294
+		Files.write("##fileformat=VCFv4.1\n"
+				+ "##contig=<ID=NC_000001.10,length=249250621>\n"
+				+ "##contig=<ID=NC_000005.9,length=180915260>\n"
+				+ "##contig=<ID=NC_000010.10,length=135534747>\n"
+				+ "##contig=<ID=NC_000023.10,length=155270560>\n"
+				+ "##contig=<ID=unknown,length=1000>\n"
+				+ "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tindividual1\n"
+				+ "NC_000001.10\t321052\t.\tC\tT\t.\t.\t.\tGT\t0/1\n"
+				+ "NC_000005.9\t150271290\t.\tACGTACGTAC\tA\t.\t.\t.\tGT\t0/1\n"
+				+ "NC_000005.9\t150271295\t.\tC\tT\t.\t.\t.\tGT\t0/1\n"
+				+ "NC_000010.10\t1000000\t.\tC\tT\t.\t.\t.\tGT\t1/1\n"
+				+ "NC_000023.10\t2000000\t.\tC\tT\t.\t.\t.\tGT\t0/1\n"
+				+ "unknown\t100\t.\tC\tT\t.\t.\t.\tGT\t0/1\n", inputFile, Charsets.UTF_8);
+		IndexFactory.writeIndex(IndexFactory.createLinearIndex(inputFile, new VCFCodec()),
+				Tribble.indexFile(inputFile));
+
+		final File allFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "-o", allFolder.toString(), pathToSmallSer,
+				inputFile.toString() }).run();
+
+		final File shardFolder = tmpFolder.newFolder();
+		final String javaPath = PathUtil.join(System.getProperty("java.home"), "bin", "java");
+		final ArrayList<Process> processes = new ArrayList<Process>();
+		for (int i = 1; i <= 3; ++i) {
+			ProcessBuilder builder = new ProcessBuilder(javaPath, "-cp", System.getProperty("java.class.path"),
+					Jannovar.class.getName(), "annotate", "--shard", i + "/3", "-o", shardFolder.toString(),
+					pathToSmallSer, inputFile.toString());
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(new File(shardFolder, "shard-" + i + ".log"));
+			processes.add(builder.start());
+		}
+		for (Process process : processes)
+			Assert.assertEquals(0, process.waitFor());
+
+		final File mergedFile = new File(shardFolder, "merged.vcf.gz");
+		new MergeShardsCommand(new String[] { "merge-shards", "-o", mergedFile.toString(),
+				new File(shardFolder, "genome.jv.shard-3-of-3.vcf.gz").toString(),
+				new File(shardFolder, "genome.jv.shard-1-of-3.vcf.gz").toString(),
+				new File(shardFolder, "genome.jv.shard-2-of-3.vcf.gz").toString() }).run();
+
+		final String expected = Files.toString(new File(allFolder, "genome.jv.vcf"), Charsets.UTF_8).replaceAll(
+				"##jannovarCommand.*", "##jannovarCommand");
+		Assert.assertEquals(expected, readBGZF(mergedFile));
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(mergedFile));
+		// the deletion crossing the shard boundary is only in the first shard
+		Assert.assertTrue(readBGZF(new File(shardFolder, "genome.jv.shard-1-of-3.vcf.gz")).contains("150271290"));
+		Assert.assertFalse(readBGZF(new File(shardFolder, "genome.jv.shard-2-of-3.vcf.gz")).contains("150271290"));
+	}
+
+	// Annotate several files concurrently, a broken file must not keep the other files from being annotated.
+	@Test
+	public void testParallelFilesIsolatesErrors() throws URISyntaxException, IOException {
+		final File inFolder = tmpFolder.newFolder();
+		final File smallFile = new File(this.getClass().getResource("/small.vcf").toURI().getPath());
+		final ArrayList<String> argv = new ArrayList<String>();
+		final File outFolder = tmpFolder.newFolder();
+		argv.addAll(Arrays.asList("annotate", "--parallel-files", "3", "-o", outFolder.toString(), pathToSmallSer));
+		for (int i = 0; i < 4; ++i) {
+			final File inputFile = new File(inFolder, "small" + i + ".vcf");
+			Files.copy(smallFile, inputFile);
+			argv.add(inputFile.toString());
+		}
+		final File brokenFile = new File(inFolder, "broken.vcf");
+		Files.write("##fileformat=VCFv4.1\nnot a VCF file\n", brokenFile, Charsets.UTF_8);
+		argv.add(argv.size() - 2, brokenFile.toString());
+
+		try {
+			new AnnotateVCFCommand(argv.toArray(new String[0])).run();
+			Assert.fail("expected JannovarException");
+		} catch (JannovarException e) {
+			Assert.assertTrue(e.getMessage().contains(brokenFile.toString()));
+		}
+
+		final String expected = Files.toString(
+				new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath()), Charsets.UTF_8);
+		for (int i = 0; i < 4; ++i) {
+			final File f = new File(outFolder, "small" + i + ".jv.vcf");
+			Assert.assertEquals(expected, Files.toString(f, Charsets.UTF_8).replaceAll("##jannovarCommand.*",
+					"##jannovarCommand"));
+		}
+	}
+
+	// Only the contigs declared in the VCF header are loaded, the records must be annotated as with all contigs.
+	@Test
+	public void testHeaderContigsSameAsAll() throws JannovarException, URISyntaxException, IOException {
+		final String small = Files.toString(new File(this.getClass().getResource("/small.vcf").toURI().getPath()),
+				Charsets.UTF_8);
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "small.vcf");
+		Files.write(small.replaceFirst("#CHROM", "##contig=<ID=NC_000001.10,length=249250621>\n#CHROM"), inputFile,
+				Charsets.UTF_8);
+
+		final File outFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "-o", outFolder.toString(), pathToSmallSer,
+				inputFile.toString() }).run();
+
+		final String expected = Files.toString(
+				new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath()), Charsets.UTF_8);
+		final String actual = Files.toString(new File(outFolder, "small.jv.vcf"), Charsets.UTF_8)
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand").replaceAll("##contig=.*\n", "");
+		Assert.assertEquals(expected, actual);
+	}
+
+	// The records are on a contig that is not declared in the VCF header, all contigs must be loaded for them and the
+	// annotation cache must not keep errors for them.
+	@Test
+	public void testUndeclaredContigSameAsAll() throws JannovarException, URISyntaxException, IOException {
+		final String small = Files.toString(new File(this.getClass().getResource("/small.vcf").toURI().getPath()),
+				Charsets.UTF_8);
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "small.vcf");
+		Files.write(small.replaceFirst("#CHROM", "##contig=<ID=NC_000002.11,length=243199373>\n#CHROM"), inputFile,
+				Charsets.UTF_8);
+		final File cacheFolder = tmpFolder.newFolder();
+
+		final String expected = Files.toString(
+				new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath()), Charsets.UTF_8);
+		final String[][] modes = new String[][] { {}, { "--raw-vcf" }, { "--site-merge" },
+				{ "--annotation-cache", cacheFolder.toString() } };
+		for (String[] mode : modes) {
+			final File outFolder = tmpFolder.newFolder();
+			final ArrayList<String> argv = new ArrayList<String>();
+			argv.add("annotate");
+			argv.addAll(Arrays.asList(mode));
+			argv.addAll(Arrays.asList("-o", outFolder.toString(), pathToSmallSer, inputFile.toString()));
+			new AnnotateVCFCommand(argv.toArray(new String[0])).run();
+			final String actual = Files.toString(new File(outFolder, "small.jv.vcf"), Charsets.UTF_8)
+					.replaceAll("##jannovarCommand.*", "##jannovarCommand").replaceAll("##contig=.*\n", "");
+			Assert.assertEquals(expected, actual);
+		}
+
+		// the cached annotation is the one of the loaded contig
+		final File outFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--annotation-cache", cacheFolder.toString(), "-o",
+				outFolder.toString(), pathToSmallSer, this.getClass().getResource("/small.vcf").toURI().getPath() })
+				.run();
+		Assert.assertEquals(expected, Files.toString(new File(outFolder, "small.jv.vcf"), Charsets.UTF_8)
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand"));
+	}
+
+	// Annotate with a cold and then a warm annotation cache, the output must be the same as without the cache.
+	@Test
+	public void testAnnotationCacheSameAsDirect() throws JannovarException, URISyntaxException, IOException {
+		final File inFolder = tmpFolder.newFolder();
+		final File inputFile = new File(inFolder, "mixed.vcf");
+		Files.write("##fileformat=VCFv4.1\n"
+				+ "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tindividual1\tindividual2\n"
+				+ "NC_000001.10\t321052\t.\tC\tT\t.\t.\t.\tGT\t0/1\t0/0\n"
+				+ "NC_000001.10\t321060\trs1\tC\tA,G\t50\tPASS\t.\tGT\t1/2\t0/1\n"
+				+ "NC_000001.10\t321070\t.\tAC\tA\t.\t.\t.\tGT\t1/1\t0/1\n"
+				+ "NC_000001.10\t321080\t.\tA\t<DEL>\t.\t.\t.\tGT\t0/1\t0/1\n"
+				+ "NC_000001.10\t321052\t.\tC\tT\t.\t.\t.\tGT\t0/0\t0/1\n"
+				+ "chrUn\t100\t.\tA\tC\t.\t.\t.\tGT\t0/1\t0/1\n", inputFile, Charsets.UTF_8);
+		final File cacheFolder = tmpFolder.newFolder();
+
+		final File directFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "-o", directFolder.toString(), pathToSmallSer,
+				inputFile.toString() }).run();
+		final String expected = Files.toString(new File(directFolder, "mixed.jv.vcf"), Charsets.UTF_8).replaceAll(
+				"##jannovarCommand.*", "##jannovarCommand");
+
+		final String[][] modes = new String[][] { {}, { "--raw-vcf" }, { "--site-merge", "--threads", "2" } };
+		for (String[] mode : modes) {
+			final File outFolder = tmpFolder.newFolder();
+			final ArrayList<String> argv = new ArrayList<String>();
+			argv.addAll(Arrays.asList("annotate", "--annotation-cache", cacheFolder.toString()));
+			argv.addAll(Arrays.asList(mode));
+			argv.addAll(Arrays.asList("-o", outFolder.toString(), pathToSmallSer, inputFile.toString()));
+			new AnnotateVCFCommand(argv.toArray(new String[0])).run();
+			final String actual = Files.toString(new File(outFolder, "mixed.jv.vcf"), Charsets.UTF_8).replaceAll(
+					"##jannovarCommand.*", "##jannovarCommand");
+			Assert.assertEquals(expected, actual);
+			Assert.assertEquals(1, cacheFolder.listFiles().length);
+		}
+
+		// different annotation options must not use the same cache file
+		final File oldInfoFolder = tmpFolder.newFolder();
+		new AnnotateVCFCommand(new String[] { "annotate", "--annotation-cache", cacheFolder.toString(),
+				"--old-info-fields", "-o", oldInfoFolder.toString(), pathToSmallSer, inputFile.toString() }).run();
+		Assert.assertEquals(2, cacheFolder.listFiles().length);
+		Assert.assertTrue(Files.toString(new File(oldInfoFolder, "mixed.jv.vcf"), Charsets.UTF_8).contains(
+				"EFFECT="));
+	}
+
+	// The cache file must stay within the size bound, also with only new sites, and the kept sites must be found again.
+	@Test
+	public void testAnnotationCacheSizeLimit() throws JannovarException, IOException {
+		final JannovarData data = new JannovarDataSerializer(pathToSmallSer).load();
+		final VariantContextAnnotator annotator = new VariantContextAnnotator(data.getRefDict(), data.getChromosomes());
+		final File cacheFile = new File(tmpFolder.newFolder(), "test.jvcache");
+		final long maxBytes = 4096;
+
+		AnnotationCache cache = new AnnotationCache(cacheFile, maxBytes);
+		for (int pos = 321000; pos < 321100; ++pos)
+			cache.getInfoValues(annotator, "NC_000001.10", pos, "C", ImmutableList.of("T"));
+		Assert.assertEquals(100, cache.getNumMisses());
+		cache.close();
+		Assert.assertTrue(cacheFile.exists());
+		Assert.assertTrue(cacheFile.length() <= maxBytes);
+
+		cache = new AnnotationCache(cacheFile, maxBytes);
+		for (int pos = 321000; pos < 321100; ++pos)
+			cache.getInfoValues(annotator, "NC_000001.10", pos, "C", ImmutableList.of("T"));
+		Assert.assertTrue(cache.getNumHits() > 0);
+		Assert.assertTrue(cache.getNumMisses() > 0);
+		cache.close();
+		Assert.assertTrue(cacheFile.length() <= maxBytes);
+
+		// a lower bound also applies to the current cache file
+		new AnnotationCache(cacheFile, 16).close();
+		Assert.assertFalse(cacheFile.exists());
+	}
+
+	// The annotation cache cannot be used with --restrict-transcripts, the annotation then depends on the regions.
+	@Test(expected = CommandLineParsingException.class)
+	public void testAnnotationCacheWithRestrictTranscripts() throws JannovarException {
+		new AnnotateVCFCommand(new String[] { "annotate", "--annotation-cache", tmpFolder.getRoot().toString(),
+				"--region", "NC_000001.10:1-1000", "--restrict-transcripts", pathToSmallSer, "in.vcf" });
+	}
+
+	// Annotating against two databases with half of the transcripts each must be the same as against all transcripts.
+	@Test
+	public void testMultipleDataFilesSameAsMerged() throws JannovarException, URISyntaxException, IOException {
+		final JannovarData data = new JannovarDataSerializer(pathToSmallSer).load();
+		final ImmutableList<TranscriptModel> transcripts = data.getTmByAccession().values().asList();
+		final ImmutableList.Builder<TranscriptModel> first = new ImmutableList.Builder<TranscriptModel>();
+		final ImmutableList.Builder<TranscriptModel> second = new ImmutableList.Builder<TranscriptModel>();
+		for (int i = 0; i < transcripts.size(); ++i)
+			((i % 2 == 0) ? first : second).add(transcripts.get(i));
+		final File firstSer = tmpFolder.newFile("first.ser");
+		new JannovarDataSerializer(firstSer.getPath()).save(new JannovarData(data.getRefDict(), first.build()));
+		final File secondSer = tmpFolder.newFile("second.ser");
+		new JannovarDataSerializer(secondSer.getPath()).save(new JannovarData(data.getRefDict(), second.build()));
+
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		final String expected = Files.toString(
+				new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath()), Charsets.UTF_8);
+		final File cacheFolder = tmpFolder.newFolder();
+		for (String[] mode : new String[][] { {}, { "--raw-vcf" }, { "--annotation-cache", cacheFolder.toString() } }) {
+			final File outFolder = tmpFolder.newFolder();
+			final ArrayList<String> argv = new ArrayList<String>();
+			argv.addAll(Arrays.asList("annotate", "--data-file", secondSer.toString()));
+			argv.addAll(Arrays.asList(mode));
+			argv.addAll(Arrays.asList("-o", outFolder.toString(), firstSer.toString(), inputFilePath));
+			new AnnotateVCFCommand(argv.toArray(new String[0])).run();
+			final String actual = Files.toString(new File(outFolder, "small.jv.vcf"), Charsets.UTF_8).replaceAll(
+					"##jannovarCommand.*", "##jannovarCommand");
+			Assert.assertEquals(expected, actual);
+		}
+
+		// the cache file for the first database alone must be a different one
+		new AnnotateVCFCommand(new String[] { "annotate", "--annotation-cache", cacheFolder.toString(), "-o",
+				tmpFolder.newFolder().toString(), firstSer.toString(), inputFilePath }).run();
+		Assert.assertEquals(2, cacheFolder.listFiles().length);
+	}
+
+	/** @return decompressed contents of BGZF <code>file</code>, with the command line masked */
+	private static String readBGZF(File file) throws IOException {
+		InputStream in = new BlockCompressedInputStream(file);
+		try {
+			return new String(ByteStreams.toByteArray(in), Charsets.UTF_8).replaceAll("##jannovarCommand.*",
+					"##jannovarCommand");
+		} finally {
+			in.close();
+		}
+	}
+
 }
@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.annotation;
 
 import java.util.Collection;
+import java.util.SortedSet;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSortedSet;
@@ -48,14 +49,35 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 			+ "Annotation_Impact|Gene_Name|Gene_ID|Feature_Type|Feature_ID|Transcript_BioType|Rank|HGVS.c|HGVS.p|"
 			+ "cDNA.pos / cDNA.length|CDS.pos / CDS.length|AA.pos / AA.length|Distance|ERRORS / WARNINGS / INFO'";
 
+	/** all {@link VariantEffect} values, for {@link EnumBitSet} */
+	private static final VariantEffect[] EFFECT_VALUES = VariantEffect.values();
+
+	/** all {@link AnnotationMessage} values, for {@link EnumBitSet} */
+	private static final AnnotationMessage[] MESSAGE_VALUES = AnnotationMessage.values();
+
 	/** the annotated {@link GenomeVariant} */
 	private final GenomeVariant change;
 
 	/** variant types, sorted by internal pathogenicity score */
-	private final ImmutableSortedSet<VariantEffect> effects;
+	private final EnumBitSet<VariantEffect> effects;
 
 	/** errors and warnings */
-	private final ImmutableSortedSet<AnnotationMessage> messages;
+	private final EnumBitSet<AnnotationMessage> messages;
+
+	/** {@link #effects} as {@link ImmutableSortedSet}, built lazily */
+	private ImmutableSortedSet<VariantEffect> effectsSet;
+
+	/** {@link #messages} as {@link ImmutableSortedSet}, built lazily */
+	private ImmutableSortedSet<AnnotationMessage> messagesSet;
+
+	/**
+	 * ordinal of the most pathogenic {@link VariantEffect} in {@link #effects}, <code>64</code> if there is none, used
+	 * as the primary sort key in {@link #compareTo}
+	 */
+	private final int sortKey;
+
+	/** highest {@link PutativeImpact} of all {@link #effects}, <code>null</code> if there is none */
+	private final PutativeImpact impact;
 
 	/** location of the annotation, <code>null</code> if not even nearby a {@link TranscriptModel} */
 	private final AnnotationLocation annoLoc;
@@ -129,15 +151,15 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 		if (change != null)
 			change = change.withStrand(Strand.FWD); // enforce forward strand
 		this.change = change;
-		if (varTypes == null)
-			this.effects = ImmutableSortedSet.<VariantEffect> of();
-		else
-			this.effects = ImmutableSortedSet.copyOf(varTypes);
+		this.effects = new EnumBitSet<VariantEffect>(EFFECT_VALUES, EnumBitSet.toBits(varTypes));
+		// the values of VariantEffect are sorted by decreasing impact, so the first one has the highest impact
+		this.sortKey = Long.numberOfTrailingZeros(effects.getBits());
+		this.impact = effects.isEmpty() ? null : EFFECT_VALUES[sortKey].getImpact();
 		this.annoLoc = annoLoc;
 		this.ntHGVSDescription = ntHGVSDescription;
 		this.aaHGVSDescription = aaHGVSDescription;
 		this.transcript = transcript;
-		this.messages = ImmutableSortedSet.copyOf(messages);
+		this.messages = new EnumBitSet<AnnotationMessage>(MESSAGE_VALUES, EnumBitSet.toBits(messages));
 	}
 
 	/** @return the annotated {@link GenomeVariant} */
@@ -145,13 +167,41 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 		return change;
 	}
 
-	/** @return variant types, sorted by internal pathogenicity score */
+	/**
+	 * @return variant types, sorted by internal pathogenicity score
+	 * @see #getEffectsView
+	 */
 	public ImmutableSortedSet<VariantEffect> getEffects() {
+		// benign race, all threads build the same immutable set
+		if (effectsSet == null)
+			effectsSet = ImmutableSortedSet.copyOf(effects);
+		return effectsSet;
+	}
+
+	/**
+	 * @return immutable view on the variant types, sorted by internal pathogenicity score, without copying them into
+	 *         an {@link ImmutableSortedSet} as {@link #getEffects} does
+	 */
+	public SortedSet<VariantEffect> getEffectsView() {
 		return effects;
 	}
 
-	/** @return errors and warnings */
+	/**
+	 * @return errors and warnings
+	 * @see #getMessagesView
+	 */
 	public ImmutableSortedSet<AnnotationMessage> getMessages() {
+		// benign race, all threads build the same immutable set
+		if (messagesSet == null)
+			messagesSet = ImmutableSortedSet.copyOf(messages);
+		return messagesSet;
+	}
+
+	/**
+	 * @return immutable view on the errors and warnings, without copying them into an {@link ImmutableSortedSet} as
+	 *         {@link #getMessages} does
+	 */
+	public SortedSet<AnnotationMessage> getMessagesView() {
 		return messages;
 	}
 
@@ -179,13 +229,7 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	 * @return highest {@link PutativeImpact} of all {@link #effects}.
 	 */
 	public PutativeImpact getPutativeImpact() {
-		if (effects.isEmpty())
-			return null;
-		VariantEffect worst = effects.first();
-		for (VariantEffect vt : effects)
-			if (worst.getImpact().compareTo(vt.getImpact()) > 0)
-				worst = vt;
-		return worst.getImpact();
+		return impact;
 	}
 
 	/**
@@ -198,18 +242,40 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	 *            whether or not to escape the invalid VCF characters, e.g. <code>'='</code>.
 	 */
 	public String toVCFAnnoString(String alt, boolean escape) {
+		return appendVCFAnnoString(new StringBuilder(), alt, escape).toString();
+	}
+
+	/**
+	 * Append the VCF annotation string, as returned by {@link #toVCFAnnoString(String, boolean)}, to
+	 * <code>builder</code>.
+	 *
+	 * This allows to write all annotations of a VCF record into one (reused) {@link StringBuilder}.
+	 *
+	 * @param builder
+	 *            {@link StringBuilder} to append to
+	 * @param alt
+	 *            alternative allele value
+	 * @param escape
+	 *            whether or not to escape the invalid VCF characters, e.g. <code>'='</code>.
+	 * @return <code>builder</code>
+	 */
+	public StringBuilder appendVCFAnnoString(StringBuilder builder, String alt, boolean escape) {
+		return buildVCFAnnotationData().appendTo(builder, alt, escape);
+	}
+
+	/**
+	 * @return {@link VCFAnnotationData} with the values from this annotation
+	 */
+	VCFAnnotationData buildVCFAnnotationData() {
 		VCFAnnotationData data = new VCFAnnotationData();
 		data.effects = effects;
-		data.impact = getPutativeImpact();
+		data.impact = impact;
 		data.setTranscriptAndChange(transcript, change);
 		data.setAnnoLoc(annoLoc);
 		data.ntHGVSDescription = ntHGVSDescription;
 		data.aaHGVSDescription = aaHGVSDescription;
 		data.messages = messages;
-		if (escape)
-			return data.toString(alt);
-		else
-			return data.toUnescapedString(alt);
+		return data;
 	}
 
 	/**
@@ -252,7 +318,7 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	public VariantEffect getMostPathogenicVarType() {
 		if (effects.isEmpty())
 			return null;
-		return effects.first();
+		return EFFECT_VALUES[sortKey];
 	}
 
 	public String getChrName() {
@@ -276,15 +342,9 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	}
 
 	public int compareTo(Annotation other) {
-		if (getMostPathogenicVarType() == null && getMostPathogenicVarType() == other.getMostPathogenicVarType())
-			return 0;
-		else if (other.getMostPathogenicVarType() == null)
-			return -1;
-		else if (getMostPathogenicVarType() == null)
-			return 1;
-
-		int result = getMostPathogenicVarType().ordinal() - other.getMostPathogenicVarType().ordinal();
-		if (result != 0)
+		// annotations without effects have the largest sort key and thus come last
+		int result = sortKey - other.sortKey;
+		if (result != 0 || effects.isEmpty())
 			return result;
 
 		if (transcript == null && other.transcript == null)
@@ -309,8 +369,8 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 		int result = 1;
 		result = prime * result + ((aaHGVSDescription == null) ? 0 : aaHGVSDescription.hashCode());
 		result = prime * result + ((annoLoc == null) ? 0 : annoLoc.hashCode());
-		result = prime * result + ((effects == null) ? 0 : effects.hashCode());
-		result = prime * result + ((messages == null) ? 0 : messages.hashCode());
+		result = prime * result + (int) (effects.getBits() ^ (effects.getBits() >>> 32));
+		result = prime * result + (int) (messages.getBits() ^ (messages.getBits() >>> 32));
 		result = prime * result + ((ntHGVSDescription == null) ? 0 : ntHGVSDescription.hashCode());
 		result = prime * result + ((transcript == null) ? 0 : transcript.hashCode());
 		return result;
@@ -335,15 +395,9 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 				return false;
 		} else if (!annoLoc.equals(other.annoLoc))
 			return false;
-		if (effects == null) {
-			if (other.effects != null)
-				return false;
-		} else if (!effects.equals(other.effects))
+		if (effects.getBits() != other.effects.getBits())
 			return false;
-		if (messages == null) {
-			if (other.messages != null)
-				return false;
-		} else if (!messages.equals(other.messages))
+		if (messages.getBits() != other.messages.getBits())
 			return false;
 		if (ntHGVSDescription == null) {
 			if (other.ntHGVSDescription != null)
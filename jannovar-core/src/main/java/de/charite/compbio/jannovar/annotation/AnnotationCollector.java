@@ -7,7 +7,6 @@ import java.util.HashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Predicates;
 import com.google.common.collect.FluentIterable;
 
 import de.charite.compbio.jannovar.data.Chromosome;
@@ -292,9 +291,9 @@ final class AnnotationCollector {
 	 */
 	public void addExonicAnnotation(Annotation ann) {
 		this.annotationLst.add(ann);
-		if (FluentIterable.from(ann.getEffects()).anyMatch(Predicates.equalTo(VariantEffect.SYNONYMOUS_VARIANT)))
+		if (ann.getEffectsView().contains(VariantEffect.SYNONYMOUS_VARIANT))
 			this.hasSynonymous = true;
-		else if (FluentIterable.from(ann.getEffects()).anyMatch(VariantEffect.IS_SPLICING))
+		else if (FluentIterable.from(ann.getEffectsView()).anyMatch(VariantEffect.IS_SPLICING))
 			this.hasSplicing = true;
 		else
 			this.hasExonic = true;
@@ -328,7 +327,7 @@ final class AnnotationCollector {
 	 */
 	public void addIntronicAnnotation(Annotation ann) {
 		this.geneSymbolSet.add(ann.getTranscript().getGeneSymbol());
-		if (FluentIterable.from(ann.getEffects()).anyMatch(VariantEffect.IS_INTRONIC)) {
+		if (FluentIterable.from(ann.getEffectsView()).anyMatch(VariantEffect.IS_INTRONIC)) {
 			for (Annotation a : this.annotationLst) {
 				if (a.equals(ann))
 					return; /* already have identical annotation */
@@ -0,0 +1,149 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+import de.charite.compbio.jannovar.Immutable;
+
+/**
+ * Immutable {@link SortedSet} of the values of an <code>enum</code> with at most 64 values, stored as a
+ * <code>long</code> bit mask.
+ *
+ * Bit <code>i</code> is set if the value with ordinal <code>i</code> is contained in the set. The set is ordered by the
+ * ordinals of its values, i.e., the natural order of the <code>enum</code>. Thus, the first value is given by the
+ * lowest set bit and the set operations are cheap bit operations.
+ *
+ * @param <E>
+ *            the <code>enum</code> type
+ */
+@Immutable
+final class EnumBitSet<E extends Enum<E>> extends AbstractSet<E> implements SortedSet<E> {
+
+	/** all values of the <code>enum</code>, as returned by <code>values()</code> */
+	private final E[] universe;
+
+	/** the bit mask, bit <code>i</code> is set if <code>universe[i]</code> is in the set */
+	private final long bits;
+
+	/**
+	 * @param universe
+	 *            all values of the <code>enum</code>, as returned by <code>values()</code>, at most 64
+	 * @param bits
+	 *            the bit mask with the ordinals of the values in the set
+	 */
+	EnumBitSet(E[] universe, long bits) {
+		if (universe.length > 64)
+			throw new IllegalArgumentException("Enum has more than 64 values: " + universe.length);
+		this.universe = universe;
+		this.bits = bits;
+	}
+
+	/**
+	 * @param values
+	 *            the values to put into the set, <code>null</code> for the empty set
+	 * @return bit mask with the bits for the ordinals of the <code>values</code> set
+	 */
+	static <E extends Enum<E>> long toBits(Iterable<? extends E> values) {
+		long result = 0;
+		if (values != null)
+			for (E value : values)
+				result |= 1L << value.ordinal();
+		return result;
+	}
+
+	/** @return the bit mask of this set */
+	long getBits() {
+		return bits;
+	}
+
+	/** @return bit mask for all values with an ordinal greater than or equal to the one of <code>value</code> */
+	private static long fromMask(Enum<?> value) {
+		return -1L << value.ordinal();
+	}
+
+	@Override
+	public int size() {
+		return Long.bitCount(bits);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return bits == 0;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Enum))
+			return false;
+		final int ordinal = ((Enum<?>) o).ordinal();
+		return ordinal < universe.length && universe[ordinal] == o && (bits & (1L << ordinal)) != 0;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			/** the bits of the values that have not been returned yet */
+			private long remaining = bits;
+
+			public boolean hasNext() {
+				return remaining != 0;
+			}
+
+			public E next() {
+				if (remaining == 0)
+					throw new NoSuchElementException();
+				final int ordinal = Long.numberOfTrailingZeros(remaining);
+				remaining &= remaining - 1;
+				return universe[ordinal];
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/** @return <code>null</code>, the set uses the natural order of the <code>enum</code> */
+	public Comparator<? super E> comparator() {
+		return null;
+	}
+
+	public E first() {
+		if (bits == 0)
+			throw new NoSuchElementException();
+		return universe[Long.numberOfTrailingZeros(bits)];
+	}
+
+	public E last() {
+		if (bits == 0)
+			throw new NoSuchElementException();
+		return universe[63 - Long.numberOfLeadingZeros(bits)];
+	}
+
+	public SortedSet<E> subSet(E fromElement, E toElement) {
+		if (fromElement.compareTo(toElement) > 0)
+			throw new IllegalArgumentException("fromElement > toElement");
+		return new EnumBitSet<E>(universe, bits & fromMask(fromElement) & ~fromMask(toElement));
+	}
+
+	public SortedSet<E> headSet(E toElement) {
+		return new EnumBitSet<E>(universe, bits & ~fromMask(toElement));
+	}
+
+	public SortedSet<E> tailSet(E fromElement) {
+		return new EnumBitSet<E>(universe, bits & fromMask(fromElement));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof EnumBitSet && ((EnumBitSet<?>) obj).universe == universe)
+			return ((EnumBitSet<?>) obj).bits == bits;
+		return super.equals(obj);
+	}
+
+}
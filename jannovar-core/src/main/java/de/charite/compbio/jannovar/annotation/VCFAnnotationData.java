@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.annotation;
 
+import java.util.SortedSet;
+
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Joiner;
 import com.google.common.collect.FluentIterable;
@@ -15,12 +17,14 @@ import de.charite.compbio.jannovar.reference.TranscriptProjectionDecorator;
 /**
  * Class for collecting the data for a VCF annotation string.
  *
- * Simplifies building of <code>Object</code> arrays that can then be joined using {@link Joiner}.
+ * Use {@link #appendTo} for writing the annotation string into a {@link StringBuilder} without creating intermediate
+ * objects. {@link #toArray} and {@link #toString(String)} build the same string through <code>Object</code> arrays that
+ * are joined using {@link Joiner}.
  */
 class VCFAnnotationData {
 
 	/** predicted effects */
-	public ImmutableSortedSet<VariantEffect> effects = ImmutableSortedSet.<VariantEffect> of();
+	public SortedSet<VariantEffect> effects = ImmutableSortedSet.<VariantEffect> of();
 	/** predicted impact */
 	public PutativeImpact impact = null;
 	/** symbol of affected gene */
@@ -52,7 +56,7 @@ class VCFAnnotationData {
 	/** distance */
 	public int distance = -1;
 	/** additional messages for the annotation */
-	public ImmutableSortedSet<AnnotationMessage> messages = ImmutableSortedSet.<AnnotationMessage> of();
+	public SortedSet<AnnotationMessage> messages = ImmutableSortedSet.<AnnotationMessage> of();
 
 	public void setAnnoLoc(AnnotationLocation annoLoc) {
 		if (annoLoc == null)
@@ -114,6 +118,101 @@ class VCFAnnotationData {
 				getCDSPosString(), getAminoAcidPosString(), getDistanceString(), joiner.join(messages) };
 	}
 
+	/**
+	 * Append the annotation string to <code>builder</code>.
+	 *
+	 * The result is the same as the one of {@link #toString(String)} (<code>escape == true</code>) or
+	 * {@link #toUnescapedString} (<code>escape == false</code>).
+	 *
+	 * @param builder
+	 *            {@link StringBuilder} to append to
+	 * @param allele
+	 *            alternative allele value to prepend
+	 * @param escape
+	 *            whether or not to escape the invalid VCF characters
+	 * @return <code>builder</code>
+	 */
+	public StringBuilder appendTo(StringBuilder builder, String allele, boolean escape) {
+		appendValue(builder, allele, escape);
+		builder.append('|');
+		boolean first = true;
+		for (VariantEffect effect : effects) {
+			if (!first)
+				builder.append('&');
+			first = false;
+			appendValue(builder, effect.getSequenceOntologyTerm(), escape);
+		}
+		builder.append('|');
+		if (impact != null)
+			appendValue(builder, impact.toString(), escape);
+		builder.append('|');
+		appendValue(builder, geneSymbol, escape);
+		builder.append('|');
+		appendValue(builder, geneID, escape);
+		builder.append('|');
+		appendValue(builder, featureType, escape);
+		builder.append('|');
+		appendValue(builder, featureID, escape);
+		builder.append('|');
+		appendValue(builder, featureBioType, escape);
+		builder.append('|');
+		if (rank != -1)
+			builder.append(rank + 1).append('/').append(totalRank);
+		builder.append('|');
+		appendValue(builder, ntHGVSDescription, escape);
+		builder.append('|');
+		appendValue(builder, aaHGVSDescription, escape);
+		builder.append('|');
+		if (txPos != -1)
+			builder.append(txPos + 1).append('/').append(txLength);
+		builder.append('|');
+		if (cdsPos != -1 && featureBioType.equals("Coding"))
+			builder.append(cdsPos + 1).append('/').append(cdsLength);
+		builder.append('|');
+		if (cdsPos != -1 && featureBioType.equals("Coding"))
+			builder.append(cdsPos / 3 + 1).append('/').append(cdsLength / 3);
+		builder.append('|');
+		if (distance != -1)
+			builder.append(distance);
+		builder.append('|');
+		first = true;
+		for (AnnotationMessage message : messages) {
+			if (!first)
+				builder.append('&');
+			first = false;
+			appendValue(builder, message.toString(), escape);
+		}
+		return builder;
+	}
+
+	/**
+	 * Append <code>value</code> to <code>builder</code>, optionally escaped as in {@link #escape}.
+	 *
+	 * <code>null</code> values are written as the empty string.
+	 */
+	private static void appendValue(StringBuilder builder, String value, boolean escape) {
+		if (value == null)
+			return;
+		if (!escape) {
+			builder.append(value);
+			return;
+		}
+		final int len = value.length();
+		for (int i = 0; i < len; ++i) {
+			final char c = value.charAt(i);
+			if (c == ',' || c == ';' || CharMatcher.WHITESPACE.matches(c))
+				builder.append('_');
+			else if (c == '=')
+				builder.append("%3D");
+			else if (c == '(')
+				builder.append("%28");
+			else if (c == ')')
+				builder.append("%29");
+			else
+				builder.append(c);
+		}
+	}
+
 	public String toUnescapedString(String allele) {
 		return Joiner.on('|').useForNull("").join(toArray(allele));
 	}
@@ -95,10 +95,10 @@ public final class VariantAnnotations implements VariantDescription {
 	 */
 	public VariantEffect getHighestImpactEffect() {
 		final Annotation anno = getHighestImpactAnnotation();
-		if (anno == null || anno.getEffects().isEmpty())
+		if (anno == null || anno.getEffectsView().isEmpty())
 			return VariantEffect.SEQUENCE_VARIANT;
 		else
-			return anno.getEffects().first();
+			return anno.getMostPathogenicVarType();
 	}
 
 	@Override
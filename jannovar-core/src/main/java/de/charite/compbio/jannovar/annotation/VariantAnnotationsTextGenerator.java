@@ -58,7 +58,7 @@ public abstract class VariantAnnotationsTextGenerator {
 				builder.append(',');
 			if (altCount > 1)
 				builder.append(StringUtil.concatenate("alt", alleleID + 1, ":"));
-			builder.append(Joiner.on("+").join(anno.getEffects()));
+			builder.append(Joiner.on("+").join(anno.getEffectsView()));
 		}
 		return builder.toString();
 	}
@@ -10,6 +10,8 @@ import de.charite.compbio.jannovar.annotation.builders.StructuralVariantAnnotati
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.jfr.JFRSupport;
+import de.charite.compbio.jannovar.metrics.Metrics;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
@@ -114,8 +116,12 @@ public final class VariantAnnotator {
 	public VariantAnnotations buildAnnotations(GenomeVariant change) throws AnnotationException {
 		// Short-circuit in the case of symbolic changes/alleles. These could be SVs, large duplications, etc., that are
 		// described as shortcuts in the VCF file. We cannot annotate these yet.
-		if (change.isSymbolic())
+		if (change.isSymbolic()) {
+			Metrics.incCounter(Metrics.COUNTER_VARIANTS, 1);
 			return VariantAnnotations.buildEmptyList(change);
+		}
+
+		final Object event = JFRSupport.beginVariantAnnotation();
 
 		// Get genomic change interval and reset the factory.
 		final GenomeInterval changeInterval = change.getGenomeInterval();
@@ -123,12 +129,14 @@ public final class VariantAnnotator {
 
 		// Get the TranscriptModel objects that overlap with changeInterval.
 		final Chromosome chr = chromosomeMap.get(change.getChr());
+		final long startTime = Metrics.startTimer();
 		IntervalArray<TranscriptModel>.QueryResult qr;
 		if (changeInterval.length() == 0)
 			qr = chr.getTMIntervalTree().findOverlappingWithPoint(changeInterval.getBeginPos());
 		else
 			qr = chr.getTMIntervalTree().findOverlappingWithInterval(changeInterval.getBeginPos(),
 					changeInterval.getEndPos());
+		Metrics.stopTimer(Metrics.TIMER_INTERVAL_QUERY, startTime);
 		ArrayList<TranscriptModel> candidateTranscripts = new ArrayList<TranscriptModel>(qr.getEntries());
 
 		// Handle the case of no overlapping transcript. Then, create intergenic, upstream, or downstream annotations
@@ -138,8 +146,8 @@ public final class VariantAnnotator {
 			if (isStructuralVariant)
 				buildSVAnnotation(change, null);
 			else
-				buildNonSVAnnotation(change, qr.getLeft(), qr.getRight());
-			return annovarFactory.getAnnotationList(change);
+				buildNonSVAnnotation(change, chr, qr.getLeft(), qr.getRight());
+			return recordAnnotations(annovarFactory.getAnnotationList(change), event, 0);
 		}
 
 		// If we reach here, then there is at least one transcript that overlaps with the query. Iterate over these
@@ -150,17 +158,62 @@ public final class VariantAnnotator {
 			else
 				buildNonSVAnnotation(change, tm);
 
-		return annovarFactory.getAnnotationList(change);
+		return recordAnnotations(annovarFactory.getAnnotationList(change), event, candidateTranscripts.size());
+	}
+
+	/**
+	 * Record the variant, its number of annotations, and their messages if instrumentation is enabled.
+	 *
+	 * @param annos
+	 *            the {@link VariantAnnotations} to record
+	 * @param event
+	 *            JFR event handle from {@link JFRSupport#beginVariantAnnotation}, may be <code>null</code>
+	 * @param transcriptCount
+	 *            number of overlapping transcripts
+	 * @return <code>annos</code>
+	 */
+	private static VariantAnnotations recordAnnotations(VariantAnnotations annos, Object event, int transcriptCount) {
+		JFRSupport.commitVariantAnnotation(event, annos.getGenomeVariant(), transcriptCount, annos.getAnnotations()
+				.size());
+		if (!Metrics.isEnabled())
+			return annos;
+		Metrics.incCounter(Metrics.COUNTER_VARIANTS, 1);
+		Metrics.incCounter(Metrics.COUNTER_ANNOTATIONS, annos.getAnnotations().size());
+		for (Annotation anno : annos.getAnnotations())
+			Metrics.countMessages(anno.getMessagesView());
+		return annos;
 	}
 
 	private void buildSVAnnotation(GenomeVariant change, TranscriptModel transcript) throws AnnotationException {
+		final long startTime = Metrics.startTimer();
 		annovarFactory.addStructuralAnnotation(new StructuralVariantAnnotationBuilder(transcript, change).build());
+		Metrics.stopTimer(Metrics.TIMER_BUILDER_PREFIX + StructuralVariantAnnotationBuilder.class.getSimpleName(),
+				startTime);
 	}
 
-	private void buildNonSVAnnotation(GenomeVariant change, TranscriptModel leftNeighbor, TranscriptModel rightNeighbor)
-			throws AnnotationException {
+	/**
+	 * Build annotations for a change that does not overlap with any transcript.
+	 *
+	 * The nearest transcripts left and right of the change are always annotated, all other transcripts only if the
+	 * change lies in their upstream or downstream region.
+	 */
+	private void buildNonSVAnnotation(GenomeVariant change, Chromosome chr, TranscriptModel leftNeighbor,
+			TranscriptModel rightNeighbor) throws AnnotationException {
 		buildNonSVAnnotation(change, leftNeighbor);
 		buildNonSVAnnotation(change, rightNeighbor);
+
+		// query all transcripts within the upstream/downstream length at once, a point query is for one position
+		final GenomeInterval changeInterval = change.getGenomeInterval();
+		final int beginPos = changeInterval.getBeginPos();
+		final int endPos = Math.max(changeInterval.getEndPos(), beginPos + 1);
+		for (TranscriptModel tm : chr.getTMIntervalTree().findNeighborsWithinDistance(beginPos, endPos,
+				options.getUpDownstreamLength())) {
+			if (tm == leftNeighbor || tm == rightNeighbor)
+				continue;
+			Annotation anno = new AnnotationBuilderDispatcher(tm, change, options).build();
+			if (!anno.getEffectsView().contains(VariantEffect.INTERGENIC_VARIANT))
+				annovarFactory.addExonicAnnotation(anno);
+		}
 	}
 
 	private void buildNonSVAnnotation(GenomeVariant change, TranscriptModel transcript) throws InvalidGenomeChange {
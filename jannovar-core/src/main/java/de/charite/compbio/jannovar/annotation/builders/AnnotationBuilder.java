@@ -90,7 +90,7 @@ abstract class AnnotationBuilder {
 		change = change.withStrand(transcript.getStrand());
 		this.transcript = transcript;
 
-		this.so = new TranscriptSequenceOntologyDecorator(transcript);
+		this.so = new TranscriptSequenceOntologyDecorator(transcript, options.getUpDownstreamLength());
 		this.projector = new TranscriptProjectionDecorator(transcript);
 		this.seqChangeHelper = new TranscriptSequenceChangeHelper(transcript);
 		this.seqDecorator = new TranscriptSequenceDecorator(transcript);
@@ -5,6 +5,8 @@ import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.annotation.Annotation;
 import de.charite.compbio.jannovar.annotation.InvalidGenomeChange;
 import de.charite.compbio.jannovar.annotation.VariantEffect;
+import de.charite.compbio.jannovar.impl.jfr.JFRSupport;
+import de.charite.compbio.jannovar.metrics.Metrics;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
@@ -36,20 +38,38 @@ public final class AnnotationBuilderDispatcher {
 	 *             if there is a problem with {@link #change}
 	 */
 	public Annotation build() throws InvalidGenomeChange {
-		if (transcript == null)
-			return new Annotation(null, change, ImmutableList.of(VariantEffect.INTERGENIC_VARIANT), null, null, null);
+		if (transcript == null) {
+			final Object event = JFRSupport.beginAnnotationBuilder();
+			final Annotation result = new Annotation(null, change, ImmutableList.of(VariantEffect.INTERGENIC_VARIANT),
+					null, null, null);
+			JFRSupport.commitAnnotationBuilder(event, change, null, "intergenic");
+			return result;
+		}
 
+		final Object event = JFRSupport.beginAnnotationBuilder();
+		final long startTime = Metrics.startTimer();
+		final AnnotationBuilder builder;
 		switch (change.getType()) {
 		case SNV:
-			return new SNVAnnotationBuilder(transcript, change, options).build();
+			builder = new SNVAnnotationBuilder(transcript, change, options);
+			break;
 		case DELETION:
-			return new DeletionAnnotationBuilder(transcript, change, options).build();
+			builder = new DeletionAnnotationBuilder(transcript, change, options);
+			break;
 		case INSERTION:
-			return new InsertionAnnotationBuilder(transcript, change, options).build();
+			builder = new InsertionAnnotationBuilder(transcript, change, options);
+			break;
 		case BLOCK_SUBSTITUTION:
 		default:
-			return new BlockSubstitutionAnnotationBuilder(transcript, change, options).build();
+			builder = new BlockSubstitutionAnnotationBuilder(transcript, change, options);
+			break;
 		}
+		final Annotation result = builder.build();
+		JFRSupport.commitAnnotationBuilder(event, change, transcript.getAccession(), builder.getClass()
+				.getSimpleName());
+		if (startTime != 0)
+			Metrics.stopTimer(Metrics.TIMER_BUILDER_PREFIX + builder.getClass().getSimpleName(), startTime);
+		return result;
 	}
 
 }
@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.annotation.builders;
 
+import de.charite.compbio.jannovar.reference.TranscriptSequenceOntologyDecorator;
+
 /**
  * Configuration for the {@link AnnotationBuilder} subclasses.
  *
@@ -12,12 +14,23 @@ public class AnnotationBuilderOptions {
 	 */
 	private final boolean nt3PrimeShifting;
 
+	/**
+	 * length of the upstream and downstream regions of the transcripts
+	 * (default is {@link TranscriptSequenceOntologyDecorator#DEFAULT_UP_DOWNSTREAM_LENGTH})
+	 */
+	private final int upDownstreamLength;
+
 	public AnnotationBuilderOptions() {
-		this.nt3PrimeShifting = true;
+		this(true);
 	}
 
 	public AnnotationBuilderOptions(boolean nt3PrimeShifting) {
+		this(nt3PrimeShifting, TranscriptSequenceOntologyDecorator.DEFAULT_UP_DOWNSTREAM_LENGTH);
+	}
+
+	public AnnotationBuilderOptions(boolean nt3PrimeShifting, int upDownstreamLength) {
 		this.nt3PrimeShifting = nt3PrimeShifting;
+		this.upDownstreamLength = upDownstreamLength;
 	}
 
 	/**
@@ -27,4 +40,13 @@ public class AnnotationBuilderOptions {
 	public boolean isNt3PrimeShifting() {
 		return nt3PrimeShifting;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return length of the upstream and downstream regions of the
+	 *         transcripts; intergenic variants get an upstream or downstream
+	 *         annotation for each transcript within this distance
+	 */
+	public int getUpDownstreamLength() {
+		return upDownstreamLength;
+	}
+}
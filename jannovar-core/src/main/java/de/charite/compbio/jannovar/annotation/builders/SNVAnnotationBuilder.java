@@ -12,6 +12,7 @@ import de.charite.compbio.jannovar.impl.util.StringUtil;
 import de.charite.compbio.jannovar.impl.util.Translator;
 import de.charite.compbio.jannovar.reference.CDSPosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.NucleotideSequence;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.ProjectionException;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
@@ -87,37 +88,61 @@ public final class SNVAnnotationBuilder extends AnnotationBuilder {
 
 		// Check that the WT nucleotide from the transcript is consistent with change.ref and generate a warning message
 		// if this is not the case.
-		if (txPos.getPos() >= transcript.getSequence().length()
-				|| !transcript.getSequence().substring(txPos.getPos(), txPos.getPos() + 1).equals(change.getRef()))
+		final NucleotideSequence seq = transcript.getNucleotideSequence();
+		final char refNT = change.getRef().charAt(0);
+		final char altNT = change.getAlt().charAt(0);
+		if (txPos.getPos() >= seq.length() || seq.charAt(txPos.getPos()) != refNT)
 			messages.add(AnnotationMessage.WARNING_REF_DOES_NOT_MATCH_GENOME);
 
 		// Compute the frame shift and codon start position.
 		int frameShift = cdsPos.getPos() % 3;
+		int codonStart = txPos.getPos() - frameShift;
 		// Get the transcript codon. From this, we generate the WT and the variant codon. This is important in the case
 		// where the transcript differs from the reference. This inconsistency of the reference and the transcript is
 		// not necessarily an error in the data base but can also occur in the case of post-transcriptional changes of
 		// the transcript.
-		String transcriptCodon = seqDecorator.getCodonAt(txPos, cdsPos);
-		String wtCodon = TranscriptSequenceDecorator.codonWithUpdatedBase(transcriptCodon, frameShift,
-				change.getRef().charAt(0));
-		String varCodon = TranscriptSequenceDecorator.codonWithUpdatedBase(transcriptCodon, frameShift,
-				change.getAlt().charAt(0));
-
-		// Construct the HGSV annotation parts for the transcript location and nucleotides (note that HGSV uses 1-based
-		// positions).
-		char wtNT = wtCodon.charAt(frameShift); // wild type nucleotide
-		char varNT = varCodon.charAt(frameShift); // wild type amino acid
-		hgvsSNVOverride = StringUtil.concatenate(wtNT, ">", varNT);
-
-		// Construct annotation part for the protein.
-		String wtAA = Translator.getTranslator().translateDNA3(wtCodon);
-		String varAA = Translator.getTranslator().translateDNA3(varCodon);
+		//
+		// For codons and alleles consisting of upper case ACGT only, the amino acids and the effect are looked up in
+		// SNVEffectTable, all other cases are translated.
+		int codon = -1;
+		if (codonStart >= 0 && codonStart + 3 <= seq.length())
+			codon = SNVEffectTable.encodeCodon(seq.charAt(codonStart), seq.charAt(codonStart + 1),
+					seq.charAt(codonStart + 2));
+		final int refCode = SNVEffectTable.encode(refNT);
+		final int altCode = SNVEffectTable.encode(altNT);
+
+		String wtAA;
+		String varAA;
+		VariantEffect effect;
+		if (codon >= 0 && refCode >= 0 && altCode >= 0) {
+			final int wtCodon = SNVEffectTable.substitute(codon, frameShift, refCode);
+			wtAA = SNVEffectTable.getAminoAcid(wtCodon);
+			varAA = SNVEffectTable.getAminoAcid(SNVEffectTable.substitute(codon, frameShift, altCode));
+			effect = SNVEffectTable.getEffect(wtCodon, frameShift, altCode);
+			hgvsSNVOverride = StringUtil.concatenate(refNT, ">", altNT);
+		} else {
+			String transcriptCodon = seqDecorator.getCodonAt(txPos, cdsPos);
+			String wtCodon = TranscriptSequenceDecorator.codonWithUpdatedBase(transcriptCodon, frameShift, refNT);
+			String varCodon = TranscriptSequenceDecorator.codonWithUpdatedBase(transcriptCodon, frameShift, altNT);
+
+			// Construct the HGSV annotation parts for the transcript location and nucleotides (note that HGSV uses
+			// 1-based positions).
+			char wtNT = wtCodon.charAt(frameShift); // wild type nucleotide
+			char varNT = varCodon.charAt(frameShift); // wild type amino acid
+			hgvsSNVOverride = StringUtil.concatenate(wtNT, ">", varNT);
+
+			// Construct annotation part for the protein.
+			wtAA = Translator.getTranslator().translateDNA3(wtCodon);
+			varAA = Translator.getTranslator().translateDNA3(varCodon);
+			effect = computeVariantType(wtAA, varAA);
+		}
 		String protAnno = StringUtil.concatenate("p.", wtAA, cdsPos.getPos() / 3 + 1, varAA);
 		if (wtAA.equals(varAA)) // simplify in the case of synonymous SNV
 			protAnno = StringUtil.concatenate("p.=");
 
 		// Compute variant type.
-		ArrayList<VariantEffect> varTypes = computeVariantTypes(wtAA, varAA);
+		ArrayList<VariantEffect> varTypes = new ArrayList<VariantEffect>();
+		varTypes.add(effect);
 		GenomeInterval changeInterval = change.getGenomeInterval();
 		if (so.overlapsWithTranslationalStartSite(changeInterval)) {
 			varTypes.add(VariantEffect.START_LOST);
@@ -158,19 +183,17 @@ public final class SNVAnnotationBuilder extends AnnotationBuilder {
 	 *            wild type amino acid
 	 * @param varAA
 	 *            variant amino acid
-	 * @return variant types described by single nucleotide change
+	 * @return variant type described by single nucleotide change
 	 */
-	private ArrayList<VariantEffect> computeVariantTypes(String wtAA, String varAA) {
-		ArrayList<VariantEffect> result = new ArrayList<VariantEffect>();
+	private static VariantEffect computeVariantType(String wtAA, String varAA) {
 		if (wtAA.equals(varAA))
-			result.add(VariantEffect.SYNONYMOUS_VARIANT);
+			return VariantEffect.SYNONYMOUS_VARIANT;
 		else if (wtAA.equals("*"))
-			result.add(VariantEffect.STOP_LOST);
+			return VariantEffect.STOP_LOST;
 		else if (varAA.equals("*"))
-			result.add(VariantEffect.STOP_GAINED);
+			return VariantEffect.STOP_GAINED;
 		else
-			result.add(VariantEffect.MISSENSE_VARIANT);
-		return result;
+			return VariantEffect.MISSENSE_VARIANT;
 	}
 
 }
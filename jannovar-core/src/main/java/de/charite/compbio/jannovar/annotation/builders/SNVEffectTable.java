@@ -0,0 +1,117 @@
+package de.charite.compbio.jannovar.annotation.builders;
+
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import de.charite.compbio.jannovar.impl.util.Translator;
+
+/**
+ * Precomputed effects of all single nucleotide substitutions in all codons.
+ *
+ * The effect of an SNV in the coding part of an exon only depends on the affected codon, the position of the change
+ * in the codon (the frame), and the alternative base. Thus, instead of translating the wild type and variant codon
+ * for each variant, the effect and the three-letter amino acid codes are looked up in tables that are built from
+ * {@link Translator} once.
+ *
+ * Codons are encoded as numbers from 0 to 63, with two bits per base (<code>A=0, C=1, G=2, T=3</code>), the first
+ * base in the highest bits. Only the upper case bases <code>ACGT</code> can be encoded, the caller has to fall back to
+ * {@link Translator} for other characters.
+ */
+final class SNVEffectTable {
+
+	/** the effects that can occur in {@link #EFFECTS} */
+	private static final VariantEffect[] EFFECT_CODES = { VariantEffect.SYNONYMOUS_VARIANT, VariantEffect.STOP_LOST,
+			VariantEffect.STOP_GAINED, VariantEffect.MISSENSE_VARIANT };
+
+	/** the upper case bases, by their two-bit code */
+	private static final char[] BASES = { 'A', 'C', 'G', 'T' };
+
+	/** three-letter amino acid code for each codon, <code>"*"</code> for stop codons */
+	private static final String[] AMINO_ACIDS = new String[64];
+
+	/** index into {@link #EFFECT_CODES} for each codon, frame, and alternative base, see {@link #index} */
+	private static final byte[] EFFECTS = new byte[64 * 3 * 4];
+
+	static {
+		final Translator translator = Translator.getTranslator();
+		for (int codon = 0; codon < 64; ++codon)
+			AMINO_ACIDS[codon] = translator.translateDNA3(toString(codon));
+		for (int codon = 0; codon < 64; ++codon)
+			for (int frame = 0; frame < 3; ++frame)
+				for (int alt = 0; alt < 4; ++alt) {
+					final String wtAA = AMINO_ACIDS[codon];
+					final String varAA = AMINO_ACIDS[substitute(codon, frame, alt)];
+					final byte effect;
+					if (wtAA.equals(varAA))
+						effect = 0;
+					else if (wtAA.equals("*"))
+						effect = 1;
+					else if (varAA.equals("*"))
+						effect = 2;
+					else
+						effect = 3;
+					EFFECTS[index(codon, frame, alt)] = effect;
+				}
+	}
+
+	/** no instances of this class */
+	private SNVEffectTable() {
+	}
+
+	/** @return two-bit code of the upper case base <code>c</code>, <code>-1</code> for all other characters */
+	static int encode(char c) {
+		switch (c) {
+		case 'A':
+			return 0;
+		case 'C':
+			return 1;
+		case 'G':
+			return 2;
+		case 'T':
+			return 3;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * @return code of the codon formed by the bases <code>a</code>, <code>b</code>, and <code>c</code>,
+	 *         <code>-1</code> if one of them cannot be encoded
+	 */
+	static int encodeCodon(char a, char b, char c) {
+		final int x = encode(a);
+		final int y = encode(b);
+		final int z = encode(c);
+		if (x < 0 || y < 0 || z < 0)
+			return -1;
+		return (x << 4) | (y << 2) | z;
+	}
+
+	/** @return code of <code>codon</code> with the base at <code>frame</code> replaced by the base code <code>alt</code> */
+	static int substitute(int codon, int frame, int alt) {
+		final int shift = 2 * (2 - frame);
+		return (codon & ~(3 << shift)) | (alt << shift);
+	}
+
+	/** @return three-letter amino acid code of <code>codon</code>, <code>"*"</code> for stop codons */
+	static String getAminoAcid(int codon) {
+		return AMINO_ACIDS[codon];
+	}
+
+	/**
+	 * @return effect of replacing the base at <code>frame</code> of <code>codon</code> by the base code
+	 *         <code>alt</code>, one of {@link VariantEffect#SYNONYMOUS_VARIANT}, {@link VariantEffect#STOP_LOST},
+	 *         {@link VariantEffect#STOP_GAINED}, and {@link VariantEffect#MISSENSE_VARIANT}
+	 */
+	static VariantEffect getEffect(int codon, int frame, int alt) {
+		return EFFECT_CODES[EFFECTS[index(codon, frame, alt)]];
+	}
+
+	/** @return the bases of <code>codon</code> */
+	static String toString(int codon) {
+		return new String(new char[] { BASES[(codon >> 4) & 3], BASES[(codon >> 2) & 3], BASES[codon & 3] });
+	}
+
+	private static int index(int codon, int frame, int alt) {
+		return (codon * 3 + frame) * 4 + alt;
+	}
+
+}
@@ -0,0 +1,68 @@
+package de.charite.compbio.jannovar.data;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Lookup of numeric contig IDs by name that remembers the last name.
+ *
+ * Sorted input such as VCF files has long runs of records on the same contig and VCF readers usually return the same
+ * <code>String</code> object for the contig name of consecutive records. Thus, the last name is first compared by
+ * identity, saving the hash lookup in {@link ReferenceDictionary#getContigNameToID} for all but the first record of
+ * each run.
+ *
+ * Use one object per reader. The class is thread-safe but concurrent use with interleaved contigs defeats the cache.
+ */
+public final class ContigIDCache {
+
+	/** the {@link ReferenceDictionary} to look up names in */
+	private final ReferenceDictionary refDict;
+
+	/** the last name that was looked up and its ID, <code>null</code> before the first lookup */
+	private volatile Entry last = null;
+
+	/**
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to look up names in
+	 */
+	public ContigIDCache(ReferenceDictionary refDict) {
+		this.refDict = refDict;
+	}
+
+	/** @return the {@link ReferenceDictionary} that names are looked up in */
+	public ReferenceDictionary getRefDict() {
+		return refDict;
+	}
+
+	/**
+	 * @param name
+	 *            contig name to look up, e.g. the <code>CHROM</code> column of a VCF record
+	 * @return numeric ID of the contig with the given name, <code>null</code> if unknown
+	 */
+	public Integer getContigID(String name) {
+		final Entry entry = last;
+		if (entry != null && (entry.name == name || entry.name.equals(name)))
+			return entry.id;
+		final Integer id = refDict.getContigNameToID().get(name);
+		last = new Entry(name, id);
+		return id;
+	}
+
+	/**
+	 * Last looked-up name and its ID, immutable for safe publication through {@link ContigIDCache#last}.
+	 */
+	private static final class Entry {
+
+		/** the contig name */
+		final String name;
+
+		/** ID of the contig, <code>null</code> for unknown contigs */
+		final Integer id;
+
+		Entry(String name, Integer id) {
+			this.name = name;
+			this.id = id;
+		}
+
+	}
+
+}
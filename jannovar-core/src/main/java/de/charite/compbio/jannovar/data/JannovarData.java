@@ -1,23 +1,40 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedSet;
 
 import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.util.ParallelTasks;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
 import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptSequenceOntologyDecorator;
 
 /**
  * This data type is used for serialization after downloading.
  *
  * Making this class immutable makes it a convenient serializeable read-only database.
  *
+ * The maps by transcript accession and gene symbol are only built from the {@link Chromosome}s on first access, they
+ * are not needed for annotating variants.
+ *
  * @author Manuel Holtgrewe <manuel.holtgrewe@charite.de>
  */
 @Immutable
@@ -29,11 +46,11 @@ public final class JannovarData implements Serializable {
 	/** map from chromosome ID to {@link Chromosome} */
 	private final ImmutableMap<Integer, Chromosome> chromosomes;
 
-	/** map from transcript accession to {@link TranscriptModel} instance. */
-	private final ImmutableMap<String, TranscriptModel> tmByAccession;
+	/** map from transcript accession to {@link TranscriptModel} instance, built lazily. */
+	private ImmutableMap<String, TranscriptModel> tmByAccession;
 
-	/** map from transcript accession to {@link TranscriptModel} instance. */
-	private final ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
+	/** map from transcript accession to {@link TranscriptModel} instance, built lazily. */
+	private ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
 
 	/** information about reference lengths and identities */
 	private final ReferenceDictionary refDict;
@@ -47,10 +64,38 @@ public final class JannovarData implements Serializable {
 	 *            the list of {@link TranscriptInfo} objects to use in this object
 	 */
 	public JannovarData(ReferenceDictionary refDict, ImmutableList<TranscriptModel> transcriptInfos) {
+		this(refDict, transcriptInfos, 1);
+	}
+
+	/**
+	 * Initialize the object with the given values, building the {@link Chromosome}s on multiple threads.
+	 *
+	 * The result is the same as with one thread.
+	 *
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to use in this object
+	 * @param transcriptInfos
+	 *            the list of {@link TranscriptInfo} objects to use in this object
+	 * @param numThreads
+	 *            number of threads for building the {@link Chromosome}s
+	 */
+	public JannovarData(ReferenceDictionary refDict, ImmutableList<TranscriptModel> transcriptInfos, int numThreads) {
 		this.refDict = refDict;
-		this.chromosomes = makeChromsomes(refDict, transcriptInfos);
-		this.tmByAccession = makeTMByAccession(transcriptInfos);
-		this.tmByGeneSymbol = makeTMByGeneSymbol(transcriptInfos);
+		this.chromosomes = makeChromsomes(refDict, transcriptInfos, numThreads);
+	}
+
+	/**
+	 * Initialize the object with the given {@link Chromosome}s, e.g., the ones loaded from a file.
+	 *
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to use in this object
+	 * @param chromosomes
+	 *            map from chromosome ID to {@link Chromosome}, may contain only a part of the contigs of
+	 *            <code>refDict</code>
+	 */
+	public JannovarData(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomes) {
+		this.refDict = refDict;
+		this.chromosomes = chromosomes;
 	}
 
 	/** @return map from chromosome ID to {@link Chromosome} */
@@ -59,20 +104,173 @@ public final class JannovarData implements Serializable {
 	}
 
 	/** @return map from transcript accession to {@link TranscriptModel} instance. */
-	public ImmutableMap<String, TranscriptModel> getTmByAccession() {
+	public synchronized ImmutableMap<String, TranscriptModel> getTmByAccession() {
+		if (tmByAccession == null)
+			tmByAccession = makeTMByAccession(getTranscripts());
 		return tmByAccession;
 	}
 
 	/** @return map from transcript accession to {@link TranscriptModel} instance. */
-	public ImmutableMultimap<String, TranscriptModel> getTmByGeneSymbol() {
+	public synchronized ImmutableMultimap<String, TranscriptModel> getTmByGeneSymbol() {
+		if (tmByGeneSymbol == null)
+			tmByGeneSymbol = makeTMByGeneSymbol(getTranscripts());
 		return tmByGeneSymbol;
 	}
 
+	/** @return number of transcripts in all {@link Chromosome}s, without building the maps */
+	public int getNumTranscripts() {
+		int result = 0;
+		for (Chromosome chrom : chromosomes.values())
+			result += chrom.getNumberOfGenes();
+		return result;
+	}
+
 	/** @return information about reference lengths and identities */
 	public ReferenceDictionary getRefDict() {
 		return refDict;
 	}
 
+	/**
+	 * Return a copy of this object that only contains the transcripts overlapping with <code>regions</code>.
+	 *
+	 * For each region, the closest transcripts left and right of it are kept as well (all of them in the case of
+	 * ties), and all transcripts within {@link TranscriptSequenceOntologyDecorator#DEFAULT_UP_DOWNSTREAM_LENGTH} of it.
+	 * Thus, the annotation of variants within the regions, including upstream, downstream, and intergenic
+	 * annotations, is the same as with the full data (up to the choice between neighbors with the same distance).
+	 *
+	 * @param regions
+	 *            the regions to restrict the transcripts to
+	 * @return {@link JannovarData} with the same {@link ReferenceDictionary} and the selected transcripts
+	 */
+	public JannovarData restrictedTo(Collection<GenomeInterval> regions) {
+		// group regions by chromosome
+		HashMap<Integer, ArrayList<GenomeInterval>> regionsByChr = new HashMap<Integer, ArrayList<GenomeInterval>>();
+		for (GenomeInterval region : regions) {
+			if (!regionsByChr.containsKey(region.getChr()))
+				regionsByChr.put(region.getChr(), new ArrayList<GenomeInterval>());
+			regionsByChr.get(region.getChr()).add(region.withStrand(Strand.FWD));
+		}
+
+		// query the interval tree of each chromosome with its regions, then keep the selected transcripts in the order
+		// of the interval tree
+		ImmutableList.Builder<TranscriptModel> builder = new ImmutableList.Builder<TranscriptModel>();
+		for (Map.Entry<Integer, Chromosome> entry : chromosomes.entrySet()) {
+			if (!regionsByChr.containsKey(entry.getKey()))
+				continue;
+			final IntervalArray<TranscriptModel> tree = entry.getValue().getTMIntervalTree();
+			HashSet<TranscriptModel> selected = new HashSet<TranscriptModel>();
+			for (GenomeInterval region : regionsByChr.get(entry.getKey()))
+				selectTranscripts(tree, region.getBeginPos(), region.getEndPos(), selected);
+			for (Interval<TranscriptModel> interval : tree.getIntervals())
+				if (selected.contains(interval.getValue()))
+					builder.add(interval.getValue());
+		}
+		return new JannovarData(refDict, builder.build());
+	}
+
+	/**
+	 * Add the transcripts from <code>tree</code> overlapping with, within the upstream/downstream length of, or
+	 * closest left and right of <code>[begin, end)</code> to <code>selected</code>.
+	 */
+	private static void selectTranscripts(IntervalArray<TranscriptModel> tree, int begin, int end,
+			HashSet<TranscriptModel> selected) {
+		final int maxDistance = TranscriptSequenceOntologyDecorator.DEFAULT_UP_DOWNSTREAM_LENGTH;
+		selected.addAll(tree.findOverlappingWithInterval(begin, end).getEntries());
+		selected.addAll(tree.findNeighborsWithinDistance(begin, end, maxDistance));
+
+		// the closest transcripts on each side, including ties, by querying an interval open towards the other side
+		final TranscriptIntervalEndExtractor extractor = new TranscriptIntervalEndExtractor();
+		final ImmutableList<TranscriptModel> left = tree.findNearestNeighbors(begin, Integer.MAX_VALUE, 1);
+		if (!left.isEmpty() && begin - extractor.getEnd(left.get(0)) > maxDistance)
+			selected.addAll(tree.findNeighborsWithinDistance(begin, Integer.MAX_VALUE,
+					begin - extractor.getEnd(left.get(0))));
+		final ImmutableList<TranscriptModel> right = tree.findNearestNeighbors(Integer.MIN_VALUE, end, 1);
+		if (!right.isEmpty() && extractor.getBegin(right.get(0)) - end > maxDistance)
+			selected.addAll(tree.findNeighborsWithinDistance(Integer.MIN_VALUE, end,
+					extractor.getBegin(right.get(0)) - end));
+	}
+
+	/**
+	 * Merge the transcripts of several databases into one, e.g., for annotating against RefSeq and Ensembl at once.
+	 *
+	 * The databases must agree on the IDs and lengths of the contigs they have in common. If all of them have the
+	 * same contigs as the first database, its {@link ReferenceDictionary} is used for the result, otherwise one with
+	 * the contigs of all databases. If several databases contain a transcript with the same accession, the one from
+	 * the first of these databases is used.
+	 *
+	 * @param datas
+	 *            the {@link JannovarData} objects to merge, at least one
+	 * @param numThreads
+	 *            number of threads for building the {@link Chromosome}s
+	 * @return {@link JannovarData} with the transcripts of all <code>datas</code>
+	 * @throws IllegalArgumentException
+	 *             if the reference dictionaries of <code>datas</code> disagree
+	 */
+	public static JannovarData merge(List<JannovarData> datas, int numThreads) {
+		final ReferenceDictionary refDict = mergeRefDicts(datas);
+
+		HashSet<String> accessions = new HashSet<String>();
+		ImmutableList.Builder<TranscriptModel> builder = new ImmutableList.Builder<TranscriptModel>();
+		for (JannovarData data : datas)
+			for (TranscriptModel tm : data.getTranscripts())
+				if (accessions.add(tm.getAccession()))
+					builder.add(tm);
+		return new JannovarData(refDict, builder.build(), numThreads);
+	}
+
+	/** @return {@link ReferenceDictionary} with the contigs of all <code>datas</code>, see {@link #merge} */
+	private static ReferenceDictionary mergeRefDicts(List<JannovarData> datas) {
+		ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+		for (JannovarData data : datas) {
+			final ReferenceDictionary refDict = data.getRefDict();
+			for (Map.Entry<String, Integer> entry : refDict.getContigNameToID().entrySet()) {
+				final Integer id = builder.getContigID(entry.getKey());
+				if (id != null && !id.equals(entry.getValue()))
+					throw new IllegalArgumentException("Reference dictionaries disagree on the ID of contig "
+							+ entry.getKey());
+				builder.putContigID(entry.getKey(), entry.getValue());
+			}
+			for (Map.Entry<Integer, String> entry : refDict.getContigIDToName().entrySet())
+				if (builder.getContigName(entry.getKey()) == null)
+					builder.putContigName(entry.getKey(), entry.getValue());
+			for (Map.Entry<Integer, Integer> entry : refDict.getContigIDToLength().entrySet()) {
+				final Integer length = builder.getContigLength(entry.getKey());
+				if (length != null && !length.equals(entry.getValue()))
+					throw new IllegalArgumentException("Reference dictionaries disagree on the length of contig "
+							+ refDict.getContigIDToName().get(entry.getKey()));
+				if (length == null)
+					builder.putContigLength(entry.getKey(), entry.getValue());
+			}
+		}
+
+		// share the first reference dictionary if the others do not add contigs
+		final ReferenceDictionary first = datas.get(0).getRefDict();
+		final ReferenceDictionary merged = builder.build();
+		if (merged.getContigNameToID().equals(first.getContigNameToID())
+				&& merged.getContigIDToLength().equals(first.getContigIDToLength()))
+			return first;
+		else
+			return merged;
+	}
+
+	/** Build the lazily computed maps before writing, such that the serialized form is complete. */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getTmByAccession();
+		getTmByGeneSymbol();
+		synchronized (this) {
+			out.defaultWriteObject();
+		}
+	}
+
+	/** @return the transcripts of all {@link Chromosome}s, by chromosome ID and begin position */
+	private ImmutableList<TranscriptModel> getTranscripts() {
+		ImmutableList.Builder<TranscriptModel> builder = new ImmutableList.Builder<TranscriptModel>();
+		for (Integer chrID : ImmutableSortedSet.copyOf(chromosomes.keySet()))
+			for (Interval<TranscriptModel> interval : chromosomes.get(chrID).getTMIntervalTree().getIntervals())
+				builder.add(interval.getValue());
+		return builder.build();
+	}
+
 	/**
 	 * @param transcriptInfos
 	 *            set of {@link TranscriptModel}s to build multi-mapping for
@@ -107,16 +305,16 @@ public final class JannovarData implements Serializable {
 	 *            the {@link ReferenceDictionary} to use for the construction
 	 * @param transcriptInfos
 	 *            list of {@link TranscriptInfo} objects with the transcripts of all chromosomes
-	 * @return a mapping from numeric chromsome ID to {@link Chromosome} object
+	 * @param numThreads
+	 *            number of threads for building the interval trees of the chromosomes in parallel
+	 * @return a mapping from numeric chromsome ID to {@link Chromosome} object, ordered by chromosome ID
 	 */
-	private static ImmutableMap<Integer, Chromosome> makeChromsomes(
-			ReferenceDictionary refDict, ImmutableList<TranscriptModel> transcriptInfos) {
-		ImmutableMap.Builder<Integer, Chromosome> builder = new ImmutableMap.Builder<Integer, Chromosome>();
-
+	private static ImmutableMap<Integer, Chromosome> makeChromsomes(final ReferenceDictionary refDict,
+			ImmutableList<TranscriptModel> transcriptInfos, int numThreads) {
 		// First, factorize the TranscriptInfo objects by chromosome ID.
 
 		// create hash map for this
-		HashMap<Integer, ArrayList<TranscriptModel>> transcripts = new HashMap<Integer, ArrayList<TranscriptModel>>();
+		final HashMap<Integer, ArrayList<TranscriptModel>> transcripts = new HashMap<Integer, ArrayList<TranscriptModel>>();
 		for (Integer chrID : refDict.getContigIDToName().keySet())
 			transcripts.put(chrID, new ArrayList<TranscriptModel>());
 		// distribute TranscriptInfo lists
@@ -124,12 +322,27 @@ public final class JannovarData implements Serializable {
 			transcripts.get(transcript.getChr()).add(transcript);
 
 		// Then, construct an interval tree for each chromosome and add the lists of intervals.
-		for (Integer chrID : transcripts.keySet()) {
-			IntervalArray<TranscriptModel> iTree = new IntervalArray<TranscriptModel>(transcripts.get(chrID),
-					new TranscriptIntervalEndExtractor());
-			builder.put(chrID, new Chromosome(refDict, chrID, iTree));
-		}
+		ArrayList<Callable<Chromosome>> tasks = new ArrayList<Callable<Chromosome>>();
+		for (final Integer chrID : ImmutableSortedSet.copyOf(transcripts.keySet()))
+			tasks.add(new Callable<Chromosome>() {
+				public Chromosome call() {
+					IntervalArray<TranscriptModel> iTree = new IntervalArray<TranscriptModel>(transcripts.get(chrID),
+							new TranscriptIntervalEndExtractor());
+					return new Chromosome(refDict, chrID, iTree);
+				}
+			});
 
+		ImmutableMap.Builder<Integer, Chromosome> builder = new ImmutableMap.Builder<Integer, Chromosome>();
+		try {
+			for (Chromosome chrom : ParallelTasks.invokeAll(tasks, numThreads, "jannovar-data"))
+				builder.put(chrom.getChrID(), chrom);
+		} catch (ExecutionException e) {
+			ParallelTasks.rethrowUnchecked(e);
+			throw new IllegalStateException("Could not build chromosomes", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while building chromosomes", e);
+		}
 		return builder.build();
 	}
 
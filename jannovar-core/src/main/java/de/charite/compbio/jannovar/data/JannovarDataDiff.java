@@ -0,0 +1,88 @@
+package de.charite.compbio.jannovar.data;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Differences between two versions of a {@link JannovarData} database, as computed by
+ * {@link JannovarDataSerializer#saveIncremental}.
+ *
+ * Transcripts are matched by their accession. A transcript is "changed" if it is present in both versions but any of
+ * its properties (e.g., position, exons, gene symbol, or sequence) differs.
+ */
+@Immutable
+public final class JannovarDataDiff {
+
+	/** transcripts only present in the new version, sorted by accession */
+	private final ImmutableList<TranscriptModel> added;
+
+	/** transcripts only present in the previous version, sorted by accession */
+	private final ImmutableList<TranscriptModel> removed;
+
+	/** new versions of the transcripts present in both versions that changed, sorted by accession */
+	private final ImmutableList<TranscriptModel> changed;
+
+	/** number of contigs whose transcripts did not change */
+	private final int numUnchangedContigs;
+
+	/** number of contigs whose transcripts changed, including added and removed contigs */
+	private final int numChangedContigs;
+
+	/**
+	 * Initialize the object with the given values.
+	 *
+	 * @param added
+	 *            transcripts only present in the new version
+	 * @param removed
+	 *            transcripts only present in the previous version
+	 * @param changed
+	 *            new versions of the changed transcripts
+	 * @param numUnchangedContigs
+	 *            number of contigs whose transcripts did not change
+	 * @param numChangedContigs
+	 *            number of contigs whose transcripts changed
+	 */
+	public JannovarDataDiff(ImmutableList<TranscriptModel> added, ImmutableList<TranscriptModel> removed,
+			ImmutableList<TranscriptModel> changed, int numUnchangedContigs, int numChangedContigs) {
+		this.added = added;
+		this.removed = removed;
+		this.changed = changed;
+		this.numUnchangedContigs = numUnchangedContigs;
+		this.numChangedContigs = numChangedContigs;
+	}
+
+	/** @return transcripts only present in the new version, sorted by accession */
+	public ImmutableList<TranscriptModel> getAdded() {
+		return added;
+	}
+
+	/** @return transcripts only present in the previous version, sorted by accession */
+	public ImmutableList<TranscriptModel> getRemoved() {
+		return removed;
+	}
+
+	/** @return new versions of the transcripts present in both versions that changed, sorted by accession */
+	public ImmutableList<TranscriptModel> getChanged() {
+		return changed;
+	}
+
+	/** @return number of contigs whose transcripts did not change */
+	public int getNumUnchangedContigs() {
+		return numUnchangedContigs;
+	}
+
+	/** @return number of contigs whose transcripts changed, including added and removed contigs */
+	public int getNumChangedContigs() {
+		return numChangedContigs;
+	}
+
+	/** @return whether or not no transcript was added, removed, or changed */
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+}
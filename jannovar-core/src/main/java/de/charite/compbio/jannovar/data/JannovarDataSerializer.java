@@ -1,35 +1,96 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CountingOutputStream;
+
+import de.charite.compbio.jannovar.impl.jfr.JFRSupport;
+import de.charite.compbio.jannovar.impl.util.ParallelTasks;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.util.StringUtil;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 // NOTE(holtgrem): Part of the public interface of the Jannovar library.
 
 /**
  * Manager for serializing and deserializing {@link JannovarData} objects.
  *
+ * The data is written in a sectioned format: the {@link ReferenceDictionary} and each {@link Chromosome} are
+ * serialized and gzip-compressed separately, followed by a directory with the offset of each section. Thus,
+ * {@link #load(Collection)} only reads and deserializes the sections of the requested contigs. Files written by
+ * earlier versions (a gzip-compressed serialized {@link JannovarData} object) can still be loaded.
+ *
+ * The sections are compressed and decompressed on a configurable number of threads, the file contents do not depend
+ * on the number of threads.
+ *
+ * The directory also contains a fingerprint of the transcripts of each {@link Chromosome}. When refreshing a database,
+ * {@link #saveIncremental} uses these to copy the sections of unchanged contigs from the previous file instead of
+ * serializing and compressing them again, and to report the transcripts that were added, removed, or changed.
+ *
  * @author Peter N Robinson <peter.robinson@charite.de>
  * @author Manuel Holtgrewe <manuel.holtgrewe@charite.de>
  * @author Max Schubach <max.schubach@charite.de>
  */
 public final class JannovarDataSerializer {
 
+	/** magic bytes at the beginning and the end of files in the sectioned format */
+	private static final byte[] MAGIC = { 'J', 'V', 'D', 'B' };
+
+	/** version of the sectioned format, version 2 added the fingerprints to the directory */
+	private static final int FORMAT_VERSION = 2;
+
+	/** size of the trailer, directory offset and magic bytes */
+	private static final int TRAILER_SIZE = 8 + 4;
+
 	/** the logger object to use */
 	private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
 	/** path to file to serialize to or deserialize from */
 	private final String filename;
 
+	/** number of threads for (de)serializing the sections */
+	private final int numThreads;
+
 	/**
 	 * Initialize the (de)serializer with the path to the file to load/save.
 	 *
@@ -37,7 +98,22 @@ public final class JannovarDataSerializer {
 	 *            path to the file to deserialize from or serialize to
 	 */
 	public JannovarDataSerializer(String filename) {
+		this(filename, 1);
+	}
+
+	/**
+	 * Initialize the (de)serializer with the path to the file to load/save and the number of threads to use.
+	 *
+	 * @param filename
+	 *            path to the file to deserialize from or serialize to
+	 * @param numThreads
+	 *            number of threads for (de)serializing the sections of the file
+	 */
+	public JannovarDataSerializer(String filename, int numThreads) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be at least 1, was: " + numThreads);
 		this.filename = filename;
+		this.numThreads = numThreads;
 	}
 
 	/**
@@ -55,30 +131,124 @@ public final class JannovarDataSerializer {
 		if (data == null || data.getRefDict().getContigNameToID().isEmpty())
 			throw new SerializationException("Attempting to serialize empty data set");
 
-		// This is waiting for Java 7 to be improved. Also see:
-		// http://stackoverflow.com/questions/4092914
 		String error = null;
-		FileOutputStream fos = null;
-		GZIPOutputStream gzos = null;
-		ObjectOutputStream oos = null;
 		try {
-			fos = new FileOutputStream(filename);
-			gzos = new GZIPOutputStream(fos);
-			oos = new ObjectOutputStream(gzos);
-			oos.writeObject(data);
+			final ImmutableSortedSet<Integer> chrIDs = ImmutableSortedSet.copyOf(data.getChromosomes().keySet());
+			final ImmutableList<Long> fingerprints = computeFingerprints(data, chrIDs);
+			ArrayList<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>();
+			for (Integer chrID : chrIDs)
+				tasks.add(new SerializeTask(data.getChromosomes().get(chrID), data.getRefDict()));
+			writeFile(filename, serializeSection(data.getRefDict(), null), chrIDs, fingerprints, invokeAll(tasks));
 		} catch (IOException i) {
 			error = String.format("Could not serialize data file list: %s", i.toString());
+		} catch (ClassNotFoundException c) {
+			error = String.format("Could not serialize data file list: %s", c.toString()); // cannot happen
 		} finally {
-			if (oos != null)
-				try {
-					oos.close();
-					fos.close();
-				} catch (IOException e) {
-					// swallow, nothing we can do
+			if (error != null)
+				throw new SerializationException(error);
+		}
+
+		logger.info(String.format("Serialization took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+	/**
+	 * Serialize a {@link JannovarData} object to a file, reusing the unchanged sections of a previous version.
+	 *
+	 * The fingerprints of the {@link Chromosome}s of <code>data</code> are compared to the ones stored in the previous
+	 * file. The sections of contigs with equal fingerprints are copied as they are, only the other contigs are
+	 * serialized and compressed. The resulting file is the same as the one written by {@link #save}. If the previous
+	 * file was written by an earlier version (without fingerprints) or has a different {@link ReferenceDictionary},
+	 * it is loaded completely to compute the differences and all sections are written again. A missing previous file
+	 * is treated as an empty database.
+	 *
+	 * <code>previousFilename</code> may be the file to write to, it is only replaced after the new file has been
+	 * written completely.
+	 *
+	 * @param data
+	 *            the {@link JannovarData} object to serialize
+	 * @param previousFilename
+	 *            path to the previous version of the database
+	 * @return {@link JannovarDataDiff} with the differences between the previous version and <code>data</code>
+	 * @throws SerializationException
+	 *             on problems with the serialization or loading the previous version
+	 */
+	public JannovarDataDiff saveIncremental(JannovarData data, String previousFilename) throws SerializationException {
+		logger.info(StringUtil.concatenate("Serializing JannovarData to ", filename, ", reusing sections of ",
+				previousFilename));
+		final long startTime = System.nanoTime();
+
+		if (data == null || data.getRefDict().getContigNameToID().isEmpty())
+			throw new SerializationException("Attempting to serialize empty data set");
+
+		JannovarDataDiff result = null;
+		String error = null;
+		PreviousVersion previous = null;
+		try {
+			final ImmutableSortedSet<Integer> chrIDs = ImmutableSortedSet.copyOf(data.getChromosomes().keySet());
+			final ImmutableList<Long> fingerprints = computeFingerprints(data, chrIDs);
+			previous = new PreviousVersion(previousFilename);
+			final boolean sameRefDict = sameRefDict(previous.refDict, data.getRefDict());
+			final boolean reuseSections = sameRefDict && previous.hasSections();
+
+			// find unchanged contigs, serialize the sections of the others
+			HashSet<Integer> unchanged = new HashSet<Integer>();
+			ArrayList<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>();
+			for (int i = 0; i < chrIDs.size(); ++i) {
+				final Integer chrID = chrIDs.asList().get(i);
+				final boolean isUnchanged = sameRefDict
+						&& fingerprints.get(i).equals(previous.fingerprints.get(chrID));
+				if (isUnchanged)
+					unchanged.add(chrID);
+				if (isUnchanged && reuseSections)
+					tasks.add(new CopyTask(previous.readSection(chrID)));
+				else
+					tasks.add(new SerializeTask(data.getChromosomes().get(chrID), data.getRefDict()));
+			}
+			final ImmutableList<byte[]> sections = invokeAll(tasks);
+
+			// compute differences between the transcripts of the changed contigs
+			ArrayList<TranscriptModel> previousTranscripts = new ArrayList<TranscriptModel>();
+			TreeSet<Integer> changed = new TreeSet<Integer>();
+			for (Integer chrID : previous.fingerprints.keySet())
+				if (!unchanged.contains(chrID)) {
+					changed.add(chrID);
+					addTranscripts(previousTranscripts, previous.loadChromosome(chrID));
 				}
-			if (fos != null)
+			ArrayList<TranscriptModel> transcripts = new ArrayList<TranscriptModel>();
+			for (Integer chrID : chrIDs)
+				if (!unchanged.contains(chrID)) {
+					changed.add(chrID);
+					addTranscripts(transcripts, data.getChromosomes().get(chrID));
+				}
+			result = computeDiff(previousTranscripts, transcripts, unchanged.size(), changed.size());
+			previous.close();
+			previous = null;
+
+			// write to temporary file first, the previous file might be the same
+			final File file = new File(filename).getAbsoluteFile();
+			final File tmpFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+			boolean success = false;
+			try {
+				writeFile(tmpFile.getPath(), serializeSection(data.getRefDict(), null), chrIDs, fingerprints, sections);
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+				success = true;
+			} finally {
+				if (!success)
+					tmpFile.delete();
+			}
+
+			logger.info(String.format("Reused %d unchanged sections, serialized %d sections.", reuseSections
+					? unchanged.size() : 0, reuseSections ? chrIDs.size() - unchanged.size() : chrIDs.size()));
+		} catch (IOException i) {
+			error = String.format("Could not serialize data file list: %s", i.toString());
+		} catch (ClassNotFoundException c) {
+			error = String.format("Could not deserialize previous data file: %s", c.toString());
+		} finally {
+			if (previous != null)
 				try {
-					fos.close();
+					previous.close();
 				} catch (IOException e) {
 					// swallow, nothing we can do
 				}
@@ -88,6 +258,69 @@ public final class JannovarDataSerializer {
 
 		logger.info(String.format("Serialization took %.2f sec.",
 				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+		return result;
+	}
+
+	/**
+	 * Write file in the sectioned format.
+	 *
+	 * @param path
+	 *            path to the file to write
+	 * @param refDictSection
+	 *            the serialized {@link ReferenceDictionary}
+	 * @param chrIDs
+	 *            IDs of the {@link Chromosome}s, in the order of <code>sections</code>
+	 * @param fingerprints
+	 *            fingerprints of the {@link Chromosome}s
+	 * @param sections
+	 *            the serialized {@link Chromosome}s
+	 */
+	private static void writeFile(String path, byte[] refDictSection, Collection<Integer> chrIDs,
+			List<Long> fingerprints, List<byte[]> sections) throws IOException {
+		FileOutputStream fos = new FileOutputStream(path);
+		try {
+			CountingOutputStream cos = new CountingOutputStream(new BufferedOutputStream(fos));
+			DataOutputStream out = new DataOutputStream(cos);
+			out.write(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+
+			// reference dictionary, then one section per chromosome
+			out.flush();
+			final long refDictOffset = cos.getCount();
+			out.write(refDictSection);
+			final long[] offsets = new long[sections.size()];
+			int i = 0;
+			for (byte[] section : sections) {
+				out.flush();
+				offsets[i++] = cos.getCount();
+				out.write(section);
+			}
+
+			// directory and trailer
+			out.flush();
+			final long directoryOffset = cos.getCount();
+			out.writeLong(refDictOffset);
+			out.writeInt(refDictSection.length);
+			out.writeInt(chrIDs.size());
+			i = 0;
+			for (Integer chrID : chrIDs) {
+				out.writeInt(chrID);
+				out.writeLong(offsets[i]);
+				out.writeInt(sections.get(i).length);
+				out.writeLong(fingerprints.get(i++));
+			}
+			out.writeLong(directoryOffset);
+			out.write(MAGIC);
+			out.close();
+			fos = null;
+		} finally {
+			if (fos != null)
+				try {
+					fos.close();
+				} catch (IOException e) {
+					// swallow, nothing we can do
+				}
+		}
 	}
 
 	/**
@@ -98,38 +331,41 @@ public final class JannovarDataSerializer {
 	 *             on problems with the deserialization
 	 */
 	public JannovarData load() throws SerializationException {
+		return load(null);
+	}
+
+	/**
+	 * Deserialize a {@link JannovarData} object from a file, only loading the transcripts of the given contigs.
+	 *
+	 * The resulting {@link JannovarData} has the full {@link ReferenceDictionary} but only contains {@link Chromosome}s
+	 * for the selected contigs. For files in the old format, the whole file is deserialized and the other
+	 * {@link Chromosome}s are dropped afterwards.
+	 *
+	 * @param contigNames
+	 *            names of the contigs to load (including aliases known to the {@link ReferenceDictionary}), names not
+	 *            known in the file are ignored; <code>null</code> for loading all contigs
+	 * @return {@link JannovarData} object yielded by deserialization
+	 * @throws SerializationException
+	 *             on problems with the deserialization
+	 */
+	public JannovarData load(Collection<String> contigNames) throws SerializationException {
 		logger.info(StringUtil.concatenate("Deserializing JannovarData from ", filename));
 		final long startTime = System.nanoTime();
+		final Object event = JFRSupport.beginDatabaseLoad();
 
 		JannovarData result = null;
-
-		// This is also waiting for Java 7 to be cleaned up, see above.
 		String error = null;
-		FileInputStream fileIn = null;
-		GZIPInputStream gzIn = null;
-		ObjectInputStream in = null;
 		try {
-			fileIn = new FileInputStream(filename);
-			gzIn = new GZIPInputStream(fileIn);
-			in = new ObjectInputStream(gzIn);
-			result = (JannovarData) in.readObject();
+			if (isSectioned())
+				result = loadSectioned(contigNames);
+			else
+				result = selectContigs(loadSerialized(), contigNames);
 		} catch (IOException i) {
 			error = String.format("Could not deserialize data list: %s", i.toString());
 		} catch (ClassNotFoundException c) {
 			error = String.format("Could not deserialized class definition: %s", c.toString());
 		} finally {
-			try {
-				if (in != null)
-					in.close();
-			} catch (IOException e) {
-				// swallow, nothing we can do
-			}
-			try {
-				if (fileIn != null)
-					fileIn.close();
-			} catch (IOException e) {
-				// swallow, nothing we can do
-			}
+			JFRSupport.commitDatabaseLoad(event, filename, result);
 			if (error != null)
 				throw new SerializationException(error);
 		}
@@ -138,4 +374,509 @@ public final class JannovarDataSerializer {
 				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
 		return result;
 	}
+
+	/** @return whether or not {@link #filename} starts with {@link #MAGIC} */
+	private boolean isSectioned() throws IOException {
+		final byte[] buffer = new byte[MAGIC.length];
+		InputStream in = new FileInputStream(filename);
+		try {
+			int n = 0;
+			while (n < buffer.length) {
+				final int count = in.read(buffer, n, buffer.length - n);
+				if (count < 0)
+					return false;
+				n += count;
+			}
+		} finally {
+			in.close();
+		}
+		return Arrays.equals(buffer, MAGIC);
+	}
+
+	/** @return {@link JannovarData} with the given contigs, loaded from a file in the sectioned format */
+	private JannovarData loadSectioned(Collection<String> contigNames) throws IOException, ClassNotFoundException {
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+		try {
+			final Directory directory = new Directory(file);
+
+			// load reference dictionary and the selected chromosomes
+			final ReferenceDictionary refDict = (ReferenceDictionary) deserializeSection(
+					readSection(file, directory.refDictOffset, directory.refDictLength), null);
+			final ArrayList<Integer> selected = selectContigIDs(refDict, contigNames);
+			ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for (int i = 0; i < directory.chrIDs.length; ++i)
+				if (selected == null || selected.contains(directory.chrIDs[i]))
+					tasks.add(new DeserializeTask(readSection(file, directory.offsets[i], directory.lengths[i]),
+							refDict));
+			ImmutableMap.Builder<Integer, Chromosome> builder = new ImmutableMap.Builder<Integer, Chromosome>();
+			for (Object obj : invokeAll(tasks)) {
+				final Chromosome chrom = (Chromosome) obj;
+				builder.put(chrom.getChrID(), chrom);
+			}
+			return new JannovarData(refDict, builder.build());
+		} finally {
+			file.close();
+		}
+	}
+
+	/** Directory of a file in the sectioned format. */
+	private static final class Directory {
+
+		/** format version of the file */
+		final int version;
+		/** offset and length of the {@link ReferenceDictionary} section */
+		final long refDictOffset;
+		final int refDictLength;
+		/** contig ID, offset, and length of the {@link Chromosome} sections */
+		final int[] chrIDs;
+		final long[] offsets;
+		final int[] lengths;
+		/** fingerprints of the {@link Chromosome}s, <code>null</code> for files of version 1 */
+		final long[] fingerprints;
+
+		/** Check header and trailer of <code>file</code> and read the directory. */
+		Directory(RandomAccessFile file) throws IOException {
+			file.seek(MAGIC.length);
+			version = file.readInt();
+			if (version < 1 || version > FORMAT_VERSION)
+				throw new IOException("Unsupported file format version " + version);
+			if (file.length() < MAGIC.length + 4 + TRAILER_SIZE)
+				throw new IOException("File is truncated");
+			file.seek(file.length() - TRAILER_SIZE);
+			final long directoryOffset = file.readLong();
+			final byte[] magic = new byte[MAGIC.length];
+			file.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC))
+				throw new IOException("File is truncated");
+
+			file.seek(directoryOffset);
+			refDictOffset = file.readLong();
+			refDictLength = file.readInt();
+			final int numChromosomes = file.readInt();
+			chrIDs = new int[numChromosomes];
+			offsets = new long[numChromosomes];
+			lengths = new int[numChromosomes];
+			fingerprints = (version >= 2) ? new long[numChromosomes] : null;
+			for (int i = 0; i < numChromosomes; ++i) {
+				chrIDs[i] = file.readInt();
+				offsets[i] = file.readLong();
+				lengths[i] = file.readInt();
+				if (fingerprints != null)
+					fingerprints[i] = file.readLong();
+			}
+		}
+
+	}
+
+	/**
+	 * Previous version of a database, for {@link #saveIncremental}.
+	 *
+	 * For files in the sectioned format with fingerprints, only the directory and the {@link ReferenceDictionary} are
+	 * read, the sections are read on demand. Other files are loaded completely and the fingerprints are computed.
+	 */
+	private final class PreviousVersion {
+
+		/** the {@link ReferenceDictionary} of the previous version, <code>null</code> if the file is missing */
+		final ReferenceDictionary refDict;
+		/** fingerprint for each contig ID */
+		final Map<Integer, Long> fingerprints = new HashMap<Integer, Long>();
+		/** the open file and its directory, if it has fingerprints */
+		private final RandomAccessFile file;
+		private final Directory directory;
+		/** the loaded data, if it does not have fingerprints */
+		private final JannovarData data;
+
+		PreviousVersion(String path) throws IOException, ClassNotFoundException {
+			if (!new File(path).exists()) {
+				refDict = null;
+				file = null;
+				directory = null;
+				data = null;
+				return;
+			}
+
+			JannovarDataSerializer serializer = new JannovarDataSerializer(path, numThreads);
+			RandomAccessFile file = null;
+			Directory directory = null;
+			if (serializer.isSectioned()) {
+				file = new RandomAccessFile(path, "r");
+				directory = new Directory(file);
+				if (directory.fingerprints == null) {
+					file.close();
+					file = null;
+					directory = null;
+				}
+			}
+
+			if (directory != null) {
+				this.refDict = (ReferenceDictionary) deserializeSection(
+						JannovarDataSerializer.readSection(file, directory.refDictOffset, directory.refDictLength),
+						null);
+				for (int i = 0; i < directory.chrIDs.length; ++i)
+					fingerprints.put(directory.chrIDs[i], directory.fingerprints[i]);
+				this.data = null;
+			} else {
+				this.data = serializer.isSectioned() ? serializer.loadSectioned(null) : serializer.loadSerialized();
+				this.refDict = data.getRefDict();
+				final ImmutableSortedSet<Integer> chrIDs = ImmutableSortedSet.copyOf(data.getChromosomes().keySet());
+				final ImmutableList<Long> values = computeFingerprints(data, chrIDs);
+				int i = 0;
+				for (Integer chrID : chrIDs)
+					fingerprints.put(chrID, values.get(i++));
+			}
+			this.file = file;
+			this.directory = directory;
+		}
+
+		/** @return whether or not the sections can be copied from the previous file */
+		boolean hasSections() {
+			return directory != null;
+		}
+
+		/** @return the compressed section of the given contig */
+		byte[] readSection(int chrID) throws IOException {
+			final int i = indexOf(chrID);
+			return JannovarDataSerializer.readSection(file, directory.offsets[i], directory.lengths[i]);
+		}
+
+		/** @return the {@link Chromosome} with the given ID */
+		Chromosome loadChromosome(int chrID) throws IOException, ClassNotFoundException {
+			if (data != null)
+				return data.getChromosomes().get(chrID);
+			return (Chromosome) deserializeSection(readSection(chrID), refDict);
+		}
+
+		/** @return index of <code>chrID</code> in the directory */
+		private int indexOf(int chrID) throws IOException {
+			for (int i = 0; i < directory.chrIDs.length; ++i)
+				if (directory.chrIDs[i] == chrID)
+					return i;
+			throw new IOException("Unknown contig ID " + chrID);
+		}
+
+		/** Close the previous file. */
+		void close() throws IOException {
+			if (file != null)
+				file.close();
+		}
+
+	}
+
+	/** @return {@link JannovarData} loaded from a file in the old format, a serialized {@link JannovarData} object */
+	private JannovarData loadSerialized() throws IOException, ClassNotFoundException {
+		FileInputStream fileIn = new FileInputStream(filename);
+		try {
+			return (JannovarData) new ObjectInputStream(new GZIPInputStream(fileIn)).readObject();
+		} finally {
+			fileIn.close();
+		}
+	}
+
+	/** @return <code>data</code> with only the {@link Chromosome}s of the given contigs */
+	private static JannovarData selectContigs(JannovarData data, Collection<String> contigNames) {
+		final ArrayList<Integer> selected = selectContigIDs(data.getRefDict(), contigNames);
+		if (selected == null)
+			return data;
+		ImmutableMap.Builder<Integer, Chromosome> builder = new ImmutableMap.Builder<Integer, Chromosome>();
+		for (Integer chrID : data.getChromosomes().keySet())
+			if (selected.contains(chrID))
+				builder.put(chrID, data.getChromosomes().get(chrID));
+		return new JannovarData(data.getRefDict(), builder.build());
+	}
+
+	/** @return IDs of the contigs in <code>contigNames</code>, <code>null</code> if <code>contigNames</code> is */
+	private static ArrayList<Integer> selectContigIDs(ReferenceDictionary refDict, Collection<String> contigNames) {
+		if (contigNames == null)
+			return null;
+		ArrayList<Integer> result = new ArrayList<Integer>();
+		for (String name : contigNames) {
+			final Integer chrID = refDict.getContigNameToID().get(name);
+			if (chrID != null && !result.contains(chrID))
+				result.add(chrID);
+		}
+		return result;
+	}
+
+	/** @return whether or not <code>lhs</code> and <code>rhs</code> define the same contigs */
+	private static boolean sameRefDict(ReferenceDictionary lhs, ReferenceDictionary rhs) {
+		return lhs != null && rhs != null && lhs.getContigNameToID().equals(rhs.getContigNameToID())
+				&& lhs.getContigIDToName().equals(rhs.getContigIDToName())
+				&& lhs.getContigIDToLength().equals(rhs.getContigIDToLength());
+	}
+
+	/** Add the transcripts of <code>chrom</code> to <code>transcripts</code>. */
+	private static void addTranscripts(List<TranscriptModel> transcripts, Chromosome chrom) {
+		for (Interval<TranscriptModel> interval : chrom.getTMIntervalTree().getIntervals())
+			transcripts.add(interval.getValue());
+	}
+
+	/** @return fingerprints of the {@link Chromosome}s of <code>data</code> with the given IDs, in the same order */
+	private ImmutableList<Long> computeFingerprints(JannovarData data, Collection<Integer> chrIDs)
+			throws IOException, ClassNotFoundException {
+		ArrayList<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+		for (Integer chrID : chrIDs)
+			tasks.add(new FingerprintTask(data.getChromosomes().get(chrID)));
+		return invokeAll(tasks);
+	}
+
+	/**
+	 * @return fingerprint of the transcripts of <code>chrom</code>, covering all data written to its section, such
+	 *         that equal fingerprints imply equal sections
+	 */
+	private static long fingerprint(Chromosome chrom) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		hasher.putInt(FORMAT_VERSION);
+		hasher.putInt(chrom.getChrID());
+		hasher.putInt(chrom.getTMIntervalTree().size());
+		for (Interval<TranscriptModel> interval : chrom.getTMIntervalTree().getIntervals())
+			hasher.putLong(fingerprint(interval.getValue()));
+		return hasher.hash().asLong();
+	}
+
+	/** @return fingerprint of all properties of <code>tm</code> */
+	private static long fingerprint(TranscriptModel tm) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		putString(hasher, tm.getAccession());
+		putString(hasher, tm.getGeneSymbol());
+		putString(hasher, tm.getGeneID());
+		putInterval(hasher, tm.getTXRegion());
+		putInterval(hasher, tm.getCDSRegion());
+		hasher.putInt(tm.getExonCount());
+		for (int i = 0; i < tm.getExonCount(); ++i)
+			putInterval(hasher, tm.getExonRegion(i));
+		putString(hasher, tm.getSequence());
+		hasher.putInt(tm.getTranscriptSupportLevel());
+		return hasher.hash().asLong();
+	}
+
+	/** Add <code>value</code> to <code>hasher</code>, prefixed by its length and allowing <code>null</code>. */
+	private static void putString(Hasher hasher, String value) {
+		if (value == null) {
+			hasher.putInt(-1);
+		} else {
+			hasher.putInt(value.length());
+			hasher.putUnencodedChars(value);
+		}
+	}
+
+	/** Add <code>interval</code> to <code>hasher</code>. */
+	private static void putInterval(Hasher hasher, GenomeInterval interval) {
+		hasher.putInt(interval.getStrand().ordinal());
+		hasher.putInt(interval.getChr());
+		hasher.putInt(interval.getBeginPos());
+		hasher.putInt(interval.getEndPos());
+	}
+
+	/**
+	 * Compute the differences between the transcripts of the changed contigs, matching the transcripts by accession.
+	 *
+	 * @param previousTranscripts
+	 *            transcripts of the changed contigs in the previous version
+	 * @param transcripts
+	 *            transcripts of the changed contigs in the new version
+	 * @param numUnchangedContigs
+	 *            number of unchanged contigs
+	 * @param numChangedContigs
+	 *            number of changed contigs
+	 * @return the resulting {@link JannovarDataDiff}
+	 */
+	private static JannovarDataDiff computeDiff(List<TranscriptModel> previousTranscripts,
+			List<TranscriptModel> transcripts, int numUnchangedContigs, int numChangedContigs) {
+		ListMultimap<String, TranscriptModel> previousByAccession = ArrayListMultimap.create();
+		for (TranscriptModel tm : previousTranscripts)
+			previousByAccession.put(tm.getAccession(), tm);
+		ListMultimap<String, TranscriptModel> byAccession = ArrayListMultimap.create();
+		for (TranscriptModel tm : transcripts)
+			byAccession.put(tm.getAccession(), tm);
+		TreeSet<String> accessions = new TreeSet<String>(previousByAccession.keySet());
+		accessions.addAll(byAccession.keySet());
+
+		ImmutableList.Builder<TranscriptModel> added = new ImmutableList.Builder<TranscriptModel>();
+		ImmutableList.Builder<TranscriptModel> removed = new ImmutableList.Builder<TranscriptModel>();
+		ImmutableList.Builder<TranscriptModel> changed = new ImmutableList.Builder<TranscriptModel>();
+		for (String accession : accessions) {
+			final List<TranscriptModel> previousTMs = previousByAccession.get(accession);
+			final List<TranscriptModel> tms = byAccession.get(accession);
+			if (previousTMs.isEmpty())
+				added.addAll(tms);
+			else if (tms.isEmpty())
+				removed.addAll(previousTMs);
+			else if (!sortedFingerprints(previousTMs).equals(sortedFingerprints(tms)))
+				changed.addAll(tms);
+		}
+		return new JannovarDataDiff(added.build(), removed.build(), changed.build(), numUnchangedContigs,
+				numChangedContigs);
+	}
+
+	/** @return sorted fingerprints of <code>tms</code> */
+	private static List<Long> sortedFingerprints(List<TranscriptModel> tms) {
+		ArrayList<Long> result = new ArrayList<Long>();
+		for (TranscriptModel tm : tms)
+			result.add(fingerprint(tm));
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Run <code>tasks</code> on {@link #numThreads} threads.
+	 *
+	 * @return the results of <code>tasks</code>, in the same order
+	 * @throws IOException
+	 *             if a task failed with an {@link IOException} or the thread was interrupted
+	 * @throws ClassNotFoundException
+	 *             if a task failed with a {@link ClassNotFoundException}
+	 */
+	private <T> ImmutableList<T> invokeAll(List<? extends Callable<T>> tasks) throws IOException,
+			ClassNotFoundException {
+		try {
+			return ParallelTasks.invokeAll(tasks, numThreads, "jannovar-serializer");
+		} catch (ExecutionException e) {
+			ParallelTasks.rethrowUnchecked(e);
+			if (e.getCause() instanceof ClassNotFoundException)
+				throw (ClassNotFoundException) e.getCause();
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause().toString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while (de)serializing sections");
+		}
+	}
+
+	/** Task for serializing one section. */
+	private static final class SerializeTask implements Callable<byte[]> {
+
+		private final Object obj;
+		private final ReferenceDictionary refDict;
+
+		SerializeTask(Object obj, ReferenceDictionary refDict) {
+			this.obj = obj;
+			this.refDict = refDict;
+		}
+
+		public byte[] call() throws IOException {
+			return serializeSection(obj, refDict);
+		}
+
+	}
+
+	/** Task for "serializing" a section that was copied from the previous version. */
+	private static final class CopyTask implements Callable<byte[]> {
+
+		private final byte[] section;
+
+		CopyTask(byte[] section) {
+			this.section = section;
+		}
+
+		public byte[] call() {
+			return section;
+		}
+
+	}
+
+	/** Task for computing the fingerprint of one {@link Chromosome}. */
+	private static final class FingerprintTask implements Callable<Long> {
+
+		private final Chromosome chrom;
+
+		FingerprintTask(Chromosome chrom) {
+			this.chrom = chrom;
+		}
+
+		public Long call() {
+			return fingerprint(chrom);
+		}
+
+	}
+
+	/** Task for deserializing one section. */
+	private static final class DeserializeTask implements Callable<Object> {
+
+		private final byte[] section;
+		private final ReferenceDictionary refDict;
+
+		DeserializeTask(byte[] section, ReferenceDictionary refDict) {
+			this.section = section;
+			this.refDict = refDict;
+		}
+
+		public Object call() throws IOException, ClassNotFoundException {
+			return deserializeSection(section, refDict);
+		}
+
+	}
+
+	/** @return the <code>length</code> bytes at <code>offset</code> in <code>file</code> */
+	private static byte[] readSection(RandomAccessFile file, long offset, int length) throws IOException {
+		final byte[] result = new byte[length];
+		file.seek(offset);
+		file.readFully(result);
+		return result;
+	}
+
+	/**
+	 * @return <code>obj</code>, serialized and gzip-compressed, with <code>refDict</code> replaced by a placeholder
+	 *         such that it is not written again for each section
+	 */
+	private static byte[] serializeSection(Object obj, final ReferenceDictionary refDict) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new SectionOutputStream(new GZIPOutputStream(bytes), refDict);
+		out.writeObject(obj);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/** @return object deserialized from <code>section</code>, with the placeholder replaced by <code>refDict</code> */
+	private static Object deserializeSection(byte[] section, ReferenceDictionary refDict) throws IOException,
+			ClassNotFoundException {
+		ObjectInputStream in = new SectionInputStream(new GZIPInputStream(new ByteArrayInputStream(section)), refDict);
+		try {
+			return in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	/** Placeholder for the {@link ReferenceDictionary} shared by all sections. */
+	private static final class RefDictPlaceholder implements Serializable {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/** {@link ObjectOutputStream} that replaces the shared {@link ReferenceDictionary} by a placeholder. */
+	private static final class SectionOutputStream extends ObjectOutputStream {
+
+		private final ReferenceDictionary refDict;
+
+		SectionOutputStream(OutputStream out, ReferenceDictionary refDict) throws IOException {
+			super(out);
+			this.refDict = refDict;
+			enableReplaceObject(refDict != null);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) {
+			return (obj == refDict) ? new RefDictPlaceholder() : obj;
+		}
+
+	}
+
+	/** {@link ObjectInputStream} that replaces the placeholder by the shared {@link ReferenceDictionary}. */
+	private static final class SectionInputStream extends ObjectInputStream {
+
+		private final ReferenceDictionary refDict;
+
+		SectionInputStream(InputStream in, ReferenceDictionary refDict) throws IOException {
+			super(in);
+			this.refDict = refDict;
+			enableResolveObject(refDict != null);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) {
+			return (obj instanceof RefDictPlaceholder) ? refDict : obj;
+		}
+
+	}
+
 }
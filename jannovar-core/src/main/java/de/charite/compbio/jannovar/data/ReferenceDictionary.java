@@ -1,7 +1,10 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map.Entry;
 
 import com.google.common.collect.ImmutableMap;
@@ -43,6 +46,9 @@ public class ReferenceDictionary implements Serializable {
 	/** serialization version ID */
 	private static final long serialVersionUID = 1L;
 
+	/** maximal number of unused array entries for using arrays instead of the maps for lookups by contig ID */
+	private static final int MAX_ARRAY_SLACK = 1024;
+
 	/**
 	 * stores a mapping from the string chromosome/contig name to its numeric id, e.g. from both <code>"chr1"</code> and
 	 * <code>"1"</code> to <code>(int)1</code>
@@ -55,6 +61,15 @@ public class ReferenceDictionary implements Serializable {
 	/** stores a mapping from numeric chromosomeID/contigID to chromosome/contig length */
 	private final ImmutableMap<Integer, Integer> contigLength;
 
+	/**
+	 * contig lengths indexed by contig ID, <code>-1</code> for IDs without length; <code>null</code> if the IDs are too
+	 * sparse for an array
+	 */
+	private transient int[] contigLengthArray;
+
+	/** primary contig names indexed by contig ID; <code>null</code> if the IDs are too sparse for an array */
+	private transient String[] contigNameArray;
+
 	/**
 	 * Initialize the object with the given values.
 	 *
@@ -70,6 +85,38 @@ public class ReferenceDictionary implements Serializable {
 		this.contigID = contigID;
 		this.contigName = contigName;
 		this.contigLength = contigLength;
+		buildArrays();
+	}
+
+	/** Fill {@link #contigLengthArray} and {@link #contigNameArray} if the contig IDs are dense enough. */
+	private void buildArrays() {
+		int maxID = -1;
+		for (Integer id : contigLength.keySet())
+			if (id < 0)
+				return; // use maps
+			else
+				maxID = Math.max(maxID, id);
+		for (Integer id : contigName.keySet())
+			if (id < 0)
+				return; // use maps
+			else
+				maxID = Math.max(maxID, id);
+		if (maxID >= contigLength.size() + contigName.size() + MAX_ARRAY_SLACK)
+			return; // use maps
+
+		contigLengthArray = new int[maxID + 1];
+		Arrays.fill(contigLengthArray, -1);
+		for (Entry<Integer, Integer> entry : contigLength.entrySet())
+			contigLengthArray[entry.getKey()] = entry.getValue();
+		contigNameArray = new String[maxID + 1];
+		for (Entry<Integer, String> entry : contigName.entrySet())
+			contigNameArray[entry.getKey()] = entry.getValue();
+	}
+
+	/** Build the lookup arrays after deserialization. */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		buildArrays();
 	}
 
 	/** @return map from contig name to contig id */
@@ -87,6 +134,37 @@ public class ReferenceDictionary implements Serializable {
 		return contigLength;
 	}
 
+	/**
+	 * Look up the length of a contig without going through the boxed {@link #getContigIDToLength} map.
+	 *
+	 * @param id
+	 *            numeric contig id
+	 * @return length of the contig
+	 * @throws IllegalArgumentException
+	 *             if no length is known for <code>id</code>
+	 */
+	public int getContigLength(int id) {
+		if (contigLengthArray != null && id >= 0 && id < contigLengthArray.length && contigLengthArray[id] >= 0)
+			return contigLengthArray[id];
+		final Integer length = contigLength.get(id);
+		if (length == null)
+			throw new IllegalArgumentException("No length known for contig with ID " + id);
+		return length;
+	}
+
+	/**
+	 * Look up the primary name of a contig without going through the boxed {@link #getContigIDToName} map.
+	 *
+	 * @param id
+	 *            numeric contig id
+	 * @return primary name of the contig, <code>null</code> if unknown
+	 */
+	public String getContigName(int id) {
+		if (contigNameArray != null)
+			return (id >= 0 && id < contigNameArray.length) ? contigNameArray[id] : null;
+		return contigName.get(id);
+	}
+
 	/**
 	 * Print dictionary to <code>System.err</code> for debugging purposes.
 	 */
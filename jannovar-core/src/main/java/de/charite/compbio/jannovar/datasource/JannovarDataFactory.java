@@ -67,6 +67,29 @@ public abstract class JannovarDataFactory {
 	public final JannovarData build(String downloadDir, boolean printProgressBars) throws InvalidDataSourceException,
 	TranscriptParseException,
 	FileDownloadException {
+		return build(downloadDir, printProgressBars, 1);
+	}
+
+	/**
+	 * Build {@link JannovarData} as {@link #build(String, boolean)}, building the per-chromosome data on multiple
+	 * threads.
+	 *
+	 * @param downloadDir
+	 *            path of download directory
+	 * @param printProgressBars
+	 *            whether or not to print progress bars
+	 * @param numThreads
+	 *            number of threads for building the {@link JannovarData}
+	 * @return {@link JannovarData} with the information
+	 * @throws InvalidDataSourceException
+	 *             on problems with the data source or data source file
+	 * @throws TranscriptParseException
+	 *             on problems with processing the transcript and reference dictionary data
+	 * @throws FileDownloadException
+	 *             on problems while downloading files.
+	 */
+	public final JannovarData build(String downloadDir, boolean printProgressBars, int numThreads)
+			throws InvalidDataSourceException, TranscriptParseException, FileDownloadException {
 		String targetDir = PathUtil.join(downloadDir, dataSource.getName());
 
 		FileDownloader downloader = new FileDownloader(buildOptions(printProgressBars));
@@ -99,7 +122,7 @@ public abstract class JannovarDataFactory {
 		LOGGER.info("Parsing transcripts...");
 		ImmutableList<TranscriptModel> transcripts = parseTranscripts(refDict, targetDir);
 
-		return new JannovarData(refDict, transcripts);
+		return new JannovarData(refDict, transcripts, numThreads);
 	}
 
 	/**
@@ -126,16 +126,10 @@ public final class IntervalArray<T> implements Serializable {
 	 * @return right neighbor of the given point if any, or <code>null</code>
 	 */
 	private T findRightNeighbor(int point) {
-		final Interval<T> query = new Interval<T>(point, point, null, point);
-		int idx = Collections.binarySearch(intervals, query, new Comparator<Interval<T>>() {
-			public int compare(Interval<T> o1, Interval<T> o2) {
-				return (o1.getBegin() - o2.getBegin());
-			}
-		});
+		final int idx = firstBeginningRightOf(point);
 
-		if (idx >= 0)
+		if (idx > 0 && intervals.get(idx - 1).getBegin() == point)
 			throw new RuntimeException("Found element although in right neighbor search!");
-		idx = -(idx + 1); // convert to insertion point
 
 		if (idx == intervals.size())
 			return null;
@@ -147,17 +141,7 @@ public final class IntervalArray<T> implements Serializable {
 	 * @return left neighbor of the given point if any, or <code>null</code>
 	 */
 	private T findLeftNeighbor(int point) {
-		final Interval<T> query = new Interval<T>(point, point, null, point);
-		int idx = Collections.binarySearch(intervalsEnd, query, new Comparator<Interval<T>>() {
-			public int compare(Interval<T> o1, Interval<T> o2) {
-				return (o1.getEnd() - o2.getEnd());
-			}
-		});
-
-		if (idx >= 0)
-			idx += 1;
-		else
-			idx = -(idx + 1); // convert to insertion point
+		final int idx = firstEndingRightOf(point);
 
 		if (idx == 0)
 			return null;
@@ -165,6 +149,103 @@ public final class IntervalArray<T> implements Serializable {
 			return intervalsEnd.get(idx - 1).getValue();
 	}
 
+	/**
+	 * @return index of the first entry of {@link #intervals} that begins right of <code>point</code>
+	 */
+	private int firstBeginningRightOf(int point) {
+		// binary search without allocating a query object
+		int lo = 0;
+		int hi = intervals.size();
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (intervals.get(mid).getBegin() <= point)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * @return index of the first entry of {@link #intervalsEnd} that ends right of <code>point</code>
+	 */
+	private int firstEndingRightOf(int point) {
+		// binary search without allocating a query object
+		int lo = 0;
+		int hi = intervalsEnd.size();
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (intervalsEnd.get(mid).getEnd() <= point)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Query for the values with intervals that do not overlap with <code>[begin, end)</code> but lie at most
+	 * <code>maxDistance</code> positions left or right of it.
+	 *
+	 * The distance of an interval <code>[b, e)</code> left of the query is <code>begin - e</code> and the one of an
+	 * interval right of the query is <code>b - end</code>, i.e., directly adjacent intervals have distance 0. The
+	 * result is sorted by distance; on ties, left neighbors come first.
+	 *
+	 * @param begin
+	 *            zero-based begin position of the query interval
+	 * @param end
+	 *            zero-based end position of the query interval, use <code>begin + 1</code> for querying a point
+	 * @param maxDistance
+	 *            the largest distance to include
+	 * @return the elements from the non-overlapping intervals within <code>maxDistance</code> of
+	 *         <code>[begin, end)</code>
+	 */
+	public ImmutableList<T> findNeighborsWithinDistance(int begin, int end, int maxDistance) {
+		return findNeighbors(begin, end, maxDistance, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Query for the values of the <code>k</code> intervals nearest to <code>[begin, end)</code> that do not overlap
+	 * with it.
+	 *
+	 * Distances are computed as in {@link #findNeighborsWithinDistance}, the result is sorted by distance and, on
+	 * ties, left neighbors come first.
+	 *
+	 * @param begin
+	 *            zero-based begin position of the query interval
+	 * @param end
+	 *            zero-based end position of the query interval, use <code>begin + 1</code> for querying a point
+	 * @param k
+	 *            the largest number of elements to return
+	 * @return the elements from the up to <code>k</code> nearest non-overlapping intervals
+	 */
+	public ImmutableList<T> findNearestNeighbors(int begin, int end, int k) {
+		return findNeighbors(begin, end, Integer.MAX_VALUE, k);
+	}
+
+	/**
+	 * Merge the left neighbors (walking {@link #intervalsEnd} to the left) and the right neighbors (walking
+	 * {@link #intervals} to the right) of <code>[begin, end)</code> by distance.
+	 */
+	private ImmutableList<T> findNeighbors(int begin, int end, int maxDistance, int k) {
+		ImmutableList.Builder<T> builder = new ImmutableList.Builder<T>();
+		// all intervals left of lIdx end at or before begin, all intervals from rIdx on begin at or after end
+		int lIdx = firstEndingRightOf(begin) - 1;
+		int rIdx = firstBeginningRightOf(end - 1);
+		for (int count = 0; count < k; ++count) {
+			final long lDist = (lIdx >= 0) ? (long) begin - intervalsEnd.get(lIdx).getEnd() : Long.MAX_VALUE;
+			final long rDist = (rIdx < intervals.size()) ? (long) intervals.get(rIdx).getBegin() - end
+					: Long.MAX_VALUE;
+			if (Math.min(lDist, rDist) > maxDistance)
+				break;
+			if (lDist <= rDist)
+				builder.add(intervalsEnd.get(lIdx--).getValue());
+			else
+				builder.add(intervals.get(rIdx++).getValue());
+		}
+		return builder.build();
+	}
+
 	/**
 	 * Implementation of in-order traversal of the encoded tree with pruning
 	 * using {@link Interval#maxEnd}.
@@ -0,0 +1,71 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import java.io.IOException;
+
+/**
+ * Emission of the JFR events and recordings, implemented in the optional module <code>jannovar-jfr</code> that is
+ * compiled against the <code>jdk.jfr</code> API.
+ *
+ * Only use through {@link JFRSupport}, which loads the implementation if present. The <code>begin*</code> functions
+ * return an event handle or <code>null</code> if the event is disabled, the <code>commit*</code> functions are only
+ * called with handles for which {@link #end} returned <code>true</code>.
+ */
+public interface JFREvents {
+
+	/**
+	 * End the event with the given handle.
+	 *
+	 * @param handle
+	 *            handle returned by one of the <code>begin*</code> functions
+	 * @return whether or not the event is to be committed, e.g. it is longer than the threshold
+	 */
+	public boolean end(Object handle);
+
+	/** @return handle for a variant annotation event, <code>null</code> if disabled */
+	public Object beginVariantAnnotation();
+
+	/** Commit a variant annotation event, the position is one-based on the forward strand. */
+	public void commitVariantAnnotation(Object handle, String chr, int pos, String ref, String alt,
+			int transcriptCount, int annotationCount);
+
+	/** @return handle for an annotation builder event, <code>null</code> if disabled */
+	public Object beginAnnotationBuilder();
+
+	/** Commit an annotation builder event, the position is one-based on the forward strand. */
+	public void commitAnnotationBuilder(Object handle, String chr, int pos, String ref, String alt,
+			String transcriptAccession, String builderType);
+
+	/** @return handle for a database load event, <code>null</code> if disabled */
+	public Object beginDatabaseLoad();
+
+	/** Commit a database load event, the counts are <code>0</code> if loading failed. */
+	public void commitDatabaseLoad(Object handle, String path, int contigCount, int transcriptCount);
+
+	/** @return handle for a gene processed event, <code>null</code> if disabled */
+	public Object beginGeneProcessed();
+
+	/** Commit a gene processed event, the positions are zero-based on the forward strand. */
+	public void commitGeneProcessed(Object handle, String gene, String chr, int begin, int end, int bufferedVariants);
+
+	/**
+	 * Start a recording with the JVM's <code>default</code> settings and all Jannovar events enabled.
+	 *
+	 * @param path
+	 *            path to the <code>.jfr</code> file to write when stopping the recording
+	 * @return handle for {@link #stopRecording}
+	 * @throws IOException
+	 *             on problems with setting up the recording
+	 */
+	public Object startRecording(String path) throws IOException;
+
+	/**
+	 * Stop recording and write the <code>.jfr</code> file.
+	 *
+	 * @param handle
+	 *            handle returned by {@link #startRecording}
+	 * @throws IOException
+	 *             on problems with writing the recording
+	 */
+	public void stopRecording(Object handle) throws IOException;
+
+}
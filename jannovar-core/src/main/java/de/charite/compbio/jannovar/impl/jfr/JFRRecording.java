@@ -0,0 +1,37 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import java.io.IOException;
+
+/**
+ * A JDK Flight Recorder recording with the JVM's <code>default</code> settings and all Jannovar events enabled.
+ *
+ * Only create after checking {@link JFRSupport#isAvailable}.
+ */
+public final class JFRRecording {
+
+	/** handle of the wrapped recording */
+	private final Object recording;
+
+	/**
+	 * Create and start recording, writing to <code>path</code> on {@link #stop}.
+	 *
+	 * @param path
+	 *            path to the <code>.jfr</code> file to write
+	 * @throws IOException
+	 *             if JFR is not available or on problems with setting up the recording
+	 */
+	public JFRRecording(String path) throws IOException {
+		this.recording = JFRSupport.startRecording(path);
+	}
+
+	/**
+	 * Stop recording and write the <code>.jfr</code> file.
+	 *
+	 * @throws IOException
+	 *             on problems with writing the recording
+	 */
+	public void stop() throws IOException {
+		JFRSupport.stopRecording(recording);
+	}
+
+}
@@ -0,0 +1,190 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import java.io.IOException;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.Strand;
+
+/**
+ * Emission of JDK Flight Recorder events for the Jannovar processing stages.
+ *
+ * The events are implemented in the optional module <code>jannovar-jfr</code> (see {@link JFREvents}), which needs the
+ * <code>jdk.jfr</code> API (Java 8u262 or later) for compilation and is only built with the Maven profile
+ * <code>jfr</code>. If the module is not on the class path or the JVM has no <code>jdk.jfr</code> API, no events are
+ * emitted at all.
+ *
+ * All Jannovar events are disabled by default, they have to be enabled in the recording's settings (e.g. through
+ * {@link JFRRecording}). For disabled events, the callers only check the enabled state of the event type, no event
+ * object is created.
+ *
+ * The <code>begin*</code> functions return an opaque event handle or <code>null</code> in the case that the event is
+ * disabled. The handle has to be passed to the corresponding <code>commit*</code> function.
+ */
+public final class JFRSupport {
+
+	/** name of the event around <code>VariantAnnotator.buildAnnotations</code> */
+	public static final String EVENT_VARIANT_ANNOTATION = "de.charite.compbio.jannovar.VariantAnnotation";
+	/** name of the event around <code>AnnotationBuilderDispatcher.build</code> */
+	public static final String EVENT_ANNOTATION_BUILDER = "de.charite.compbio.jannovar.AnnotationBuilder";
+	/** name of the event around <code>JannovarDataSerializer.load</code> */
+	public static final String EVENT_DATABASE_LOAD = "de.charite.compbio.jannovar.DatabaseLoad";
+	/** name of the event around <code>GeneWiseInheritanceFilter.processedGene</code> (in jannovar-filter) */
+	public static final String EVENT_GENE_PROCESSED = "de.charite.compbio.jannovar.GeneProcessed";
+
+	/** all Jannovar event names */
+	static final String[] EVENT_NAMES = new String[] { EVENT_VARIANT_ANNOTATION, EVENT_ANNOTATION_BUILDER,
+			EVENT_DATABASE_LOAD, EVENT_GENE_PROCESSED };
+
+	/** name of the {@link JFREvents} implementation in the module <code>jannovar-jfr</code> */
+	private static final String EVENTS_CLASS_NAME = "de.charite.compbio.jannovar.impl.jfr.JFREventsImpl";
+
+	/** the events implementation, <code>null</code> if not available */
+	private static final JFREvents EVENTS = loadEvents();
+
+	/** Utility class, no instantiation. */
+	private JFRSupport() {
+	}
+
+	/** @return whether or not the JFR events are available in the running JVM */
+	public static boolean isAvailable() {
+		return EVENTS != null;
+	}
+
+	/** @return the {@link JFREvents} implementation, <code>null</code> if the module or the API is missing */
+	private static JFREvents loadEvents() {
+		try {
+			return Class.forName(EVENTS_CLASS_NAME).asSubclass(JFREvents.class).getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			// module not on the class path, JFR not supported by the JVM, or reflective problems with the constructor
+			return null;
+		} catch (LinkageError e) {
+			return null; // no jdk.jfr API
+		}
+	}
+
+	/** @return handle for a variant annotation event, <code>null</code> if disabled */
+	public static Object beginVariantAnnotation() {
+		return (EVENTS == null) ? null : EVENTS.beginVariantAnnotation();
+	}
+
+	/**
+	 * Commit a variant annotation event.
+	 *
+	 * @param handle
+	 *            handle returned by {@link #beginVariantAnnotation}, may be <code>null</code>
+	 * @param change
+	 *            the annotated variant
+	 * @param transcriptCount
+	 *            number of transcripts considered
+	 * @param annotationCount
+	 *            number of annotations built
+	 */
+	public static void commitVariantAnnotation(Object handle, GenomeVariant change, int transcriptCount,
+			int annotationCount) {
+		if (handle == null || !EVENTS.end(handle))
+			return;
+		final GenomeVariant fwdChange = change.withStrand(Strand.FWD);
+		EVENTS.commitVariantAnnotation(handle, fwdChange.getChrName(), fwdChange.getPos() + 1, fwdChange.getRef(),
+				fwdChange.getAlt(), transcriptCount, annotationCount);
+	}
+
+	/** @return handle for an annotation builder event, <code>null</code> if disabled */
+	public static Object beginAnnotationBuilder() {
+		return (EVENTS == null) ? null : EVENTS.beginAnnotationBuilder();
+	}
+
+	/**
+	 * Commit an annotation builder event.
+	 *
+	 * @param handle
+	 *            handle returned by {@link #beginAnnotationBuilder}, may be <code>null</code>
+	 * @param change
+	 *            the annotated variant
+	 * @param transcriptAccession
+	 *            accession of the annotated transcript, <code>null</code> for intergenic annotations
+	 * @param builderType
+	 *            simple class name of the builder
+	 */
+	public static void commitAnnotationBuilder(Object handle, GenomeVariant change, String transcriptAccession,
+			String builderType) {
+		if (handle == null || !EVENTS.end(handle))
+			return;
+		final GenomeVariant fwdChange = change.withStrand(Strand.FWD);
+		EVENTS.commitAnnotationBuilder(handle, fwdChange.getChrName(), fwdChange.getPos() + 1, fwdChange.getRef(),
+				fwdChange.getAlt(), transcriptAccession, builderType);
+	}
+
+	/** @return handle for a database load event, <code>null</code> if disabled */
+	public static Object beginDatabaseLoad() {
+		return (EVENTS == null) ? null : EVENTS.beginDatabaseLoad();
+	}
+
+	/**
+	 * Commit a database load event.
+	 *
+	 * @param handle
+	 *            handle returned by {@link #beginDatabaseLoad}, may be <code>null</code>
+	 * @param path
+	 *            path to the loaded file
+	 * @param data
+	 *            the loaded data, <code>null</code> on failure
+	 */
+	public static void commitDatabaseLoad(Object handle, String path, JannovarData data) {
+		if (handle == null || !EVENTS.end(handle))
+			return;
+		if (data == null)
+			EVENTS.commitDatabaseLoad(handle, path, 0, 0);
+		else
+			EVENTS.commitDatabaseLoad(handle, path, data.getChromosomes().size(), data.getNumTranscripts());
+	}
+
+	/** @return handle for a gene processed event, <code>null</code> if disabled */
+	public static Object beginGeneProcessed() {
+		return (EVENTS == null) ? null : EVENTS.beginGeneProcessed();
+	}
+
+	/**
+	 * Commit a gene processed event.
+	 *
+	 * @param handle
+	 *            handle returned by {@link #beginGeneProcessed}, may be <code>null</code>
+	 * @param gene
+	 *            name of the processed gene
+	 * @param region
+	 *            region of the gene
+	 * @param bufferedVariants
+	 *            number of variants buffered at the time of processing
+	 */
+	public static void commitGeneProcessed(Object handle, String gene, GenomeInterval region, int bufferedVariants) {
+		if (handle == null || !EVENTS.end(handle))
+			return;
+		final GenomeInterval fwdRegion = region.withStrand(Strand.FWD);
+		EVENTS.commitGeneProcessed(handle, gene, fwdRegion.getRefDict().getContigIDToName().get(fwdRegion.getChr()),
+				fwdRegion.getBeginPos(), fwdRegion.getEndPos(), bufferedVariants);
+	}
+
+	/**
+	 * Start a recording, see {@link JFRRecording}.
+	 *
+	 * @throws IOException
+	 *             if the JFR events are not available or on problems with setting up the recording
+	 */
+	static Object startRecording(String path) throws IOException {
+		if (EVENTS == null)
+			throw new IOException("JDK Flight Recorder support is not available");
+		return EVENTS.startRecording(path);
+	}
+
+	/**
+	 * Stop a recording started by {@link #startRecording}.
+	 *
+	 * @throws IOException
+	 *             on problems with writing the recording
+	 */
+	static void stopRecording(Object handle) throws IOException {
+		EVENTS.stopRecording(handle);
+	}
+
+}
@@ -8,10 +8,33 @@ package de.charite.compbio.jannovar.impl.util;
  */
 public final class DNAUtils {
 
+	/** complement for each ASCII character, <code>0</code> for characters without complement */
+	private static final char[] COMPLEMENT = new char[128];
+
+	/**
+	 * complement for each ASCII character as in {@link #reverseComplement}, <code>0</code> for characters that are
+	 * dropped
+	 */
+	private static final char[] REVERSE_COMPLEMENT = new char[128];
+
+	/** complement for upper-case <code>A</code>, <code>C</code>, <code>G</code>, and <code>T</code>, <code>0</code> else */
+	private static final char[] ACGT_COMPLEMENT = new char[128];
+
+	static {
+		final String from = "ACGTNRYKMBVDHSWacgtnrykmbvdhsw";
+		final String to = "TGCANYRMKVBHDSWtgcanyrmkvbhdsw";
+		for (int i = 0; i < from.length(); ++i)
+			COMPLEMENT[from.charAt(i)] = to.charAt(i);
+		for (int i = 0; i < 5; ++i)
+			REVERSE_COMPLEMENT[from.charAt(i)] = to.charAt(i);
+		for (int i = 0; i < 4; ++i)
+			ACGT_COMPLEMENT[from.charAt(i)] = to.charAt(i);
+	}
+
 	/**
 	 * Return the reverse complement version of a DNA string in upper case. Note that no checking is done in this code
-	 * since the parse code checks for valid DNA and upper-cases the input. This code will break if these assumptions
-	 * are not valid.
+	 * since the parse code checks for valid DNA and upper-cases the input. Characters other than <code>A</code>,
+	 * <code>C</code>, <code>G</code>, <code>T</code>, and <code>N</code> are dropped.
 	 *
 	 * @param sq
 	 *            original, upper-case cDNA string
@@ -21,31 +44,112 @@ public final class DNAUtils {
 		if (sq.isEmpty())
 			return sq; // deletion, insertion do not need rc
 
-		StringBuffer sb = new StringBuffer();
+		final char[] result = new char[sq.length()];
+		int len = 0;
 		for (int i = sq.length() - 1; i >= 0; i--) {
-			char c = sq.charAt(i);
-			char match = 0;
-			switch (c) {
-			case 'A':
-				match = 'T';
-				break;
-			case 'C':
-				match = 'G';
-				break;
-			case 'G':
-				match = 'C';
-				break;
-			case 'T':
-				match = 'A';
-				break;
-			case 'N':
-				match = 'N';
-				break;
-			}
+			final char c = sq.charAt(i);
+			final char match = (c < 128) ? REVERSE_COMPLEMENT[c] : 0;
 			if (match > 0)
-				sb.append(match);
+				result[len++] = match;
+		}
+		return new String(result, 0, len);
+	}
+
+	/**
+	 * @return complement of the nucleotide character <code>c</code>, including IUPAC codes, keeping the case;
+	 *         <code>c</code> for characters without complement (e.g., <code>N</code> or gaps)
+	 */
+	public static char complement(char c) {
+		final char result = (c < 128) ? COMPLEMENT[c] : 0;
+		return (result == 0) ? c : result;
+	}
+
+	/**
+	 * Check for reverse complement as the detection of structural variant inversions always did: only upper-case
+	 * <code>A</code>, <code>C</code>, <code>G</code>, and <code>T</code> are complemented, all other characters
+	 * (<code>N</code>, IUPAC codes, lower case) have to match themselves. Thus, unlike with {@link #complement},
+	 * <code>R</code> is not the reverse complement of <code>Y</code> and <code>a</code> not the one of <code>t</code>.
+	 *
+	 * @return <code>true</code> if <code>seq</code> is the reverse complement of <code>other</code>, without building
+	 *         the reverse complement
+	 */
+	public static boolean isReverseComplement(CharSequence seq, CharSequence other) {
+		final int len = seq.length();
+		if (len != other.length())
+			return false;
+		for (int i = 0, j = len - 1; i < len; ++i, --j) {
+			final char c = other.charAt(j);
+			final char comp = (c < 128 && ACGT_COMPLEMENT[c] != 0) ? ACGT_COMPLEMENT[c] : c;
+			if (seq.charAt(i) != comp)
+				return false;
 		}
-		return sb.toString();
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if <code>seq</code> contains <code>other</code> at <code>offset</code>, without
+	 *         building a substring; <code>false</code> if <code>other</code> does not fit at <code>offset</code>
+	 */
+	public static boolean regionMatches(CharSequence seq, int offset, CharSequence other) {
+		final int len = other.length();
+		if (offset < 0 || offset + len > seq.length())
+			return false;
+		for (int i = 0; i < len; ++i)
+			if (seq.charAt(offset + i) != other.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Compute the number of positions that the insertion of <code>ins</code> at <code>insertPos</code> into
+	 * <code>seq</code> can be shifted towards the 3' end, without building the sequence with the insertion.
+	 *
+	 * The insertion can be shifted by one position while the character after it equals its first character. After
+	 * shifting, the inserted characters are <code>ins</code> rotated by the shift, see {@link #rotateLeft}.
+	 *
+	 * @param seq
+	 *            the sequence to insert into
+	 * @param ins
+	 *            the non-empty sequence to insert
+	 * @param insertPos
+	 *            the 0-based position in <code>seq</code> to insert before
+	 * @param maxEndPos
+	 *            bound on the end position of the shifted insertion in the sequence with the insertion
+	 * @return number of positions that the insertion can be shifted
+	 */
+	public static int insertionShift(CharSequence seq, CharSequence ins, int insertPos, int maxEndPos) {
+		final int len = ins.length();
+		int shift = 0;
+		// The sequence with the insertion at insertPos + shift is compared to the character at insertPos + shift in
+		// seq, the first character of the shifted insertion is ins[shift % len].
+		while (insertPos + shift + len < maxEndPos && insertPos + shift < seq.length()
+				&& ins.charAt(shift % len) == seq.charAt(insertPos + shift))
+			++shift;
+		return shift;
+	}
+
+	/**
+	 * Compute the number of positions that the deletion of <code>len</code> characters at <code>pos</code> in
+	 * <code>seq</code> can be shifted towards the 3' end.
+	 *
+	 * @return number of positions that the deletion can be shifted
+	 */
+	public static int deletionShift(CharSequence seq, int pos, int len) {
+		int shift = 0;
+		while (pos + shift + len < seq.length() && seq.charAt(pos + shift) == seq.charAt(pos + shift + len))
+			++shift;
+		return shift;
+	}
+
+	/** @return <code>s</code> rotated to the left by <code>k</code> modulo its length */
+	public static String rotateLeft(String s, int k) {
+		if (s.isEmpty() || k % s.length() == 0)
+			return s;
+		k %= s.length();
+		final char[] result = new char[s.length()];
+		s.getChars(k, s.length(), result, 0);
+		s.getChars(0, k, result, s.length() - k);
+		return new String(result);
 	}
 
 }
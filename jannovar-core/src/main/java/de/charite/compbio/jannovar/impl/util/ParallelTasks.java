@@ -0,0 +1,91 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Helper for running independent tasks (e.g., one per contig) on a pool of threads.
+ *
+ * The results are returned in the order of the tasks, independent of the order in which they finish. Thus, the
+ * results are the same as when running the tasks one after another.
+ */
+public final class ParallelTasks {
+
+	/** no instances of this class */
+	private ParallelTasks() {
+	}
+
+	/**
+	 * Run <code>tasks</code> on up to <code>numThreads</code> threads and wait for all of them.
+	 *
+	 * With one thread or at most one task, the tasks are run in the calling thread.
+	 *
+	 * @param tasks
+	 *            the tasks to run
+	 * @param numThreads
+	 *            the maximal number of threads to use
+	 * @param name
+	 *            name of the worker threads
+	 * @return the results of <code>tasks</code>, in the same order
+	 * @throws ExecutionException
+	 *             if a task failed, with the exception of the first failed task (in task order) as the cause; the
+	 *             remaining tasks are cancelled
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the tasks
+	 */
+	public static <T> ImmutableList<T> invokeAll(List<? extends Callable<T>> tasks, int numThreads, final String name)
+			throws ExecutionException, InterruptedException {
+		ImmutableList.Builder<T> builder = new ImmutableList.Builder<T>();
+		if (numThreads <= 1 || tasks.size() <= 1) {
+			for (Callable<T> task : tasks) {
+				try {
+					builder.add(task.call());
+				} catch (Exception e) {
+					throw new ExecutionException(e);
+				}
+			}
+			return builder.build();
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(numThreads, tasks.size()),
+				new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, name);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		try {
+			ArrayList<Future<T>> futures = new ArrayList<Future<T>>();
+			for (Callable<T> task : tasks)
+				futures.add(executor.submit(task));
+			for (Future<T> future : futures)
+				builder.add(future.get());
+			return builder.build();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Rethrow the cause of <code>e</code> if it is unchecked.
+	 *
+	 * @param e
+	 *            exception thrown by {@link #invokeAll}
+	 */
+	public static void rethrowUnchecked(ExecutionException e) {
+		if (e.getCause() instanceof RuntimeException)
+			throw (RuntimeException) e.getCause();
+		if (e.getCause() instanceof Error)
+			throw (Error) e.getCause();
+	}
+
+}
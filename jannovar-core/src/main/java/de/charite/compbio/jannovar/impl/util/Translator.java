@@ -25,7 +25,8 @@ public final class Translator {
 	/** Map of long AA codes to short ones */
 	private ImmutableMap<String, String> longToShort = null;
 
-	private static Translator translator = null;
+	/** singleton instance, created eagerly such that it can be safely shared between threads */
+	private static final Translator translator = new Translator();
 
 	/**
 	 * Private constructor, initializes singleton instance. Use {@link #getTranslator} for obtaining an object.
@@ -40,9 +41,6 @@ public final class Translator {
 	 * @return {@link Translator} singleton
 	 */
 	static public Translator getTranslator() {
-		if (Translator.translator == null) {
-			Translator.translator = new Translator();
-		}
 		return Translator.translator;
 	}
 
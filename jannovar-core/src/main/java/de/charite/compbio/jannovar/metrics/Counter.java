@@ -0,0 +1,56 @@
+package de.charite.compbio.jannovar.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe monotonic event counter.
+ */
+public class Counter {
+
+	/** name of the counter in its {@link MetricsRegistry} */
+	private final String name;
+
+	/** current count */
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * Initialize counter with the given name.
+	 *
+	 * @param name
+	 *            name of the counter in its {@link MetricsRegistry}
+	 */
+	public Counter(String name) {
+		this.name = name;
+	}
+
+	/** @return name of the counter in its {@link MetricsRegistry} */
+	public String getName() {
+		return name;
+	}
+
+	/** Increment counter by one. */
+	public void inc() {
+		inc(1);
+	}
+
+	/**
+	 * Increment counter by <code>n</code>.
+	 *
+	 * @param n
+	 *            number to increment the counter by
+	 */
+	public void inc(long n) {
+		count.addAndGet(n);
+	}
+
+	/** @return current count */
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public String toString() {
+		return "Counter [name=" + name + ", count=" + count.get() + "]";
+	}
+
+}
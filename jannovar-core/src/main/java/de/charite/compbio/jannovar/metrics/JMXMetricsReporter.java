@@ -0,0 +1,160 @@
+package de.charite.compbio.jannovar.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes a {@link MetricsRegistry} as a JMX MBean in the platform MBean server.
+ *
+ * The MBean is a live view of the registry, metrics created after the call to {@link #report} are visible as well.
+ * Counters and gauges are exposed as attributes with the metric's name, timers as the attributes
+ * <code>&lt;name&gt;.count</code>, <code>&lt;name&gt;.total_ms</code>, <code>&lt;name&gt;.mean_ms</code>, and
+ * <code>&lt;name&gt;.max_ms</code>.
+ */
+public final class JMXMetricsReporter implements MetricsReporter {
+
+	/** default object name to register the MBean as */
+	public static final String DEFAULT_OBJECT_NAME = "de.charite.compbio.jannovar:type=Metrics";
+
+	/** object name to register the MBean as */
+	private final String objectName;
+
+	/** Initialize reporter with {@link #DEFAULT_OBJECT_NAME}. */
+	public JMXMetricsReporter() {
+		this(DEFAULT_OBJECT_NAME);
+	}
+
+	/**
+	 * @param objectName
+	 *            object name to register the MBean as
+	 */
+	public JMXMetricsReporter(String objectName) {
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Register <code>registry</code> in the platform MBean server, replacing any previously registered MBean with the
+	 * same name.
+	 */
+	public void report(MetricsRegistry registry) throws IOException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(objectName);
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+			server.registerMBean(new RegistryMBean(registry), name);
+		} catch (JMException e) {
+			throw new IOException("Could not register metrics MBean " + objectName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Unregister the MBean again, if registered.
+	 *
+	 * @throws IOException
+	 *             on problems with unregistering
+	 */
+	public void unregister() throws IOException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(objectName);
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+		} catch (JMException e) {
+			throw new IOException("Could not unregister metrics MBean " + objectName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Read-only {@link DynamicMBean} backed by a {@link MetricsRegistry}.
+	 */
+	private static final class RegistryMBean implements DynamicMBean {
+
+		private final MetricsRegistry registry;
+
+		RegistryMBean(MetricsRegistry registry) {
+			this.registry = registry;
+		}
+
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			if (registry.getCounters().containsKey(attribute))
+				return registry.getCounter(attribute).getCount();
+			Double gauge = registry.getGauges().get(attribute);
+			if (gauge != null)
+				return gauge;
+
+			final int idx = attribute.lastIndexOf('.');
+			if (idx > 0) {
+				final Timer timer = registry.getTimers().get(attribute.substring(0, idx));
+				final String suffix = attribute.substring(idx + 1);
+				if (timer != null) {
+					if (suffix.equals("count"))
+						return timer.getCount();
+					else if (suffix.equals("total_ms"))
+						return timer.getTotalNanos() / 1000.0 / 1000.0;
+					else if (suffix.equals("mean_ms"))
+						return timer.getMeanNanos() / 1000.0 / 1000.0;
+					else if (suffix.equals("max_ms"))
+						return timer.getMaxNanos() / 1000.0 / 1000.0;
+				}
+			}
+			throw new AttributeNotFoundException(attribute);
+		}
+
+		public AttributeList getAttributes(String[] attributes) {
+			AttributeList result = new AttributeList();
+			for (String attribute : attributes)
+				try {
+					result.add(new Attribute(attribute, getAttribute(attribute)));
+				} catch (AttributeNotFoundException e) {
+					// skip, as required by the DynamicMBean contract
+				}
+			return result;
+		}
+
+		public MBeanInfo getMBeanInfo() {
+			ArrayList<MBeanAttributeInfo> attrs = new ArrayList<MBeanAttributeInfo>();
+			for (String name : registry.getCounters().keySet())
+				attrs.add(new MBeanAttributeInfo(name, "java.lang.Long", "counter", true, false, false));
+			for (String name : registry.getGauges().keySet())
+				attrs.add(new MBeanAttributeInfo(name, "java.lang.Double", "gauge", true, false, false));
+			for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+				final String name = entry.getKey();
+				attrs.add(new MBeanAttributeInfo(name + ".count", "java.lang.Long", "timer count", true, false,
+						false));
+				for (String suffix : new String[] { ".total_ms", ".mean_ms", ".max_ms" })
+					attrs.add(new MBeanAttributeInfo(name + suffix, "java.lang.Double", "timer value", true, false,
+							false));
+			}
+			return new MBeanInfo(MetricsRegistry.class.getName(), "Jannovar metrics",
+					attrs.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+		}
+
+		public Object invoke(String actionName, Object[] params, String[] signature) {
+			throw new UnsupportedOperationException("Metrics MBean has no operations");
+		}
+
+		public void setAttribute(Attribute attribute) {
+			throw new UnsupportedOperationException("Metrics MBean is read-only");
+		}
+
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+
+	}
+
+}
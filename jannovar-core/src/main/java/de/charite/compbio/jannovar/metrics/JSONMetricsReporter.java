@@ -0,0 +1,140 @@
+package de.charite.compbio.jannovar.metrics;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Writes the contents of a {@link MetricsRegistry} as a JSON document.
+ *
+ * Timer values are given in milliseconds.
+ */
+public final class JSONMetricsReporter implements MetricsReporter {
+
+	/** path to the output file, <code>null</code> if writing to {@link #stream} */
+	private final String path;
+
+	/** output stream to write to, <code>null</code> if writing to {@link #path} */
+	private final OutputStream stream;
+
+	/**
+	 * Initialize reporter for writing to a file.
+	 *
+	 * @param path
+	 *            path to the JSON file to write, overwritten on each call to {@link #report}
+	 */
+	public JSONMetricsReporter(String path) {
+		this.path = path;
+		this.stream = null;
+	}
+
+	/**
+	 * Initialize reporter for writing to an {@link OutputStream}.
+	 *
+	 * @param stream
+	 *            stream to write to, is flushed but not closed on {@link #report}
+	 */
+	public JSONMetricsReporter(OutputStream stream) {
+		this.path = null;
+		this.stream = stream;
+	}
+
+	public void report(MetricsRegistry registry) throws IOException {
+		if (path != null) {
+			Writer out = new OutputStreamWriter(new FileOutputStream(path), Charsets.UTF_8);
+			try {
+				out.write(toJSON(registry));
+			} finally {
+				out.close();
+			}
+		} else {
+			Writer out = new OutputStreamWriter(stream, Charsets.UTF_8);
+			out.write(toJSON(registry));
+			out.flush();
+		}
+	}
+
+	/**
+	 * @param registry
+	 *            the registry to convert
+	 * @return JSON representation of <code>registry</code>
+	 */
+	public static String toJSON(MetricsRegistry registry) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("{\n");
+		builder.append("  \"uptime_sec\": ").append(formatDouble(registry.getUptimeSeconds())).append(",\n");
+
+		builder.append("  \"counters\": {");
+		boolean first = true;
+		for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+			builder.append(first ? "\n" : ",\n");
+			first = false;
+			builder.append("    ").append(quote(entry.getKey())).append(": ").append(entry.getValue().getCount());
+		}
+		builder.append(first ? "},\n" : "\n  },\n");
+
+		builder.append("  \"gauges\": {");
+		first = true;
+		for (Map.Entry<String, Double> entry : registry.getGauges().entrySet()) {
+			builder.append(first ? "\n" : ",\n");
+			first = false;
+			builder.append("    ").append(quote(entry.getKey())).append(": ")
+					.append(formatDouble(entry.getValue().doubleValue()));
+		}
+		builder.append(first ? "},\n" : "\n  },\n");
+
+		builder.append("  \"timers\": {");
+		first = true;
+		for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+			builder.append(first ? "\n" : ",\n");
+			first = false;
+			final Timer timer = entry.getValue();
+			builder.append("    ").append(quote(entry.getKey())).append(": {");
+			builder.append("\"count\": ").append(timer.getCount());
+			builder.append(", \"total_ms\": ").append(formatDouble(toMillis(timer.getTotalNanos())));
+			builder.append(", \"mean_ms\": ").append(formatDouble(toMillis(timer.getMeanNanos())));
+			builder.append(", \"p50_ms\": ").append(formatDouble(toMillis(timer.getQuantileNanos(0.5))));
+			builder.append(", \"p90_ms\": ").append(formatDouble(toMillis(timer.getQuantileNanos(0.9))));
+			builder.append(", \"p99_ms\": ").append(formatDouble(toMillis(timer.getQuantileNanos(0.99))));
+			builder.append(", \"max_ms\": ").append(formatDouble(toMillis(timer.getMaxNanos())));
+			builder.append("}");
+		}
+		builder.append(first ? "}\n" : "\n  }\n");
+
+		builder.append("}\n");
+		return builder.toString();
+	}
+
+	private static double toMillis(double nanos) {
+		return nanos / 1000.0 / 1000.0;
+	}
+
+	private static String formatDouble(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			return "null";
+		return String.format(Locale.US, "%.6f", value);
+	}
+
+	private static String quote(String str) {
+		StringBuilder builder = new StringBuilder();
+		builder.append('"');
+		for (int i = 0; i < str.length(); ++i) {
+			final char c = str.charAt(i);
+			if (c == '"' || c == '\\')
+				builder.append('\\').append(c);
+			else if (c < 0x20)
+				builder.append(String.format("\\u%04x", (int) c));
+			else
+				builder.append(c);
+		}
+		builder.append('"');
+		return builder.toString();
+	}
+
+}
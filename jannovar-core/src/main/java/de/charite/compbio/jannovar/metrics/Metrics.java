@@ -0,0 +1,141 @@
+package de.charite.compbio.jannovar.metrics;
+
+/**
+ * Global access point for the instrumentation of Jannovar.
+ *
+ * By default, no {@link MetricsRegistry} is installed and all recording functions return immediately. Install a
+ * registry with {@link #setRegistry} to enable instrumentation.
+ *
+ * Instrumented code uses the following pattern:
+ *
+ * <pre>
+ * final long startTime = Metrics.startTimer();
+ * // ... work ...
+ * Metrics.stopTimer(Metrics.TIMER_INTERVAL_QUERY, startTime);
+ * </pre>
+ */
+public final class Metrics {
+
+	/** timer for reading one VCF record */
+	public static final String TIMER_VCF_READ = "vcf.read";
+	/** timer for querying the transcript interval tree */
+	public static final String TIMER_INTERVAL_QUERY = "annotation.interval_query";
+	/** prefix of the timers for the <code>AnnotationBuilder</code> subclasses, suffixed by the simple class name */
+	public static final String TIMER_BUILDER_PREFIX = "annotation.builder.";
+	/** timer for rendering the INFO field annotation strings of one VCF record */
+	public static final String TIMER_ANN_RENDER = "vcf.ann_render";
+	/** timer for writing one VCF record */
+	public static final String TIMER_VCF_WRITE = "vcf.write";
+
+	/** counter for annotated variants (one per alternative allele) */
+	public static final String COUNTER_VARIANTS = "annotation.variants";
+	/** counter for the built annotations */
+	public static final String COUNTER_ANNOTATIONS = "annotation.annotations";
+	/** prefix of counters for the <code>AnnotationMessage</code>s, suffixed by the enum constant's name */
+	public static final String COUNTER_MESSAGE_PREFIX = "annotation.message.";
+
+	/** gauge for the annotated variants per second */
+	public static final String GAUGE_VARIANTS_PER_SECOND = "annotation.variants_per_second";
+	/** gauge for the average number of annotations per variant */
+	public static final String GAUGE_ANNOTATIONS_PER_VARIANT = "annotation.annotations_per_variant";
+
+	/** the currently installed registry, <code>null</code> if instrumentation is disabled */
+	private static volatile MetricsRegistry registry = null;
+
+	/** Utility class, no instantiation. */
+	private Metrics() {
+	}
+
+	/** @return currently installed {@link MetricsRegistry}, <code>null</code> if instrumentation is disabled */
+	public static MetricsRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Install a {@link MetricsRegistry}.
+	 *
+	 * @param registry
+	 *            the registry to record into, <code>null</code> for disabling instrumentation
+	 */
+	public static void setRegistry(MetricsRegistry registry) {
+		Metrics.registry = registry;
+	}
+
+	/** @return whether or not instrumentation is enabled */
+	public static boolean isEnabled() {
+		return (registry != null);
+	}
+
+	/**
+	 * @return value of {@link System#nanoTime} if instrumentation is enabled and <code>0</code> otherwise
+	 */
+	public static long startTimer() {
+		if (registry == null)
+			return 0;
+		return System.nanoTime();
+	}
+
+	/**
+	 * Record the time elapsed since <code>startTime</code> in the timer with the given name.
+	 *
+	 * @param name
+	 *            name of the {@link Timer}
+	 * @param startTime
+	 *            value returned by {@link #startTimer}
+	 */
+	public static void stopTimer(String name, long startTime) {
+		final MetricsRegistry r = registry;
+		if (r == null || startTime == 0)
+			return;
+		r.getTimer(name).update(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Increment counter with the given name by <code>n</code>.
+	 *
+	 * @param name
+	 *            name of the {@link Counter}
+	 * @param n
+	 *            value to increment by
+	 */
+	public static void incCounter(String name, long n) {
+		final MetricsRegistry r = registry;
+		if (r == null)
+			return;
+		r.getCounter(name).inc(n);
+	}
+
+	/**
+	 * Increment the message counter for each of the given messages.
+	 *
+	 * @param messages
+	 *            messages to count, e.g. <code>AnnotationMessage</code> values
+	 */
+	public static void countMessages(Iterable<? extends Enum<?>> messages) {
+		final MetricsRegistry r = registry;
+		if (r == null)
+			return;
+		for (Enum<?> msg : messages)
+			r.getCounter(COUNTER_MESSAGE_PREFIX + msg.name()).inc();
+	}
+
+	/**
+	 * Update the gauges {@link #GAUGE_VARIANTS_PER_SECOND} and {@link #GAUGE_ANNOTATIONS_PER_VARIANT} from the
+	 * counters in the installed registry.
+	 *
+	 * @param elapsedSeconds
+	 *            wall clock time to use for computing the throughput
+	 */
+	public static void updateDerivedGauges(double elapsedSeconds) {
+		final MetricsRegistry r = registry;
+		if (r == null)
+			return;
+		final long variants = r.getCounter(COUNTER_VARIANTS).getCount();
+		final long annotations = r.getCounter(COUNTER_ANNOTATIONS).getCount();
+		if (elapsedSeconds > 0)
+			r.setGauge(GAUGE_VARIANTS_PER_SECOND, variants / elapsedSeconds);
+		if (variants > 0)
+			r.setGauge(GAUGE_ANNOTATIONS_PER_VARIANT, annotations / (double) variants);
+	}
+
+}
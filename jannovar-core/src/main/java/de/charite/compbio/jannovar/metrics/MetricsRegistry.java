@@ -0,0 +1,110 @@
+package de.charite.compbio.jannovar.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Thread-safe registry of named {@link Counter}s, {@link Timer}s, and gauge values.
+ *
+ * Metrics are created lazily on first access. Install an instance with {@link Metrics#setRegistry} for the
+ * instrumented parts of Jannovar to record into it, and use a {@link MetricsReporter} for publishing the values.
+ *
+ * Subclasses can override {@link #newCounter} and {@link #newTimer}, e.g., for forwarding to another metrics library.
+ */
+public class MetricsRegistry {
+
+	/** time of construction, from {@link System#nanoTime} */
+	private final long startNanos = System.nanoTime();
+
+	/** counters by name */
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+	/** timers by name */
+	private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+
+	/** gauges by name */
+	private final ConcurrentMap<String, Double> gauges = new ConcurrentHashMap<String, Double>();
+
+	/**
+	 * @param name
+	 *            name of the counter
+	 * @return {@link Counter} with the given name, created if necessary
+	 */
+	public Counter getCounter(String name) {
+		Counter result = counters.get(name);
+		if (result != null)
+			return result;
+		final Counter prev = counters.putIfAbsent(name, result = newCounter(name));
+		return (prev != null) ? prev : result;
+	}
+
+	/**
+	 * @param name
+	 *            name of the timer
+	 * @return {@link Timer} with the given name, created if necessary
+	 */
+	public Timer getTimer(String name) {
+		Timer result = timers.get(name);
+		if (result != null)
+			return result;
+		final Timer prev = timers.putIfAbsent(name, result = newTimer(name));
+		return (prev != null) ? prev : result;
+	}
+
+	/**
+	 * Set gauge <code>name</code> to <code>value</code>.
+	 *
+	 * @param name
+	 *            name of the gauge
+	 * @param value
+	 *            value to set
+	 */
+	public void setGauge(String name, double value) {
+		gauges.put(name, value);
+	}
+
+	/** @return counters, sorted by name */
+	public ImmutableSortedMap<String, Counter> getCounters() {
+		return ImmutableSortedMap.copyOf(counters);
+	}
+
+	/** @return timers, sorted by name */
+	public ImmutableSortedMap<String, Timer> getTimers() {
+		return ImmutableSortedMap.copyOf(timers);
+	}
+
+	/** @return gauge values, sorted by name */
+	public ImmutableSortedMap<String, Double> getGauges() {
+		return ImmutableSortedMap.copyOf(gauges);
+	}
+
+	/** @return seconds elapsed since construction of the registry */
+	public double getUptimeSeconds() {
+		return (System.nanoTime() - startNanos) / 1000.0 / 1000.0 / 1000.0;
+	}
+
+	/**
+	 * Factory method for counters.
+	 *
+	 * @param name
+	 *            name of the counter to create
+	 * @return new {@link Counter}
+	 */
+	protected Counter newCounter(String name) {
+		return new Counter(name);
+	}
+
+	/**
+	 * Factory method for timers.
+	 *
+	 * @param name
+	 *            name of the timer to create
+	 * @return new {@link Timer}
+	 */
+	protected Timer newTimer(String name) {
+		return new Timer(name);
+	}
+
+}
@@ -0,0 +1,20 @@
+package de.charite.compbio.jannovar.metrics;
+
+import java.io.IOException;
+
+/**
+ * Interface for publishing the contents of a {@link MetricsRegistry}.
+ */
+public interface MetricsReporter {
+
+	/**
+	 * Publish the metrics from <code>registry</code>.
+	 *
+	 * @param registry
+	 *            the {@link MetricsRegistry} to publish
+	 * @throws IOException
+	 *             on problems with publishing the metrics
+	 */
+	public void report(MetricsRegistry registry) throws IOException;
+
+}
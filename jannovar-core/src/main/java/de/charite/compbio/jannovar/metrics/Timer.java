@@ -0,0 +1,131 @@
+package de.charite.compbio.jannovar.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe latency histogram.
+ *
+ * Durations are recorded in nanoseconds into 64 buckets, bucket <code>i</code> holding the durations <code>d</code>
+ * with <code>2^(i-1) &lt;= d &lt; 2^i</code>. Thus, quantiles are only approximated to within a factor of two but
+ * recording is lock-free and does not allocate.
+ */
+public class Timer {
+
+	/** number of buckets in the histogram */
+	private static final int NUM_BUCKETS = 64;
+
+	/** name of the timer in its {@link MetricsRegistry} */
+	private final String name;
+
+	/** number of recorded durations */
+	private final AtomicLong count = new AtomicLong();
+
+	/** sum of recorded durations, in nanoseconds */
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	/** largest recorded duration, in nanoseconds */
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/** the histogram buckets */
+	private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+	/**
+	 * Initialize timer with the given name.
+	 *
+	 * @param name
+	 *            name of the timer in its {@link MetricsRegistry}
+	 */
+	public Timer(String name) {
+		this.name = name;
+	}
+
+	/** @return name of the timer in its {@link MetricsRegistry} */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Record a duration.
+	 *
+	 * @param nanos
+	 *            duration in nanoseconds, negative values are treated as zero
+	 */
+	public void update(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		buckets.incrementAndGet(bucketFor(nanos));
+		long prevMax = maxNanos.get();
+		while (nanos > prevMax && !maxNanos.compareAndSet(prevMax, nanos))
+			prevMax = maxNanos.get();
+	}
+
+	/** @return number of recorded durations */
+	public long getCount() {
+		return count.get();
+	}
+
+	/** @return sum of all recorded durations, in nanoseconds */
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	/** @return largest recorded duration, in nanoseconds */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/** @return mean duration in nanoseconds, <code>0</code> if no duration was recorded */
+	public double getMeanNanos() {
+		final long n = count.get();
+		if (n == 0)
+			return 0;
+		return totalNanos.get() / (double) n;
+	}
+
+	/**
+	 * Approximate a quantile of the recorded durations.
+	 *
+	 * @param q
+	 *            the quantile to compute, in <code>[0, 1]</code>
+	 * @return upper bound of the histogram bucket that contains the quantile, in nanoseconds, capped by
+	 *         {@link #getMaxNanos}; <code>0</code> if no duration was recorded
+	 */
+	public long getQuantileNanos(double q) {
+		long total = 0;
+		final long[] counts = new long[NUM_BUCKETS];
+		for (int i = 0; i < NUM_BUCKETS; ++i)
+			total += (counts[i] = buckets.get(i));
+		if (total == 0)
+			return 0;
+
+		final long rank = (long) Math.ceil(Math.max(0.0, Math.min(1.0, q)) * total);
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; ++i) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0)
+				return Math.min(upperBound(i), maxNanos.get());
+		}
+		return maxNanos.get();
+	}
+
+	/** @return bucket index for the given non-negative duration */
+	private static int bucketFor(long nanos) {
+		return Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+
+	/** @return largest duration falling into bucket <code>i</code> */
+	private static long upperBound(int i) {
+		if (i >= 63)
+			return Long.MAX_VALUE;
+		return (1L << i) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return "Timer [name=" + name + ", count=" + getCount() + ", totalNanos=" + getTotalNanos() + "]";
+	}
+
+}
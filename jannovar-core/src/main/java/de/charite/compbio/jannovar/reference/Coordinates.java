@@ -0,0 +1,37 @@
+package de.charite.compbio.jannovar.reference;
+
+/**
+ * Primitive arithmetic on zero-based coordinates, for computations that do not need {@link GenomePosition} or
+ * {@link GenomeInterval} objects.
+ *
+ * Positions are zero-based, intervals are half-open. Converting a coordinate to the other strand requires the length
+ * of the contig.
+ */
+final class Coordinates {
+
+	/** no instances of this class */
+	private Coordinates() {
+	}
+
+	/**
+	 * @return zero-based position on the other strand for the zero-based <code>pos</code> on a contig of length
+	 *         <code>contigLength</code>
+	 */
+	static int flipPos(int pos, int contigLength) {
+		return contigLength - pos - 1;
+	}
+
+	/**
+	 * @return begin or end position on the other strand for the end or begin position <code>pos</code>, respectively,
+	 *         of a half-open interval on a contig of length <code>contigLength</code>
+	 */
+	static int flipBoundary(int pos, int contigLength) {
+		return contigLength - pos;
+	}
+
+	/** @return length of the intersection of <code>[beginA, endA)</code> and <code>[beginB, endB)</code> */
+	static int intersectionLength(int beginA, int endA, int beginB, int endB) {
+		return Math.max(0, Math.min(endA, endB) - Math.max(beginA, beginB));
+	}
+
+}
@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.reference;
 
+import de.charite.compbio.jannovar.impl.util.DNAUtils;
+
 /**
  * Helper class for checking whether an insertion in a string is a duplication.
  *
@@ -17,17 +19,9 @@ public final class DuplicationChecker {
 	 *
 	 * @return <code>true</code> if the described insertion is a duplication
 	 */
-	public static boolean isDuplication(String ref, String insertion, int pos) {
-		if (pos + insertion.length() <= ref.length()) {
-			// can be duplication with string after pos
-			if (ref.substring(pos, pos + insertion.length()).equals(insertion))
-				return true;
-		}
-		if (pos >= insertion.length()) {
-			// can be duplication with string before pos
-			if (ref.substring(pos - insertion.length(), pos).equals(insertion))
-				return true;
-		}
-		return false;
+	public static boolean isDuplication(CharSequence ref, CharSequence insertion, int pos) {
+		// can be duplication with string after or before pos
+		return DNAUtils.regionMatches(ref, pos, insertion)
+				|| DNAUtils.regionMatches(ref, pos - insertion.length(), insertion);
 	}
 }
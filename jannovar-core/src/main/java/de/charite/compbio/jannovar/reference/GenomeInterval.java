@@ -73,10 +73,9 @@ public final class GenomeInterval implements Serializable {
 			this.beginPos = other.beginPos;
 			this.endPos = other.endPos;
 		} else {
-			int beginPos = refDict.getContigIDToLength().get(other.chr) - other.beginPos;
-			int endPos = refDict.getContigIDToLength().get(other.chr) - other.endPos;
-			this.endPos = beginPos;
-			this.beginPos = endPos;
+			final int contigLength = refDict.getContigLength(other.chr);
+			this.beginPos = Coordinates.flipBoundary(other.endPos, contigLength);
+			this.endPos = Coordinates.flipBoundary(other.beginPos, contigLength);
 		}
 	}
 
@@ -115,6 +114,20 @@ public final class GenomeInterval implements Serializable {
 		return endPos;
 	}
 
+	/** @return 0-based begin position on <code>strand</code>, without creating a new {@link GenomeInterval} */
+	int getBeginPos(Strand strand) {
+		if (strand == this.strand)
+			return beginPos;
+		return Coordinates.flipBoundary(endPos, refDict.getContigLength(chr));
+	}
+
+	/** @return 0-based end position on <code>strand</code>, without creating a new {@link GenomeInterval} */
+	int getEndPos(Strand strand) {
+		if (strand == this.strand)
+			return endPos;
+		return Coordinates.flipBoundary(beginPos, refDict.getContigLength(chr));
+	}
+
 	/** convert into GenomeInterval of the given strand */
 	public GenomeInterval withStrand(Strand strand) {
 		return new GenomeInterval(this, strand);
@@ -141,10 +154,8 @@ public final class GenomeInterval implements Serializable {
 	public GenomeInterval intersection(GenomeInterval other) {
 		if (chr != other.chr)
 			return new GenomeInterval(refDict, strand, chr, beginPos, beginPos, PositionType.ZERO_BASED);
-		other = other.withStrand(strand);
-
-		int beginPos = Math.max(this.beginPos, other.beginPos);
-		int endPos = Math.min(this.endPos, other.endPos);
+		int beginPos = Math.max(this.beginPos, other.getBeginPos(strand));
+		int endPos = Math.min(this.endPos, other.getEndPos(strand));
 		if (endPos < beginPos)
 			beginPos = endPos;
 
@@ -159,9 +170,7 @@ public final class GenomeInterval implements Serializable {
 	public boolean isLeftOf(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() >= endPos);
+		return (pos.getPos(strand) >= endPos); // compare on our strand
 	}
 
 	/**
@@ -172,9 +181,7 @@ public final class GenomeInterval implements Serializable {
 	public boolean isRightOf(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() < beginPos);
+		return (pos.getPos(strand) < beginPos); // compare on our strand
 	}
 
 	/**
@@ -185,9 +192,8 @@ public final class GenomeInterval implements Serializable {
 	public boolean contains(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() >= beginPos && pos.getPos() < endPos);
+		final int p = pos.getPos(strand); // compare on our strand
+		return (p >= beginPos && p < endPos);
 	}
 
 	/**
@@ -199,9 +205,8 @@ public final class GenomeInterval implements Serializable {
 		// TODO(holtgrem): Test this.
 		if (chr != other.chr)
 			return false; // wrong chromosome
-		if (other.strand != strand)
-			other = other.withStrand(strand); // ensure that we are on the correct strand
-		return (other.beginPos >= beginPos && other.endPos <= endPos);
+		// compare on our strand
+		return (other.getBeginPos(strand) >= beginPos && other.getEndPos(strand) <= endPos);
 	}
 
 	/**
@@ -75,10 +75,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 		this.chr = other.chr;
 
 		// transform coordinate system
-		if (strand == other.strand)
-			this.pos = other.pos;
-		else
-			this.pos = refDict.getContigIDToLength().get(other.chr) - other.pos - 1;
+		this.pos = other.getPos(strand);
 	}
 
 	/** @return reference dictionary to use for coordinate translation */
@@ -101,6 +98,13 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 		return pos;
 	}
 
+	/** @return zero-based position on <code>strand</code>, without creating a new {@link GenomePosition} */
+	int getPos(Strand strand) {
+		if (strand == this.strand)
+			return pos;
+		return Coordinates.flipPos(pos, refDict.getContigLength(chr));
+	}
+
 	/** convert into GenomePosition of the given strand */
 	public GenomePosition withStrand(Strand strand) {
 		return new GenomePosition(this, strand);
@@ -110,9 +114,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	 * @return <tt>true</tt> if this position is left of the other (on this strand).
 	 */
 	public boolean isLt(GenomePosition other) {
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos < other.pos);
+		return (pos < other.getPos(strand));
 	}
 
 	/**
@@ -121,9 +123,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isLeq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos <= other.pos);
+		return (pos <= other.getPos(strand));
 	}
 
 	/**
@@ -132,9 +132,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isGt(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos > other.pos);
+		return (pos > other.getPos(strand));
 	}
 
 	/**
@@ -143,9 +141,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isGeq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos >= other.pos);
+		return (pos >= other.getPos(strand));
 	}
 
 	/**
@@ -154,9 +150,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isEq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos == other.pos);
+		return (pos == other.getPos(strand));
 	}
 
 	/**
@@ -170,9 +164,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public int differenceTo(GenomePosition pos) {
 		if (chr != pos.chr)
 			throw new InvalidCoordinateException("Coordinates are on different chromosomes " + this + " vs. " + pos);
-		if (pos.strand != strand)
-			pos = pos.withStrand(strand);
-		return (this.pos - pos.pos);
+		return (this.pos - pos.getPos(strand));
 	}
 
 	/**
@@ -226,7 +218,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 		if (strand.isReverse())
 			return withStrand(Strand.FWD).toString();
 
-		return StringUtil.concatenate(refDict.getContigIDToName().get(chr), ":g.", pos + 1);
+		return StringUtil.concatenate(refDict.getContigName(chr), ":g.", pos + 1);
 	}
 
 	/*
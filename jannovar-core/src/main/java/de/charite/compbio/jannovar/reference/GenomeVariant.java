@@ -124,7 +124,7 @@ public final class GenomeVariant implements VariantDescription {
 	}
 
 	public String getChrName() {
-		return this.pos.getRefDict().getContigIDToName().get(this.pos.getChr());
+		return this.pos.getRefDict().getContigName(this.pos.getChr());
 	}
 	
 	public GenomePosition getGenomePos() {
@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.reference;
 
+import de.charite.compbio.jannovar.impl.util.DNAUtils;
 
 /**
  * Helper code for the normalization of {@link GenomeVariant}s.
@@ -57,20 +58,12 @@ public final class GenomeVariantNormalizer {
 		if (change.getGenomePos().getStrand() != transcript.getStrand()) // ensure that we have the correct strand
 			change = change.withStrand(transcript.getStrand());
 
-		// Insert the ALT bases at the position indicated by txPos.
-		int pos = txPos.getPos();
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		builder.insert(pos, change.getAlt());
-
-		// Execute algorithm and compute the shift.
-		int shift = 0;
+		// Execute algorithm on the sequence with the ALT bases inserted at the position indicated by txPos and compute
+		// the shift, without building the changed sequence.
 		final int LEN = change.getAlt().length();
-		final String seq = builder.toString();
-		final int maxPos = Math.min(seq.length(), transcript.transcriptLength());
-		while ((pos + LEN < maxPos) && (seq.charAt(pos) == seq.charAt(pos + LEN))) {
-			++shift;
-			++pos;
-		}
+		final NucleotideSequence seq = transcript.getNucleotideSequence();
+		final int maxPos = Math.min(seq.length() + LEN, transcript.transcriptLength());
+		final int shift = DNAUtils.insertionShift(seq, change.getAlt(), txPos.getPos(), maxPos);
 
 		// Compute shifted transcript position and transform back to the genome position (we allow shifting over introns
 		// since Mutalyzer does this).
@@ -85,7 +78,7 @@ public final class GenomeVariantNormalizer {
 		if (shift == 0) // only rebuild if shift > 0
 			return change;
 		else
-			return new GenomeVariant(shiftedPos, "", seq.substring(pos, pos + LEN));
+			return new GenomeVariant(shiftedPos, "", DNAUtils.rotateLeft(change.getAlt(), shift));
 	}
 
 	/**
@@ -113,15 +106,10 @@ public final class GenomeVariantNormalizer {
 			change = change.withStrand(transcript.getStrand());
 
 		// Shift the deletion to the 3' (right) end of the transcript.
-		int pos = txPos.getPos();
 		final int LEN = change.getRef().length(); // length of the deletion
-		final String seq = transcript.getSequence();
-		int shift = 0;
-
-		while ((pos + LEN < seq.length()) && (seq.charAt(pos) == seq.charAt(pos + LEN))) {
-			++shift;
-			++pos;
-		}
+		final NucleotideSequence seq = transcript.getNucleotideSequence();
+		final int shift = DNAUtils.deletionShift(seq, txPos.getPos(), LEN);
+		final int pos = txPos.getPos() + shift;
 
 		if (shift == 0) // only rebuild if shift > 0
 			return change;
@@ -88,8 +88,8 @@ public final class HGVSPositionBuilder {
 		final int exonNumber = projector.locateIntron(pos); // also intronNumber ;)
 		if (exonNumber == TranscriptProjectionDecorator.INVALID_INTRON_ID)
 			throw new Error("Bug: position must lie in CDS at this point.");
-		GenomePosition exonEndPos = transcript.getExonRegions().get(exonNumber).getGenomeEndPos();
-		GenomePosition nextExonBeginPos = transcript.getExonRegions().get(exonNumber + 1).getGenomeBeginPos();
+		GenomePosition exonEndPos = transcript.getExonRegion(exonNumber).getGenomeEndPos();
+		GenomePosition nextExonBeginPos = transcript.getExonRegion(exonNumber + 1).getGenomeBeginPos();
 		GenomePosition basePos = null;
 		String offsetStr = null;
 		if (pos.differenceTo(exonEndPos) < nextExonBeginPos.differenceTo(pos)) {
@@ -0,0 +1,241 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.util.DNAUtils;
+
+/**
+ * Compact representation of a nucleotide sequence, using two bits per base.
+ *
+ * The bases <code>A</code>, <code>C</code>, <code>G</code>, and <code>T</code> are packed into <code>long</code>
+ * values, 32 bases each. All other characters (e.g., <code>N</code> or IUPAC codes) and bases with a case differing
+ * from the predominant one are stored in a sparse exception list. Thus, the sequence is reproduced exactly by
+ * {@link #toString}.
+ *
+ * Sub-sequences ({@link #subSequence}) and reverse complements ({@link #reverseComplement}) are views that share the
+ * packed data with the original sequence.
+ */
+@Immutable
+public final class NucleotideSequence implements CharSequence, Serializable {
+
+	/** Class version (for serialization). */
+	private static final long serialVersionUID = 1L;
+
+	/** upper case characters for the two-bit codes */
+	private static final char[] UPPER_BASES = { 'A', 'C', 'G', 'T' };
+
+	/** lower case characters for the two-bit codes */
+	private static final char[] LOWER_BASES = { 'a', 'c', 'g', 't' };
+
+	/** the packed two-bit codes, 32 per <code>long</code>, starting at the lowest bits */
+	private final long[] codes;
+
+	/** sorted positions (in {@link #codes}) of the characters that are not stored in {@link #codes} */
+	private final int[] exceptionPositions;
+
+	/** the characters at {@link #exceptionPositions} */
+	private final char[] exceptionChars;
+
+	/** whether or not the bases in {@link #codes} are lower case */
+	private final boolean lowerCase;
+
+	/** position of this sequence's first character in {@link #codes} */
+	private final int offset;
+
+	/** number of characters in this sequence */
+	private final int length;
+
+	/** whether or not this is the reverse complement of the characters in {@link #codes} */
+	private final boolean reverse;
+
+	/**
+	 * Construct packed representation of <code>seq</code>.
+	 *
+	 * @param seq
+	 *            the nucleotide sequence to pack
+	 */
+	public NucleotideSequence(CharSequence seq) {
+		this.length = seq.length();
+		this.offset = 0;
+		this.reverse = false;
+		this.codes = new long[(length + 31) / 32];
+
+		int numLower = 0;
+		int numUpper = 0;
+		for (int i = 0; i < length; ++i) {
+			final char c = seq.charAt(i);
+			if (c == 'a' || c == 'c' || c == 'g' || c == 't')
+				++numLower;
+			else if (c == 'A' || c == 'C' || c == 'G' || c == 'T')
+				++numUpper;
+		}
+		this.lowerCase = (numLower > numUpper);
+
+		int numExceptions = 0;
+		int[] positions = new int[0];
+		char[] chars = new char[0];
+		for (int i = 0; i < length; ++i) {
+			final char c = seq.charAt(i);
+			final int code = encode(c, lowerCase);
+			if (code >= 0) {
+				codes[i >>> 5] |= ((long) code) << ((i & 31) << 1);
+			} else {
+				if (numExceptions == positions.length) {
+					positions = Arrays.copyOf(positions, Math.max(4, 2 * numExceptions));
+					chars = Arrays.copyOf(chars, positions.length);
+				}
+				positions[numExceptions] = i;
+				chars[numExceptions++] = c;
+			}
+		}
+		this.exceptionPositions = Arrays.copyOf(positions, numExceptions);
+		this.exceptionChars = Arrays.copyOf(chars, numExceptions);
+	}
+
+	/** Construct view on the data of <code>other</code>. */
+	private NucleotideSequence(NucleotideSequence other, int offset, int length, boolean reverse) {
+		this.codes = other.codes;
+		this.exceptionPositions = other.exceptionPositions;
+		this.exceptionChars = other.exceptionChars;
+		this.lowerCase = other.lowerCase;
+		this.offset = offset;
+		this.length = length;
+		this.reverse = reverse;
+	}
+
+	/** @return two-bit code of <code>c</code>, <code>-1</code> if it has to be stored as an exception */
+	private static int encode(char c, boolean lowerCase) {
+		switch (c) {
+		case 'A':
+			return lowerCase ? -1 : 0;
+		case 'C':
+			return lowerCase ? -1 : 1;
+		case 'G':
+			return lowerCase ? -1 : 2;
+		case 'T':
+			return lowerCase ? -1 : 3;
+		case 'a':
+			return lowerCase ? 0 : -1;
+		case 'c':
+			return lowerCase ? 1 : -1;
+		case 'g':
+			return lowerCase ? 2 : -1;
+		case 't':
+			return lowerCase ? 3 : -1;
+		default:
+			return -1;
+		}
+	}
+
+	/** @return character at position <code>pos</code> of {@link #codes}, without complementing */
+	private char rawCharAt(int pos) {
+		if (exceptionPositions.length != 0) {
+			final int idx = Arrays.binarySearch(exceptionPositions, pos);
+			if (idx >= 0)
+				return exceptionChars[idx];
+		}
+		final int code = (int) (codes[pos >>> 5] >>> ((pos & 31) << 1)) & 3;
+		return lowerCase ? LOWER_BASES[code] : UPPER_BASES[code];
+	}
+
+	public int length() {
+		return length;
+	}
+
+	public char charAt(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+		if (reverse)
+			return DNAUtils.complement(rawCharAt(offset + length - 1 - index));
+		else
+			return rawCharAt(offset + index);
+	}
+
+	/**
+	 * @return view on the characters from <code>start</code> (inclusive) to <code>end</code> (exclusive)
+	 */
+	public NucleotideSequence subSequence(int start, int end) {
+		checkRange(start, end);
+		if (reverse)
+			return new NucleotideSequence(this, offset + length - end, end - start, true);
+		else
+			return new NucleotideSequence(this, offset + start, end - start, false);
+	}
+
+	/**
+	 * @return the characters from <code>start</code> (inclusive) to <code>end</code> (exclusive), as in
+	 *         {@link String#substring(int, int)}
+	 */
+	public String substring(int start, int end) {
+		checkRange(start, end);
+		final char[] result = new char[end - start];
+		for (int i = start; i < end; ++i)
+			result[i - start] = charAt(i);
+		return new String(result);
+	}
+
+	/**
+	 * @return the characters from <code>start</code> to the end of the sequence, as in {@link String#substring(int)}
+	 */
+	public String substring(int start) {
+		return substring(start, length);
+	}
+
+	/**
+	 * Append the characters from <code>start</code> (inclusive) to <code>end</code> (exclusive) to
+	 * <code>builder</code>.
+	 *
+	 * @param builder
+	 *            the {@link StringBuilder} to append to
+	 * @return <code>builder</code>
+	 */
+	public StringBuilder appendTo(StringBuilder builder, int start, int end) {
+		checkRange(start, end);
+		builder.ensureCapacity(builder.length() + end - start);
+		for (int i = start; i < end; ++i)
+			builder.append(charAt(i));
+		return builder;
+	}
+
+	/** @return view on the reverse complement of this sequence */
+	public NucleotideSequence reverseComplement() {
+		return new NucleotideSequence(this, offset, length, !reverse);
+	}
+
+	private void checkRange(int start, int end) {
+		if (start < 0 || end > length || start > end)
+			throw new IndexOutOfBoundsException("Range: [" + start + ", " + end + "), length: " + length);
+	}
+
+	@Override
+	public String toString() {
+		return substring(0, length);
+	}
+
+	@Override
+	public int hashCode() {
+		// same as String.hashCode()
+		int result = 0;
+		for (int i = 0; i < length; ++i)
+			result = 31 * result + charAt(i);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		NucleotideSequence other = (NucleotideSequence) obj;
+		if (length != other.length)
+			return false;
+		for (int i = 0; i < length; ++i)
+			if (charAt(i) != other.charAt(i))
+				return false;
+		return true;
+	}
+
+}
@@ -1,14 +1,26 @@
 package de.charite.compbio.jannovar.reference;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import de.charite.compbio.jannovar.Immutable;
 
 /**
  * The information representing a transcript model.
  *
+ * Gene symbols and IDs are interned on construction, such that transcripts of the same gene share their
+ * <code>String</code> objects. The exon regions are stored as primitive arrays and {@link GenomeInterval} objects are
+ * only created on access.
+ *
  * @author Manuel Holtgrewe <manuel.holtgrewe@charite.de>
  */
 @Immutable
@@ -36,11 +48,19 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	private final GenomeInterval cdsRegion;
 
-	/** Genomic intervals with the exons, order is dictated by strand of transcript. */
-	private final ImmutableList<GenomeInterval> exonRegions;
+	/** Begin positions of the exons on the transcript's strand, order is dictated by strand of transcript. */
+	private final int[] exonBeginPos;
+
+	/** End positions of the exons on the transcript's strand, order is dictated by strand of transcript. */
+	private final int[] exonEndPos;
 
-	/** cDNA sequence of the spliced RNA of this known gene transcript. */
-	private final String sequence;
+	/**
+	 * cDNA sequence of the spliced RNA of this known gene transcript.
+	 *
+	 * Databases written before the introduction of {@link NucleotideSequence} contain a <code>String</code> here, which
+	 * is converted in {@link #readObject}.
+	 */
+	private final NucleotideSequence sequence;
 
 	/**
 	 * The gene ID, from Ensembl (<code>"ENS[MUS]*G0+([0-9]+)"</code>), Entrez ("<code>ENTREZ([0-9]+)</code>
@@ -61,18 +81,58 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	/** Class version (for serialization). */
 	private static final long serialVersionUID = 3L;
 
+	/**
+	 * Serialized fields, <code>exonRegions</code> is only present in databases written before the exons were stored as
+	 * primitive arrays.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("accession", String.class), new ObjectStreamField("geneSymbol", String.class),
+			new ObjectStreamField("txRegion", GenomeInterval.class),
+			new ObjectStreamField("cdsRegion", GenomeInterval.class),
+			new ObjectStreamField("exonRegions", ImmutableList.class),
+			new ObjectStreamField("exonBeginPos", int[].class), new ObjectStreamField("exonEndPos", int[].class),
+			new ObjectStreamField("sequence", CharSequence.class), new ObjectStreamField("geneID", String.class),
+			new ObjectStreamField("transcriptSupportLevel", Integer.TYPE) };
+
+	/** Shared table for the gene symbols and IDs. */
+	private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+	/** The object built from the fields read in {@link #readObject}, returned by {@link #readResolve}. */
+	private transient TranscriptModel deserialized;
+
 	/**
 	 * Initialize the TranscriptInfo object from the given parameters.
 	 */
 	public TranscriptModel(String accession, String geneSymbol, GenomeInterval txRegion, GenomeInterval cdsRegion,
 			ImmutableList<GenomeInterval> exonRegions, String sequence, String geneID, int transcriptSupportLevel) {
+		this(accession, geneSymbol, txRegion, cdsRegion, exonRegions, (sequence == null) ? null
+				: new NucleotideSequence(sequence), geneID, transcriptSupportLevel);
+	}
+
+	/** Initialize from packed <code>sequence</code>, <code>exonRegions</code> is copied into primitive arrays. */
+	private TranscriptModel(String accession, String geneSymbol, GenomeInterval txRegion, GenomeInterval cdsRegion,
+			List<GenomeInterval> exonRegions, NucleotideSequence sequence, String geneID, int transcriptSupportLevel) {
+		this(accession, geneSymbol, txRegion, cdsRegion, new int[exonRegions.size()], new int[exonRegions.size()],
+				sequence, geneID, transcriptSupportLevel);
+		for (int i = 0; i < exonRegions.size(); ++i) {
+			final GenomeInterval region = exonRegions.get(i).withStrand(txRegion.getStrand());
+			exonBeginPos[i] = region.getBeginPos();
+			exonEndPos[i] = region.getEndPos();
+		}
+	}
+
+	/** Initialize from packed <code>sequence</code> and exon positions on the transcript's strand. */
+	private TranscriptModel(String accession, String geneSymbol, GenomeInterval txRegion, GenomeInterval cdsRegion,
+			int[] exonBeginPos, int[] exonEndPos, NucleotideSequence sequence, String geneID,
+			int transcriptSupportLevel) {
 		this.accession = accession;
-		this.geneSymbol = geneSymbol;
+		this.geneSymbol = (geneSymbol == null) ? null : INTERNER.intern(geneSymbol);
 		this.txRegion = txRegion;
 		this.cdsRegion = cdsRegion;
-		this.exonRegions = exonRegions;
+		this.exonBeginPos = exonBeginPos;
+		this.exonEndPos = exonEndPos;
 		this.sequence = sequence;
-		this.geneID = geneID;
+		this.geneID = (geneID == null) ? null : INTERNER.intern(geneID);
 		this.transcriptSupportLevel = transcriptSupportLevel;
 		checkForConsistency();
 	}
@@ -97,13 +157,52 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		return cdsRegion;
 	}
 
-	/** @return genomic intervals with the exons, order is dictated by strand of transcript. */
+	/**
+	 * @return genomic intervals with the exons, order is dictated by strand of transcript; the list is built on each
+	 *         call, use {@link #getExonCount} and {@link #getExonRegion} in loops
+	 */
 	public ImmutableList<GenomeInterval> getExonRegions() {
-		return exonRegions;
+		ImmutableList.Builder<GenomeInterval> builder = ImmutableList.builder();
+		for (int i = 0; i < exonBeginPos.length; ++i)
+			builder.add(getExonRegion(i));
+		return builder.build();
+	}
+
+	/** @return number of exons */
+	public int getExonCount() {
+		return exonBeginPos.length;
+	}
+
+	/** @return 0-based begin position of the <code>i</code>-th exon on the transcript's strand */
+	int getExonBeginPos(int i) {
+		return exonBeginPos[i];
 	}
 
-	/** @return mDNA sequence of the spliced RNA of this known gene transcript. */
+	/** @return 0-based end position of the <code>i</code>-th exon on the transcript's strand */
+	int getExonEndPos(int i) {
+		return exonEndPos[i];
+	}
+
+	/**
+	 * @param i
+	 *            0-based index of the exon, order is dictated by strand of transcript
+	 * @return {@link GenomeInterval} with the exon's region, on the transcript's strand
+	 */
+	public GenomeInterval getExonRegion(int i) {
+		return new GenomeInterval(txRegion.refDict, txRegion.getStrand(), txRegion.getChr(), exonBeginPos[i],
+				exonEndPos[i], PositionType.ZERO_BASED);
+	}
+
+	/**
+	 * @return mDNA sequence of the spliced RNA of this known gene transcript, as a newly built <code>String</code>;
+	 *         use {@link #getNucleotideSequence} for access without copying
+	 */
 	public String getSequence() {
+		return (sequence == null) ? null : sequence.toString();
+	}
+
+	/** @return packed mDNA sequence of the spliced RNA of this known gene transcript. */
+	public NucleotideSequence getNucleotideSequence() {
 		return sequence;
 	}
 
@@ -146,9 +245,11 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 * @return the length of the coding exon sequence
 	 */
 	public int cdsTranscriptLength() {
+		final int cdsBeginPos = cdsRegion.getBeginPos(txRegion.getStrand());
+		final int cdsEndPos = cdsRegion.getEndPos(txRegion.getStrand());
 		int result = 0;
-		for (GenomeInterval region : exonRegions)
-			result += region.intersection(cdsRegion).length();
+		for (int i = 0; i < exonBeginPos.length; ++i)
+			result += Coordinates.intersectionLength(exonBeginPos[i], exonEndPos[i], cdsBeginPos, cdsEndPos);
 		return result;
 	}
 
@@ -157,8 +258,8 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	public int transcriptLength() {
 		int result = 0;
-		for (GenomeInterval region : exonRegions)
-			result += region.length();
+		for (int i = 0; i < exonBeginPos.length; ++i)
+			result += exonEndPos[i] - exonBeginPos[i];
 		return result;
 	}
 
@@ -169,10 +270,55 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	public GenomeInterval intronRegion(int i) {
 		// TODO(holtgrem): test me!
-		GenomeInterval exonRegionL = exonRegions.get(i);
-		GenomeInterval exonRegionR = exonRegions.get(i + 1);
-		return new GenomeInterval(exonRegionL.refDict, exonRegionL.getStrand(), exonRegionL.getChr(),
-				exonRegionL.getEndPos(), exonRegionR.getBeginPos(), PositionType.ZERO_BASED);
+		return new GenomeInterval(txRegion.refDict, txRegion.getStrand(), txRegion.getChr(), exonEndPos[i],
+				exonBeginPos[i + 1], PositionType.ZERO_BASED);
+	}
+
+	/** Write the exon positions as primitive arrays. */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("accession", accession);
+		fields.put("geneSymbol", geneSymbol);
+		fields.put("txRegion", txRegion);
+		fields.put("cdsRegion", cdsRegion);
+		fields.put("exonBeginPos", exonBeginPos);
+		fields.put("exonEndPos", exonEndPos);
+		fields.put("sequence", sequence);
+		fields.put("geneID", geneID);
+		fields.put("transcriptSupportLevel", transcriptSupportLevel);
+		out.writeFields();
+	}
+
+	/**
+	 * Read the fields and build the object through the constructor, interning the gene symbol and ID. Older databases
+	 * contain the exons as <code>exonRegions</code> and the sequence as a <code>String</code>.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		final String accession = (String) fields.get("accession", null);
+		final String geneSymbol = (String) fields.get("geneSymbol", null);
+		final GenomeInterval txRegion = (GenomeInterval) fields.get("txRegion", null);
+		final GenomeInterval cdsRegion = (GenomeInterval) fields.get("cdsRegion", null);
+		final Object sequence = fields.get("sequence", null);
+		final NucleotideSequence packedSequence = (sequence instanceof String) ? new NucleotideSequence(
+				(String) sequence) : (NucleotideSequence) sequence;
+		final String geneID = (String) fields.get("geneID", null);
+		final int transcriptSupportLevel = fields.get("transcriptSupportLevel", 0);
+
+		@SuppressWarnings("unchecked")
+		final List<GenomeInterval> exonRegions = (List<GenomeInterval>) fields.get("exonRegions", null);
+		if (exonRegions != null)
+			deserialized = new TranscriptModel(accession, geneSymbol, txRegion, cdsRegion, exonRegions,
+					packedSequence, geneID, transcriptSupportLevel);
+		else
+			deserialized = new TranscriptModel(accession, geneSymbol, txRegion, cdsRegion,
+					(int[]) fields.get("exonBeginPos", null), (int[]) fields.get("exonEndPos", null), packedSequence,
+					geneID, transcriptSupportLevel);
+	}
+
+	/** @return the object built in {@link #readObject} */
+	private Object readResolve() {
+		return deserialized;
 	}
 
 	/**
@@ -182,8 +328,7 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		Strand strand = txRegion.getStrand();
 		assert (txRegion.getStrand() == strand);
 		assert (cdsRegion.getStrand() == strand);
-		for (GenomeInterval region : exonRegions)
-			assert (region.getStrand() == strand);
+		assert (exonBeginPos.length == exonEndPos.length);
 	}
 
 	@Override
@@ -197,7 +342,8 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		int result = 1;
 		result = prime * result + ((accession == null) ? 0 : accession.hashCode());
 		result = prime * result + ((cdsRegion == null) ? 0 : cdsRegion.hashCode());
-		result = prime * result + ((exonRegions == null) ? 0 : exonRegions.hashCode());
+		result = prime * result + Arrays.hashCode(exonBeginPos);
+		result = prime * result + Arrays.hashCode(exonEndPos);
 		result = prime * result + ((geneID == null) ? 0 : geneID.hashCode());
 		result = prime * result + ((geneSymbol == null) ? 0 : geneSymbol.hashCode());
 		result = prime * result + ((sequence == null) ? 0 : sequence.hashCode());
@@ -225,10 +371,7 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 				return false;
 		} else if (!cdsRegion.equals(other.cdsRegion))
 			return false;
-		if (exonRegions == null) {
-			if (other.exonRegions != null)
-				return false;
-		} else if (!exonRegions.equals(other.exonRegions))
+		if (!Arrays.equals(exonBeginPos, other.exonBeginPos) || !Arrays.equals(exonEndPos, other.exonEndPos))
 			return false;
 		if (geneID == null) {
 			if (other.geneID != null)
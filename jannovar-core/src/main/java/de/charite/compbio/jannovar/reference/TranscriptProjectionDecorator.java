@@ -42,7 +42,7 @@ public final class TranscriptProjectionDecorator {
 		try {
 			TranscriptPosition tBeginPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
 			TranscriptPosition tEndPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeEndPos());
-			return transcript.getSequence().substring(tBeginPos.getPos(), tEndPos.getPos());
+			return transcript.getNucleotideSequence().substring(tBeginPos.getPos(), tEndPos.getPos());
 		} catch (ProjectionException e) {
 			throw new Error("Bug: CDS begin/end must be translatable into transcript positions");
 		}
@@ -54,7 +54,7 @@ public final class TranscriptProjectionDecorator {
 	public String getTranscriptStartingAtCDS() {
 		try {
 			TranscriptPosition tBeginPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
-			return transcript.getSequence().substring(tBeginPos.getPos(), transcript.getSequence().length());
+			return transcript.getNucleotideSequence().substring(tBeginPos.getPos());
 		} catch (ProjectionException e) {
 			throw new Error("Bug: CDS begin must be translatable into transcript positions");
 		}
@@ -73,20 +73,16 @@ public final class TranscriptProjectionDecorator {
 		if (!transcript.getTXRegion().contains(pos)) // guard against incorrect position
 			throw new ProjectionException("Position " + pos + " is not in the transcript region "
 					+ transcript.getTXRegion());
-		pos = pos.withStrand(transcript.getStrand());
-
-		// Look through all exons, find containing one, and compute the position.
+		// Look through all exons, find containing one, and compute the position. All computations are done on the
+		// transcript's strand.
+		final int p = pos.getPos(transcript.getStrand());
 		int tOffset = 0; // offset in transcript
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(pos)) {
-				// Note that we have to use *the region's position* as the base object for the difference operation so
-				// the case of the transcript on the reverse strand but position on forward strand is handled correctly.
-				// Consequently, we have to *subtract* this difference from transcriptPos.
-				int posInExon = pos.differenceTo(region.getGenomeBeginPos());
-				int transcriptPos = tOffset + posInExon;
-				return new TranscriptPosition(transcript, transcriptPos, PositionType.ZERO_BASED);
-			}
-			tOffset += region.length();
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			final int exonBeginPos = transcript.getExonBeginPos(i);
+			final int exonEndPos = transcript.getExonEndPos(i);
+			if (exonBeginPos <= p && p < exonEndPos)
+				return new TranscriptPosition(transcript, tOffset + (p - exonBeginPos), PositionType.ZERO_BASED);
+			tOffset += exonEndPos - exonBeginPos;
 		}
 
 		throw new ProjectionException("Position " + pos + " does not lie in an exon.");
@@ -123,14 +119,14 @@ public final class TranscriptProjectionDecorator {
 	 * @return the corresponding genome position for pos, will be on the same strand as the transcript
 	 */
 	public TranscriptPosition cdsToTranscriptPos(CDSPosition pos) {
-		final GenomePosition cdsBeginPos = transcript.getCDSRegion().getGenomeBeginPos();
+		final int cdsBeginPos = transcript.getCDSRegion().getBeginPos(transcript.getStrand());
 
 		int currPos = 0; // current transcript position
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.getGenomeEndPos().isLeq(cdsBeginPos)) {
-				currPos += region.length();
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (transcript.getExonEndPos(i) <= cdsBeginPos) {
+				currPos += transcript.getExonEndPos(i) - transcript.getExonBeginPos(i);
 			} else {
-				currPos += cdsBeginPos.differenceTo(region.getGenomeBeginPos());
+				currPos += cdsBeginPos - transcript.getExonBeginPos(i);
 				break;
 			}
 		}
@@ -168,17 +164,19 @@ public final class TranscriptProjectionDecorator {
 			throw new ProjectionException("Invalid transcript position " + targetPos);
 
 		int currPos = 0; // relative begin position of current exon
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (targetPos < currPos + region.length())
-				return region.getGenomeBeginPos().shifted(targetPos - currPos);
-			currPos += region.length();
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			final int exonLength = transcript.getExonEndPos(i) - transcript.getExonBeginPos(i);
+			if (targetPos < currPos + exonLength)
+				return new GenomePosition(transcript.getTXRegion().getRefDict(), transcript.getStrand(),
+						transcript.getChr(), transcript.getExonBeginPos(i) + (targetPos - currPos),
+						PositionType.ZERO_BASED);
+			currPos += exonLength;
 		}
 
 		// handling case of transcript end position
 		// TODO(holtgrewe): add test for this
-		GenomeInterval lastRegion = transcript.getExonRegions().get(transcript.getExonRegions().size() - 1);
 		if (targetPos == currPos)
-			return lastRegion.getGenomeEndPos();
+			return transcript.getExonRegion(transcript.getExonCount() - 1).getGenomeEndPos();
 
 		throw new ProjectionException("Invalid transcript position " + targetPos);
 	}
@@ -195,7 +193,7 @@ public final class TranscriptProjectionDecorator {
 		if (transcript.getStrand().isForward())
 			return exonID;
 		else
-			return transcript.getExonRegions().size() - exonID - 1;
+			return transcript.getExonCount() - exonID - 1;
 	}
 
 	/**
@@ -217,13 +215,12 @@ public final class TranscriptProjectionDecorator {
 			return INVALID_INTRON_ID;
 
 		// find exon containing pos or return null
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.isRightOf(pos))
+		final int p = pos.getPos();
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (p < transcript.getExonBeginPos(i))
 				return i - 1;
-			if (region.contains(pos))
+			if (p < transcript.getExonEndPos(i))
 				return INVALID_INTRON_ID; // not in intron
-			++i;
 		}
 
 		return INVALID_INTRON_ID;
@@ -248,13 +245,10 @@ public final class TranscriptProjectionDecorator {
 			return INVALID_EXON_ID;
 
 		// find exon containing pos or return null
-		GenomeInterval posBase = new GenomeInterval(pos, 1); // region of referenced base
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(posBase))
+		final int p = pos.getPos(); // position of referenced base
+		for (int i = 0; i < transcript.getExonCount(); ++i)
+			if (transcript.getExonBeginPos(i) <= p && p < transcript.getExonEndPos(i))
 				return i;
-			++i;
-		}
 
 		return INVALID_EXON_ID;
 	}
@@ -276,12 +270,10 @@ public final class TranscriptProjectionDecorator {
 
 		// find exon containing pos or return null
 		int currEndPos = 0; // current end position of exon in transcript
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (pos.getPos() < currEndPos + region.length())
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			currEndPos += transcript.getExonEndPos(i) - transcript.getExonBeginPos(i);
+			if (pos.getPos() < currEndPos)
 				return i;
-			++i;
-			currEndPos += region.length();
 		}
 
 		// if pos was a valid transcript position then we should not reach here
@@ -315,7 +307,7 @@ public final class TranscriptProjectionDecorator {
 				return projector.genomeToCDSPos(pos);
 			} else { // lies in intron, project to begin position of next exon
 				int intronNum = projector.locateIntron(pos);
-				return projector.genomeToCDSPos(transcript.getExonRegions().get(intronNum + 1).getGenomeBeginPos());
+				return projector.genomeToCDSPos(transcript.getExonRegion(intronNum + 1).getGenomeBeginPos());
 			}
 		} catch (ProjectionException e) {
 			throw new Error("Bug: must be able to convert CDS exon position! " + e.getMessage());
@@ -365,7 +357,7 @@ public final class TranscriptProjectionDecorator {
 				return projector.genomeToTranscriptPos(pos);
 			} else { // lies in intron, project to begin position of next exon
 				int intronNum = projector.locateIntron(pos);
-				return projector.genomeToTranscriptPos(transcript.getExonRegions().get(intronNum + 1)
+				return projector.genomeToTranscriptPos(transcript.getExonRegion(intronNum + 1)
 						.getGenomeBeginPos());
 			}
 		} catch (ProjectionException e) {
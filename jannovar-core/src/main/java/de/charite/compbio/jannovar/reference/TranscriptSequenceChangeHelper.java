@@ -59,12 +59,13 @@ public final class TranscriptSequenceChangeHelper {
 			throw new Error("Bug: should be able to get transcript pos for CDS exon position");
 		}
 
-		// Update base in string using StringBuilder.
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		if (change.getType() == GenomeVariantType.SNV)
-			builder.setCharAt(tPos.getPos(), change.getAlt().charAt(0));
-		else
-			builder.insert(tPos.getPos(), change.getAlt());
+		// Build changed sequence from the packed sequence, replacing the base for SNVs.
+		final NucleotideSequence seq = transcript.getNucleotideSequence();
+		final int suffixBegin = (change.getType() == GenomeVariantType.SNV) ? tPos.getPos() + 1 : tPos.getPos();
+		StringBuilder builder = new StringBuilder(seq.length() + change.getAlt().length());
+		seq.appendTo(builder, 0, tPos.getPos());
+		builder.append(change.getAlt());
+		seq.appendTo(builder, suffixBegin, seq.length());
 		return builder.toString();
 	}
 
@@ -91,10 +92,12 @@ public final class TranscriptSequenceChangeHelper {
 			throw new Error("Bug: should be able to translate change end position to transcript position.");
 		}
 
-		// Build resulting transcript string.
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		builder.delete(tBeginPos.getPos(), tEndPos.getPos());
-		builder.insert(tBeginPos.getPos(), change.getAlt());
+		// Build resulting transcript string from the packed sequence.
+		final NucleotideSequence seq = transcript.getNucleotideSequence();
+		StringBuilder builder = new StringBuilder(seq.length() + change.getAlt().length());
+		seq.appendTo(builder, 0, tBeginPos.getPos());
+		builder.append(change.getAlt());
+		seq.appendTo(builder, tEndPos.getPos(), seq.length());
 		return builder.toString();
 	}
 
@@ -125,7 +128,7 @@ public final class TranscriptSequenceChangeHelper {
 			return projector.genomeToTranscriptPos(pos);
 		} else { // lies in intron, project to begin position of next exon
 			int intronNum = projector.locateIntron(pos);
-			return projector.genomeToTranscriptPos(transcript.getExonRegions().get(intronNum).getGenomeBeginPos());
+			return projector.genomeToTranscriptPos(transcript.getExonRegion(intronNum).getGenomeBeginPos());
 		}
 	}
 
@@ -10,9 +10,15 @@ import de.charite.compbio.jannovar.Immutable;
 @Immutable
 public final class TranscriptSequenceOntologyDecorator {
 
+	/** default length of the upstream and downstream regions */
+	public static final int DEFAULT_UP_DOWNSTREAM_LENGTH = 1000;
+
 	/** the transcript information to perform the projection upon. */
 	private final TranscriptModel transcript;
 
+	/** length of the upstream and downstream regions */
+	private final int upDownstreamLength;
+
 	/**
 	 * Initialize the object with the given {@link TranscriptInfo}.
 	 *
@@ -20,7 +26,20 @@ public final class TranscriptSequenceOntologyDecorator {
 	 *            the {@link TranscriptInfo} to decorate
 	 */
 	public TranscriptSequenceOntologyDecorator(TranscriptModel transcript) {
+		this(transcript, DEFAULT_UP_DOWNSTREAM_LENGTH);
+	}
+
+	/**
+	 * Initialize the object with the given {@link TranscriptInfo} and length of the upstream and downstream regions.
+	 *
+	 * @param transcript
+	 *            the {@link TranscriptInfo} to decorate
+	 * @param upDownstreamLength
+	 *            length of the upstream and downstream regions
+	 */
+	public TranscriptSequenceOntologyDecorator(TranscriptModel transcript, int upDownstreamLength) {
 		this.transcript = transcript;
+		this.upDownstreamLength = upDownstreamLength;
 	}
 
 	/**
@@ -73,8 +92,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> contains a full exon (coding or non-coding).
 	 */
 	public boolean containsExon(GenomeInterval interval) {
-		for (GenomeInterval region : transcript.getExonRegions())
-			if (interval.contains(region))
+		for (int i = 0; i < transcript.getExonCount(); ++i)
+			if (interval.contains(transcript.getExonRegion(i)))
 				return true;
 		return false;
 	}
@@ -85,9 +104,11 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> overlaps with a CDS-overlapping exon
 	 */
 	public boolean overlapsWithCDSExon(GenomeInterval interval) {
-		for (GenomeInterval region : transcript.getExonRegions())
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			final GenomeInterval region = transcript.getExonRegion(i);
 			if (transcript.getCDSRegion().overlapsWith(region) && interval.overlapsWith(region))
 				return true;
+		}
 		return false;
 	}
 
@@ -132,7 +153,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithIntron(GenomeInterval changeInterval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
 			GenomeInterval intronRegion = transcript.intronRegion(i);
 			if (changeInterval.overlapsWith(intronRegion))
 				return true;
@@ -145,7 +166,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInIntron(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
 			GenomeInterval intronRegion = transcript.intronRegion(i);
 			if (intronRegion.contains(pos))
 				return true;
@@ -161,7 +182,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithCDSIntron(GenomeInterval changeInterval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
 			GenomeInterval intronRegion = transcript.intronRegion(i);
 			if (transcript.getCDSRegion().overlapsWith(intronRegion) && changeInterval.overlapsWith(intronRegion))
 				return true;
@@ -175,7 +196,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInCDSIntron(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
 			GenomeInterval intronRegion = transcript.intronRegion(i);
 			if (transcript.getCDSRegion().overlapsWith(intronRegion) && intronRegion.contains(pos))
 				return true;
@@ -227,9 +248,9 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithSpliceRegion(GenomeInterval interval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			if (i + 1 < transcript.getExonRegions().size()) {
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
+			if (i + 1 < transcript.getExonCount()) {
 				// check for donor region
 				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeEndPos().shifted(-3), 11);
 				if (interval.overlapsWith(spliceRegionInterval))
@@ -258,9 +279,9 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInSpliceRegion(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			if (i + 1 < transcript.getExonRegions().size()) {
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
+			if (i + 1 < transcript.getExonCount()) {
 				// check for donor region
 				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeEndPos().shifted(-3), 11);
 				if (spliceRegionInterval.contains(pos))
@@ -288,8 +309,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithSpliceDonorSite(GenomeInterval interval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
 			GenomeInterval donorInterval = new GenomeInterval(exonInterval.getGenomeEndPos(), 2);
 			if (interval.overlapsWith(donorInterval))
 				return true;
@@ -308,8 +329,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInSpliceDonorSite(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
 			GenomeInterval donorInterval = new GenomeInterval(exonInterval.getGenomeEndPos(), 2);
 			if (donorInterval.contains(pos))
 				return true;
@@ -328,8 +349,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithSpliceAcceptorSite(GenomeInterval interval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 1; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
+		for (int i = 1; i < transcript.getExonCount(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
 			GenomeInterval acceptorInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-2), 2);
 			if (interval.overlapsWith(acceptorInterval))
 				return true;
@@ -348,8 +369,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInSpliceAcceptorSite(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 1; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
+		for (int i = 1; i < transcript.getExonCount(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
 			GenomeInterval acceptorInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-2), 2);
 			if (acceptorInterval.contains(pos))
 				return true;
@@ -361,13 +382,14 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return {@link GenomeInterval} that gives the upstream region of the transcript.
 	 */
 	public GenomeInterval getUpstreamInterval() {
-		return new GenomeInterval(transcript.getTXRegion().getGenomeBeginPos().shifted(-1000), 1000);
+		return new GenomeInterval(transcript.getTXRegion().getGenomeBeginPos().shifted(-upDownstreamLength),
+				upDownstreamLength);
 	}
 
 	/**
 	 * Returns whether the given <code>interval</code> overlaps with the upstream region of the transcript.
 	 *
-	 * The upstream region of the transcript is up to 1000 bp upstream of the transcript.
+	 * The upstream region of the transcript is up to 1000 bp upstream of the transcript by default.
 	 *
 	 * @param interval
 	 *            the {@link GenomeInterval} to use for querying
@@ -381,7 +403,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	/**
 	 * Returns whether the given <code>pos</code> lies within with the upstream region of the transcript.
 	 *
-	 * The upstream region of the transcript is up to 1000 bp upstream of the transcript.
+	 * The upstream region of the transcript is up to 1000 bp upstream of the transcript by default.
 	 *
 	 * @param pos
 	 *            the {@link GenomePosition} to use for querying
@@ -396,13 +418,13 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return {@link GenomeInterval} that gives the downstream region of the transcript.
 	 */
 	public GenomeInterval getDownstreamInterval() {
-		return new GenomeInterval(transcript.getTXRegion().getGenomeEndPos(), 1000);
+		return new GenomeInterval(transcript.getTXRegion().getGenomeEndPos(), upDownstreamLength);
 	}
 
 	/**
 	 * Returns whether the given <code>interval</code> overlaps with the downstream region of the transcript.
 	 *
-	 * The upstream region of the transcript is up to 1000 bp upstream of the transcript.
+	 * The downstream region of the transcript is up to 1000 bp downstream of the transcript by default.
 	 *
 	 * @param interval
 	 *            the {@link GenomeInterval} to use for querying
@@ -416,7 +438,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	/**
 	 * Returns whether the given <code>pos</code> lies within with the downstream region of the transcript.
 	 *
-	 * The upstream region of the transcript is up to 1000 bp downstream of the transcript.
+	 * The downstream region of the transcript is up to 1000 bp downstream of the transcript by default.
 	 *
 	 * @param pos
 	 *            the {@link GenomePosition} to use for querying
@@ -476,7 +498,7 @@ public final class TranscriptSequenceOntologyDecorator {
 		if (intronNo == TranscriptProjectionDecorator.INVALID_INTRON_ID)
 			return false;
 
-		return !transcript.getExonRegions().get(intronNo + 1).contains(interval.getGenomeEndPos().shifted(-1));
+		return !transcript.getExonRegion(intronNo + 1).contains(interval.getGenomeEndPos().shifted(-1));
 	}
 
 	/**
@@ -492,7 +514,7 @@ public final class TranscriptSequenceOntologyDecorator {
 		if (exonNo == TranscriptProjectionDecorator.INVALID_EXON_ID)
 			return false;
 
-		return transcript.getExonRegions().get(exonNo).contains(interval);
+		return transcript.getExonRegion(exonNo).contains(interval);
 	}
 
 	/**
@@ -509,7 +531,7 @@ public final class TranscriptSequenceOntologyDecorator {
 		if (exonNo == TranscriptProjectionDecorator.INVALID_EXON_ID)
 			return false;
 
-		return transcript.getExonRegions().get(exonNo).contains(pos);
+		return transcript.getExonRegion(exonNo).contains(pos);
 	}
 
 	/**
@@ -518,8 +540,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the interval overlaps with an exon
 	 */
 	public boolean overlapsWithExon(GenomeInterval interval) {
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i)
-			if (interval.overlapsWith(transcript.getExonRegions().get(i)))
+		for (int i = 0; i < transcript.getExonCount(); ++i)
+			if (interval.overlapsWith(transcript.getExonRegion(i)))
 				return true;
 		return false;
 	}
@@ -0,0 +1,25 @@
+package de.charite.compbio.jannovar.simulation;
+
+/**
+ * Structure of the families generated by {@link SyntheticVCFGenerator}.
+ */
+public enum FamilyStructure {
+	/** one affected individual */
+	SINGLETON(1),
+	/** unaffected father and mother with an affected child */
+	TRIO(3),
+	/** unaffected father and mother with an affected and an unaffected child */
+	QUARTET(4);
+
+	/** number of individuals per family */
+	private final int size;
+
+	private FamilyStructure(int size) {
+		this.size = size;
+	}
+
+	/** @return number of individuals per family */
+	public int getSize() {
+		return size;
+	}
+}
@@ -0,0 +1,17 @@
+package de.charite.compbio.jannovar.simulation;
+
+/**
+ * Types of the regions that {@link SyntheticVCFGenerator} places variants in, derived from the transcripts.
+ */
+public enum SimulatedRegionType {
+	/** exonic positions in the CDS of a coding transcript */
+	CDS,
+	/** exonic positions outside the CDS, including the exons of non-coding transcripts */
+	UTR,
+	/** the first and last {@link SyntheticVCFGenerator#SPLICE_REGION_LENGTH} bases of an intron */
+	SPLICE,
+	/** the other intronic positions */
+	INTRON,
+	/** positions not covered by any transcript */
+	INTERGENIC;
+}
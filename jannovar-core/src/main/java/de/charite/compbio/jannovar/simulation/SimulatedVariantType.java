@@ -0,0 +1,17 @@
+package de.charite.compbio.jannovar.simulation;
+
+/**
+ * Types of the variants generated by {@link SyntheticVCFGenerator}.
+ */
+public enum SimulatedVariantType {
+	/** single nucleotide variant */
+	SNV,
+	/** insertion of up to {@link SimulationOptions#getMaxIndelLength} bases */
+	INSERTION,
+	/** deletion of up to {@link SimulationOptions#getMaxIndelLength} bases */
+	DELETION,
+	/** substitution of two to {@link SimulationOptions#getMaxMNVLength} bases */
+	MNV,
+	/** symbolic <tt>&lt;DEL&gt;</tt>, <tt>&lt;DUP&gt;</tt>, or <tt>&lt;INV&gt;</tt> allele */
+	SYMBOLIC_SV;
+}
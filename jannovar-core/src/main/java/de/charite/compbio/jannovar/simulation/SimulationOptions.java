@@ -0,0 +1,131 @@
+package de.charite.compbio.jannovar.simulation;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.Immutable;
+
+/**
+ * Configuration for {@link SyntheticVCFGenerator}, use {@link SimulationOptionsBuilder} for building.
+ *
+ * The mixes of variant and region types are given as relative weights, they do not have to add up to one.
+ */
+@Immutable
+public final class SimulationOptions {
+
+	/** number of sites to generate */
+	private final long numVariants;
+	/** seed for the random number generator */
+	private final long seed;
+	/** relative weights of the variant types */
+	private final ImmutableMap<SimulatedVariantType, Double> variantTypeWeights;
+	/** relative weights of the region types */
+	private final ImmutableMap<SimulatedRegionType, Double> regionTypeWeights;
+	/** number of families */
+	private final int numFamilies;
+	/** structure of each family */
+	private final FamilyStructure familyStructure;
+	/** probability of a founder to carry an alternative allele */
+	private final double genotypeDensity;
+	/** probability of a carrier founder to be homozygous */
+	private final double homAltRate;
+	/** probability of a genotype to be missing */
+	private final double missingRate;
+	/** probability of a site to have two alternative alleles */
+	private final double multiAllelicRate;
+	/** maximal length of insertions and deletions */
+	private final int maxIndelLength;
+	/** maximal length of MNVs */
+	private final int maxMNVLength;
+	/** maximal length of symbolic SVs */
+	private final int maxSVLength;
+
+	SimulationOptions(long numVariants, long seed, ImmutableMap<SimulatedVariantType, Double> variantTypeWeights,
+			ImmutableMap<SimulatedRegionType, Double> regionTypeWeights, int numFamilies,
+			FamilyStructure familyStructure, double genotypeDensity, double homAltRate, double missingRate,
+			double multiAllelicRate, int maxIndelLength, int maxMNVLength, int maxSVLength) {
+		this.numVariants = numVariants;
+		this.seed = seed;
+		this.variantTypeWeights = variantTypeWeights;
+		this.regionTypeWeights = regionTypeWeights;
+		this.numFamilies = numFamilies;
+		this.familyStructure = familyStructure;
+		this.genotypeDensity = genotypeDensity;
+		this.homAltRate = homAltRate;
+		this.missingRate = missingRate;
+		this.multiAllelicRate = multiAllelicRate;
+		this.maxIndelLength = maxIndelLength;
+		this.maxMNVLength = maxMNVLength;
+		this.maxSVLength = maxSVLength;
+	}
+
+	/** @return number of sites to generate, sites drawn twice are only written once */
+	public long getNumVariants() {
+		return numVariants;
+	}
+
+	/** @return seed for the random number generator, the output only depends on the seed and the options */
+	public long getSeed() {
+		return seed;
+	}
+
+	/** @return relative weights of the variant types */
+	public ImmutableMap<SimulatedVariantType, Double> getVariantTypeWeights() {
+		return variantTypeWeights;
+	}
+
+	/** @return relative weights of the region types */
+	public ImmutableMap<SimulatedRegionType, Double> getRegionTypeWeights() {
+		return regionTypeWeights;
+	}
+
+	/** @return number of families */
+	public int getNumFamilies() {
+		return numFamilies;
+	}
+
+	/** @return structure of each family */
+	public FamilyStructure getFamilyStructure() {
+		return familyStructure;
+	}
+
+	/** @return number of samples, i.e., individuals of all families */
+	public int getNumSamples() {
+		return numFamilies * familyStructure.getSize();
+	}
+
+	/** @return probability of a founder to carry an alternative allele */
+	public double getGenotypeDensity() {
+		return genotypeDensity;
+	}
+
+	/** @return probability of a carrier founder to be homozygous */
+	public double getHomAltRate() {
+		return homAltRate;
+	}
+
+	/** @return probability of a genotype to be missing */
+	public double getMissingRate() {
+		return missingRate;
+	}
+
+	/** @return probability of a site to have two alternative alleles (not used for symbolic SVs) */
+	public double getMultiAllelicRate() {
+		return multiAllelicRate;
+	}
+
+	/** @return maximal length of insertions and deletions */
+	public int getMaxIndelLength() {
+		return maxIndelLength;
+	}
+
+	/** @return maximal length of MNVs */
+	public int getMaxMNVLength() {
+		return maxMNVLength;
+	}
+
+	/** @return maximal length of symbolic SVs */
+	public int getMaxSVLength() {
+		return maxSVLength;
+	}
+
+}
@@ -0,0 +1,245 @@
+package de.charite.compbio.jannovar.simulation;
+
+import java.util.EnumMap;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Class for building immutable {@link SimulationOptions} objects field-by-field.
+ *
+ * The defaults roughly resemble a whole-genome call set of one trio: mostly SNVs, few indels and SVs, and most
+ * variants outside of exons.
+ */
+public class SimulationOptionsBuilder {
+
+	/** {@link SimulationOptions#getNumVariants} of the next {@link SimulationOptions} to build */
+	private long numVariants = 10000;
+
+	/** {@link SimulationOptions#getSeed} of the next {@link SimulationOptions} to build */
+	private long seed = 1;
+
+	/** {@link SimulationOptions#getVariantTypeWeights} of the next {@link SimulationOptions} to build */
+	private EnumMap<SimulatedVariantType, Double> variantTypeWeights = new EnumMap<SimulatedVariantType, Double>(
+			SimulatedVariantType.class);
+
+	/** {@link SimulationOptions#getRegionTypeWeights} of the next {@link SimulationOptions} to build */
+	private EnumMap<SimulatedRegionType, Double> regionTypeWeights = new EnumMap<SimulatedRegionType, Double>(
+			SimulatedRegionType.class);
+
+	/** {@link SimulationOptions#getNumFamilies} of the next {@link SimulationOptions} to build */
+	private int numFamilies = 1;
+
+	/** {@link SimulationOptions#getFamilyStructure} of the next {@link SimulationOptions} to build */
+	private FamilyStructure familyStructure = FamilyStructure.TRIO;
+
+	/** {@link SimulationOptions#getGenotypeDensity} of the next {@link SimulationOptions} to build */
+	private double genotypeDensity = 0.5;
+
+	/** {@link SimulationOptions#getHomAltRate} of the next {@link SimulationOptions} to build */
+	private double homAltRate = 0.3;
+
+	/** {@link SimulationOptions#getMissingRate} of the next {@link SimulationOptions} to build */
+	private double missingRate = 0.01;
+
+	/** {@link SimulationOptions#getMultiAllelicRate} of the next {@link SimulationOptions} to build */
+	private double multiAllelicRate = 0.02;
+
+	/** {@link SimulationOptions#getMaxIndelLength} of the next {@link SimulationOptions} to build */
+	private int maxIndelLength = 10;
+
+	/** {@link SimulationOptions#getMaxMNVLength} of the next {@link SimulationOptions} to build */
+	private int maxMNVLength = 3;
+
+	/** {@link SimulationOptions#getMaxSVLength} of the next {@link SimulationOptions} to build */
+	private int maxSVLength = 10000;
+
+	/** Initialize the builder with the default values. */
+	public SimulationOptionsBuilder() {
+		variantTypeWeights.put(SimulatedVariantType.SNV, 0.85);
+		variantTypeWeights.put(SimulatedVariantType.INSERTION, 0.05);
+		variantTypeWeights.put(SimulatedVariantType.DELETION, 0.06);
+		variantTypeWeights.put(SimulatedVariantType.MNV, 0.03);
+		variantTypeWeights.put(SimulatedVariantType.SYMBOLIC_SV, 0.01);
+		regionTypeWeights.put(SimulatedRegionType.CDS, 0.02);
+		regionTypeWeights.put(SimulatedRegionType.UTR, 0.02);
+		regionTypeWeights.put(SimulatedRegionType.SPLICE, 0.01);
+		regionTypeWeights.put(SimulatedRegionType.INTRON, 0.40);
+		regionTypeWeights.put(SimulatedRegionType.INTERGENIC, 0.55);
+	}
+
+	/**
+	 * @return {@link SimulationOptions} with the currently set configuration
+	 * @throws IllegalArgumentException
+	 *             if a value is out of range or all weights of the variant or region types are zero
+	 */
+	public SimulationOptions build() {
+		checkWeights(variantTypeWeights.values(), "variant type");
+		checkWeights(regionTypeWeights.values(), "region type");
+		if (numVariants < 0)
+			throw new IllegalArgumentException("Number of variants must not be negative, was: " + numVariants);
+		if (numFamilies < 1)
+			throw new IllegalArgumentException("Number of families must be at least 1, was: " + numFamilies);
+		checkProbability(genotypeDensity, "genotype density");
+		checkProbability(homAltRate, "homozygous rate");
+		checkProbability(missingRate, "missing rate");
+		checkProbability(multiAllelicRate, "multi-allelic rate");
+		if (maxIndelLength < 1)
+			throw new IllegalArgumentException("Maximal indel length must be at least 1, was: " + maxIndelLength);
+		if (maxMNVLength < 2)
+			throw new IllegalArgumentException("Maximal MNV length must be at least 2, was: " + maxMNVLength);
+		if (maxSVLength < 1)
+			throw new IllegalArgumentException("Maximal SV length must be at least 1, was: " + maxSVLength);
+		return new SimulationOptions(numVariants, seed, ImmutableMap.copyOf(variantTypeWeights),
+				ImmutableMap.copyOf(regionTypeWeights), numFamilies, familyStructure, genotypeDensity, homAltRate,
+				missingRate, multiAllelicRate, maxIndelLength, maxMNVLength, maxSVLength);
+	}
+
+	/** Check that <code>weights</code> are non-negative and not all zero. */
+	private static void checkWeights(Iterable<Double> weights, String name) {
+		double sum = 0;
+		for (double weight : weights) {
+			if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight))
+				throw new IllegalArgumentException("Invalid " + name + " weight: " + weight);
+			sum += weight;
+		}
+		if (sum == 0)
+			throw new IllegalArgumentException("All " + name + " weights are zero");
+	}
+
+	/** Check that <code>value</code> is in [0, 1]. */
+	private static void checkProbability(double value, String name) {
+		if (!(value >= 0 && value <= 1))
+			throw new IllegalArgumentException("The " + name + " must be in [0, 1], was: " + value);
+	}
+
+	/** @return the numVariants */
+	public long getNumVariants() {
+		return numVariants;
+	}
+
+	/** Set the numVariants. */
+	public void setNumVariants(long numVariants) {
+		this.numVariants = numVariants;
+	}
+
+	/** @return the seed */
+	public long getSeed() {
+		return seed;
+	}
+
+	/** Set the seed. */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/** @return the weight of variant type <code>type</code> */
+	public double getVariantTypeWeight(SimulatedVariantType type) {
+		return variantTypeWeights.get(type);
+	}
+
+	/** Set the weight of variant type <code>type</code>. */
+	public void setVariantTypeWeight(SimulatedVariantType type, double weight) {
+		variantTypeWeights.put(type, weight);
+	}
+
+	/** @return the weight of region type <code>type</code> */
+	public double getRegionTypeWeight(SimulatedRegionType type) {
+		return regionTypeWeights.get(type);
+	}
+
+	/** Set the weight of region type <code>type</code>. */
+	public void setRegionTypeWeight(SimulatedRegionType type, double weight) {
+		regionTypeWeights.put(type, weight);
+	}
+
+	/** @return the numFamilies */
+	public int getNumFamilies() {
+		return numFamilies;
+	}
+
+	/** Set the numFamilies. */
+	public void setNumFamilies(int numFamilies) {
+		this.numFamilies = numFamilies;
+	}
+
+	/** @return the familyStructure */
+	public FamilyStructure getFamilyStructure() {
+		return familyStructure;
+	}
+
+	/** Set the familyStructure. */
+	public void setFamilyStructure(FamilyStructure familyStructure) {
+		this.familyStructure = familyStructure;
+	}
+
+	/** @return the genotypeDensity */
+	public double getGenotypeDensity() {
+		return genotypeDensity;
+	}
+
+	/** Set the genotypeDensity. */
+	public void setGenotypeDensity(double genotypeDensity) {
+		this.genotypeDensity = genotypeDensity;
+	}
+
+	/** @return the homAltRate */
+	public double getHomAltRate() {
+		return homAltRate;
+	}
+
+	/** Set the homAltRate. */
+	public void setHomAltRate(double homAltRate) {
+		this.homAltRate = homAltRate;
+	}
+
+	/** @return the missingRate */
+	public double getMissingRate() {
+		return missingRate;
+	}
+
+	/** Set the missingRate. */
+	public void setMissingRate(double missingRate) {
+		this.missingRate = missingRate;
+	}
+
+	/** @return the multiAllelicRate */
+	public double getMultiAllelicRate() {
+		return multiAllelicRate;
+	}
+
+	/** Set the multiAllelicRate. */
+	public void setMultiAllelicRate(double multiAllelicRate) {
+		this.multiAllelicRate = multiAllelicRate;
+	}
+
+	/** @return the maxIndelLength */
+	public int getMaxIndelLength() {
+		return maxIndelLength;
+	}
+
+	/** Set the maxIndelLength. */
+	public void setMaxIndelLength(int maxIndelLength) {
+		this.maxIndelLength = maxIndelLength;
+	}
+
+	/** @return the maxMNVLength */
+	public int getMaxMNVLength() {
+		return maxMNVLength;
+	}
+
+	/** Set the maxMNVLength. */
+	public void setMaxMNVLength(int maxMNVLength) {
+		this.maxMNVLength = maxMNVLength;
+	}
+
+	/** @return the maxSVLength */
+	public int getMaxSVLength() {
+		return maxSVLength;
+	}
+
+	/** Set the maxSVLength. */
+	public void setMaxSVLength(int maxSVLength) {
+		this.maxSVLength = maxSVLength;
+	}
+
+}
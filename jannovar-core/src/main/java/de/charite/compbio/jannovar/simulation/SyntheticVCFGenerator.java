@@ -0,0 +1,605 @@
+package de.charite.compbio.jannovar.simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
+import de.charite.compbio.jannovar.impl.util.DNAUtils;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.NucleotideSequence;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Generates synthetic VCF files with variants in the regions of the transcripts of a {@link JannovarData}, e.g., for
+ * performance testing without access to real patient data.
+ *
+ * The sites are placed uniformly in the regions of each {@link SimulatedRegionType}, the region type and variant type
+ * of each site are drawn according to the weights in the {@link SimulationOptions}. Positions covered by multiple
+ * transcripts (e.g., by several isoforms) are more likely to be drawn. The reference bases are taken from the
+ * transcript sequence for exonic positions and from a pseudo-random genome sequence derived from the seed otherwise.
+ *
+ * The samples belong to families of the configured {@link FamilyStructure}, see {@link #getPedigree}. The genotypes of
+ * the founders are drawn independently, the children inherit one random allele from each parent. All genotypes are
+ * diploid and unphased, also on the sex chromosomes.
+ *
+ * The output only depends on the {@link JannovarData} and the {@link SimulationOptions} (including the seed). Only
+ * the sites of one contig are kept in memory at a time.
+ */
+public final class SyntheticVCFGenerator {
+
+	/** number of bases at the beginning and end of each intron that make up the splice region */
+	public static final int SPLICE_REGION_LENGTH = 8;
+
+	/** the nucleotides */
+	private static final char[] BASES = { 'A', 'C', 'G', 'T' };
+
+	/** types of the symbolic SV alleles */
+	private static final String[] SV_TYPES = { "DEL", "DUP", "INV" };
+
+	/** number of bits for the segment index in the site keys */
+	private static final int SEGMENT_BITS = 28;
+
+	/** the configuration */
+	private final SimulationOptions options;
+
+	/** the variant types with non-zero weight and their cumulative weights */
+	private final SimulatedVariantType[] variantTypes;
+	private final double[] variantTypeWeights;
+
+	/** the regions of each contig, in the order of the contig IDs */
+	private final ImmutableList<ContigRegions> contigs;
+
+	/** the cumulative weights of the region types, ignoring types without regions */
+	private final double[] regionTypeWeights;
+
+	/** the cumulative lengths of the regions of each type over the contigs, by region type ordinal */
+	private final long[][] contigLengths;
+
+	/** the generated pedigree, samples in the same order as in the VCF file */
+	private final PedFileContents pedigree;
+
+	/**
+	 * Initialize the generator and compute the regions of the transcripts.
+	 *
+	 * @param data
+	 *            the transcripts to place the variants in
+	 * @param options
+	 *            the configuration
+	 * @throws IllegalArgumentException
+	 *             if <code>data</code> does not contain regions of any region type with a non-zero weight
+	 */
+	public SyntheticVCFGenerator(JannovarData data, SimulationOptions options) {
+		this.options = options;
+		ArrayList<SimulatedVariantType> types = new ArrayList<SimulatedVariantType>();
+		ArrayList<Double> weights = new ArrayList<Double>();
+		double sum = 0;
+		for (SimulatedVariantType type : SimulatedVariantType.values())
+			if (options.getVariantTypeWeights().get(type) > 0) {
+				sum += options.getVariantTypeWeights().get(type);
+				types.add(type);
+				weights.add(sum);
+			}
+		this.variantTypes = types.toArray(new SimulatedVariantType[types.size()]);
+		this.variantTypeWeights = new double[weights.size()];
+		for (int i = 0; i < weights.size(); ++i)
+			this.variantTypeWeights[i] = weights.get(i);
+		this.contigs = buildRegions(data);
+
+		final SimulatedRegionType[] regionTypes = SimulatedRegionType.values();
+		this.regionTypeWeights = new double[regionTypes.length];
+		this.contigLengths = new long[regionTypes.length][contigs.size()];
+		sum = 0;
+		for (int t = 0; t < regionTypes.length; ++t) {
+			long total = 0;
+			for (int c = 0; c < contigs.size(); ++c) {
+				total += contigs.get(c).segments[t].totalLength();
+				contigLengths[t][c] = total;
+			}
+			if (total > 0)
+				sum += options.getRegionTypeWeights().get(regionTypes[t]);
+			regionTypeWeights[t] = sum;
+		}
+		if (sum == 0)
+			throw new IllegalArgumentException("The database does not contain any regions of the selected types");
+
+		this.pedigree = buildPedigree(options);
+	}
+
+	/** @return the generated pedigree with the individuals in the order of the samples in the VCF file */
+	public PedFileContents getPedigree() {
+		return pedigree;
+	}
+
+	/**
+	 * Write the VCF file with {@link SimulationOptions#getNumVariants} sites to <code>out</code>.
+	 *
+	 * Sites drawn twice are only written once, thus the number of records can be slightly smaller.
+	 *
+	 * @param out
+	 *            the {@link Writer} to write the VCF file to, not closed
+	 * @return number of written records
+	 * @throws IOException
+	 *             on problems with writing
+	 */
+	public long write(Writer out) throws IOException {
+		final Random rng = new Random(options.getSeed());
+		final long[][] counts = drawSiteCounts(rng);
+
+		writeHeader(out);
+		long result = 0;
+		StringBuilder line = new StringBuilder();
+		int[] genotypes = new int[2 * options.getNumSamples()];
+		for (int c = 0; c < contigs.size(); ++c) {
+			final long[] keys = drawSites(rng, contigs.get(c), counts, c);
+			int previousPos = -1;
+			for (long key : keys) {
+				final int pos = (int) (key >>> 32);
+				if (pos == previousPos)
+					continue;
+				previousPos = pos;
+				line.setLength(0);
+				buildRecord(rng, contigs.get(c), pos, key, genotypes, line);
+				out.append(line);
+				++result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Draw the number of sites of each region type on each contig.
+	 *
+	 * @return number of sites, indexed by region type ordinal and contig index
+	 */
+	private long[][] drawSiteCounts(Random rng) {
+		final double sum = regionTypeWeights[regionTypeWeights.length - 1];
+		long[][] result = new long[regionTypeWeights.length][contigs.size()];
+		for (long i = 0; i < options.getNumVariants(); ++i) {
+			final int t = upperBound(regionTypeWeights, rng.nextDouble() * sum);
+			final long[] cumulative = contigLengths[t];
+			final long offset = (long) (rng.nextDouble() * cumulative[cumulative.length - 1]);
+			result[t][upperBound(cumulative, offset)] += 1;
+		}
+		return result;
+	}
+
+	/**
+	 * Draw the sites on one contig.
+	 *
+	 * @return sorted keys of the sites, with the position in the upper 32 bits, followed by the region type ordinal and
+	 *         the index of the segment
+	 */
+	private long[] drawSites(Random rng, ContigRegions contig, long[][] counts, int c) {
+		int numSites = 0;
+		for (int t = 0; t < counts.length; ++t)
+			numSites += counts[t][c];
+		long[] result = new long[numSites];
+		int i = 0;
+		for (int t = 0; t < counts.length; ++t) {
+			final Segments segments = contig.segments[t];
+			for (long k = 0; k < counts[t][c]; ++k) {
+				final long offset = (long) (rng.nextDouble() * segments.totalLength());
+				final int s = upperBound(segments.cumulative, offset, segments.size);
+				final long begin = (s == 0) ? 0 : segments.cumulative[s - 1];
+				final long pos = segments.begins[s] + (offset - begin);
+				result[i++] = (pos << 32) | ((long) t << SEGMENT_BITS) | s;
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/** Build the VCF record for the site with the given key into <code>line</code>. */
+	private void buildRecord(Random rng, ContigRegions contig, int pos, long key, int[] genotypes, StringBuilder line) {
+		final Segments segments = contig.segments[(int) ((key >>> SEGMENT_BITS) & 0xf)];
+		final TranscriptExons tm = segments.transcripts[(int) (key & ((1 << SEGMENT_BITS) - 1))];
+
+		SimulatedVariantType type = drawVariantType(rng);
+		if (type != SimulatedVariantType.INSERTION && pos + 2 > contig.length)
+			type = SimulatedVariantType.SNV; // no room for more than one base at the contig end
+		final int numAlts = (type != SimulatedVariantType.SYMBOLIC_SV && rng.nextDouble() < options
+				.getMultiAllelicRate()) ? 2 : 1;
+		String ref;
+		String alt1;
+		String alt2 = null;
+		String info = ".";
+		switch (type) {
+		case DELETION:
+			ref = refBases(contig, pos,
+					Math.min(1 + rng.nextInt(options.getMaxIndelLength()), contig.length - pos - 1) + 1, tm);
+			alt1 = ref.substring(0, 1);
+			if (numAlts == 2)
+				alt2 = otherBase(rng, ref.charAt(0), ' ') + ref.substring(1);
+			break;
+		case INSERTION:
+			ref = refBases(contig, pos, 1, tm);
+			alt1 = ref + randomBases(rng, 1 + rng.nextInt(options.getMaxIndelLength()));
+			if (numAlts == 2)
+				do {
+					alt2 = ref + randomBases(rng, 1 + rng.nextInt(options.getMaxIndelLength()));
+				} while (alt2.equals(alt1));
+			break;
+		case MNV:
+			ref = refBases(contig, pos, Math.min(2 + rng.nextInt(options.getMaxMNVLength() - 1), contig.length - pos),
+					tm);
+			alt1 = substituteAll(rng, ref);
+			if (numAlts == 2)
+				do {
+					alt2 = substituteAll(rng, ref);
+				} while (alt2.equals(alt1));
+			break;
+		case SYMBOLIC_SV:
+			ref = refBases(contig, pos, 1, tm);
+			final String svType = SV_TYPES[rng.nextInt(SV_TYPES.length)];
+			alt1 = "<" + svType + ">";
+			final int length = Math.min(1 + rng.nextInt(options.getMaxSVLength()), contig.length - pos - 1);
+			info = "SVTYPE=" + svType + ";END=" + (pos + 1 + length) + ";SVLEN="
+					+ (svType.equals("DEL") ? -length : length);
+			break;
+		default: // SNV
+			ref = refBases(contig, pos, 1, tm);
+			alt1 = String.valueOf(otherBase(rng, ref.charAt(0), ' '));
+			if (numAlts == 2)
+				alt2 = String.valueOf(otherBase(rng, ref.charAt(0), alt1.charAt(0)));
+			break;
+		}
+
+		line.append(contig.name).append('\t').append(pos + 1).append("\t.\t").append(ref).append('\t').append(alt1);
+		if (alt2 != null)
+			line.append(',').append(alt2);
+		line.append("\t.\tPASS\t").append(info).append("\tGT");
+		drawGenotypes(rng, (alt2 == null) ? 1 : 2, genotypes);
+		for (int i = 0; i < genotypes.length; i += 2) {
+			line.append('\t');
+			if (rng.nextDouble() < options.getMissingRate())
+				line.append("./.");
+			else
+				line.append(Math.min(genotypes[i], genotypes[i + 1])).append('/')
+						.append(Math.max(genotypes[i], genotypes[i + 1]));
+		}
+		line.append('\n');
+	}
+
+	/** @return variant type drawn according to the weights */
+	private SimulatedVariantType drawVariantType(Random rng) {
+		final double sum = variantTypeWeights[variantTypeWeights.length - 1];
+		return variantTypes[upperBound(variantTypeWeights, rng.nextDouble() * sum)];
+	}
+
+	/**
+	 * Draw the genotypes of all samples, with at least one alternative allele.
+	 *
+	 * @param numAlts
+	 *            number of alternative alleles
+	 * @param genotypes
+	 *            the two alleles of each sample, overwritten
+	 */
+	private void drawGenotypes(Random rng, int numAlts, int[] genotypes) {
+		final int familySize = options.getFamilyStructure().getSize();
+		boolean anyAlt = false;
+		for (int f = 0; f < options.getNumFamilies(); ++f)
+			anyAlt |= drawFamilyGenotypes(rng, numAlts, f * familySize, false, genotypes);
+		if (!anyAlt)
+			drawFamilyGenotypes(rng, numAlts, rng.nextInt(options.getNumFamilies()) * familySize, true, genotypes);
+	}
+
+	/**
+	 * Draw the genotypes of the family starting at sample <code>first</code>.
+	 *
+	 * @param forceCarrier
+	 *            whether or not the first founder has to carry an alternative allele
+	 * @return whether or not any sample of the family carries an alternative allele
+	 */
+	private boolean drawFamilyGenotypes(Random rng, int numAlts, int first, boolean forceCarrier, int[] genotypes) {
+		final int numFounders = (options.getFamilyStructure() == FamilyStructure.SINGLETON) ? 1 : 2;
+		boolean result = false;
+		for (int i = first; i < first + numFounders; ++i) {
+			int allele1 = 0;
+			int allele2 = 0;
+			if ((forceCarrier && i == first) || rng.nextDouble() < options.getGenotypeDensity()) {
+				allele1 = 1 + rng.nextInt(numAlts);
+				allele2 = (rng.nextDouble() < options.getHomAltRate()) ? allele1 : 0;
+			}
+			genotypes[2 * i] = allele1;
+			genotypes[2 * i + 1] = allele2;
+			result |= (allele1 != 0);
+		}
+		for (int i = first + numFounders; i < first + options.getFamilyStructure().getSize(); ++i) {
+			genotypes[2 * i] = genotypes[2 * first + rng.nextInt(2)];
+			genotypes[2 * i + 1] = genotypes[2 * (first + 1) + rng.nextInt(2)];
+		}
+		return result;
+	}
+
+	/** @return the <code>length</code> reference bases starting at <code>pos</code> */
+	private String refBases(ContigRegions contig, int pos, int length, TranscriptExons tm) {
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; ++i)
+			builder.append(refBase(contig, pos + i, tm));
+		return builder.toString();
+	}
+
+	/**
+	 * @return reference base at the zero-based <code>pos</code>, from the sequence of <code>tm</code> if the position
+	 *         is exonic and from the pseudo-random genome sequence otherwise
+	 */
+	private char refBase(ContigRegions contig, int pos, TranscriptExons tm) {
+		if (tm != null) {
+			for (int i = 0; i < tm.begins.length; ++i) {
+				if (pos >= tm.begins[i] && pos < tm.ends[i]) {
+					final int offset = tm.offsets[i] + (tm.forward ? (pos - tm.begins[i]) : (tm.ends[i] - 1 - pos));
+					if (offset >= tm.sequence.length())
+						break;
+					final char c = Character.toUpperCase(tm.sequence.charAt(offset));
+					return tm.forward ? c : DNAUtils.complement(c);
+				}
+			}
+		}
+		return BASES[(int) (mix(options.getSeed() ^ mix(((long) contig.chrID << 32) | pos)) >>> 62)];
+	}
+
+	/** @return <code>ref</code> with all bases substituted by random other bases */
+	private static String substituteAll(Random rng, String ref) {
+		StringBuilder builder = new StringBuilder(ref.length());
+		for (int i = 0; i < ref.length(); ++i)
+			builder.append(otherBase(rng, ref.charAt(i), ' '));
+		return builder.toString();
+	}
+
+	/** @return random base different from <code>c1</code> and <code>c2</code> */
+	private static char otherBase(Random rng, char c1, char c2) {
+		while (true) {
+			final char c = BASES[rng.nextInt(BASES.length)];
+			if (c != c1 && c != c2)
+				return c;
+		}
+	}
+
+	/** @return <code>length</code> random bases */
+	private static String randomBases(Random rng, int length) {
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; ++i)
+			builder.append(BASES[rng.nextInt(BASES.length)]);
+		return builder.toString();
+	}
+
+	/** @return <code>z</code> scrambled by the SplitMix64 finalizer */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/** @return index of the first value in <code>values</code> greater than <code>value</code> */
+	private static int upperBound(double[] values, double value) {
+		for (int i = 0; i < values.length; ++i)
+			if (values[i] > value)
+				return i;
+		return values.length - 1;
+	}
+
+	/** @return index of the first value in <code>values</code> greater than <code>value</code> */
+	private static int upperBound(long[] values, long value) {
+		return upperBound(values, value, values.length);
+	}
+
+	/** @return index of the first of the first <code>size</code> <code>values</code> greater than <code>value</code> */
+	private static int upperBound(long[] values, long value, int size) {
+		int lo = 0;
+		int hi = size - 1;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (values[mid] > value)
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return lo;
+	}
+
+	/** Write the VCF header to <code>out</code>. */
+	private void writeHeader(Writer out) throws IOException {
+		out.append("##fileformat=VCFv4.2\n");
+		out.append("##source=SyntheticVCFGenerator,seed=" + options.getSeed() + "\n");
+		out.append("##INFO=<ID=SVTYPE,Number=1,Type=String,Description=\"Type of structural variant\">\n");
+		out.append("##INFO=<ID=END,Number=1,Type=Integer,Description=\"End position of the variant\">\n");
+		out.append("##INFO=<ID=SVLEN,Number=.,Type=Integer,Description=\"Difference in length between REF and ALT\">\n");
+		out.append("##ALT=<ID=DEL,Description=\"Deletion\">\n");
+		out.append("##ALT=<ID=DUP,Description=\"Duplication\">\n");
+		out.append("##ALT=<ID=INV,Description=\"Inversion\">\n");
+		out.append("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+		for (ContigRegions contig : contigs)
+			out.append("##contig=<ID=" + contig.name + ",length=" + contig.length + ">\n");
+		out.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT");
+		for (PedPerson person : pedigree.getIndividuals())
+			out.append('\t').append(person.getName());
+		out.append('\n');
+	}
+
+	/** @return the pedigree for <code>options</code> */
+	private static PedFileContents buildPedigree(SimulationOptions options) {
+		final String format = "FAM%0" + Math.max(4, Integer.toString(options.getNumFamilies()).length()) + "d";
+		ImmutableList.Builder<PedPerson> builder = new ImmutableList.Builder<PedPerson>();
+		for (int f = 0; f < options.getNumFamilies(); ++f) {
+			final String family = String.format(format, f + 1);
+			final Sex indexSex = (f % 2 == 0) ? Sex.MALE : Sex.FEMALE;
+			final Sex siblingSex = (f % 2 == 0) ? Sex.FEMALE : Sex.MALE;
+			switch (options.getFamilyStructure()) {
+			case SINGLETON:
+				builder.add(new PedPerson(family, family + "_index", "0", "0", indexSex, Disease.AFFECTED));
+				break;
+			default: // TRIO, QUARTET
+				final String father = family + "_father";
+				final String mother = family + "_mother";
+				builder.add(new PedPerson(family, father, "0", "0", Sex.MALE, Disease.UNAFFECTED));
+				builder.add(new PedPerson(family, mother, "0", "0", Sex.FEMALE, Disease.UNAFFECTED));
+				builder.add(new PedPerson(family, family + "_index", father, mother, indexSex, Disease.AFFECTED));
+				if (options.getFamilyStructure() == FamilyStructure.QUARTET)
+					builder.add(new PedPerson(family, family + "_sibling", father, mother, siblingSex,
+							Disease.UNAFFECTED));
+				break;
+			}
+		}
+		return new PedFileContents(ImmutableList.<String> of(), builder.build());
+	}
+
+	/** @return the regions of the contigs with known length, in the order of the contig IDs */
+	private static ImmutableList<ContigRegions> buildRegions(JannovarData data) {
+		final ReferenceDictionary refDict = data.getRefDict();
+		ImmutableList.Builder<ContigRegions> builder = new ImmutableList.Builder<ContigRegions>();
+		for (Integer chrID : ImmutableSortedSet.copyOf(refDict.getContigIDToLength().keySet())) {
+			if (refDict.getContigIDToName().get(chrID) == null)
+				continue;
+			ContigRegions contig = new ContigRegions(chrID, refDict.getContigIDToName().get(chrID),
+					refDict.getContigIDToLength().get(chrID));
+			final Chromosome chrom = data.getChromosomes().get(chrID);
+			int coveredEnd = 0;
+			if (chrom != null)
+				for (Interval<TranscriptModel> interval : chrom.getTMIntervalTree().getIntervals()) {
+					final TranscriptModel tm = interval.getValue();
+					contig.addTranscript(tm);
+					final GenomeInterval txRegion = tm.getTXRegion().withStrand(Strand.FWD);
+					contig.add(SimulatedRegionType.INTERGENIC, coveredEnd, txRegion.getBeginPos(), null);
+					coveredEnd = Math.max(coveredEnd, txRegion.getEndPos());
+				}
+			contig.add(SimulatedRegionType.INTERGENIC, coveredEnd, contig.length, null);
+			builder.add(contig);
+		}
+		return builder.build();
+	}
+
+	/** The regions of each {@link SimulatedRegionType} on one contig. */
+	private static final class ContigRegions {
+
+		final int chrID;
+		final String name;
+		final int length;
+		final Segments[] segments = new Segments[SimulatedRegionType.values().length];
+
+		ContigRegions(int chrID, String name, int length) {
+			this.chrID = chrID;
+			this.name = name;
+			this.length = length;
+			for (int i = 0; i < segments.length; ++i)
+				segments[i] = new Segments();
+		}
+
+		/** Add the exonic, splice, and intronic regions of <code>transcript</code>. */
+		void addTranscript(TranscriptModel transcript) {
+			ArrayList<GenomeInterval> exons = new ArrayList<GenomeInterval>();
+			for (int i = 0; i < transcript.getExonCount(); ++i)
+				exons.add(transcript.getExonRegion(i).withStrand(Strand.FWD));
+			final TranscriptExons tm = (transcript.getNucleotideSequence() == null) ? null : new TranscriptExons(
+					transcript, exons);
+			if (transcript.getStrand() != Strand.FWD)
+				Collections.reverse(exons);
+			final GenomeInterval cds = transcript.getCDSRegion().withStrand(Strand.FWD);
+			final boolean coding = transcript.isCoding();
+
+			for (int i = 0; i < exons.size(); ++i) {
+				final GenomeInterval exon = exons.get(i);
+				if (coding) {
+					add(SimulatedRegionType.UTR, exon.getBeginPos(), Math.min(exon.getEndPos(), cds.getBeginPos()), tm);
+					add(SimulatedRegionType.CDS, Math.max(exon.getBeginPos(), cds.getBeginPos()),
+							Math.min(exon.getEndPos(), cds.getEndPos()), tm);
+					add(SimulatedRegionType.UTR, Math.max(exon.getBeginPos(), cds.getEndPos()), exon.getEndPos(), tm);
+				} else {
+					add(SimulatedRegionType.UTR, exon.getBeginPos(), exon.getEndPos(), tm);
+				}
+
+				if (i + 1 < exons.size()) {
+					final int intronBegin = exon.getEndPos();
+					final int intronEnd = exons.get(i + 1).getBeginPos();
+					final int spliceEnd = Math.min(intronBegin + SPLICE_REGION_LENGTH, intronEnd);
+					final int spliceBegin = Math.max(intronEnd - SPLICE_REGION_LENGTH, spliceEnd);
+					add(SimulatedRegionType.SPLICE, intronBegin, spliceEnd, null);
+					add(SimulatedRegionType.INTRON, spliceEnd, spliceBegin, null);
+					add(SimulatedRegionType.SPLICE, spliceBegin, intronEnd, null);
+				}
+			}
+		}
+
+		/** Add the region <code>[begin, end)</code>, clipped to the contig, ignored if empty. */
+		void add(SimulatedRegionType type, int begin, int end, TranscriptExons tm) {
+			begin = Math.max(begin, 0);
+			end = Math.min(end, length);
+			if (begin < end)
+				segments[type.ordinal()].add(begin, end, tm);
+		}
+
+	}
+
+	/** Sequence and forward-strand exon bounds of a transcript, for looking up reference bases. */
+	private static final class TranscriptExons {
+
+		final NucleotideSequence sequence;
+		final boolean forward;
+		/** begin and end positions of the exons on the forward strand, in transcript order */
+		final int[] begins;
+		final int[] ends;
+		/** offset of each exon's first transcribed base in {@link #sequence} */
+		final int[] offsets;
+
+		TranscriptExons(TranscriptModel tm, List<GenomeInterval> exons) {
+			this.sequence = tm.getNucleotideSequence();
+			this.forward = (tm.getStrand() == Strand.FWD);
+			this.begins = new int[exons.size()];
+			this.ends = new int[exons.size()];
+			this.offsets = new int[exons.size()];
+			int offset = 0;
+			for (int i = 0; i < exons.size(); ++i) {
+				begins[i] = exons.get(i).getBeginPos();
+				ends[i] = exons.get(i).getEndPos();
+				offsets[i] = offset;
+				offset += exons.get(i).length();
+			}
+		}
+
+	}
+
+	/** List of regions of one type, with their cumulative lengths for drawing positions. */
+	private static final class Segments {
+
+		int size = 0;
+		int[] begins = new int[16];
+		long[] cumulative = new long[16];
+		TranscriptExons[] transcripts = new TranscriptExons[16];
+
+		void add(int begin, int end, TranscriptExons tm) {
+			if (size == begins.length) {
+				begins = Arrays.copyOf(begins, 2 * size);
+				cumulative = Arrays.copyOf(cumulative, 2 * size);
+				transcripts = Arrays.copyOf(transcripts, 2 * size);
+			}
+			if (size == (1 << SEGMENT_BITS))
+				throw new IllegalArgumentException("Too many regions on one contig");
+			begins[size] = begin;
+			cumulative[size] = totalLength() + (end - begin);
+			transcripts[size++] = tm;
+		}
+
+		long totalLength() {
+			return (size == 0) ? 0 : cumulative[size - 1];
+		}
+
+	}
+
+}
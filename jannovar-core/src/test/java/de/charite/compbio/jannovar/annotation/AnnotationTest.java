@@ -0,0 +1,74 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+
+public class AnnotationTest {
+
+	static Annotation build(VariantEffect... effects) {
+		return new Annotation(null, null, ImmutableList.copyOf(effects), null, null, null);
+	}
+
+	@Test
+	public void testEffectsAndImpact() {
+		Annotation anno = build(VariantEffect.SPLICE_REGION_VARIANT, VariantEffect.MISSENSE_VARIANT);
+		Assert.assertEquals(ImmutableSortedSet.of(VariantEffect.MISSENSE_VARIANT, VariantEffect.SPLICE_REGION_VARIANT),
+				anno.getEffects());
+		Assert.assertEquals(VariantEffect.MISSENSE_VARIANT, anno.getMostPathogenicVarType());
+		Assert.assertEquals(PutativeImpact.MODERATE, anno.getPutativeImpact());
+
+		Annotation empty = build();
+		Assert.assertNull(empty.getMostPathogenicVarType());
+		Assert.assertNull(empty.getPutativeImpact());
+	}
+
+	@Test
+	public void testMessages() {
+		Annotation anno = new Annotation(ImmutableList.of(AnnotationMessage.INFO_REALIGN_3_PRIME,
+				AnnotationMessage.ERROR_PROBLEM_DURING_ANNOTATION, AnnotationMessage.INFO_REALIGN_3_PRIME));
+		Assert.assertEquals(ImmutableSortedSet.of(AnnotationMessage.ERROR_PROBLEM_DURING_ANNOTATION,
+				AnnotationMessage.INFO_REALIGN_3_PRIME), anno.getMessages());
+	}
+
+	@Test
+	public void testViewsSameAsSets() {
+		Annotation anno = new Annotation(null, null, ImmutableList.of(VariantEffect.SPLICE_REGION_VARIANT,
+				VariantEffect.MISSENSE_VARIANT), null, null, null, ImmutableList.of(AnnotationMessage.INFO_REALIGN_3_PRIME));
+		Assert.assertEquals(anno.getEffects(), anno.getEffectsView());
+		Assert.assertEquals(anno.getMessages(), anno.getMessagesView());
+		// the immutable sets are only built once
+		Assert.assertSame(anno.getEffects(), anno.getEffects());
+		Assert.assertSame(anno.getMessages(), anno.getMessages());
+	}
+
+	@Test
+	public void testSortByMostPathogenicEffect() {
+		Annotation empty = build();
+		Annotation intergenic = build(VariantEffect.INTERGENIC_VARIANT);
+		Annotation stopGain = build(VariantEffect.SPLICE_REGION_VARIANT, VariantEffect.STOP_GAINED);
+		Annotation missense = build(VariantEffect.MISSENSE_VARIANT);
+
+		ArrayList<Annotation> annos = new ArrayList<Annotation>(ImmutableList.of(empty, intergenic, missense,
+				stopGain));
+		Collections.sort(annos);
+		Assert.assertEquals(ImmutableList.of(stopGain, missense, intergenic, empty), annos);
+		Assert.assertEquals(0, empty.compareTo(build()));
+		Assert.assertEquals(0, missense.compareTo(build(VariantEffect.MISSENSE_VARIANT)));
+	}
+
+	@Test
+	public void testEqualsHashCode() {
+		Annotation anno = build(VariantEffect.MISSENSE_VARIANT, VariantEffect.SPLICE_REGION_VARIANT);
+		Annotation other = build(VariantEffect.SPLICE_REGION_VARIANT, VariantEffect.MISSENSE_VARIANT);
+		Assert.assertEquals(anno, other);
+		Assert.assertEquals(anno.hashCode(), other.hashCode());
+		Assert.assertNotEquals(anno, build(VariantEffect.MISSENSE_VARIANT));
+	}
+
+}
@@ -0,0 +1,67 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.SortedSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+
+public class EnumBitSetTest {
+
+	static final VariantEffect[] VALUES = VariantEffect.values();
+
+	static EnumBitSet<VariantEffect> build(VariantEffect... effects) {
+		return new EnumBitSet<VariantEffect>(VALUES, EnumBitSet.toBits(ImmutableList.copyOf(effects)));
+	}
+
+	@Test
+	public void testSameAsImmutableSortedSet() {
+		ImmutableSortedSet<VariantEffect> expected = ImmutableSortedSet.of(VariantEffect.MISSENSE_VARIANT,
+				VariantEffect.SPLICE_REGION_VARIANT, VariantEffect.FRAMESHIFT_VARIANT);
+		EnumBitSet<VariantEffect> set = build(VariantEffect.SPLICE_REGION_VARIANT, VariantEffect.MISSENSE_VARIANT,
+				VariantEffect.FRAMESHIFT_VARIANT, VariantEffect.MISSENSE_VARIANT);
+
+		Assert.assertEquals(expected, set);
+		Assert.assertEquals(set, expected);
+		Assert.assertEquals(expected.hashCode(), set.hashCode());
+		Assert.assertEquals(expected.toString(), set.toString());
+		Assert.assertEquals(ImmutableList.copyOf(expected), ImmutableList.copyOf(set));
+		Assert.assertEquals(3, set.size());
+		Assert.assertEquals(expected.first(), set.first());
+		Assert.assertEquals(expected.last(), set.last());
+		Assert.assertTrue(set.contains(VariantEffect.MISSENSE_VARIANT));
+		Assert.assertFalse(set.contains(VariantEffect.INTERGENIC_VARIANT));
+		// same ordinal, different enum
+		Assert.assertFalse(build(VariantEffect.values()[0]).contains(AnnotationMessage.values()[0]));
+	}
+
+	@Test
+	public void testEmpty() {
+		EnumBitSet<VariantEffect> set = build();
+		Assert.assertTrue(set.isEmpty());
+		Assert.assertEquals(ImmutableSortedSet.<VariantEffect> of(), set);
+		Assert.assertFalse(set.iterator().hasNext());
+		Assert.assertEquals(0, EnumBitSet.toBits(null));
+	}
+
+	@Test
+	public void testViews() {
+		EnumBitSet<VariantEffect> set = build(VariantEffect.FRAMESHIFT_VARIANT, VariantEffect.MISSENSE_VARIANT,
+				VariantEffect.INTERGENIC_VARIANT);
+		SortedSet<VariantEffect> expected = ImmutableSortedSet.copyOf(set);
+		Assert.assertEquals(expected.headSet(VariantEffect.MISSENSE_VARIANT),
+				set.headSet(VariantEffect.MISSENSE_VARIANT));
+		Assert.assertEquals(expected.tailSet(VariantEffect.MISSENSE_VARIANT),
+				set.tailSet(VariantEffect.MISSENSE_VARIANT));
+		Assert.assertEquals(expected.subSet(VariantEffect.FRAMESHIFT_VARIANT, VariantEffect.INTERGENIC_VARIANT),
+				set.subSet(VariantEffect.FRAMESHIFT_VARIANT, VariantEffect.INTERGENIC_VARIANT));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable() {
+		build(VariantEffect.MISSENSE_VARIANT).add(VariantEffect.INTERGENIC_VARIANT);
+	}
+
+}
@@ -0,0 +1,117 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSortedSet;
+
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+/**
+ * Checks that {@link VCFAnnotationData#appendTo} yields the same strings as the <code>Joiner</code>-based
+ * {@link VCFAnnotationData#toString(String)}.
+ */
+public class VCFAnnotationDataTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+	/** transcript on forward strand */
+	TranscriptModelBuilder builderForward;
+	/** transcript info on forward strand */
+	TranscriptModel infoForward;
+
+	@Before
+	public void setUp() {
+		this.builderForward = TranscriptModelFactory
+				.parseKnownGenesLine(
+						refDict,
+						"uc001anx.3	chr1	+	6640062	6649340	6640669	6649272	11	6640062,6640600,6642117,6645978,6646754,6647264,6647537,6648119,6648337,6648815,6648975,	6640196,6641359,6642359,6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,	P10074	uc001anx.3");
+		this.builderForward
+				.setSequence("cgtcacgtccggcgcggagacggtggagtctccgcactgtcggcggggtacgcatagccgggcactaggttcgtgggctgtggaggcgacggagcagggggccagtggggccagctcagggaggacctgcctgggagctttctcttgcataccctcgcttaggctggccggggtgtcacttctgcctccctgccctccagaccatggacggctccttcgtccagcacagtgtgagggttctgcaggagctcaacaagcagcgggagaagggccagtactgcgacgccactctggacgtggggggcctggtgtttaaggcacactggagtgtccttgcctgctgcagtcactttttccagagcctctacggggatggctcagggggcagtgtcgtcctccctgctggcttcgctgagatctttggcctcttgttggactttttctacactggtcacctcgctctcacctcagggaaccgggatcaggtgctcctggcagccagggagttgcgagtgccagaggccgtagagctgtgccagagcttcaagcccaaaacttcagtgggacaggcagcaggtggccagagtgggctggggccccctgcctcccagaatgtgaacagccacgtcaaggagccggcaggcttggaagaagaggaagtttcgaggactctgggtctagtccccagggatcaggagcccagaggcagtcatagtcctcagaggccccagctccattccccagctcagagtgagggcccctcctccctctgtgggaaactgaagcaggccttgaagccttgtccccttgaggacaagaaacccgaggactgcaaagtgcccccaaggcccttagaggctgaaggtgcccagctgcagggcggcagtaatgagtgggaagtggtggttcaagtggaggatgatggggatggcgattacatgtctgagcctgaggctgtgctgaccaggaggaagtcaaatgtaatccgaaagccctgtgcagctgagccagccctgagcgcgggctccctagcagctgagcctgctgagaacagaaaaggtacagcggtgccggtcgaatgccccacatgtcataaaaagttcctcagcaaatattatctaaaagtccacaacaggaaacatactggggagaaaccctttgagtgtcccaaatgtgggaagtgttactttcggaaggagaacctcctggagcatgaagcccggaattgcatgaaccgctcggaacaggtcttcacgtgctctgtgtgccaggagacattccgccgaaggatggagctgcgggtgcacatggtgtctcacacaggggagatgccctacaagtgttcctcctgctcccagcagttcatgcagaagaaggacttgcagagccacatgatcaaacttcatggagcccccaagccccatgcatgccccacctgtgccaagtgcttcctgtctcggacagagctgcagctgcatgaagctttcaagcaccgtggtgagaagctgtttgtgtgtgaggagtgtgggcaccgggcctcgagccggaatggcctgcagatgcacatcaaggccaagcacaggaatgagaggccacacgtatgtgagttctgcagccacgccttcacccaaaaggccaatctcaacatgcacctgcgcacacacacgggtgagaagcccttccagtgccacctctgtggcaagaccttccgaacccaagccagcctggacaagcacaaccgcacccacaccggggaaaggcccttcagttgcgagttctgtgaacagcgcttcactgagaaggggcccctcctgaggcacgtggccagccgccatcaggagggccggccccacttctgccagatatgcggcaagaccttcaaagccgtggagcaactgcgtgtgcacgtcagacggcacaagggggtgaggaagtttgagtgcaccgagtgtggctacaagtttacccgacaggcccacctgcggaggcacatggagatccacgaccgggtagagaactacaacccgcggcagcgcaagctccgcaacctgatcatcgaggacgagaagatggtggtggtggcgctgcagccgcctgcagagctggaggtgggctcggcggaggtcattgtggagtccctggcccagggcggcctggcctcccagctccccggccagagactgtgtgcagaggagagcttcaccggcccaggtgtcctggagccctccctcatcatcacagctgctgtccccgaggactgtgacacatagcccattctggccaccagagcccacttggccccacccctcaataaaccgtgtggctttggactctcgtaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"
+						.toUpperCase());
+		this.builderForward.setGeneSymbol("ZBTB48");
+		this.infoForward = builderForward.build();
+	}
+
+	@Test
+	public void testAppendToEqualsToStringForSNVs() throws InvalidGenomeChange {
+		for (Annotation anno : buildAnnotations(infoForward, 1, 1, "ACGT"))
+			assertSameRendering(anno.buildVCFAnnotationData(), "C");
+	}
+
+	@Test
+	public void testAppendToEqualsToStringForIndels() throws InvalidGenomeChange {
+		for (Annotation anno : buildAnnotations(infoForward, 0, 2, "ACGT"))
+			assertSameRendering(anno.buildVCFAnnotationData(), "CA");
+		for (Annotation anno : buildAnnotations(infoForward, 3, 0, "ACGT"))
+			assertSameRendering(anno.buildVCFAnnotationData(), "");
+	}
+
+	@Test
+	public void testAppendToEscaping() {
+		VCFAnnotationData data = new VCFAnnotationData();
+		data.effects = ImmutableSortedSet.of(VariantEffect.MISSENSE_VARIANT, VariantEffect.SPLICE_REGION_VARIANT);
+		data.impact = PutativeImpact.MODERATE;
+		data.geneSymbol = "A B,C;D\tE";
+		data.ntHGVSDescription = "c.1A>C";
+		data.aaHGVSDescription = "p.(=)";
+		data.distance = 10;
+		data.messages = ImmutableSortedSet.of(AnnotationMessage.INFO_REALIGN_3_PRIME,
+				AnnotationMessage.WARNING_REF_DOES_NOT_MATCH_GENOME);
+		assertSameRendering(data, "C");
+		Assert.assertEquals("C|missense_variant&splice_region_variant|MODERATE|A_B_C_D_E||||||c.1A>C|p.%28%3D%29||||10|"
+				+ data.messages.first() + "&" + data.messages.last(), data.appendTo(new StringBuilder(), "C", true)
+				.toString());
+	}
+
+	@Test
+	public void testAppendToReusedBuilder() {
+		VCFAnnotationData data = new VCFAnnotationData();
+		StringBuilder builder = new StringBuilder("x,");
+		data.appendTo(builder, "C", true);
+		Assert.assertEquals("x," + data.toString("C"), builder.toString());
+	}
+
+	private static void assertSameRendering(VCFAnnotationData data, String alt) {
+		Assert.assertEquals(data.toString(alt), data.appendTo(new StringBuilder(), alt, true).toString());
+		Assert.assertEquals(data.toUnescapedString(alt), data.appendTo(new StringBuilder(), alt, false).toString());
+	}
+
+	/**
+	 * Build annotations for changes in and around <code>tm</code>, every 7th position.
+	 */
+	static ArrayList<Annotation> buildAnnotations(TranscriptModel tm, int refLen, int altLen, String bases)
+			throws InvalidGenomeChange {
+		ArrayList<Annotation> result = new ArrayList<Annotation>();
+		final int beginPos = tm.getTXRegion().getBeginPos() - 100;
+		final int endPos = tm.getTXRegion().getEndPos() + 100;
+		for (int pos = beginPos; pos < endPos; pos += 7) {
+			StringBuilder ref = new StringBuilder();
+			for (int i = 0; i < refLen; ++i)
+				ref.append(bases.charAt((pos + i) % bases.length()));
+			StringBuilder alt = new StringBuilder();
+			for (int i = 0; i < altLen; ++i)
+				alt.append(bases.charAt((pos + i + 1) % bases.length()));
+			if (ref.toString().equals(alt.toString()))
+				continue;
+			GenomeVariant change = new GenomeVariant(new GenomePosition(refDict, Strand.FWD, tm.getChr(), pos,
+					PositionType.ZERO_BASED), ref.toString(), alt.toString());
+			result.add(new AnnotationBuilderDispatcher(tm, change, new AnnotationBuilderOptions()).build());
+		}
+		return result;
+	}
+
+}
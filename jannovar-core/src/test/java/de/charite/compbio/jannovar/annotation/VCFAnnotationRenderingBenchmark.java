@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Joiner;
+
+/**
+ * Micro benchmark for rendering the ANN field of multi-transcript records.
+ *
+ * Compares the <code>Joiner</code>-based rendering through {@link VCFAnnotationData#toString(String)} with
+ * {@link VCFAnnotationData#appendTo} into one reused {@link StringBuilder}. Not run as part of the tests, call
+ * {@link #main} from the test class path, optionally with the number of rounds as the first argument.
+ */
+public class VCFAnnotationRenderingBenchmark {
+
+	/** number of annotations per simulated record, as with <code>--showall</code> */
+	static final int ANNOS_PER_RECORD = 8;
+
+	public static void main(String[] args) throws InvalidGenomeChange {
+		final int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+
+		VCFAnnotationDataTest setup = new VCFAnnotationDataTest();
+		setup.setUp();
+		ArrayList<VCFAnnotationData> datas = new ArrayList<VCFAnnotationData>();
+		for (Annotation anno : VCFAnnotationDataTest.buildAnnotations(setup.infoForward, 1, 1, "ACGT"))
+			datas.add(anno.buildVCFAnnotationData());
+		for (Annotation anno : VCFAnnotationDataTest.buildAnnotations(setup.infoForward, 3, 0, "ACGT"))
+			datas.add(anno.buildVCFAnnotationData());
+		System.err.println("Rendering " + datas.size() + " annotations in records of " + ANNOS_PER_RECORD + ", "
+				+ rounds + " rounds");
+
+		// warm up both paths and check that they yield the same result
+		for (int i = 0; i < 5; ++i)
+			if (renderJoiner(datas) != renderAppend(datas, new StringBuilder()))
+				throw new Error("Rendering paths disagree");
+
+		long checksum = 0;
+		long startTime = System.nanoTime();
+		for (int i = 0; i < rounds; ++i)
+			checksum += renderJoiner(datas);
+		final double joinerSec = (System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0;
+
+		StringBuilder builder = new StringBuilder();
+		startTime = System.nanoTime();
+		for (int i = 0; i < rounds; ++i)
+			checksum -= renderAppend(datas, builder);
+		final double appendSec = (System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0;
+
+		final double records = rounds * (double) (datas.size() / ANNOS_PER_RECORD);
+		System.err.println(String.format("Joiner:   %.3f sec (%.0f records/sec)", joinerSec, records / joinerSec));
+		System.err.println(String.format("appendTo: %.3f sec (%.0f records/sec)", appendSec, records / appendSec));
+		System.err.println(String.format("speedup:  %.2fx (checksum %d)", joinerSec / appendSec, checksum));
+	}
+
+	/** @return total length of the rendered records, using the <code>Joiner</code>-based path */
+	private static long renderJoiner(List<VCFAnnotationData> datas) {
+		long result = 0;
+		for (int i = 0; i + ANNOS_PER_RECORD <= datas.size(); i += ANNOS_PER_RECORD) {
+			ArrayList<String> annotations = new ArrayList<String>();
+			for (VCFAnnotationData data : datas.subList(i, i + ANNOS_PER_RECORD))
+				annotations.add(data.toString("C"));
+			result += Joiner.on(',').join(annotations).length();
+		}
+		return result;
+	}
+
+	/** @return total length of the rendered records, using {@link VCFAnnotationData#appendTo} */
+	private static long renderAppend(List<VCFAnnotationData> datas, StringBuilder builder) {
+		long result = 0;
+		for (int i = 0; i + ANNOS_PER_RECORD <= datas.size(); i += ANNOS_PER_RECORD) {
+			builder.setLength(0);
+			for (int j = i; j < i + ANNOS_PER_RECORD; ++j) {
+				if (j != i)
+					builder.append(',');
+				datas.get(j).appendTo(builder, "C", true);
+			}
+			result += builder.toString().length();
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,72 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+public class VariantAnnotatorTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	JannovarData data;
+
+	private static TranscriptModel buildTranscript(String name, int txStart, int txEnd) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, name + "\tchr1\t+\t"
+				+ txStart + "\t" + txEnd + "\t" + txStart + "\t" + txEnd + "\t1\t" + txStart + ",\t" + txEnd + ",\t"
+				+ name + "\t" + name);
+		builder.setGeneSymbol(name.toUpperCase());
+		builder.setSequence(Strings.repeat("A", txEnd - txStart));
+		return builder.build();
+	}
+
+	@Before
+	public void setUp() {
+		this.data = new JannovarData(refDict, ImmutableList.of(buildTranscript("a", 1000, 2000),
+				buildTranscript("b", 2300, 3000), buildTranscript("c", 2400, 2800), buildTranscript("d", 10000,
+						11000)));
+	}
+
+	/** @return map from transcript accession to effects of the annotations of the SNV at <code>pos</code> */
+	private Map<String, String> annotate(AnnotationBuilderOptions options, int pos) throws AnnotationException {
+		VariantAnnotator annotator = new VariantAnnotator(refDict, data.getChromosomes(), options);
+		TreeMap<String, String> result = new TreeMap<String, String>();
+		for (Annotation anno : annotator.buildAnnotations(1, pos, "A", "C", PositionType.ZERO_BASED)
+				.getAnnotations())
+			result.put(anno.getTranscript().getAccession(), anno.getEffects().toString());
+		return result;
+	}
+
+	// all transcripts within the upstream/downstream length are annotated, not only the nearest ones
+	@Test
+	public void testUpstreamDownstreamWithinLength() throws AnnotationException {
+		Assert.assertEquals(ImmutableMap.of("a", "[DOWNSTREAM_GENE_VARIANT]", "b", "[UPSTREAM_GENE_VARIANT]", "c",
+				"[UPSTREAM_GENE_VARIANT]"), annotate(new AnnotationBuilderOptions(), 2100));
+	}
+
+	// the nearest transcripts are annotated as before, further transcripts only if upstream/downstream
+	@Test
+	public void testUpstreamDownstreamShorterLength() throws AnnotationException {
+		Assert.assertEquals(ImmutableMap.of("a", "[DOWNSTREAM_GENE_VARIANT]", "b", "[UPSTREAM_GENE_VARIANT]"),
+				annotate(new AnnotationBuilderOptions(true, 250), 2100));
+		Assert.assertEquals(ImmutableMap.of("a", "[INTERGENIC_VARIANT]", "b", "[INTERGENIC_VARIANT]"),
+				annotate(new AnnotationBuilderOptions(true, 50), 2100));
+	}
+
+}
@@ -0,0 +1,54 @@
+package de.charite.compbio.jannovar.annotation.builders;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import de.charite.compbio.jannovar.impl.util.Translator;
+import de.charite.compbio.jannovar.reference.TranscriptSequenceDecorator;
+
+public class SNVEffectTableTest {
+
+	@Test
+	public void testEncoding() {
+		Assert.assertEquals(0, SNVEffectTable.encodeCodon('A', 'A', 'A'));
+		Assert.assertEquals(63, SNVEffectTable.encodeCodon('T', 'T', 'T'));
+		Assert.assertEquals("ATG", SNVEffectTable.toString(SNVEffectTable.encodeCodon('A', 'T', 'G')));
+		Assert.assertEquals(-1, SNVEffectTable.encodeCodon('A', 'N', 'G'));
+		Assert.assertEquals(-1, SNVEffectTable.encodeCodon('a', 'T', 'G'));
+		Assert.assertEquals("ACG", SNVEffectTable.toString(SNVEffectTable.substitute(
+				SNVEffectTable.encodeCodon('A', 'T', 'G'), 1, SNVEffectTable.encode('C'))));
+	}
+
+	/** compare all entries of the table with the translation of the codons */
+	@Test
+	public void testAgainstTranslator() {
+		final Translator translator = Translator.getTranslator();
+		final String bases = "ACGT";
+		for (int codon = 0; codon < 64; ++codon) {
+			final String codonStr = SNVEffectTable.toString(codon);
+			final String wtAA = translator.translateDNA3(codonStr);
+			Assert.assertEquals(wtAA, SNVEffectTable.getAminoAcid(codon));
+			for (int frame = 0; frame < 3; ++frame)
+				for (int alt = 0; alt < 4; ++alt) {
+					final String varCodon = TranscriptSequenceDecorator.codonWithUpdatedBase(codonStr, frame,
+							bases.charAt(alt));
+					final String varAA = translator.translateDNA3(varCodon);
+					Assert.assertEquals(varCodon, SNVEffectTable.toString(SNVEffectTable.substitute(codon, frame, alt)));
+
+					final VariantEffect expected;
+					if (wtAA.equals(varAA))
+						expected = VariantEffect.SYNONYMOUS_VARIANT;
+					else if (wtAA.equals("*"))
+						expected = VariantEffect.STOP_LOST;
+					else if (varAA.equals("*"))
+						expected = VariantEffect.STOP_GAINED;
+					else
+						expected = VariantEffect.MISSENSE_VARIANT;
+					Assert.assertEquals(codonStr + " " + frame + " " + alt, expected,
+							SNVEffectTable.getEffect(codon, frame, alt));
+				}
+		}
+	}
+
+}
@@ -116,6 +116,15 @@ public class StructuralVariantAnnotationBuilderTest {
 		Assert.assertEquals(null, anno.getAminoAcidHGVSDescription());
 	}
 
+	@Test
+	public void testSVInversionOnlyACGT() throws InvalidGenomeChange {
+		// IUPAC codes are not complemented when detecting inversions, "AYCG" is no inversion of "CGRT"
+		final GenomeVariant change = new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, 6640062,
+				PositionType.ZERO_BASED), "CGRT", "AYCG");
+		final Annotation anno = new StructuralVariantAnnotationBuilder(infoForward, change).build();
+		Assert.assertFalse(anno.getNucleotideHGVSDescription().endsWith("inv"));
+	}
+
 	@Test
 	public void testSVInversionIntergenic() throws InvalidGenomeChange {
 		final GenomeVariant change = new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, 6640062,
@@ -0,0 +1,207 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+public class JannovarDataSerializerTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	JannovarData data;
+
+	private static TranscriptModel buildTranscript(String name, String chr, int txStart, int txEnd) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, name + "\t" + chr
+				+ "\t+\t" + txStart + "\t" + txEnd + "\t" + txStart + "\t" + txEnd + "\t1\t" + txStart + ",\t" + txEnd
+				+ ",\t" + name + "\t" + name);
+		builder.setGeneSymbol(name.toUpperCase());
+		builder.setSequence("ACGTNacgt");
+		return builder.build();
+	}
+
+	@Before
+	public void setUp() {
+		this.data = new JannovarData(refDict, ImmutableList.of(buildTranscript("a", "chr1", 1000, 2000),
+				buildTranscript("b", "chr1", 3000, 4000), buildTranscript("c", "chr2", 1000, 2000),
+				buildTranscript("d", "chr22", 1000, 2000)));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws SerializationException, IOException {
+		final String path = tmpFolder.newFile("data.ser").getPath();
+		new JannovarDataSerializer(path).save(data);
+		JannovarData loaded = new JannovarDataSerializer(path).load();
+
+		Assert.assertEquals(data.getChromosomes().keySet(), loaded.getChromosomes().keySet());
+		Assert.assertEquals(Lists.newArrayList("a", "b", "c", "d"),
+				Lists.newArrayList(loaded.getTmByAccession().keySet()));
+		Assert.assertEquals(data.getTmByAccession().get("a"), loaded.getTmByAccession().get("a"));
+		Assert.assertEquals("ACGTNacgt", loaded.getTmByAccession().get("a").getSequence());
+		Assert.assertEquals(1, loaded.getTmByGeneSymbol().get("A").size());
+		Assert.assertEquals(data.getRefDict().getContigNameToID(), loaded.getRefDict().getContigNameToID());
+		// all sections share the same reference dictionary
+		for (Chromosome chrom : loaded.getChromosomes().values())
+			Assert.assertSame(loaded.getRefDict(), chrom.getRefDict());
+	}
+
+	@Test
+	public void testLoadSelectedContigs() throws SerializationException, IOException {
+		final String path = tmpFolder.newFile("data.ser").getPath();
+		new JannovarDataSerializer(path).save(data);
+		JannovarData loaded = new JannovarDataSerializer(path).load(ImmutableList.of("chr2", "22", "unknown"));
+
+		Assert.assertEquals(ImmutableSet.of(2, 22), loaded.getChromosomes().keySet());
+		Assert.assertEquals(Lists.newArrayList("c", "d"), Lists.newArrayList(loaded.getTmByAccession().keySet()));
+		Assert.assertEquals(2, loaded.getNumTranscripts());
+		Assert.assertEquals(data.getRefDict().getContigNameToID(), loaded.getRefDict().getContigNameToID());
+	}
+
+	@Test
+	public void testLoadOldFormat() throws SerializationException, IOException {
+		final File file = tmpFolder.newFile("data.ser");
+		ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new FileOutputStream(file)));
+		out.writeObject(data);
+		out.close();
+
+		JannovarData loaded = new JannovarDataSerializer(file.getPath()).load();
+		Assert.assertEquals(data.getChromosomes().keySet(), loaded.getChromosomes().keySet());
+		Assert.assertEquals(Lists.newArrayList("a", "b", "c", "d"),
+				Lists.newArrayList(loaded.getTmByAccession().keySet()));
+
+		JannovarData selected = new JannovarDataSerializer(file.getPath()).load(ImmutableList.of("chr1"));
+		Assert.assertEquals(ImmutableSet.of(1), selected.getChromosomes().keySet());
+		Assert.assertEquals(Lists.newArrayList("a", "b"), Lists.newArrayList(selected.getTmByAccession().keySet()));
+	}
+
+	@Test
+	public void testParallelSameAsSequential() throws SerializationException, IOException {
+		final File sequential = tmpFolder.newFile("sequential.ser");
+		new JannovarDataSerializer(sequential.getPath()).save(data);
+		final File parallel = tmpFolder.newFile("parallel.ser");
+		new JannovarDataSerializer(parallel.getPath(), 4).save(data);
+		Assert.assertArrayEquals(Files.toByteArray(sequential), Files.toByteArray(parallel));
+
+		JannovarData loaded = new JannovarDataSerializer(parallel.getPath(), 4).load();
+		Assert.assertEquals(Lists.newArrayList(data.getChromosomes().keySet()),
+				Lists.newArrayList(loaded.getChromosomes().keySet()));
+		Assert.assertEquals(Lists.newArrayList("a", "b", "c", "d"),
+				Lists.newArrayList(loaded.getTmByAccession().keySet()));
+	}
+
+	/** @return accessions of <code>tms</code> */
+	private static ArrayList<String> accessions(ImmutableList<TranscriptModel> tms) {
+		ArrayList<String> result = new ArrayList<String>();
+		for (TranscriptModel tm : tms)
+			result.add(tm.getAccession());
+		return result;
+	}
+
+	/** @return <code>data</code> with "c" on chr2 changed, "e" added on chr2, and "d" on chr22 removed */
+	private JannovarData buildChangedData() {
+		return new JannovarData(refDict, ImmutableList.of(buildTranscript("a", "chr1", 1000, 2000),
+				buildTranscript("b", "chr1", 3000, 4000), buildTranscript("c", "chr2", 1000, 2500),
+				buildTranscript("e", "chr2", 5000, 6000)));
+	}
+
+	@Test
+	public void testSaveIncremental() throws SerializationException, IOException {
+		final File file = tmpFolder.newFile("data.ser");
+		new JannovarDataSerializer(file.getPath()).save(data);
+		final JannovarData changedData = buildChangedData();
+		JannovarDataDiff diff = new JannovarDataSerializer(file.getPath()).saveIncremental(changedData,
+				file.getPath());
+
+		Assert.assertEquals(Lists.newArrayList("e"), accessions(diff.getAdded()));
+		Assert.assertEquals(Lists.newArrayList("d"), accessions(diff.getRemoved()));
+		Assert.assertEquals(Lists.newArrayList("c"), accessions(diff.getChanged()));
+		Assert.assertEquals(2500, diff.getChanged().get(0).getTXRegion().getEndPos());
+		// JannovarData has a (possibly empty) Chromosome for all 25 contigs
+		Assert.assertEquals(23, diff.getNumUnchangedContigs());
+		Assert.assertEquals(2, diff.getNumChangedContigs());
+		// no temporary file is left behind
+		Assert.assertEquals(Lists.newArrayList("data.ser"), Lists.newArrayList(tmpFolder.getRoot().list()));
+
+		// same file as when saving from scratch
+		final File full = tmpFolder.newFile("full.ser");
+		new JannovarDataSerializer(full.getPath()).save(changedData);
+		Assert.assertArrayEquals(Files.toByteArray(full), Files.toByteArray(file));
+		JannovarData loaded = new JannovarDataSerializer(file.getPath()).load();
+		Assert.assertEquals(changedData.getChromosomes().keySet(), loaded.getChromosomes().keySet());
+		Assert.assertEquals(Lists.newArrayList("a", "b", "c", "e"),
+				Lists.newArrayList(loaded.getTmByAccession().keySet()));
+
+		// saving again does not find differences
+		diff = new JannovarDataSerializer(file.getPath(), 4).saveIncremental(changedData, file.getPath());
+		Assert.assertTrue(diff.isEmpty());
+		Assert.assertEquals(25, diff.getNumUnchangedContigs());
+		Assert.assertEquals(0, diff.getNumChangedContigs());
+		Assert.assertArrayEquals(Files.toByteArray(full), Files.toByteArray(file));
+	}
+
+	@Test
+	public void testSaveIncrementalFromOldFormat() throws SerializationException, IOException {
+		final File previous = tmpFolder.newFile("previous.ser");
+		ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new FileOutputStream(previous)));
+		out.writeObject(data);
+		out.close();
+
+		final File file = new File(tmpFolder.getRoot(), "data.ser");
+		JannovarDataDiff diff = new JannovarDataSerializer(file.getPath()).saveIncremental(buildChangedData(),
+				previous.getPath());
+		Assert.assertEquals(Lists.newArrayList("e"), accessions(diff.getAdded()));
+		Assert.assertEquals(Lists.newArrayList("d"), accessions(diff.getRemoved()));
+		Assert.assertEquals(Lists.newArrayList("c"), accessions(diff.getChanged()));
+		Assert.assertEquals(23, diff.getNumUnchangedContigs());
+
+		final File full = tmpFolder.newFile("full.ser");
+		new JannovarDataSerializer(full.getPath()).save(buildChangedData());
+		Assert.assertArrayEquals(Files.toByteArray(full), Files.toByteArray(file));
+	}
+
+	@Test
+	public void testSaveIncrementalWithoutPrevious() throws SerializationException, IOException {
+		final File file = new File(tmpFolder.getRoot(), "data.ser");
+		JannovarDataDiff diff = new JannovarDataSerializer(file.getPath()).saveIncremental(data, file.getPath());
+		Assert.assertEquals(Lists.newArrayList("a", "b", "c", "d"), accessions(diff.getAdded()));
+		Assert.assertTrue(diff.getRemoved().isEmpty());
+		Assert.assertTrue(diff.getChanged().isEmpty());
+		Assert.assertEquals(0, diff.getNumUnchangedContigs());
+		Assert.assertEquals(25, diff.getNumChangedContigs());
+		Assert.assertEquals(4, new JannovarDataSerializer(file.getPath()).load().getNumTranscripts());
+	}
+
+	@Test(expected = SerializationException.class)
+	public void testLoadTruncated() throws SerializationException, IOException {
+		final File file = tmpFolder.newFile("data.ser");
+		new JannovarDataSerializer(file.getPath()).save(data);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(file.length() - 1);
+		raf.close();
+		new JannovarDataSerializer(file.getPath()).load();
+	}
+
+}
@@ -0,0 +1,181 @@
+package de.charite.compbio.jannovar.data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+import de.charite.compbio.jannovar.reference.TranscriptSequenceOntologyDecorator;
+
+public class JannovarDataTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	JannovarData data;
+
+	private static TranscriptModel buildTranscript(String name, String chr, int txStart, int txEnd) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, name + "\t" + chr
+				+ "\t+\t" + txStart + "\t" + txEnd + "\t" + txStart + "\t" + txEnd + "\t1\t" + txStart + ",\t" + txEnd
+				+ ",\t" + name + "\t" + name);
+		builder.setGeneSymbol(name.toUpperCase());
+		return builder.build();
+	}
+
+	@Before
+	public void setUp() {
+		this.data = new JannovarData(refDict, ImmutableList.of(buildTranscript("a", "chr1", 1000, 2000),
+				buildTranscript("b", "chr1", 3000, 4000), buildTranscript("c", "chr1", 3500, 4000),
+				buildTranscript("d", "chr1", 10000, 11000), buildTranscript("e", "chr1", 12000, 13000),
+				buildTranscript("f", "chr1", 20000, 21000), buildTranscript("g", "chr2", 1000, 2000)));
+	}
+
+	private static ArrayList<String> getAccessions(JannovarData data) {
+		return Lists.newArrayList(data.getTmByAccession().keySet());
+	}
+
+	@Test
+	public void testRestrictedToKeepsOverlappingAndNeighbors() {
+		// region between c and d, overlapping with neither
+		GenomeInterval region = new GenomeInterval(refDict, Strand.FWD, 1, 5000, 6000, PositionType.ZERO_BASED);
+		JannovarData restricted = data.restrictedTo(ImmutableList.of(region));
+
+		// b and c are tied as left neighbor
+		Assert.assertEquals(Lists.newArrayList("b", "c", "d"), getAccessions(restricted));
+		Assert.assertEquals(data.getChromosomes().keySet(), restricted.getChromosomes().keySet());
+		Assert.assertSame(data.getRefDict(), restricted.getRefDict());
+	}
+
+	@Test
+	public void testRestrictedToKeepsUpDownstream() {
+		// region between a and b, c is not the closest right neighbor but within the downstream length
+		GenomeInterval region = new GenomeInterval(refDict, Strand.FWD, 1, 2600, 2700, PositionType.ZERO_BASED);
+		JannovarData restricted = data.restrictedTo(ImmutableList.of(region));
+
+		Assert.assertEquals(Lists.newArrayList("a", "b", "c"), getAccessions(restricted));
+	}
+
+	@Test
+	public void testRestrictedToOverlapping() {
+		GenomeInterval region1 = new GenomeInterval(refDict, Strand.FWD, 1, 10500, 12500, PositionType.ZERO_BASED);
+		GenomeInterval region2 = new GenomeInterval(refDict, Strand.FWD, 2, 0, 100, PositionType.ZERO_BASED);
+		JannovarData restricted = data.restrictedTo(ImmutableList.of(region1, region2));
+
+		Assert.assertEquals(Lists.newArrayList("b", "c", "d", "e", "f", "g"), getAccessions(restricted));
+	}
+
+	@Test
+	public void testRestrictedToSameNeighbors() {
+		GenomeInterval region = new GenomeInterval(refDict, Strand.FWD, 1, 5000, 6000, PositionType.ZERO_BASED);
+		JannovarData restricted = data.restrictedTo(ImmutableList.of(region));
+
+		for (int pos = 5000; pos < 6000; pos += 100) {
+			Assert.assertEquals(data.getChromosomes().get(1).getTMIntervalTree().findOverlappingWithPoint(pos)
+					.getRight(), restricted.getChromosomes().get(1).getTMIntervalTree().findOverlappingWithPoint(pos)
+					.getRight());
+			Assert.assertEquals(data.getChromosomes().get(1).getTMIntervalTree().findOverlappingWithPoint(pos)
+					.getLeft(), restricted.getChromosomes().get(1).getTMIntervalTree().findOverlappingWithPoint(pos)
+					.getLeft());
+		}
+	}
+
+	@Test
+	public void testRestrictedToSameAsScan() {
+		// random transcripts and regions, compare with selecting by scanning all transcripts for each region
+		Random rand = new Random(42);
+		ImmutableList.Builder<TranscriptModel> builder = new ImmutableList.Builder<TranscriptModel>();
+		for (int i = 0; i < 200; ++i) {
+			final int begin = rand.nextInt(200000);
+			builder.add(buildTranscript("t" + i, "chr1", begin, begin + 1 + rand.nextInt(5000)));
+		}
+		JannovarData data = new JannovarData(refDict, builder.build());
+		ArrayList<GenomeInterval> regions = new ArrayList<GenomeInterval>();
+		for (int i = 0; i < 20; ++i) {
+			final int begin = rand.nextInt(210000);
+			regions.add(new GenomeInterval(refDict, Strand.FWD, 1, begin, begin + rand.nextInt(3000),
+					PositionType.ZERO_BASED));
+		}
+
+		final int maxDistance = TranscriptSequenceOntologyDecorator.DEFAULT_UP_DOWNSTREAM_LENGTH;
+		HashSet<String> expected = new HashSet<String>();
+		for (GenomeInterval region : regions) {
+			int leftEnd = Integer.MIN_VALUE;
+			int rightBegin = Integer.MAX_VALUE;
+			for (TranscriptModel tm : data.getTmByAccession().values()) {
+				if (tm.getTXRegion().getEndPos() <= region.getBeginPos())
+					leftEnd = Math.max(leftEnd, tm.getTXRegion().getEndPos());
+				if (tm.getTXRegion().getBeginPos() >= region.getEndPos())
+					rightBegin = Math.min(rightBegin, tm.getTXRegion().getBeginPos());
+			}
+			for (TranscriptModel tm : data.getTmByAccession().values())
+				if ((tm.getTXRegion().getEndPos() + maxDistance >= region.getBeginPos() && tm.getTXRegion()
+						.getBeginPos() - maxDistance <= region.getEndPos())
+						|| tm.getTXRegion().getEndPos() == leftEnd || tm.getTXRegion().getBeginPos() == rightBegin)
+					expected.add(tm.getAccession());
+		}
+
+		Assert.assertEquals(expected, new HashSet<String>(getAccessions(data.restrictedTo(regions))));
+	}
+
+	@Test
+	public void testParallelConstructionSameAsSequential() {
+		ImmutableList.Builder<TranscriptModel> builder = new ImmutableList.Builder<TranscriptModel>();
+		for (int i = 0; i < 100; ++i)
+			builder.add(buildTranscript("t" + i, "chr" + (1 + i % 22), 1000 * (100 - i), 1000 * (100 - i) + 500));
+		final ImmutableList<TranscriptModel> transcripts = builder.build();
+		JannovarData sequential = new JannovarData(refDict, transcripts);
+		JannovarData parallel = new JannovarData(refDict, transcripts, 4);
+
+		Assert.assertEquals(Lists.newArrayList(sequential.getChromosomes().keySet()),
+				Lists.newArrayList(parallel.getChromosomes().keySet()));
+		Assert.assertEquals(getAccessions(sequential), getAccessions(parallel));
+		for (Integer chrID : sequential.getChromosomes().keySet())
+			Assert.assertEquals(sequential.getChromosomes().get(chrID).getTMIntervalTree().getIntervals().toString(),
+					parallel.getChromosomes().get(chrID).getTMIntervalTree().getIntervals().toString());
+	}
+
+	@Test
+	public void testMerge() {
+		JannovarData other = new JannovarData(refDict, ImmutableList.of(buildTranscript("a", "chr1", 1000, 2500),
+				buildTranscript("x", "chr1", 5000, 6000), buildTranscript("y", "chr3", 1000, 2000)));
+		JannovarData merged = JannovarData.merge(ImmutableList.of(data, other), 2);
+
+		Assert.assertSame(data.getRefDict(), merged.getRefDict());
+		Assert.assertEquals(Lists.newArrayList("a", "b", "c", "x", "d", "e", "f", "g", "y"), getAccessions(merged));
+		// the transcript from the first database wins
+		Assert.assertEquals(2000, merged.getTmByAccession().get("a").getTXRegion().getEndPos());
+		Assert.assertEquals("x", merged.getChromosomes().get(1).getTMIntervalTree().findOverlappingWithPoint(5500)
+				.getEntries().get(0).getAccession());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeDisagreeingRefDicts() {
+		ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+		builder.putContigID("chr1", 2);
+		builder.putContigName(2, "chr1");
+		builder.putContigLength(2, 1000000);
+		JannovarData other = new JannovarData(builder.build(), ImmutableList.<TranscriptModel> of());
+		JannovarData.merge(ImmutableList.of(data, other), 1);
+	}
+
+	@Test
+	public void testRestrictedToEmpty() {
+		JannovarData restricted = data.restrictedTo(ImmutableList.<GenomeInterval> of());
+
+		Assert.assertTrue(restricted.getTmByAccession().isEmpty());
+	}
+
+}
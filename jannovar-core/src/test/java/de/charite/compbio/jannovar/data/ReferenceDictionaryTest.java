@@ -0,0 +1,75 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+
+public class ReferenceDictionaryTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	@Test
+	public void testLookupsMatchMaps() {
+		for (Integer id : refDict.getContigIDToLength().keySet())
+			Assert.assertEquals(refDict.getContigIDToLength().get(id).intValue(), refDict.getContigLength(id));
+		for (Integer id : refDict.getContigIDToName().keySet())
+			Assert.assertEquals(refDict.getContigIDToName().get(id), refDict.getContigName(id));
+		Assert.assertNull(refDict.getContigName(1000));
+		Assert.assertNull(refDict.getContigName(-1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownContigLength() {
+		refDict.getContigLength(1000);
+	}
+
+	@Test
+	public void testSparseIDs() {
+		ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+		builder.putContigID("chr1", 1);
+		builder.putContigName(1, "chr1");
+		builder.putContigLength(1, 1000);
+		builder.putContigID("chrUn", 100000000);
+		builder.putContigName(100000000, "chrUn");
+		builder.putContigLength(100000000, 2000);
+		ReferenceDictionary dict = builder.build();
+
+		Assert.assertEquals(1000, dict.getContigLength(1));
+		Assert.assertEquals(2000, dict.getContigLength(100000000));
+		Assert.assertEquals("chrUn", dict.getContigName(100000000));
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(refDict);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		ReferenceDictionary result = (ReferenceDictionary) ois.readObject();
+
+		Assert.assertEquals(refDict.getContigLength(23), result.getContigLength(23));
+		Assert.assertEquals(refDict.getContigName(25), result.getContigName(25));
+	}
+
+	@Test
+	public void testContigIDCache() {
+		ContigIDCache cache = new ContigIDCache(refDict);
+		final String name = "chr2";
+		Assert.assertEquals(Integer.valueOf(2), cache.getContigID(name));
+		Assert.assertEquals(Integer.valueOf(2), cache.getContigID(name));
+		Assert.assertEquals(Integer.valueOf(2), cache.getContigID(new String("chr2")));
+		Assert.assertEquals(Integer.valueOf(23), cache.getContigID("X"));
+		Assert.assertNull(cache.getContigID("chrUn_gl000220"));
+		Assert.assertNull(cache.getContigID("chrUn_gl000220"));
+		Assert.assertEquals(Integer.valueOf(2), cache.getContigID(name));
+	}
+
+}
@@ -6,6 +6,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
 import de.charite.compbio.jannovar.impl.intervals.IntervalEndExtractor;
 
@@ -261,4 +263,42 @@ public class IntervalArrayTest {
 		Assert.assertEquals(new Triple(15, 36, "b"), res.getEntries().get(0));
 	}
 
-}
\ No newline at end of file
+	// Tests neighbors within distance, ordered by distance and left before right on ties
+	@Test
+	public void testNeighborsWithinDistance() {
+		IntervalArray<Triple> tree = new IntervalArray<Triple>(getList1(), new TripleEndExtractor());
+
+		Assert.assertEquals(ImmutableList.of(new Triple(16, 20, "e")), tree.findNeighborsWithinDistance(20, 21, 2));
+		Assert.assertEquals(ImmutableList.of(new Triple(16, 20, "e"), new Triple(11, 16, "f")),
+				tree.findNeighborsWithinDistance(20, 21, 4));
+		Assert.assertEquals(
+				ImmutableList.of(new Triple(16, 20, "e"), new Triple(11, 16, "f"), new Triple(30, 67, "g")),
+				tree.findNeighborsWithinDistance(20, 21, 9));
+		Assert.assertEquals(ImmutableList.of(), tree.findNeighborsWithinDistance(512, 513, 100));
+	}
+
+	// Tests overlapping intervals not being returned as neighbors
+	@Test
+	public void testNeighborsWithinDistanceOverlapping() {
+		IntervalArray<Triple> tree = new IntervalArray<Triple>(getList1(), new TripleEndExtractor());
+
+		Assert.assertEquals(ImmutableList.of(new Triple(1, 4, "a"), new Triple(16, 20, "e")),
+				tree.findNeighborsWithinDistance(6, 12, 5));
+		Assert.assertEquals(ImmutableList.of(new Triple(1, 4, "a"), new Triple(11, 16, "f")),
+				tree.findNeighborsWithinDistance(5, 8, 3));
+	}
+
+	// Tests k nearest neighbors
+	@Test
+	public void testNearestNeighbors() {
+		IntervalArray<Triple> tree = new IntervalArray<Triple>(getList1(), new TripleEndExtractor());
+
+		Assert.assertEquals(ImmutableList.of(new Triple(16, 20, "e")), tree.findNearestNeighbors(22, 23, 1));
+		Assert.assertEquals(ImmutableList.of(new Triple(16, 20, "e"), new Triple(11, 16, "f"),
+				new Triple(30, 67, "g"), new Triple(5, 9, "b")), tree.findNearestNeighbors(22, 23, 4));
+		Assert.assertEquals(7, tree.findNearestNeighbors(100, 101, 10).size());
+		Assert.assertEquals(new Triple(30, 67, "g"), tree.findNearestNeighbors(100, 101, 10).get(0));
+		Assert.assertEquals(ImmutableList.of(), tree.findNearestNeighbors(22, 23, 0));
+	}
+
+}
@@ -0,0 +1,154 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import java.util.Random;
+
+import de.charite.compbio.jannovar.reference.NucleotideSequence;
+
+/**
+ * Micro benchmark for the sequence kernels in {@link DNAUtils}.
+ *
+ * Compares each kernel with the previous implementation: reverse-complement through a <code>StringBuffer</code>,
+ * inversion detection through a reversed <code>StringBuilder</code>, duplication checks through
+ * <code>substring().equals()</code> on the transcript sequence as a <code>String</code>, and the 3' shift of insertions on a copy of the sequence with the insertion. Not
+ * run as part of the tests, call {@link #main} from the test class path, optionally with the number of rounds as the
+ * first argument.
+ */
+public class DNAUtilsBenchmark {
+
+	/** length of the simulated transcript */
+	static final int SEQ_LENGTH = 3000;
+
+	/** length of the simulated SV alleles */
+	static final int SV_LENGTH = 2000;
+
+	public static void main(String[] args) {
+		final int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+		final Random rand = new Random(42);
+		final String seq = randomSequence(rand, SEQ_LENGTH);
+		final String sv = randomSequence(rand, SV_LENGTH);
+		final String svInv = DNAUtils.reverseComplement(sv);
+		final NucleotideSequence packedSeq = new NucleotideSequence(seq);
+
+		long checksum = 0;
+		for (int warmUp = 0; warmUp < 2; ++warmUp) {
+			System.err.println(warmUp == 0 ? "warm-up" : "measurement (" + rounds + " rounds)");
+
+			long startTime = System.nanoTime();
+			for (int i = 0; i < rounds; ++i)
+				checksum += oldReverseComplement(sv).length();
+			final double oldRC = elapsed(startTime);
+			startTime = System.nanoTime();
+			for (int i = 0; i < rounds; ++i)
+				checksum -= DNAUtils.reverseComplement(sv).length();
+			print("reverseComplement", oldRC, elapsed(startTime));
+
+			startTime = System.nanoTime();
+			for (int i = 0; i < rounds; ++i)
+				checksum += oldIsInversion(svInv, sv) ? 1 : 0;
+			final double oldInv = elapsed(startTime);
+			startTime = System.nanoTime();
+			for (int i = 0; i < rounds; ++i)
+				checksum -= DNAUtils.isReverseComplement(svInv, sv) ? 1 : 0;
+			print("isReverseComplement", oldInv, elapsed(startTime));
+
+			final String ins = seq.substring(1000, 1012);
+			startTime = System.nanoTime();
+			for (int i = 0; i < rounds; ++i)
+				checksum += oldIsDuplication(packedSeq.toString(), ins, 1012 + (i & 1)) ? 1 : 0;
+			final double oldDup = elapsed(startTime);
+			startTime = System.nanoTime();
+			for (int i = 0; i < rounds; ++i)
+				checksum -= (DNAUtils.regionMatches(packedSeq, 1012 + (i & 1), ins) || DNAUtils.regionMatches(
+						packedSeq, 1012 + (i & 1) - ins.length(), ins)) ? 1 : 0;
+			print("regionMatches", oldDup, elapsed(startTime));
+
+			startTime = System.nanoTime();
+			for (int i = 0; i < rounds; ++i)
+				checksum += oldInsertionShift(packedSeq.toString(), ins, 1000);
+			final double oldShift = elapsed(startTime);
+			startTime = System.nanoTime();
+			for (int i = 0; i < rounds; ++i)
+				checksum -= DNAUtils.insertionShift(packedSeq, ins, 1000, seq.length() + ins.length());
+			print("insertionShift", oldShift, elapsed(startTime));
+		}
+		System.err.println("checksum (must be 0): " + checksum);
+	}
+
+	private static String randomSequence(Random rand, int length) {
+		final char[] result = new char[length];
+		for (int i = 0; i < length; ++i)
+			result[i] = "ACGT".charAt(rand.nextInt(4));
+		return new String(result);
+	}
+
+	private static double elapsed(long startTime) {
+		return (System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0;
+	}
+
+	private static void print(String name, double oldSec, double newSec) {
+		System.err.println(String.format("  %-20s old: %.3f sec, new: %.3f sec, speedup: %.2fx", name, oldSec, newSec,
+				oldSec / newSec));
+	}
+
+	/** previous implementation of {@link DNAUtils#reverseComplement} */
+	private static String oldReverseComplement(String sq) {
+		StringBuffer sb = new StringBuffer();
+		for (int i = sq.length() - 1; i >= 0; i--) {
+			char c = sq.charAt(i);
+			char match = 0;
+			switch (c) {
+			case 'A':
+				match = 'T';
+				break;
+			case 'C':
+				match = 'G';
+				break;
+			case 'G':
+				match = 'C';
+				break;
+			case 'T':
+				match = 'A';
+				break;
+			case 'N':
+				match = 'N';
+				break;
+			}
+			if (match > 0)
+				sb.append(match);
+		}
+		return sb.toString();
+	}
+
+	/** previous inversion check of the structural variant annotation builder */
+	private static boolean oldIsInversion(String ref, String alt) {
+		StringBuilder altRC = new StringBuilder(alt).reverse();
+		for (int i = 0; i < altRC.length(); ++i)
+			if (altRC.charAt(i) == 'A')
+				altRC.setCharAt(i, 'T');
+			else if (altRC.charAt(i) == 'T')
+				altRC.setCharAt(i, 'A');
+			else if (altRC.charAt(i) == 'C')
+				altRC.setCharAt(i, 'G');
+			else if (altRC.charAt(i) == 'G')
+				altRC.setCharAt(i, 'C');
+		return ref.equals(altRC.toString());
+	}
+
+	/** previous implementation of the duplication check */
+	private static boolean oldIsDuplication(String ref, String insertion, int pos) {
+		if (pos + insertion.length() <= ref.length() && ref.substring(pos, pos + insertion.length()).equals(insertion))
+			return true;
+		return (pos >= insertion.length() && ref.substring(pos - insertion.length(), pos).equals(insertion));
+	}
+
+	/** previous 3' shift of insertions, on a copy of the sequence with the insertion */
+	private static int oldInsertionShift(String seq, String ins, int insertPos) {
+		StringBuilder builder = new StringBuilder(seq);
+		builder.insert(insertPos, ins);
+		int pos = insertPos;
+		while (pos + ins.length() < builder.length() && builder.charAt(pos) == builder.charAt(pos + ins.length()))
+			++pos;
+		return pos - insertPos;
+	}
+
+}
@@ -0,0 +1,75 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DNAUtilsTest {
+
+	@Test
+	public void testReverseComplement() {
+		Assert.assertEquals("", DNAUtils.reverseComplement(""));
+		Assert.assertEquals("NACGT", DNAUtils.reverseComplement("ACGTN"));
+		Assert.assertEquals("TTGCA", DNAUtils.reverseComplement("TGCAA"));
+		// characters other than ACGTN are dropped
+		Assert.assertEquals("GC", DNAUtils.reverseComplement("GRcC"));
+	}
+
+	@Test
+	public void testComplement() {
+		Assert.assertEquals('T', DNAUtils.complement('A'));
+		Assert.assertEquals('g', DNAUtils.complement('c'));
+		Assert.assertEquals('Y', DNAUtils.complement('R'));
+		Assert.assertEquals('N', DNAUtils.complement('N'));
+		Assert.assertEquals('-', DNAUtils.complement('-'));
+	}
+
+	@Test
+	public void testIsReverseComplement() {
+		Assert.assertTrue(DNAUtils.isReverseComplement("ACCGT", "ACGGT"));
+		Assert.assertTrue(DNAUtils.isReverseComplement("", ""));
+		Assert.assertFalse(DNAUtils.isReverseComplement("ACCGT", "ACGGA"));
+		Assert.assertFalse(DNAUtils.isReverseComplement("ACCGT", "ACGG"));
+		// only upper-case ACGT are complemented, other characters have to match themselves
+		Assert.assertTrue(DNAUtils.isReverseComplement("ANC", "GNT"));
+		Assert.assertTrue(DNAUtils.isReverseComplement("aR", "Ra"));
+		Assert.assertFalse(DNAUtils.isReverseComplement("R", "Y"));
+		Assert.assertFalse(DNAUtils.isReverseComplement("acg", "cgt"));
+	}
+
+	@Test
+	public void testRegionMatches() {
+		Assert.assertTrue(DNAUtils.regionMatches("ACGTACGT", 2, "GTA"));
+		Assert.assertTrue(DNAUtils.regionMatches("ACGTACGT", 5, "CGT"));
+		Assert.assertFalse(DNAUtils.regionMatches("ACGTACGT", 6, "CGT"));
+		Assert.assertFalse(DNAUtils.regionMatches("ACGTACGT", -1, "A"));
+		Assert.assertFalse(DNAUtils.regionMatches("ACGTACGT", 1, "GTA"));
+	}
+
+	@Test
+	public void testInsertionShift() {
+		// insertion of "CA" before position 2 of "TTCACAG" can be shifted by 4 to "TTCACA[CA]G"
+		Assert.assertEquals(4, DNAUtils.insertionShift("TTCACAG", "CA", 2, 100));
+		Assert.assertEquals("CA", DNAUtils.rotateLeft("CA", 4));
+		// "AC" before position 3 can be shifted by 3, yielding "CA"
+		Assert.assertEquals(3, DNAUtils.insertionShift("TTCACAG", "AC", 3, 100));
+		Assert.assertEquals("CA", DNAUtils.rotateLeft("AC", 3));
+		// bounded by maxEndPos
+		Assert.assertEquals(1, DNAUtils.insertionShift("TTCACAG", "CA", 2, 5));
+		Assert.assertEquals(0, DNAUtils.insertionShift("TTCACAG", "G", 2, 100));
+	}
+
+	@Test
+	public void testDeletionShift() {
+		// deletion of "CA" at position 2 of "TTCACAG" can be shifted by 2
+		Assert.assertEquals(2, DNAUtils.deletionShift("TTCACAG", 2, 2));
+		Assert.assertEquals(0, DNAUtils.deletionShift("TTCACAG", 5, 1));
+	}
+
+	@Test
+	public void testRotateLeft() {
+		Assert.assertEquals("", DNAUtils.rotateLeft("", 3));
+		Assert.assertEquals("CGTA", DNAUtils.rotateLeft("ACGT", 1));
+		Assert.assertEquals("TACG", DNAUtils.rotateLeft("ACGT", 7));
+	}
+
+}
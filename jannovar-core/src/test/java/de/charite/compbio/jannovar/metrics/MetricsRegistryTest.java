@@ -0,0 +1,91 @@
+package de.charite.compbio.jannovar.metrics;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.annotation.AnnotationMessage;
+
+public class MetricsRegistryTest {
+
+	@After
+	public void tearDown() {
+		Metrics.setRegistry(null);
+	}
+
+	@Test
+	public void testCounterIsCreatedOnce() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.getCounter("x").inc();
+		registry.getCounter("x").inc(2);
+		Assert.assertSame(registry.getCounter("x"), registry.getCounter("x"));
+		Assert.assertEquals(3, registry.getCounter("x").getCount());
+		Assert.assertEquals(1, registry.getCounters().size());
+	}
+
+	@Test
+	public void testTimerStatistics() {
+		Timer timer = new Timer("t");
+		for (int i = 1; i <= 100; ++i)
+			timer.update(i * 1000);
+		Assert.assertEquals(100, timer.getCount());
+		Assert.assertEquals(5050000, timer.getTotalNanos());
+		Assert.assertEquals(100000, timer.getMaxNanos());
+		Assert.assertEquals(50500.0, timer.getMeanNanos(), 0.001);
+		// quantiles are approximated within a factor of two
+		final long p50 = timer.getQuantileNanos(0.5);
+		Assert.assertTrue(p50 >= 50000 && p50 < 2 * 50000);
+		Assert.assertEquals(100000, timer.getQuantileNanos(1.0));
+	}
+
+	@Test
+	public void testEmptyTimer() {
+		Timer timer = new Timer("t");
+		Assert.assertEquals(0, timer.getQuantileNanos(0.5));
+		Assert.assertEquals(0.0, timer.getMeanNanos(), 0.0);
+	}
+
+	@Test
+	public void testRecordingDisabledByDefault() {
+		Assert.assertFalse(Metrics.isEnabled());
+		Assert.assertEquals(0, Metrics.startTimer());
+		Metrics.stopTimer("t", 0);
+		Metrics.incCounter("c", 1);
+		Assert.assertNull(Metrics.getRegistry());
+	}
+
+	@Test
+	public void testRecordingEnabled() {
+		MetricsRegistry registry = new MetricsRegistry();
+		Metrics.setRegistry(registry);
+		final long startTime = Metrics.startTimer();
+		Assert.assertTrue(startTime != 0);
+		Metrics.stopTimer("t", startTime);
+		Metrics.incCounter(Metrics.COUNTER_VARIANTS, 4);
+		Metrics.incCounter(Metrics.COUNTER_ANNOTATIONS, 10);
+		Metrics.countMessages(Arrays.asList(AnnotationMessage.INFO_REALIGN_3_PRIME,
+				AnnotationMessage.INFO_REALIGN_3_PRIME));
+		Metrics.updateDerivedGauges(2.0);
+
+		Assert.assertEquals(1, registry.getTimer("t").getCount());
+		Assert.assertEquals(2, registry.getCounter(Metrics.COUNTER_MESSAGE_PREFIX + "INFO_REALIGN_3_PRIME")
+				.getCount());
+		Assert.assertEquals(2.0, registry.getGauges().get(Metrics.GAUGE_VARIANTS_PER_SECOND), 0.001);
+		Assert.assertEquals(2.5, registry.getGauges().get(Metrics.GAUGE_ANNOTATIONS_PER_VARIANT), 0.001);
+	}
+
+	@Test
+	public void testJSON() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.getCounter("a\"b").inc();
+		registry.getTimer("t").update(2000000);
+		registry.setGauge("g", 1.5);
+		final String json = JSONMetricsReporter.toJSON(registry);
+		Assert.assertTrue(json.contains("\"a\\\"b\": 1"));
+		Assert.assertTrue(json.contains("\"g\": 1.500000"));
+		Assert.assertTrue(json.contains("\"t\": {\"count\": 1, \"total_ms\": 2.000000"));
+	}
+
+}
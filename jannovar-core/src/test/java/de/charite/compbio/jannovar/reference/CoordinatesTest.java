@@ -0,0 +1,47 @@
+package de.charite.compbio.jannovar.reference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+public class CoordinatesTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	@Test
+	public void testFlipMatchesWithStrand() {
+		GenomePosition pos = new GenomePosition(refDict, Strand.FWD, 1, 100, PositionType.ZERO_BASED);
+		Assert.assertEquals(pos.withStrand(Strand.REV).getPos(), pos.getPos(Strand.REV));
+		Assert.assertEquals(pos.getPos(), pos.getPos(Strand.FWD));
+		Assert.assertEquals(100, Coordinates.flipPos(Coordinates.flipPos(100, 1000), 1000));
+
+		GenomeInterval itv = new GenomeInterval(refDict, Strand.FWD, 1, 100, 200, PositionType.ZERO_BASED);
+		Assert.assertEquals(itv.withStrand(Strand.REV).getBeginPos(), itv.getBeginPos(Strand.REV));
+		Assert.assertEquals(itv.withStrand(Strand.REV).getEndPos(), itv.getEndPos(Strand.REV));
+	}
+
+	@Test
+	public void testComparisonsAcrossStrands() {
+		GenomeInterval itv = new GenomeInterval(refDict, Strand.FWD, 1, 100, 200, PositionType.ZERO_BASED);
+		GenomePosition inside = new GenomePosition(refDict, Strand.FWD, 1, 150, PositionType.ZERO_BASED)
+				.withStrand(Strand.REV);
+		GenomePosition right = new GenomePosition(refDict, Strand.FWD, 1, 200, PositionType.ZERO_BASED)
+				.withStrand(Strand.REV);
+		Assert.assertTrue(itv.contains(inside));
+		Assert.assertFalse(itv.contains(right));
+		Assert.assertTrue(itv.isLeftOf(right));
+		Assert.assertTrue(itv.contains(itv.withStrand(Strand.REV)));
+		Assert.assertEquals(50, right.withStrand(Strand.FWD).differenceTo(inside));
+	}
+
+	@Test
+	public void testIntersectionLength() {
+		Assert.assertEquals(10, Coordinates.intersectionLength(0, 10, 0, 20));
+		Assert.assertEquals(5, Coordinates.intersectionLength(5, 10, 0, 20));
+		Assert.assertEquals(0, Coordinates.intersectionLength(0, 10, 10, 20));
+		Assert.assertEquals(0, Coordinates.intersectionLength(0, 10, 30, 40));
+	}
+
+}
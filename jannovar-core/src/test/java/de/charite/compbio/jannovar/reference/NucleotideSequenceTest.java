@@ -0,0 +1,84 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.impl.util.DNAUtils;
+
+public class NucleotideSequenceTest {
+
+	/** sequence longer than one packed <code>long</code>, with mixed case and non-ACGT characters */
+	static final String SEQ = "ACGTACGTTTGGCCAANNACGTacgtRYKMACGTACGTACGTACGTACGTACGTACGTACGTAAAAAAAAAAC";
+
+	@Test
+	public void testRoundTrip() {
+		Assert.assertEquals(SEQ, new NucleotideSequence(SEQ).toString());
+		Assert.assertEquals("", new NucleotideSequence("").toString());
+		Assert.assertEquals(SEQ.toLowerCase(), new NucleotideSequence(SEQ.toLowerCase()).toString());
+	}
+
+	@Test
+	public void testCharAt() {
+		NucleotideSequence seq = new NucleotideSequence(SEQ);
+		Assert.assertEquals(SEQ.length(), seq.length());
+		for (int i = 0; i < SEQ.length(); ++i)
+			Assert.assertEquals(SEQ.charAt(i), seq.charAt(i));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testCharAtOutOfBounds() {
+		new NucleotideSequence("ACGT").charAt(4);
+	}
+
+	@Test
+	public void testSubstring() {
+		NucleotideSequence seq = new NucleotideSequence(SEQ);
+		Assert.assertEquals(SEQ.substring(10, 40), seq.substring(10, 40));
+		Assert.assertEquals(SEQ.substring(30), seq.substring(30));
+		Assert.assertEquals(SEQ.substring(20, 30), seq.subSequence(10, 50).substring(10, 20));
+		Assert.assertEquals(SEQ.substring(5, 60), seq.appendTo(new StringBuilder(), 5, 60).toString());
+	}
+
+	@Test
+	public void testReverseComplement() {
+		final String str = SEQ.replaceAll("[RYKM]", "N");
+		NucleotideSequence seq = new NucleotideSequence(str);
+		final String revComp = DNAUtils.reverseComplement(str.toUpperCase());
+		Assert.assertEquals(revComp, seq.reverseComplement().toString().toUpperCase());
+		Assert.assertEquals(str, seq.reverseComplement().reverseComplement().toString());
+		Assert.assertEquals(revComp.substring(3, 45), seq.reverseComplement().subSequence(3, 45).toString()
+				.toUpperCase());
+		Assert.assertEquals(DNAUtils.reverseComplement(str.substring(7, 33).toUpperCase()), seq.subSequence(7, 33)
+				.reverseComplement().toString().toUpperCase());
+	}
+
+	@Test
+	public void testReverseComplementKeepsCaseAndIUPAC() {
+		Assert.assertEquals("KMRYnacgTTGCA", new NucleotideSequence("TGCAAcgtnRYKM").reverseComplement().toString());
+	}
+
+	@Test
+	public void testEqualsHashCode() {
+		NucleotideSequence seq = new NucleotideSequence(SEQ);
+		Assert.assertEquals(SEQ.hashCode(), seq.hashCode());
+		Assert.assertEquals(new NucleotideSequence(SEQ.substring(3, 12)), seq.subSequence(3, 12));
+		Assert.assertNotEquals(new NucleotideSequence(SEQ.substring(3, 12)), seq.subSequence(4, 13));
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		NucleotideSequence seq = new NucleotideSequence(SEQ);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(seq.subSequence(2, 50));
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		Assert.assertEquals(SEQ.substring(2, 50), ois.readObject().toString());
+	}
+
+}
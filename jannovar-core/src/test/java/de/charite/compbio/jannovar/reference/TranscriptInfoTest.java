@@ -1,5 +1,10 @@
 package de.charite.compbio.jannovar.reference;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -52,4 +57,42 @@ public class TranscriptInfoTest {
 		Assert.assertEquals(info, infoReverse);
 	}
 
+	@Test
+	public void testExonRegions() {
+		Assert.assertEquals(2, infoReverse.getExonCount());
+		Assert.assertEquals(infoReverse.getExonRegions().get(0), infoReverse.getExonRegion(0));
+		Assert.assertEquals(new GenomeInterval(refDict, Strand.FWD, 1, 894594, 894679, PositionType.ZERO_BASED)
+				.withStrand(Strand.REV), infoReverse.getExonRegion(0));
+		Assert.assertEquals(new GenomeInterval(refDict, Strand.FWD, 1, 893648, 894461, PositionType.ZERO_BASED)
+				.withStrand(Strand.REV), infoReverse.getExonRegion(1));
+		Assert.assertEquals(135 + 624, infoForward.transcriptLength());
+		Assert.assertEquals(new GenomeInterval(refDict, Strand.FWD, 1, 11539429, 11541314, PositionType.ZERO_BASED),
+				infoForward.intronRegion(0));
+	}
+
+	@Test
+	public void testGeneSymbolIsInterned() {
+		builderForward.setGeneSymbol(new String("GENE1"));
+		builderReverse.setGeneSymbol(new String("GENE1"));
+		Assert.assertSame(builderForward.build().getGeneSymbol(), builderReverse.build().getGeneSymbol());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		builderReverse.setSequence("ACGTNacgt");
+		TranscriptModel info = builderReverse.build();
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(info);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		TranscriptModel result = (TranscriptModel) ois.readObject();
+
+		Assert.assertEquals(info, result);
+		Assert.assertEquals("ACGTNacgt", result.getSequence());
+		Assert.assertEquals(info.getExonRegions(), result.getExonRegions());
+		Assert.assertSame(info.getGeneSymbol(), result.getGeneSymbol());
+	}
+
 }
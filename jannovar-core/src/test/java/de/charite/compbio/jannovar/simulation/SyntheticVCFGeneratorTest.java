@@ -0,0 +1,224 @@
+package de.charite.compbio.jannovar.simulation;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+public class SyntheticVCFGeneratorTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	JannovarData data;
+
+	/** sequence of transcript "a", 2000 bases */
+	String sequence;
+
+	@Before
+	public void setUp() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 2000; ++i)
+			builder.append("ACGGTCA".charAt(i % 7));
+		sequence = builder.toString();
+		// exons 1000-1500, 2000-2500, 4000-5000 (zero-based), CDS 1200-4800
+		TranscriptModelBuilder tmBuilder = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"a\tchr1\t+\t1000\t5000\t1200\t4800\t3\t1000,2000,4000,\t1500,2500,5000,\ta\ta");
+		tmBuilder.setGeneSymbol("A");
+		tmBuilder.setSequence(sequence);
+		TranscriptModel a = tmBuilder.build();
+		tmBuilder = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"b\tchr2\t-\t10000\t12000\t10000\t10000\t2\t10000,11000,\t10500,12000,\tb\tb");
+		tmBuilder.setGeneSymbol("B");
+		TranscriptModel b = tmBuilder.build();
+		data = new JannovarData(refDict, ImmutableList.of(a, b));
+	}
+
+	/** @return the VCF file written by a generator with the given options */
+	private String generate(SimulationOptions options) throws IOException {
+		StringWriter out = new StringWriter();
+		new SyntheticVCFGenerator(data, options).write(out);
+		return out.toString();
+	}
+
+	/** @return the records of <code>vcf</code>, split into fields */
+	private static ArrayList<String[]> records(String vcf) {
+		ArrayList<String[]> result = new ArrayList<String[]>();
+		for (String line : vcf.split("\n"))
+			if (!line.startsWith("#"))
+				result.add(line.split("\t"));
+		return result;
+	}
+
+	@Test
+	public void testDeterministic() throws IOException {
+		SimulationOptionsBuilder builder = new SimulationOptionsBuilder();
+		builder.setNumVariants(2000);
+		builder.setMultiAllelicRate(0.2);
+		final String first = generate(builder.build());
+		Assert.assertEquals(first, generate(builder.build()));
+		builder.setSeed(2);
+		Assert.assertFalse(first.equals(generate(builder.build())));
+	}
+
+	@Test
+	public void testRecordsAreValidAndSorted() throws IOException {
+		SimulationOptionsBuilder builder = new SimulationOptionsBuilder();
+		builder.setNumVariants(5000);
+		builder.setMultiAllelicRate(0.2);
+		final String vcf = generate(builder.build());
+		Assert.assertTrue(vcf.startsWith("##fileformat=VCFv4.2\n"));
+		Assert.assertTrue(vcf.contains("##contig=<ID=1,length=249250621>\n"));
+		Assert.assertTrue(vcf.contains("\tFORMAT\tFAM0001_father\tFAM0001_mother\tFAM0001_index\n"));
+
+		final ArrayList<String[]> records = records(vcf);
+		// sites drawn twice in the small introns are only written once
+		Assert.assertTrue(records.size() > 4000 && records.size() <= 5000);
+		int previousChr = -1;
+		int previousPos = -1;
+		boolean sawSV = false;
+		boolean sawMultiAllelic = false;
+		for (String[] record : records) {
+			Assert.assertEquals(12, record.length);
+			final int chr = refDict.getContigNameToID().get(record[0]);
+			final int pos = Integer.parseInt(record[1]);
+			Assert.assertTrue(chr > previousChr || (chr == previousChr && pos > previousPos));
+			Assert.assertTrue(pos <= refDict.getContigLength(chr));
+			previousChr = chr;
+			previousPos = pos;
+
+			Assert.assertTrue(record[3].matches("[ACGT]+"));
+			final String[] alts = record[4].split(",");
+			for (String alt : alts) {
+				Assert.assertFalse(alt.equals(record[3]));
+				Assert.assertTrue(alt.matches("[ACGT]+|<(DEL|DUP|INV)>"));
+			}
+			sawSV |= alts[0].startsWith("<");
+			sawMultiAllelic |= (alts.length == 2);
+			if (alts[0].startsWith("<"))
+				Assert.assertTrue(record[7].matches("SVTYPE=(DEL|DUP|INV);END=[0-9]+;SVLEN=-?[0-9]+"));
+
+			// at least one sample carries an alternative allele, unless its genotype is missing
+			boolean anyAltOrMissing = false;
+			for (int i = 9; i < 12; ++i) {
+				Assert.assertTrue(record[i].matches("\\./\\.|[0-2]/[0-2]"));
+				anyAltOrMissing |= !record[i].equals("0/0");
+			}
+			Assert.assertTrue(anyAltOrMissing);
+		}
+		Assert.assertTrue(sawSV);
+		Assert.assertTrue(sawMultiAllelic);
+	}
+
+	@Test
+	public void testRegionTypes() throws IOException {
+		SimulationOptionsBuilder builder = new SimulationOptionsBuilder();
+		builder.setNumVariants(500);
+		for (SimulatedRegionType type : SimulatedRegionType.values())
+			builder.setRegionTypeWeight(type, 0.0);
+		builder.setRegionTypeWeight(SimulatedRegionType.CDS, 1.0);
+		for (SimulatedVariantType type : SimulatedVariantType.values())
+			builder.setVariantTypeWeight(type, 0.0);
+		builder.setVariantTypeWeight(SimulatedVariantType.SNV, 1.0);
+
+		// CDS of "a": 1200-1500, 2000-2500, 4000-4800 (zero-based), transcript "b" is non-coding
+		for (String[] record : records(generate(builder.build()))) {
+			Assert.assertEquals("1", record[0]);
+			final int pos = Integer.parseInt(record[1]) - 1;
+			Assert.assertTrue((pos >= 1200 && pos < 1500) || (pos >= 2000 && pos < 2500) || (pos >= 4000 && pos < 4800));
+			// reference base is taken from the transcript sequence
+			final int offset = (pos < 1500) ? pos - 1000 : (pos < 2500) ? pos - 2000 + 500 : pos - 4000 + 1000;
+			Assert.assertEquals(String.valueOf(sequence.charAt(offset)), record[3]);
+		}
+
+		builder.setRegionTypeWeight(SimulatedRegionType.CDS, 0.0);
+		builder.setRegionTypeWeight(SimulatedRegionType.SPLICE, 1.0);
+		for (String[] record : records(generate(builder.build()))) {
+			final int pos = Integer.parseInt(record[1]) - 1;
+			if (record[0].equals("1"))
+				Assert.assertTrue((pos >= 1500 && pos < 1508) || (pos >= 1992 && pos < 2000)
+						|| (pos >= 2500 && pos < 2508) || (pos >= 3992 && pos < 4000));
+			else
+				Assert.assertTrue((pos >= 10500 && pos < 10508) || (pos >= 10992 && pos < 11000));
+		}
+
+		builder.setRegionTypeWeight(SimulatedRegionType.SPLICE, 0.0);
+		builder.setRegionTypeWeight(SimulatedRegionType.INTERGENIC, 1.0);
+		for (String[] record : records(generate(builder.build()))) {
+			final int pos = Integer.parseInt(record[1]) - 1;
+			if (record[0].equals("1"))
+				Assert.assertTrue(pos < 1000 || pos >= 5000);
+			else if (record[0].equals("2"))
+				Assert.assertTrue(pos < 10000 || pos >= 12000);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoRegionsOfSelectedType() throws IOException {
+		SimulationOptionsBuilder builder = new SimulationOptionsBuilder();
+		for (SimulatedRegionType type : SimulatedRegionType.values())
+			builder.setRegionTypeWeight(type, 0.0);
+		builder.setRegionTypeWeight(SimulatedRegionType.CDS, 1.0);
+		data = new JannovarData(refDict, ImmutableList.<TranscriptModel> of());
+		generate(builder.build());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidOptions() {
+		SimulationOptionsBuilder builder = new SimulationOptionsBuilder();
+		builder.setVariantTypeWeight(SimulatedVariantType.SNV, -1.0);
+		builder.build();
+	}
+
+	@Test
+	public void testPedigreeAndInheritance() throws IOException {
+		SimulationOptionsBuilder builder = new SimulationOptionsBuilder();
+		builder.setNumVariants(2000);
+		builder.setNumFamilies(2);
+		builder.setFamilyStructure(FamilyStructure.QUARTET);
+		builder.setMissingRate(0.0);
+		builder.setMultiAllelicRate(0.3);
+		final SimulationOptions options = builder.build();
+
+		PedFileContents pedigree = new SyntheticVCFGenerator(data, options).getPedigree();
+		Assert.assertEquals(8, pedigree.getIndividuals().size());
+		PedPerson index = pedigree.getIndividuals().get(6);
+		Assert.assertEquals("FAM0002", index.getPedigree());
+		Assert.assertEquals("FAM0002_index", index.getName());
+		Assert.assertEquals("FAM0002_father", index.getFather());
+		Assert.assertEquals("FAM0002_mother", index.getMother());
+		Assert.assertEquals(Disease.AFFECTED, index.getDisease());
+		Assert.assertEquals(Disease.UNAFFECTED, pedigree.getIndividuals().get(7).getDisease());
+
+		// each allele of the children comes from one of the parents
+		for (String[] record : records(generate(options))) {
+			Assert.assertEquals(17, record.length);
+			for (int family = 0; family < 2; ++family) {
+				final String father = record[9 + 4 * family];
+				final String mother = record[10 + 4 * family];
+				for (int child = 2; child < 4; ++child) {
+					final String gt = record[9 + 4 * family + child];
+					final boolean fromFather0 = father.indexOf(gt.charAt(0)) >= 0 && mother.indexOf(gt.charAt(2)) >= 0;
+					final boolean fromFather2 = father.indexOf(gt.charAt(2)) >= 0 && mother.indexOf(gt.charAt(0)) >= 0;
+					Assert.assertTrue(fromFather0 || fromFather2);
+				}
+			}
+		}
+	}
+
+}
@@ -15,10 +15,12 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.ImmutableList;
 
 import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.ContigIDCache;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.jfr.JFRSupport;
 import de.charite.compbio.jannovar.pedigree.Genotype;
 import de.charite.compbio.jannovar.pedigree.GenotypeList;
 import de.charite.compbio.jannovar.pedigree.GenotypeListBuilder;
@@ -47,6 +49,8 @@ public class GeneWiseInheritanceFilter implements VariantContextFilter {
 
 	/** Deserialized Jannovar data */
 	private final JannovarData jannovarDB;
+	/** Lookup of contig IDs in the {@link ReferenceDictionary} of {@link #jannovarDB} */
+	private final ContigIDCache contigIDCache;
 	/** The mode of inheritance to filter for */
 	private final ModeOfInheritance modeOfInheritance;
 	/** List of genes, indexed by interval tree */
@@ -67,6 +71,7 @@ public class GeneWiseInheritanceFilter implements VariantContextFilter {
 	public GeneWiseInheritanceFilter(Pedigree pedigree, JannovarData jannovarDB, ModeOfInheritance modeOfInheritance,
 			VariantContextFilter next) {
 		this.jannovarDB = jannovarDB;
+		this.contigIDCache = new ContigIDCache(jannovarDB.getRefDict());
 		this.modeOfInheritance = modeOfInheritance;
 		this.geneList = buildGeneList(jannovarDB);
 		this.next = next;
@@ -110,11 +115,11 @@ public class GeneWiseInheritanceFilter implements VariantContextFilter {
 	public void put(FlaggedVariant vc) throws FilterException {
 		LOGGER.trace("Putting variant {} into inheritance filter", new Object[] { vc.getVC() });
 
-		final ReferenceDictionary refDict = jannovarDB.getRefDict();
 		// TODO(holtgrew): for now, we simply ignore variants on contigs unknown to us, this has to be fixed
-		if (!refDict.getContigNameToID().containsKey(vc.getVC().getChr()))
+		final Integer boxedContigID = contigIDCache.getContigID(vc.getVC().getChr());
+		if (boxedContigID == null)
 			return;
-		final int contigID = refDict.getContigNameToID().get(vc.getVC().getChr());
+		final int contigID = boxedContigID.intValue();
 		IntervalArray<Gene> iTree = geneList.getGeneIntervalTree().get(contigID);
 
 		// consider each alternative allele of the variant
@@ -162,7 +167,7 @@ public class GeneWiseInheritanceFilter implements VariantContextFilter {
 	 * {@link VariantContext}.
 	 */
 	private GenomeVariant getGenomeChangeFromAltAllele(VariantContext vc, int alleleID) {
-		final int contigID = jannovarDB.getRefDict().getContigNameToID().get(vc.getChr());
+		final int contigID = contigIDCache.getContigID(vc.getChr());
 		final String ref = vc.getReference().getBaseString();
 		final String alt = vc.getAlternateAllele(alleleID).getBaseString();
 		final int pos = vc.getStart();
@@ -322,6 +327,9 @@ public class GeneWiseInheritanceFilter implements VariantContextFilter {
 	 *            the {@link Gene} to mark the variants for
 	 */
 	private void processedGene(Gene gene) throws FilterException {
+		final Object event = JFRSupport.beginGeneProcessed();
+		final int bufferedVariants = activeVariants.size();
+
 		checkVariantsForGene(gene);
 
 		LOGGER.trace("Gene done {}", new Object[] { gene });
@@ -365,6 +373,8 @@ public class GeneWiseInheritanceFilter implements VariantContextFilter {
 
 		// mark gene as done
 		activeGenes.remove(gene);
+
+		JFRSupport.commitGeneProcessed(event, gene.getName(), gene.getRegion(), bufferedVariants);
 	}
 
 }
@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 
+import de.charite.compbio.jannovar.data.ContigIDCache;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.pedigree.Genotype;
 import de.charite.compbio.jannovar.pedigree.GenotypeListBuilder;
@@ -29,6 +30,8 @@ public class VariantWiseInheritanceFilter implements VariantContextFilter {
 
 	/** Deserialized Jannovar data */
 	private final JannovarData jannovarDB;
+	/** Lookup of contig IDs in the reference dictionary of {@link #jannovarDB} */
+	private final ContigIDCache contigIDCache;
 	/** The mode of inheritance to filter for */
 	private final ModeOfInheritance modeOfInheritance;
 	/** Names of {@link pedigree#members}. */
@@ -42,6 +45,7 @@ public class VariantWiseInheritanceFilter implements VariantContextFilter {
 	public VariantWiseInheritanceFilter(Pedigree pedigree, JannovarData jannovarDB,
 			ModeOfInheritance modeOfInheritance, VariantContextFilter next) {
 		this.jannovarDB = jannovarDB;
+		this.contigIDCache = new ContigIDCache(jannovarDB.getRefDict());
 		this.modeOfInheritance = modeOfInheritance;
 		this.next = next;
 		this.checker = new PedigreeDiseaseCompatibilityDecorator(pedigree);
@@ -55,7 +59,7 @@ public class VariantWiseInheritanceFilter implements VariantContextFilter {
 	public void put(FlaggedVariant fv) throws FilterException {
 		// check gene for compatibility and mark variants as compatible if so
 
-		final int contigID = jannovarDB.getRefDict().getContigNameToID().get(fv.getVC().getChr());
+		final int contigID = contigIDCache.getContigID(fv.getVC().getChr());
 		boolean isXChromosomal = (jannovarDB.getRefDict().getContigNameToID().get("chrX") != null && jannovarDB.getRefDict().getContigNameToID().get(
 				"chrX").intValue() == contigID);
 
@@ -0,0 +1,112 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Concatenation of BGZF-compressed VCF files with the same header, without recompressing the records.
+ *
+ * The header of the first file is written out, followed by the records of all files in the order of
+ * {@link #append} calls and the BGZF EOF marker block on {@link #close}. The compressed blocks are copied verbatim,
+ * only the header blocks are decompressed for finding the end of the header. The one block per file that contains
+ * both the end of the header and the first records is recompressed without the header part.
+ */
+public final class BlockCompressedVCFConcatenator implements Closeable {
+
+	/** the stream to write the blocks to */
+	private final OutputStream out;
+
+	/** whether or not the header has been written */
+	private boolean headerWritten = false;
+
+	/**
+	 * Construct concatenator writing to the file at <code>path</code>.
+	 *
+	 * @param path
+	 *            path to the output file
+	 * @throws IOException
+	 *             on problems with opening the file
+	 */
+	public BlockCompressedVCFConcatenator(String path) throws IOException {
+		this(new BufferedOutputStream(new FileOutputStream(path)));
+	}
+
+	/**
+	 * Construct concatenator writing to <code>out</code>, which is closed on {@link #close}.
+	 *
+	 * @param out
+	 *            the {@link OutputStream} to write the BGZF blocks to
+	 */
+	public BlockCompressedVCFConcatenator(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Append the records of the BGZF-compressed VCF file <code>file</code>, preceded by its header if this is the
+	 * first file.
+	 *
+	 * @param file
+	 *            the BGZF-compressed VCF file to append
+	 * @throws IOException
+	 *             on problems with reading or writing
+	 */
+	public void append(File file) throws IOException {
+		final InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			boolean inHeader = true;
+			boolean atLineStart = true;
+			byte[] block;
+			while ((block = ParallelBlockCompressedInputStream.readBlock(in)) != null) {
+				if (isEmptyBlock(block))
+					continue; // skip EOF marker
+				if (inHeader) {
+					final byte[] data = ParallelBlockCompressedInputStream.inflateBlock(block);
+					int headerEnd = 0;
+					while (headerEnd < data.length && !(atLineStart && data[headerEnd] != '#'))
+						atLineStart = (data[headerEnd++] == '\n');
+					inHeader = (headerEnd == data.length);
+					if (headerWritten && headerEnd > 0) {
+						// skip header of all but the first file
+						if (!inHeader)
+							out.write(ParallelBlockCompressedOutputStream.compressBlock(
+									Arrays.copyOfRange(data, headerEnd, data.length), data.length - headerEnd,
+									BlockCompressedOutputStream.getDefaultCompressionLevel()));
+						continue;
+					}
+				}
+				out.write(block);
+			}
+			headerWritten = true;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Write the BGZF EOF marker and close the underlying stream.
+	 */
+	public void close() throws IOException {
+		out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+		out.close();
+	}
+
+	/** @return whether or not the uncompressed size in the footer of <code>block</code> is 0 */
+	private static boolean isEmptyBlock(byte[] block) {
+		for (int i = block.length - 4; i < block.length; ++i)
+			if (block[i] != 0)
+				return false;
+		return true;
+	}
+
+}
@@ -0,0 +1,30 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import de.charite.compbio.jannovar.annotation.AnnotationMessage;
+
+/**
+ * Thrown in {@link VariantContextAnnotator} for positions on contigs that are known in the reference dictionary but
+ * whose transcripts were not loaded.
+ *
+ * The annotation message is {@link AnnotationMessage#ERROR_CHROMOSOME_NOT_FOUND}, as for unknown contigs. Callers
+ * that only loaded some contigs (see <code>JannovarDataSerializer#load(Collection)</code>) can catch this exception
+ * for loading the missing contig instead.
+ */
+public class ContigNotLoadedException extends InvalidCoordinatesException {
+
+	/** name of the contig that was not loaded */
+	final private String contig;
+
+	public ContigNotLoadedException(String contig) {
+		super("Reference " + contig + " not loaded", AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND);
+		this.contig = contig;
+	}
+
+	/** @return name of the contig that was not loaded */
+	public String getContig() {
+		return contig;
+	}
+
+	private static final long serialVersionUID = 1L;
+
+}
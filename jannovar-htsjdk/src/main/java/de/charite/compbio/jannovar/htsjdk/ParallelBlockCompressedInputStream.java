@@ -0,0 +1,256 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * BGZF-decompressing {@link InputStream} that inflates the blocks on a pool of worker threads.
+ *
+ * The compressed blocks are read from the underlying stream by the consuming thread and up to two blocks per thread
+ * are inflated ahead of the current position. The CRC32 checksum and size of each block are checked as in
+ * {@link BlockCompressedInputStream}. Empty blocks (e.g., the EOF marker) are skipped. Instances are not thread-safe,
+ * the parallelism is internal.
+ *
+ * Only use for BGZF data, check with {@link BlockCompressedInputStream#isValidFile}.
+ */
+public final class ParallelBlockCompressedInputStream extends InputStream {
+
+	/** the stream to read the compressed blocks from */
+	private final InputStream in;
+
+	/** the worker threads for decompression */
+	private final ExecutorService executor;
+
+	/** maximal number of blocks in {@link #pending} */
+	private final int maxPending;
+
+	/** inflated blocks that have not been read yet, in order */
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+
+	/** whether or not the end of {@link #in} has been reached */
+	private boolean inputExhausted = false;
+
+	/** the block currently being read, <code>null</code> at the end of the stream */
+	private byte[] buffer = new byte[0];
+
+	/** position in {@link #buffer} */
+	private int pos = 0;
+
+	/** whether or not {@link #close} has been called */
+	private boolean closed = false;
+
+	/**
+	 * Construct stream reading from <code>in</code>, which is closed on {@link #close}.
+	 *
+	 * @param in
+	 *            the {@link InputStream} to read the compressed blocks from
+	 * @param numThreads
+	 *            number of decompression threads to use
+	 */
+	public ParallelBlockCompressedInputStream(InputStream in, int numThreads) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be at least 1, was: " + numThreads);
+		this.in = in;
+		this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "bgzf-decompression");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.maxPending = 2 * numThreads;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!ensureData())
+			return -1;
+		return buffer[pos++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		if (!ensureData())
+			return -1;
+		final int count = Math.min(len, buffer.length - pos);
+		System.arraycopy(buffer, pos, b, off, count);
+		pos += count;
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		ensureOpen();
+		return (buffer == null) ? 0 : buffer.length - pos;
+	}
+
+	/**
+	 * Close the underlying stream and stop the worker threads.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		executor.shutdownNow();
+		pending.clear();
+		in.close();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed)
+			throw new IOException("Stream is closed");
+	}
+
+	/** @return whether or not there is data left in {@link #buffer}, loading the next non-empty block if required */
+	private boolean ensureData() throws IOException {
+		ensureOpen();
+		while (buffer != null && pos == buffer.length) {
+			fillPending();
+			if (pending.isEmpty()) {
+				buffer = null;
+			} else {
+				buffer = takeNextBlock();
+				pos = 0;
+			}
+		}
+		return buffer != null;
+	}
+
+	/** Read compressed blocks from {@link #in} and submit them until {@link #maxPending} blocks are pending. */
+	private void fillPending() throws IOException {
+		while (!inputExhausted && pending.size() < maxPending) {
+			final byte[] block = readBlock(in);
+			if (block == null) {
+				inputExhausted = true;
+			} else {
+				pending.addLast(executor.submit(new Callable<byte[]>() {
+					public byte[] call() throws IOException {
+						return inflateBlock(block);
+					}
+				}));
+			}
+		}
+	}
+
+	/** Wait for the first pending block and return its inflated data. */
+	private byte[] takeNextBlock() throws IOException {
+		try {
+			return pending.removeFirst().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while decompressing BGZF block");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Problem with decompressing BGZF block", e.getCause());
+		}
+	}
+
+	/**
+	 * Read the next complete compressed BGZF block from <code>in</code>.
+	 *
+	 * @return the block, including header and footer, <code>null</code> at the end of the stream
+	 */
+	static byte[] readBlock(InputStream in) throws IOException {
+		final byte[] header = new byte[BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH];
+		final int headerLength = readFully(in, header, 0, header.length);
+		if (headerLength == 0)
+			return null;
+		if (headerLength < header.length || !isValidBlockHeader(header))
+			throw new IOException("Invalid BGZF block header");
+
+		final int blockSize = getShort(header, BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET) + 1;
+		if (blockSize < BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH
+				+ BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH)
+			throw new IOException("Invalid BGZF block size " + blockSize);
+		final byte[] block = new byte[blockSize];
+		System.arraycopy(header, 0, block, 0, header.length);
+		if (readFully(in, block, header.length, blockSize - header.length) < blockSize - header.length)
+			throw new EOFException("Premature end of BGZF block");
+		return block;
+	}
+
+	/** @return number of bytes read, less than <code>len</code> only at the end of the stream */
+	private static int readFully(InputStream in, byte[] b, int off, int len) throws IOException {
+		int total = 0;
+		while (total < len) {
+			final int count = in.read(b, off + total, len - total);
+			if (count < 0)
+				break;
+			total += count;
+		}
+		return total;
+	}
+
+	/** @return whether or not <code>header</code> is a BGZF block header */
+	private static boolean isValidBlockHeader(byte[] header) {
+		return header[0] == BlockCompressedStreamConstants.GZIP_ID1
+				&& (header[1] & 0xff) == BlockCompressedStreamConstants.GZIP_ID2
+				&& (header[3] & BlockCompressedStreamConstants.GZIP_FLG) != 0
+				&& getShort(header, 10) == BlockCompressedStreamConstants.GZIP_XLEN
+				&& header[12] == BlockCompressedStreamConstants.BGZF_ID1
+				&& header[13] == BlockCompressedStreamConstants.BGZF_ID2;
+	}
+
+	/**
+	 * Inflate the compressed data in the complete BGZF <code>block</code> and check it against the block's footer.
+	 *
+	 * @return the inflated data
+	 */
+	static byte[] inflateBlock(byte[] block) throws IOException {
+		final int footerPos = block.length - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+		final int expectedCRC = getInt(block, footerPos);
+		final int size = getInt(block, footerPos + 4);
+		final byte[] result = new byte[size];
+
+		final Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(block, BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH, footerPos
+					- BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH);
+			final int inflatedSize = (size == 0) ? 0 : inflater.inflate(result, 0, size);
+			if (inflatedSize != size)
+				throw new IOException("Did not inflate expected number of bytes, was " + inflatedSize + ", expected "
+						+ size);
+		} catch (DataFormatException e) {
+			throw new IOException("Invalid compressed data in BGZF block", e);
+		} finally {
+			inflater.end();
+		}
+
+		final CRC32 crc32 = new CRC32();
+		crc32.update(result, 0, size);
+		if ((int) crc32.getValue() != expectedCRC)
+			throw new IOException("CRC mismatch in BGZF block");
+		return result;
+	}
+
+	/** @return little-endian unsigned 16 bit value at <code>pos</code> */
+	private static int getShort(byte[] buf, int pos) {
+		return (buf[pos] & 0xff) | ((buf[pos + 1] & 0xff) << 8);
+	}
+
+	/** @return little-endian 32 bit value at <code>pos</code> */
+	private static int getInt(byte[] buf, int pos) {
+		return (buf[pos] & 0xff) | ((buf[pos + 1] & 0xff) << 8) | ((buf[pos + 2] & 0xff) << 16)
+				| ((buf[pos + 3] & 0xff) << 24);
+	}
+
+}
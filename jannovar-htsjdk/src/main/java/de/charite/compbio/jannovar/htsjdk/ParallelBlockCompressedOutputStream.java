@@ -0,0 +1,265 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * BGZF-compressing {@link OutputStream} that deflates the blocks on a pool of worker threads.
+ *
+ * The data is cut into blocks of the same size as in HTSJDK's {@link BlockCompressedOutputStream} and using the same
+ * compression level. The blocks are compressed in parallel and written out in order, followed by the BGZF EOF marker
+ * block on {@link #close}. Thus, the result is a valid BGZF file (e.g., for indexing with tabix) that decompresses to
+ * the written data.
+ *
+ * At most two blocks per thread are buffered. Instances are not thread-safe, the parallelism is internal.
+ *
+ * Use through {@link VariantContextWriterConstructionHelper#openVariantContextWriter(htsjdk.variant.vcf.VCFHeader,
+ * OutputStream, InfoFields, java.util.Collection)}.
+ */
+public final class ParallelBlockCompressedOutputStream extends OutputStream {
+
+	/** maximal number of uncompressed bytes per block */
+	private static final int BLOCK_SIZE = BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE;
+
+	/** maximal size of the deflated data in one block */
+	private static final int MAX_DEFLATED_SIZE = BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE
+			- BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+
+	/** the stream to write the compressed blocks to */
+	private final OutputStream out;
+
+	/** the worker threads for compression */
+	private final ExecutorService executor;
+
+	/** compression level to use */
+	private final int compressionLevel;
+
+	/** maximal number of blocks in {@link #pending} */
+	private final int maxPending;
+
+	/** compressed blocks that are not written out yet, in order */
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+
+	/** the block currently being filled */
+	private byte[] buffer = new byte[BLOCK_SIZE];
+
+	/** number of bytes used in {@link #buffer} */
+	private int numBytes = 0;
+
+	/** whether or not {@link #close} has been called */
+	private boolean closed = false;
+
+	/**
+	 * Construct stream writing to the file at <code>path</code>.
+	 *
+	 * @param path
+	 *            path to the output file
+	 * @param numThreads
+	 *            number of compression threads to use
+	 * @throws IOException
+	 *             on problems with opening the file
+	 */
+	public ParallelBlockCompressedOutputStream(String path, int numThreads) throws IOException {
+		this(new BufferedOutputStream(new FileOutputStream(path)), numThreads);
+	}
+
+	/**
+	 * Construct stream writing to <code>out</code>, which is closed on {@link #close}.
+	 *
+	 * @param out
+	 *            the {@link OutputStream} to write the compressed blocks to
+	 * @param numThreads
+	 *            number of compression threads to use
+	 */
+	public ParallelBlockCompressedOutputStream(OutputStream out, int numThreads) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be at least 1, was: " + numThreads);
+		this.out = out;
+		this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "bgzf-compression");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.compressionLevel = BlockCompressedOutputStream.getDefaultCompressionLevel();
+		this.maxPending = 2 * numThreads;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		buffer[numBytes++] = (byte) b;
+		if (numBytes == BLOCK_SIZE)
+			submitBlock();
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			final int count = Math.min(len, BLOCK_SIZE - numBytes);
+			System.arraycopy(b, off, buffer, numBytes, count);
+			numBytes += count;
+			off += count;
+			len -= count;
+			if (numBytes == BLOCK_SIZE)
+				submitBlock();
+		}
+	}
+
+	/**
+	 * Compress the partially filled block and write out all blocks.
+	 *
+	 * As in {@link BlockCompressedOutputStream}, this ends the current block.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		submitBlock();
+		while (!pending.isEmpty())
+			writeNextBlock();
+		out.flush();
+	}
+
+	/**
+	 * Write out all blocks and the BGZF EOF marker, close the underlying stream, and stop the worker threads.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		try {
+			flush();
+			out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+			out.close();
+		} finally {
+			closed = true;
+			executor.shutdownNow();
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed)
+			throw new IOException("Stream is closed");
+	}
+
+	/** Submit {@link #buffer} for compression and start a new one, writing out blocks if too many are pending. */
+	private void submitBlock() throws IOException {
+		if (numBytes == 0)
+			return;
+		while (pending.size() >= maxPending)
+			writeNextBlock();
+		final byte[] data = buffer;
+		final int length = numBytes;
+		pending.addLast(executor.submit(new Callable<byte[]>() {
+			public byte[] call() {
+				return compressBlock(data, length, compressionLevel);
+			}
+		}));
+		buffer = new byte[BLOCK_SIZE];
+		numBytes = 0;
+	}
+
+	/** Wait for the first pending block and write it out. */
+	private void writeNextBlock() throws IOException {
+		final byte[] block;
+		try {
+			block = pending.removeFirst().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing BGZF block");
+		} catch (ExecutionException e) {
+			throw new IOException("Problem with compressing BGZF block", e.getCause());
+		}
+		out.write(block);
+	}
+
+	/**
+	 * Compress the first <code>length</code> bytes of <code>data</code> into one BGZF block, falling back to storing
+	 * the data uncompressed if it does not fit into one block, as does {@link BlockCompressedOutputStream}.
+	 *
+	 * @return the complete BGZF block, including header and footer
+	 */
+	static byte[] compressBlock(byte[] data, int length, int compressionLevel) {
+		final byte[] deflated = new byte[MAX_DEFLATED_SIZE];
+		int deflatedSize = deflate(data, length, compressionLevel, deflated);
+		if (deflatedSize < 0)
+			deflatedSize = deflate(data, length, Deflater.NO_COMPRESSION, deflated);
+		if (deflatedSize < 0)
+			throw new IllegalStateException("Block does not fit into BGZF block even without compression");
+
+		final CRC32 crc32 = new CRC32();
+		crc32.update(data, 0, length);
+
+		final int blockSize = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + deflatedSize
+				+ BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+		final byte[] block = new byte[blockSize];
+		int pos = 0;
+		// header
+		block[pos++] = BlockCompressedStreamConstants.GZIP_ID1;
+		block[pos++] = (byte) BlockCompressedStreamConstants.GZIP_ID2;
+		block[pos++] = BlockCompressedStreamConstants.GZIP_CM_DEFLATE;
+		block[pos++] = BlockCompressedStreamConstants.GZIP_FLG;
+		pos = putInt(block, pos, 0); // modification time
+		block[pos++] = BlockCompressedStreamConstants.GZIP_XFL;
+		block[pos++] = (byte) BlockCompressedStreamConstants.GZIP_OS_UNKNOWN;
+		pos = putShort(block, pos, BlockCompressedStreamConstants.GZIP_XLEN);
+		block[pos++] = BlockCompressedStreamConstants.BGZF_ID1;
+		block[pos++] = BlockCompressedStreamConstants.BGZF_ID2;
+		pos = putShort(block, pos, BlockCompressedStreamConstants.BGZF_LEN);
+		pos = putShort(block, pos, blockSize - 1);
+		// deflated data
+		System.arraycopy(deflated, 0, block, pos, deflatedSize);
+		pos += deflatedSize;
+		// footer
+		pos = putInt(block, pos, (int) crc32.getValue());
+		pos = putInt(block, pos, length);
+		return block;
+	}
+
+	/** @return number of bytes written to <code>target</code>, <code>-1</code> if it is too small */
+	private static int deflate(byte[] data, int length, int level, byte[] target) {
+		final Deflater deflater = new Deflater(level, true);
+		try {
+			deflater.setInput(data, 0, length);
+			deflater.finish();
+			final int result = deflater.deflate(target, 0, target.length);
+			return deflater.finished() ? result : -1;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/** Write little-endian 16 bit <code>value</code> at <code>pos</code>, return position after it. */
+	private static int putShort(byte[] buf, int pos, int value) {
+		buf[pos] = (byte) value;
+		buf[pos + 1] = (byte) (value >>> 8);
+		return pos + 2;
+	}
+
+	/** Write little-endian 32 bit <code>value</code> at <code>pos</code>, return position after it. */
+	private static int putInt(byte[] buf, int pos, int value) {
+		buf[pos] = (byte) value;
+		buf[pos + 1] = (byte) (value >>> 8);
+		buf[pos + 2] = (byte) (value >>> 16);
+		buf[pos + 3] = (byte) (value >>> 24);
+		return pos + 4;
+	}
+
+}
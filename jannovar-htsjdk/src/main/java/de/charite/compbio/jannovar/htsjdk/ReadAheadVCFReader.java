@@ -0,0 +1,223 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.LineReaderUtil;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reader for VCF files that decompresses and decodes the records on background threads.
+ *
+ * A background thread reads the lines and decodes them into {@link VariantContext} objects (with lazily parsed
+ * genotypes, as {@link VCFFileReader}). The records are handed to the consuming thread through a bounded queue, such
+ * that reading the input overlaps with the processing of the records. BGZF-compressed files are decompressed with a
+ * {@link ParallelBlockCompressedInputStream}, plain gzip files are decompressed sequentially.
+ *
+ * Only VCF files can be read, check with {@link #canRead}. The records can only be iterated once.
+ */
+public final class ReadAheadVCFReader implements Closeable, Iterable<VariantContext> {
+
+	/** number of records buffered between the reading and the consuming thread */
+	private static final int QUEUE_CAPACITY = 1024;
+
+	/** marker for the end of the records in {@link #queue} */
+	private static final Object END = new Object();
+
+	/** the decompressed input */
+	private final InputStream in;
+
+	/** header of the VCF file */
+	private final VCFHeader header;
+
+	/** decoded records, terminated by {@link #END} or a {@link Throwable} */
+	private final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(QUEUE_CAPACITY);
+
+	/** the thread reading and decoding the records */
+	private final Thread readerThread;
+
+	/** whether or not {@link #iterator} has been called */
+	private boolean iterated = false;
+
+	/**
+	 * Open the VCF file at <code>file</code> and read its header.
+	 *
+	 * @param file
+	 *            the VCF file to read, plain, gzip, or BGZF compressed
+	 * @param numThreads
+	 *            number of threads for decompressing BGZF files
+	 * @throws IOException
+	 *             on problems with opening the file or reading the header
+	 */
+	public ReadAheadVCFReader(File file, int numThreads) throws IOException {
+		this.in = openInputStream(file, numThreads);
+		final VCFCodec codec = new VCFCodec();
+		final LineIterator lineIterator = new LineIteratorImpl(LineReaderUtil.fromBufferedStream(in,
+				LineReaderUtil.LineReaderOption.SYNCHRONOUS));
+		try {
+			this.header = (VCFHeader) codec.readActualHeader(lineIterator);
+		} catch (RuntimeException e) {
+			in.close();
+			throw e;
+		}
+
+		this.readerThread = new Thread(new Runnable() {
+			public void run() {
+				readRecords(codec, lineIterator);
+			}
+		}, "vcf-read-ahead");
+		this.readerThread.setDaemon(true);
+	}
+
+	/**
+	 * @return whether or not <code>path</code> can be read by this class, i.e. is a (compressed) VCF file
+	 */
+	public static boolean canRead(String path) {
+		final String lower = path.toLowerCase();
+		return lower.endsWith(".vcf") || lower.endsWith(".vcf.gz") || lower.endsWith(".vcf.bgz");
+	}
+
+	/** @return the header of the VCF file */
+	public VCFHeader getFileHeader() {
+		return header;
+	}
+
+	/**
+	 * Start reading ahead and return an iterator over the records.
+	 *
+	 * @return iterator over the records, can only be obtained once
+	 */
+	public CloseableIterator<VariantContext> iterator() {
+		if (iterated)
+			throw new IllegalStateException("The records can only be iterated once");
+		iterated = true;
+		readerThread.start();
+		return new RecordIterator();
+	}
+
+	/**
+	 * Stop reading ahead and close the input file.
+	 */
+	public void close() {
+		readerThread.interrupt();
+		queue.clear();
+		try {
+			if (iterated)
+				readerThread.join();
+			in.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			throw new RuntimeIOException(e);
+		}
+	}
+
+	/** Decode the records from <code>lineIterator</code> and put them into {@link #queue}, run in background. */
+	private void readRecords(VCFCodec codec, LineIterator lineIterator) {
+		try {
+			try {
+				while (lineIterator.hasNext()) {
+					final VariantContext vc = codec.decode(lineIterator.next());
+					if (vc != null) // skip comment lines
+						queue.put(vc);
+				}
+				queue.put(END);
+			} catch (RuntimeException e) {
+				queue.put(e);
+			} catch (Error e) {
+				queue.put(e);
+			}
+		} catch (InterruptedException e) {
+			// interrupted through close(), stop reading
+		}
+	}
+
+	/**
+	 * Iterator over the records in {@link ReadAheadVCFReader#queue}.
+	 */
+	private final class RecordIterator implements CloseableIterator<VariantContext> {
+
+		/** the next record, <code>null</code> if not taken from the queue yet */
+		private Object next = null;
+
+		public boolean hasNext() {
+			if (next == null) {
+				try {
+					next = queue.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while waiting for VCF record", e);
+				}
+			}
+			if (next instanceof RuntimeException)
+				throw (RuntimeException) next;
+			if (next instanceof Error)
+				throw (Error) next;
+			return next != END;
+		}
+
+		public VariantContext next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			final VariantContext result = (VariantContext) next;
+			next = null;
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void close() {
+			ReadAheadVCFReader.this.close();
+		}
+
+	}
+
+	/**
+	 * Open <code>file</code> for reading, decompressing BGZF files with <code>numThreads</code> threads and plain gzip
+	 * files sequentially.
+	 *
+	 * @return decompressing {@link InputStream} for <code>file</code>
+	 */
+	static InputStream openInputStream(File file, int numThreads) throws IOException {
+		final BufferedInputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			if (BlockCompressedInputStream.isValidFile(in))
+				return new ParallelBlockCompressedInputStream(in, numThreads);
+			else if (isGzip(in))
+				return new GZIPInputStream(in);
+			else
+				return in;
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/** @return whether or not <code>in</code> starts with the gzip magic bytes, <code>in</code> is reset */
+	private static boolean isGzip(BufferedInputStream in) throws IOException {
+		in.mark(2);
+		final int b1 = in.read();
+		final int b2 = in.read();
+		in.reset();
+		return b1 == 0x1f && b2 == 0x8b;
+	}
+
+}
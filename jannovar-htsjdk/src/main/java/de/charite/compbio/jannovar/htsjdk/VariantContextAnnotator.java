@@ -5,6 +5,7 @@ import htsjdk.variant.variantcontext.VariantContext;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -22,8 +23,10 @@ import de.charite.compbio.jannovar.annotation.VariantAnnotator;
 import de.charite.compbio.jannovar.annotation.VariantEffect;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.ContigIDCache;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.metrics.Metrics;
 import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.PositionType;
@@ -91,6 +94,8 @@ public final class VariantContextAnnotator {
 
 	/** the {@link ReferenceDictionary} to use */
 	private final ReferenceDictionary refDict;
+	/** lookup of contig IDs in {@link #refDict} */
+	private final ContigIDCache contigIDCache;
 	/** {@link Chromosome} map with the {@link TranscriptModel}s, probably from {@link JannovarData} */
 	private final ImmutableMap<Integer, Chromosome> chromosomeMap;
 	/** configuration */
@@ -99,6 +104,9 @@ public final class VariantContextAnnotator {
 	/** implementation of the actual variant annotation */
 	private final VariantAnnotator annotator;
 
+	/** buffer for rendering the ANN field, reused for all records */
+	private final StringBuilder annBuilder = new StringBuilder();
+
 	/**
 	 * Construct annotator with default options.
 	 */
@@ -119,6 +127,7 @@ public final class VariantContextAnnotator {
 	public VariantContextAnnotator(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomeMap,
 			Options options) {
 		this.refDict = refDict;
+		this.contigIDCache = new ContigIDCache(refDict);
 		this.chromosomeMap = chromosomeMap;
 		this.options = options;
 		this.annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions(
@@ -156,19 +165,40 @@ public final class VariantContextAnnotator {
 	 *             in the case that the reference in <code>vc</code> is not known in {@link #refDict}.
 	 */
 	public GenomeVariant buildGenomeChange(VariantContext vc, int alleleID) throws InvalidCoordinatesException {
-		// Catch the case that vc.getChr() is not in ChromosomeMap.identifier2chromosom. This is the case
+		return buildGenomeChange(vc.getChr(), vc.getStart(), vc.getReference().getBaseString(), vc
+				.getAlternateAllele(alleleID).getBaseString());
+	}
+
+	/**
+	 * Build a {@link GenomeVariant} from the raw values of a VCF record.
+	 *
+	 * @param contig
+	 *            name of the contig, as in the <code>CHROM</code> column
+	 * @param pos
+	 *            one-based position, as in the <code>POS</code> column
+	 * @param ref
+	 *            reference allele, as in the <code>REF</code> column
+	 * @param alt
+	 *            one alternative allele from the <code>ALT</code> column
+	 * @return {@link GenomeVariant} for the given values, guaranteed to be on {@link Strand#FWD}.
+	 * @throws InvalidCoordinatesException
+	 *             in the case that <code>contig</code> is not known in {@link #refDict}, a
+	 *             {@link ContigNotLoadedException} if it is not in {@link #chromosomeMap}.
+	 */
+	public GenomeVariant buildGenomeChange(String contig, int pos, String ref, String alt)
+			throws InvalidCoordinatesException {
+		// Catch the case that contig is not in ChromosomeMap.identifier2chromosom. This is the case
 		// for the "random" and "alternative locus" contigs etc.
-		Integer boxedInt = refDict.getContigNameToID().get(vc.getChr());
+		Integer boxedInt = contigIDCache.getContigID(contig);
 		if (boxedInt == null)
-			throw new InvalidCoordinatesException("Unknown reference " + vc.getChr(),
+			throw new InvalidCoordinatesException("Unknown reference " + contig,
 					AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND);
 		int chr = boxedInt.intValue();
+		// The transcripts of the contig might not have been loaded, see JannovarDataSerializer#load(Collection).
+		if (!chromosomeMap.containsKey(boxedInt))
+			throw new ContigNotLoadedException(contig);
 
 		// Build the GenomeChange object.
-		final String ref = vc.getReference().getBaseString();
-		final Allele altAllele = vc.getAlternateAllele(alleleID);
-		final String alt = altAllele.getBaseString();
-		final int pos = vc.getStart();
 		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ONE_BASED), ref, alt);
 	}
 
@@ -183,9 +213,21 @@ public final class VariantContextAnnotator {
 	 *            set of messages to write into the {@link VariantContext}
 	 */
 	public void putErrorAnnotation(VariantContext vc, Set<AnnotationMessage> messages) {
+		for (Map.Entry<String, String> entry : buildErrorInfoValues(messages).entrySet())
+			vc.getCommonInfo().putAttribute(entry.getKey(), entry.getValue(), true); // true allows overwriting
+	}
+
+	/**
+	 * Build the INFO values for error annotation messages, as written by {@link #putErrorAnnotation}.
+	 *
+	 * @param messages
+	 *            set of messages to write
+	 * @return map from INFO key to the value to write
+	 */
+	public ImmutableMap<String, String> buildErrorInfoValues(Set<AnnotationMessage> messages) {
 		// TODO(holtgrewe): Do something more elegant way than 15 * "|", needs to be kept in sync with VCFAnnotationData
-		final String annotation = "|||||||||||||||" + Joiner.on('&').join(messages);
-		vc.getCommonInfo().putAttribute("ANN", annotation, true); // true allows overwriting
+		Metrics.countMessages(messages);
+		return ImmutableMap.of("ANN", "|||||||||||||||" + Joiner.on('&').join(messages));
 	}
 
 	/**
@@ -204,10 +246,30 @@ public final class VariantContextAnnotator {
 	 */
 	public ImmutableList<VariantAnnotations> buildAnnotations(VariantContext vc) throws InvalidCoordinatesException {
 		LOGGER.trace("building annotation lists for {}", new Object[] { vc });
+		return buildAnnotations(vc.getChr(), vc.getStart(), vc.getReference().getBaseString(), getAltBaseStrings(vc));
+	}
 
+	/**
+	 * Generate one {@link VariantAnnotations} for each alternative allele of a VCF record given by its raw values.
+	 *
+	 * @param contig
+	 *            name of the contig, as in the <code>CHROM</code> column
+	 * @param pos
+	 *            one-based position, as in the <code>POS</code> column
+	 * @param ref
+	 *            reference allele, as in the <code>REF</code> column
+	 * @param alts
+	 *            the alternative alleles from the <code>ALT</code> column
+	 * @return {@link ImmutableList} of {@link VariantAnnotations}s, one for each alternative allele, in the order of
+	 *         <code>alts</code>
+	 * @throws InvalidCoordinatesException
+	 *             in the case of problems with resolving coordinates internally, see {@link #buildAnnotations}.
+	 */
+	public ImmutableList<VariantAnnotations> buildAnnotations(String contig, int pos, String ref, List<String> alts)
+			throws InvalidCoordinatesException {
 		ImmutableList.Builder<VariantAnnotations> builder = new ImmutableList.Builder<VariantAnnotations>();
-		for (int alleleID = 0; alleleID < vc.getAlternateAlleles().size(); ++alleleID) {
-			GenomeVariant change = buildGenomeChange(vc, alleleID);
+		for (String alt : alts) {
+			GenomeVariant change = buildGenomeChange(contig, pos, ref, alt);
 
 			// Build AnnotationList object for this allele.
 			try {
@@ -234,37 +296,69 @@ public final class VariantContextAnnotator {
 	 * @return modified <code>vc</code>
 	 */
 	public VariantContext applyAnnotations(VariantContext vc, List<VariantAnnotations> annos) {
+		for (Map.Entry<String, String> entry : buildInfoValues(getAltBaseStrings(vc), annos).entrySet())
+			vc.getCommonInfo().putAttribute(entry.getKey(), entry.getValue(), true); // true allows overwriting
+		return vc;
+	}
+
+	/**
+	 * Render the INFO values for <code>annos</code>, as written by {@link #applyAnnotations}.
+	 *
+	 * @param alts
+	 *            the alternative alleles of the record
+	 * @param annos
+	 *            annotations to render (one for each alternative allele in <code>alts</code>)
+	 * @return map from INFO key to the value to write, in the order <code>ANN</code>, <code>EFFECT</code>,
+	 *         <code>HGVS</code> and depending on {@link Options#getInfoFields}
+	 */
+	public ImmutableMap<String, String> buildInfoValues(List<String> alts, List<VariantAnnotations> annos) {
+		final long startTime = Metrics.startTimer();
+		ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
 		if (options.infoFields == InfoFields.VCF_ANN || options.infoFields == InfoFields.BOTH)
-			applyStandardAnnotations(vc, annos);
+			builder.put("ANN", buildStandardAnnotations(alts, annos));
 		if (options.infoFields == InfoFields.EFFECT_HGVS || options.infoFields == InfoFields.BOTH)
-			applyOldJannovarAnnotations(vc, annos);
-		return vc;
+			buildOldJannovarAnnotations(builder, alts, annos);
+		Metrics.stopTimer(Metrics.TIMER_ANN_RENDER, startTime);
+		return builder.build();
+	}
+
+	/** @return base strings of the alternative alleles of <code>vc</code> */
+	private static ArrayList<String> getAltBaseStrings(VariantContext vc) {
+		ArrayList<String> result = new ArrayList<String>(vc.getAlternateAlleles().size());
+		for (Allele allele : vc.getAlternateAlleles())
+			result.add(allele.getBaseString());
+		return result;
 	}
 
-	private void applyStandardAnnotations(VariantContext vc, List<VariantAnnotations> annos) {
-		ArrayList<String> annotations = new ArrayList<String>();
-		for (int alleleID = 0; alleleID < vc.getAlternateAlleles().size(); ++alleleID) {
+	private String buildStandardAnnotations(List<String> alts, List<VariantAnnotations> annos) {
+		annBuilder.setLength(0);
+		boolean first = true;
+		for (int alleleID = 0; alleleID < alts.size(); ++alleleID) {
 			if (!annos.get(alleleID).getAnnotations().isEmpty()) {
+				final String alt = alts.get(alleleID);
 				for (Annotation ann : annos.get(alleleID).getAnnotations()) {
-					final String alt = vc.getAlternateAllele(alleleID).getBaseString();
-					annotations.add(ann.toVCFAnnoString(alt));
+					if (!first)
+						annBuilder.append(',');
+					first = false;
+					ann.appendVCFAnnoString(annBuilder, alt, true);
 					if (options.oneAnnotationOnly)
 						break;
 				}
 			}
 		}
-		vc.getCommonInfo().putAttribute("ANN", Joiner.on(',').join(annotations), true); // true allows overwriting
+		return annBuilder.toString();
 	}
 
-	private void applyOldJannovarAnnotations(VariantContext vc, List<VariantAnnotations> annos) {
+	private void buildOldJannovarAnnotations(ImmutableMap.Builder<String, String> builder, List<String> alts,
+			List<VariantAnnotations> annos) {
 		ArrayList<VariantEffect> effectList = new ArrayList<VariantEffect>();
 		ArrayList<String> hgvsList = new ArrayList<String>();
 
-		final int altAlleleCount = vc.getAlternateAlleles().size();
+		final int altAlleleCount = alts.size();
 		for (int alleleID = 0; alleleID < altAlleleCount; ++alleleID) {
 			if (!annos.get(alleleID).getAnnotations().isEmpty()) {
 				for (Annotation ann : annos.get(alleleID).getAnnotations()) {
-					final String alt = vc.getAlternateAllele(alleleID).getBaseString();
+					final String alt = alts.get(alleleID);
 					effectList.add(ann.getMostPathogenicVarType());
 					if (altAlleleCount == 1)
 						hgvsList.add(ann.getSymbolAndAnnotation());
@@ -278,8 +372,8 @@ public final class VariantContextAnnotator {
 		}
 
 		FluentIterable<String> effects = FluentIterable.from(effectList).transform(VariantEffect.TO_LEGACY_NAME);
-		vc.getCommonInfo().putAttribute("EFFECT", Joiner.on(',').join(effects), true); // true allows overwriting
-		vc.getCommonInfo().putAttribute("HGVS", Joiner.on(',').join(hgvsList), true); // true allows overwriting
+		builder.put("EFFECT", Joiner.on(',').join(effects));
+		builder.put("HGVS", Joiner.on(',').join(hgvsList));
 	}
 
 	/**
@@ -288,6 +382,7 @@ public final class VariantContextAnnotator {
 	 * @return VariantAnnotations having the message set to {@link AnnotationMessage#ERROR_PROBLEM_DURING_ANNOTATION}.
 	 */
 	public VariantAnnotations buildErrorAnnotations(GenomeVariant change) {
+		Metrics.countMessages(ImmutableList.of(AnnotationMessage.ERROR_PROBLEM_DURING_ANNOTATION));
 		return new VariantAnnotations(change, ImmutableList.of(new Annotation(ImmutableList
 				.of(AnnotationMessage.ERROR_PROBLEM_DURING_ANNOTATION))));
 	}
@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+
+public class BlockCompressedVCFConcatenatorTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	static final String HEADER = "##fileformat=VCFv4.1\n#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n";
+
+	/** @return BGZF file with <code>text</code>, ending a block after each of the <code>pieces</code> */
+	private File writeBGZF(String name, String... pieces) throws IOException {
+		final File file = tmpFolder.newFile(name);
+		BlockCompressedOutputStream out = new BlockCompressedOutputStream(file);
+		for (String piece : pieces) {
+			out.write(piece.getBytes(Charsets.UTF_8));
+			out.flush();
+		}
+		out.close();
+		return file;
+	}
+
+	private static String readBGZF(File file) throws IOException {
+		InputStream in = new BlockCompressedInputStream(file);
+		try {
+			return new String(ByteStreams.toByteArray(in), Charsets.UTF_8);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testConcatenate() throws IOException {
+		// header in separate block, header and records in one block, header only
+		final File file1 = writeBGZF("1.vcf.gz", HEADER, "1\t100\t.\tA\tC\t.\t.\t.\n");
+		final File file2 = writeBGZF("2.vcf.gz", HEADER + "2\t100\t.\tA\tC\t.\t.\t.\n", "2\t200\t.\tA\tC\t.\t.\t.\n");
+		final File file3 = writeBGZF("3.vcf.gz", HEADER);
+		final File result = tmpFolder.newFile("result.vcf.gz");
+
+		BlockCompressedVCFConcatenator concatenator = new BlockCompressedVCFConcatenator(result.getPath());
+		concatenator.append(file1);
+		concatenator.append(file2);
+		concatenator.append(file3);
+		concatenator.close();
+
+		Assert.assertEquals(HEADER + "1\t100\t.\tA\tC\t.\t.\t.\n2\t100\t.\tA\tC\t.\t.\t.\n2\t200\t.\tA\tC\t.\t.\t.\n",
+				readBGZF(result));
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(result));
+	}
+
+	@Test
+	public void testHeaderSpanningBlocks() throws IOException {
+		// the header is split within a line, the records start in the block with the end of the header
+		final File file1 = writeBGZF("1.vcf.gz", HEADER.substring(0, 10), HEADER.substring(10)
+				+ "1\t1\t.\tA\tC\t.\t.\t.\n");
+		final File file2 = writeBGZF("2.vcf.gz", HEADER.substring(0, 30), HEADER.substring(30)
+				+ "2\t1\t.\tA\tC\t.\t.\t.\n");
+		final File result = tmpFolder.newFile("result.vcf.gz");
+
+		BlockCompressedVCFConcatenator concatenator = new BlockCompressedVCFConcatenator(result.getPath());
+		concatenator.append(file1);
+		concatenator.append(file2);
+		concatenator.close();
+
+		Assert.assertEquals(HEADER + "1\t1\t.\tA\tC\t.\t.\t.\n2\t1\t.\tA\tC\t.\t.\t.\n", readBGZF(result));
+	}
+
+}
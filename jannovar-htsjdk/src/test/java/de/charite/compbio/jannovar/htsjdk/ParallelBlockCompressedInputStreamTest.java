@@ -0,0 +1,100 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+public class ParallelBlockCompressedInputStreamTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** @return mix of compressible text and random bytes */
+	private static byte[] buildData(int length) {
+		byte[] result = new byte[length];
+		Random rand = new Random(42);
+		for (int i = 0; i < length; ++i)
+			result[i] = (i / 10000 % 2 == 0) ? (byte) ('A' + i % 7) : (byte) rand.nextInt();
+		return result;
+	}
+
+	private static byte[] readParallel(File file, int numThreads) throws IOException {
+		InputStream in = new ParallelBlockCompressedInputStream(new FileInputStream(file), numThreads);
+		try {
+			return ByteStreams.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testReadHTSJDKOutput() throws IOException {
+		final byte[] data = buildData(400000);
+		final File file = tmpFolder.newFile("htsjdk.gz");
+		BlockCompressedOutputStream out = new BlockCompressedOutputStream(file);
+		out.write(data, 0, 100000);
+		out.flush(); // creates a short block
+		out.write(data, 100000, data.length - 100000);
+		out.close();
+
+		Assert.assertArrayEquals(data, readParallel(file, 1));
+		Assert.assertArrayEquals(data, readParallel(file, 4));
+	}
+
+	@Test
+	public void testSingleByteReads() throws IOException {
+		final byte[] data = buildData(150000);
+		final File file = tmpFolder.newFile("single.gz");
+		ParallelBlockCompressedOutputStream out = new ParallelBlockCompressedOutputStream(file.getPath(), 2);
+		out.write(data);
+		out.close();
+
+		InputStream in = new ParallelBlockCompressedInputStream(new FileInputStream(file), 3);
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != -1)
+			result.write(b);
+		in.close();
+		Assert.assertArrayEquals(data, result.toByteArray());
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		final File file = tmpFolder.newFile("empty.gz");
+		new BlockCompressedOutputStream(file).close(); // only EOF marker
+		Assert.assertEquals(0, readParallel(file, 2).length);
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptedBlock() throws IOException {
+		final byte[] data = buildData(1000);
+		final File file = tmpFolder.newFile("corrupt.gz");
+		BlockCompressedOutputStream out = new BlockCompressedOutputStream(file);
+		out.write(data);
+		out.close();
+		final byte[] compressed = Files.toByteArray(file);
+		compressed[30] ^= 0xff;
+
+		InputStream in = new ParallelBlockCompressedInputStream(new ByteArrayInputStream(compressed), 2);
+		try {
+			ByteStreams.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+
+}
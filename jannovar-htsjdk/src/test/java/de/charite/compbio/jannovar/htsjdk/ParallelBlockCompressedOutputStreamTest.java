@@ -0,0 +1,116 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+
+public class ParallelBlockCompressedOutputStreamTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** @return VCF-like text, compresses well */
+	private static byte[] buildText(int numLines) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < numLines; ++i)
+			builder.append("chr1\t").append(1000 + 7 * i).append("\t.\tA\tC\t.\tPASS\tANN=C|missense_variant|")
+					.append(i % 13).append("\tGT\t0/1\n");
+		return builder.toString().getBytes();
+	}
+
+	/** @return random bytes, do not compress at all */
+	private static byte[] buildRandom(int length) {
+		byte[] result = new byte[length];
+		new Random(42).nextBytes(result);
+		return result;
+	}
+
+	/** Write <code>data</code> in pieces of varying sizes, including single bytes and one flush. */
+	private static File writeParallel(File file, byte[] data, int numThreads) throws IOException {
+		ParallelBlockCompressedOutputStream out = new ParallelBlockCompressedOutputStream(file.getPath(),
+				numThreads);
+		int pos = 0;
+		int chunk = 1;
+		while (pos < data.length) {
+			final int len = Math.min(chunk, data.length - pos);
+			if (len == 1)
+				out.write(data[pos]);
+			else
+				out.write(data, pos, len);
+			pos += len;
+			chunk = (chunk * 7 + 3) % 100000;
+			if (pos > data.length / 2 && pos - len <= data.length / 2)
+				out.flush();
+		}
+		out.close();
+		return file;
+	}
+
+	private static byte[] readBGZF(File file) throws IOException {
+		InputStream in = new BlockCompressedInputStream(new FileInputStream(file));
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ByteStreams.copy(in, out);
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testRoundTripText() throws IOException {
+		final byte[] data = buildText(20000);
+		final File file = writeParallel(tmpFolder.newFile("text.gz"), data, 4);
+		Assert.assertArrayEquals(data, readBGZF(file));
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(file));
+	}
+
+	@Test
+	public void testRoundTripIncompressible() throws IOException {
+		final byte[] data = buildRandom(500000);
+		final File file = writeParallel(tmpFolder.newFile("random.gz"), data, 3);
+		Assert.assertArrayEquals(data, readBGZF(file));
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(file));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		final File file = writeParallel(tmpFolder.newFile("empty.gz"), new byte[0], 2);
+		Assert.assertEquals(0, readBGZF(file).length);
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(file));
+	}
+
+	@Test
+	public void testSameAsHTSJDK() throws IOException {
+		// without flushing, the blocks are the same as the ones of the single-threaded implementation
+		final byte[] data = buildText(20000);
+		final File expected = tmpFolder.newFile("expected.gz");
+		BlockCompressedOutputStream htsjdkOut = new BlockCompressedOutputStream(expected);
+		htsjdkOut.write(data);
+		htsjdkOut.close();
+		final File actual = tmpFolder.newFile("actual.gz");
+		ParallelBlockCompressedOutputStream parallelOut = new ParallelBlockCompressedOutputStream(actual.getPath(), 4);
+		parallelOut.write(data);
+		parallelOut.close();
+
+		Assert.assertArrayEquals(ByteStreams.toByteArray(new FileInputStream(expected)),
+				ByteStreams.toByteArray(new FileInputStream(actual)));
+	}
+
+}
@@ -0,0 +1,106 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+
+public class ReadAheadVCFReaderTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** VCF file contents, more records than fit into the queue */
+	private byte[] vcfData;
+
+	@Before
+	public void setUp() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("##fileformat=VCFv4.1\n");
+		builder.append("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+		builder.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tindividual1\tindividual2\n");
+		for (int i = 0; i < 5000; ++i)
+			builder.append("1\t").append(1000 + 10 * i).append("\t.\tA\t").append((i % 2 == 0) ? "C" : "G,T")
+					.append("\t.\tPASS\t.\tGT\t0/1\t1/1\n");
+		this.vcfData = builder.toString().getBytes(Charsets.US_ASCII);
+	}
+
+	private File writeFile(OutputStream out, File file) throws IOException {
+		out.write(vcfData);
+		out.close();
+		return file;
+	}
+
+	/** @return string representations of the records read through <code>reader</code> */
+	private static ArrayList<String> readAll(ReadAheadVCFReader reader) {
+		ArrayList<String> result = new ArrayList<String>();
+		CloseableIterator<VariantContext> it = reader.iterator();
+		while (it.hasNext())
+			result.add(it.next().toStringDecodeGenotypes());
+		it.close();
+		return result;
+	}
+
+	/** @return string representations of the records read through {@link VCFFileReader} */
+	private static ArrayList<String> readAllHTSJDK(File file) {
+		ArrayList<String> result = new ArrayList<String>();
+		VCFFileReader reader = new VCFFileReader(file, false);
+		for (VariantContext vc : reader)
+			result.add(vc.toStringDecodeGenotypes());
+		reader.close();
+		return result;
+	}
+
+	private void checkFile(File file) throws IOException {
+		ReadAheadVCFReader reader = new ReadAheadVCFReader(file, 3);
+		Assert.assertEquals(2, reader.getFileHeader().getNGenotypeSamples());
+		final ArrayList<String> records = readAll(reader);
+		Assert.assertEquals(5000, records.size());
+		Assert.assertEquals(readAllHTSJDK(file), records);
+	}
+
+	@Test
+	public void testPlain() throws IOException {
+		final File file = tmpFolder.newFile("plain.vcf");
+		checkFile(writeFile(new FileOutputStream(file), file));
+	}
+
+	@Test
+	public void testGzip() throws IOException {
+		final File file = tmpFolder.newFile("gzip.vcf.gz");
+		checkFile(writeFile(new GZIPOutputStream(new FileOutputStream(file)), file));
+	}
+
+	@Test
+	public void testBGZF() throws IOException {
+		final File file = tmpFolder.newFile("bgzf.vcf.gz");
+		checkFile(writeFile(new BlockCompressedOutputStream(file), file));
+	}
+
+	@Test
+	public void testCloseBeforeEnd() throws IOException {
+		final File file = tmpFolder.newFile("bgzf.vcf.gz");
+		writeFile(new BlockCompressedOutputStream(file), file);
+		ReadAheadVCFReader reader = new ReadAheadVCFReader(file, 2);
+		CloseableIterator<VariantContext> it = reader.iterator();
+		Assert.assertTrue(it.hasNext());
+		Assert.assertEquals(1000, it.next().getStart());
+		reader.close();
+	}
+
+}
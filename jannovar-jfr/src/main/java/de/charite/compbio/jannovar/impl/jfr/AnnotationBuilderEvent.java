@@ -0,0 +1,44 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted around <code>AnnotationBuilderDispatcher.build</code>.
+ *
+ * Only use through {@link JFRSupport}.
+ */
+@Name(JFRSupport.EVENT_ANNOTATION_BUILDER)
+@Label("Annotation Builder")
+@Description("Annotation of one variant with one transcript")
+@Category({ "Jannovar", "Annotation" })
+@Enabled(false)
+@StackTrace(false)
+final class AnnotationBuilderEvent extends Event {
+
+	@Label("Chromosome")
+	String chr;
+
+	@Label("Position")
+	@Description("one-based position on the forward strand")
+	int pos;
+
+	@Label("Reference")
+	String ref;
+
+	@Label("Alternative")
+	String alt;
+
+	@Label("Transcript")
+	String transcript;
+
+	@Label("Builder Type")
+	@Description("simple class name of the AnnotationBuilder used")
+	String builderType;
+
+}
@@ -0,0 +1,31 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted around <code>JannovarDataSerializer.load</code>.
+ *
+ * Only use through {@link JFRSupport}.
+ */
+@Name(JFRSupport.EVENT_DATABASE_LOAD)
+@Label("Database Load")
+@Category({ "Jannovar", "Database" })
+@Enabled(false)
+@StackTrace(false)
+final class DatabaseLoadEvent extends Event {
+
+	@Label("Path")
+	String path;
+
+	@Label("Contig Count")
+	int contigCount;
+
+	@Label("Transcript Count")
+	int transcriptCount;
+
+}
@@ -0,0 +1,42 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted around <code>GeneWiseInheritanceFilter.processedGene</code> (in jannovar-filter).
+ *
+ * Only use through {@link JFRSupport}.
+ */
+@Name(JFRSupport.EVENT_GENE_PROCESSED)
+@Label("Gene Processed")
+@Description("Inheritance check and flushing of the buffered variants of one gene")
+@Category({ "Jannovar", "Filter" })
+@Enabled(false)
+@StackTrace(false)
+final class GeneProcessedEvent extends Event {
+
+	@Label("Gene")
+	String gene;
+
+	@Label("Chromosome")
+	String chr;
+
+	@Label("Begin")
+	@Description("zero-based begin position on the forward strand")
+	int begin;
+
+	@Label("End")
+	@Description("zero-based end position on the forward strand")
+	int end;
+
+	@Label("Buffered Variants")
+	@Description("number of variants buffered when the gene was processed")
+	int bufferedVariants;
+
+}
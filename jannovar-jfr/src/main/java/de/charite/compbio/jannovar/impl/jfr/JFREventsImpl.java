@@ -0,0 +1,133 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+
+/**
+ * Implementation of {@link JFREvents} on the <code>jdk.jfr</code> API, loaded by {@link JFRSupport}.
+ *
+ * The event types are looked up once, such that checking whether an event is enabled does not create the event
+ * object.
+ */
+public final class JFREventsImpl implements JFREvents {
+
+	/** type of {@link VariantAnnotationEvent} */
+	private final EventType variantAnnotationType = EventType.getEventType(VariantAnnotationEvent.class);
+
+	/** type of {@link AnnotationBuilderEvent} */
+	private final EventType annotationBuilderType = EventType.getEventType(AnnotationBuilderEvent.class);
+
+	/** type of {@link DatabaseLoadEvent} */
+	private final EventType databaseLoadType = EventType.getEventType(DatabaseLoadEvent.class);
+
+	/** type of {@link GeneProcessedEvent} */
+	private final EventType geneProcessedType = EventType.getEventType(GeneProcessedEvent.class);
+
+	public boolean end(Object handle) {
+		final Event event = (Event) handle;
+		event.end();
+		return event.shouldCommit();
+	}
+
+	public Object beginVariantAnnotation() {
+		if (!variantAnnotationType.isEnabled())
+			return null;
+		VariantAnnotationEvent event = new VariantAnnotationEvent();
+		event.begin();
+		return event;
+	}
+
+	public void commitVariantAnnotation(Object handle, String chr, int pos, String ref, String alt,
+			int transcriptCount, int annotationCount) {
+		VariantAnnotationEvent event = (VariantAnnotationEvent) handle;
+		event.chr = chr;
+		event.pos = pos;
+		event.ref = ref;
+		event.alt = alt;
+		event.transcriptCount = transcriptCount;
+		event.annotationCount = annotationCount;
+		event.commit();
+	}
+
+	public Object beginAnnotationBuilder() {
+		if (!annotationBuilderType.isEnabled())
+			return null;
+		AnnotationBuilderEvent event = new AnnotationBuilderEvent();
+		event.begin();
+		return event;
+	}
+
+	public void commitAnnotationBuilder(Object handle, String chr, int pos, String ref, String alt,
+			String transcriptAccession, String builderType) {
+		AnnotationBuilderEvent event = (AnnotationBuilderEvent) handle;
+		event.chr = chr;
+		event.pos = pos;
+		event.ref = ref;
+		event.alt = alt;
+		event.transcript = transcriptAccession;
+		event.builderType = builderType;
+		event.commit();
+	}
+
+	public Object beginDatabaseLoad() {
+		if (!databaseLoadType.isEnabled())
+			return null;
+		DatabaseLoadEvent event = new DatabaseLoadEvent();
+		event.begin();
+		return event;
+	}
+
+	public void commitDatabaseLoad(Object handle, String path, int contigCount, int transcriptCount) {
+		DatabaseLoadEvent event = (DatabaseLoadEvent) handle;
+		event.path = path;
+		event.contigCount = contigCount;
+		event.transcriptCount = transcriptCount;
+		event.commit();
+	}
+
+	public Object beginGeneProcessed() {
+		if (!geneProcessedType.isEnabled())
+			return null;
+		GeneProcessedEvent event = new GeneProcessedEvent();
+		event.begin();
+		return event;
+	}
+
+	public void commitGeneProcessed(Object handle, String gene, String chr, int begin, int end, int bufferedVariants) {
+		GeneProcessedEvent event = (GeneProcessedEvent) handle;
+		event.gene = gene;
+		event.chr = chr;
+		event.begin = begin;
+		event.end = end;
+		event.bufferedVariants = bufferedVariants;
+		event.commit();
+	}
+
+	public Object startRecording(String path) throws IOException {
+		final Recording recording;
+		try {
+			recording = new Recording(Configuration.getConfiguration("default"));
+		} catch (ParseException e) {
+			throw new IOException("Could not load default JFR configuration: " + e.getMessage());
+		}
+		for (String name : JFRSupport.EVENT_NAMES)
+			recording.enable(name);
+		recording.setName("Jannovar");
+		recording.setDestination(Paths.get(path));
+		recording.start();
+		return recording;
+	}
+
+	public void stopRecording(Object handle) throws IOException {
+		final Recording recording = (Recording) handle;
+		recording.stop();
+		recording.close();
+	}
+
+}
@@ -0,0 +1,44 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted around <code>VariantAnnotator.buildAnnotations</code>.
+ *
+ * Only use through {@link JFRSupport}.
+ */
+@Name(JFRSupport.EVENT_VARIANT_ANNOTATION)
+@Label("Variant Annotation")
+@Description("Annotation of one variant with all overlapping or neighboring transcripts")
+@Category({ "Jannovar", "Annotation" })
+@Enabled(false)
+@StackTrace(false)
+final class VariantAnnotationEvent extends Event {
+
+	@Label("Chromosome")
+	String chr;
+
+	@Label("Position")
+	@Description("one-based position on the forward strand")
+	int pos;
+
+	@Label("Reference")
+	String ref;
+
+	@Label("Alternative")
+	String alt;
+
+	@Label("Transcript Count")
+	@Description("number of transcripts considered for the annotation")
+	int transcriptCount;
+
+	@Label("Annotation Count")
+	int annotationCount;
+
+}
@@ -0,0 +1,62 @@
+package de.charite.compbio.jannovar.impl.jfr;
+
+import java.io.File;
+import java.io.IOException;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+
+public class JFRSupportTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	@Test
+	public void testEventsDisabledWithoutRecording() {
+		Assert.assertTrue(JFRSupport.isAvailable());
+		Assert.assertNull(JFRSupport.beginVariantAnnotation());
+		// committing a null handle is a no-op
+		JFRSupport.commitVariantAnnotation(null, null, 0, 0);
+	}
+
+	@Test
+	public void testRecordingContainsEvent() throws IOException {
+		final File file = tmpFolder.newFile("test.jfr");
+		JFRRecording recording = new JFRRecording(file.getPath());
+		final Object handle = JFRSupport.beginVariantAnnotation();
+		Assert.assertNotNull(handle);
+		GenomeVariant change = new GenomeVariant(new GenomePosition(refDict, Strand.REV, 1, 100,
+				PositionType.ZERO_BASED), "A", "C");
+		JFRSupport.commitVariantAnnotation(handle, change, 2, 3);
+		recording.stop();
+
+		boolean found = false;
+		for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+			if (!event.getEventType().getName().equals(JFRSupport.EVENT_VARIANT_ANNOTATION))
+				continue;
+			found = true;
+			Assert.assertEquals("1", event.getString("chr"));
+			Assert.assertEquals(change.withStrand(Strand.FWD).getPos() + 1, event.getInt("pos"));
+			Assert.assertEquals("T", event.getString("ref"));
+			Assert.assertEquals("G", event.getString("alt"));
+			Assert.assertEquals(2, event.getInt("transcriptCount"));
+			Assert.assertEquals(3, event.getInt("annotationCount"));
+		}
+		Assert.assertTrue(found);
+	}
+
+}
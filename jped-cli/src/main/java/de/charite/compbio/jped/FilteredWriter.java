@@ -2,7 +2,9 @@ package de.charite.compbio.jped;
 
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
-import htsjdk.variant.vcf.VCFFileReader;
+
+import java.util.Iterator;
+
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.filter.CoordinateSortChecker;
@@ -12,11 +14,15 @@ import de.charite.compbio.jannovar.filter.GeneWiseInheritanceFilter;
 import de.charite.compbio.jannovar.filter.VariantContextFilter;
 import de.charite.compbio.jannovar.filter.VariantWiseInheritanceFilter;
 import de.charite.compbio.jannovar.filter.WriterFilter;
+import de.charite.compbio.jannovar.metrics.Metrics;
 import de.charite.compbio.jannovar.pedigree.ModeOfInheritance;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 
 public class FilteredWriter {
 
+	/** name of the timer for passing one record through the filter chain (including writing) */
+	static final String TIMER_FILTER = "jped.filter";
+
 	/** Pedigree */
 	private final Pedigree pedigree;
 	/** Jannovar DB */
@@ -24,12 +30,12 @@ public class FilteredWriter {
 	/** mode of inheritance */
 	private final ModeOfInheritance modeOfInheritance;
 	/** source of {@link VariantContext} objects */
-	private final VCFFileReader source;
+	private final Iterable<VariantContext> source;
 	/** sink for {@link VariantContext} objects */
 	private final VariantContextWriter sink;
 
 	public FilteredWriter(Pedigree pedigree, ModeOfInheritance modeOfInheritance, JannovarData jannovarDB,
-			VCFFileReader source, VariantContextWriter sink) {
+			Iterable<VariantContext> source, VariantContextWriter sink) {
 		this.pedigree = pedigree;
 		this.modeOfInheritance = modeOfInheritance;
 		this.jannovarDB = jannovarDB;
@@ -50,8 +56,18 @@ public class FilteredWriter {
 		topFilter = new CoordinateSortChecker(topFilter);
 
 		try {
-			for (VariantContext vc : source)
+			Iterator<VariantContext> it = source.iterator();
+			while (true) {
+				final long readStartTime = Metrics.startTimer();
+				if (!it.hasNext())
+					break;
+				final VariantContext vc = it.next();
+				Metrics.stopTimer(Metrics.TIMER_VCF_READ, readStartTime);
+				Metrics.incCounter(Metrics.COUNTER_VARIANTS, 1);
+				final long filterStartTime = Metrics.startTimer();
 				topFilter.put(new FlaggedVariant(vc));
+				Metrics.stopTimer(TIMER_FILTER, filterStartTime);
+			}
 			topFilter.finish();
 		} catch (FilterException e) {
 			throw new JannovarException("Problem in the filtration.", e);
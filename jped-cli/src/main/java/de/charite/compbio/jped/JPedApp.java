@@ -3,8 +3,11 @@ package de.charite.compbio.jped;
 import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 
@@ -17,6 +20,12 @@ import org.apache.logging.log4j.core.config.Configuration;
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.htsjdk.ReadAheadVCFReader;
+import de.charite.compbio.jannovar.impl.jfr.JFRRecording;
+import de.charite.compbio.jannovar.impl.jfr.JFRSupport;
+import de.charite.compbio.jannovar.metrics.JSONMetricsReporter;
+import de.charite.compbio.jannovar.metrics.Metrics;
+import de.charite.compbio.jannovar.metrics.MetricsRegistry;
 import de.charite.compbio.jannovar.pedigree.PedFileContents;
 import de.charite.compbio.jannovar.pedigree.PedFileReader;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
@@ -41,8 +50,29 @@ public class JPedApp {
 		setLogLevel();
 
 		final long startTime = System.nanoTime();
-		VCFFileReader reader = new VCFFileReader(new File(options.inputPath), false);
-		VariantContextWriter writer = getWriter(reader);
+		final JFRRecording recording = startJFRRecording();
+		final MetricsRegistry registry = (options.metricsJSONPath == null) ? null : new MetricsRegistry();
+		Metrics.setRegistry(registry);
+		final VCFHeader header;
+		final Iterable<VariantContext> source;
+		final Closeable reader;
+		if (options.readAheadThreads > 0 && ReadAheadVCFReader.canRead(options.inputPath)) {
+			final ReadAheadVCFReader readAheadReader;
+			try {
+				readAheadReader = new ReadAheadVCFReader(new File(options.inputPath), options.readAheadThreads);
+			} catch (IOException e) {
+				throw new JannovarException("Could not open VCF file " + options.inputPath, e);
+			}
+			header = readAheadReader.getFileHeader();
+			source = readAheadReader;
+			reader = readAheadReader;
+		} else {
+			final VCFFileReader vcfReader = new VCFFileReader(new File(options.inputPath), false);
+			header = vcfReader.getFileHeader();
+			source = vcfReader;
+			reader = vcfReader;
+		}
+		VariantContextWriter writer = getWriter(header);
 		deserializeJannovarDB(); // only need this when inheritance filter is active
 
 		PedFileContents pedContents;
@@ -55,30 +85,71 @@ public class JPedApp {
 		System.err.println("Family used from PED file: " + pedigree.getName());
 		for (Person p : pedigree.getMembers())
 			System.err.println("    " + p.getName());
-		new FilteredWriter(pedigree, options.modeOfInheritance, jannovarDB, reader, writer).run(options);
+		new FilteredWriter(pedigree, options.modeOfInheritance, jannovarDB, source, writer).run(options);
 		writer.close();
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new JannovarException("Could not close VCF file " + options.inputPath, e);
+		}
 		final long endTime = System.nanoTime();
 		System.err.println(String.format("Filtering and writing took %.2f sec.",
 				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+
+		if (registry != null) {
+			Metrics.updateDerivedGauges((endTime - startTime) / 1000.0 / 1000.0 / 1000.0);
+			try {
+				new JSONMetricsReporter(options.metricsJSONPath).report(registry);
+			} catch (IOException e) {
+				throw new JannovarException("Could not write metrics to " + options.metricsJSONPath, e);
+			} finally {
+				Metrics.setRegistry(null);
+			}
+			System.err.println("Wrote metrics to \"" + options.metricsJSONPath + "\"");
+		}
+
+		if (recording != null) {
+			try {
+				recording.stop();
+			} catch (IOException e) {
+				throw new JannovarException("Could not write JFR recording to " + options.jfrPath, e);
+			}
+			System.err.println("Wrote JFR recording to \"" + options.jfrPath + "\"");
+		}
+	}
+
+	/**
+	 * @return started {@link JFRRecording} if configured in {@link #options}, <code>null</code> otherwise
+	 */
+	private JFRRecording startJFRRecording() throws JannovarException {
+		if (options.jfrPath == null)
+			return null;
+		if (!JFRSupport.isAvailable())
+			throw new JannovarException("JDK Flight Recorder is not available in this JVM, cannot use --jfr.");
+		try {
+			return new JFRRecording(options.jfrPath);
+		} catch (IOException e) {
+			throw new JannovarException("Could not start JFR recording to " + options.jfrPath, e);
+		}
 	}
 
 	/**
-	 * @return {@link VariantContextWriter} given an input {@link VCFFileReader}.
+	 * @return {@link VariantContextWriter} given the {@link VCFHeader} of the input file.
 	 */
-	VariantContextWriter getWriter(VCFFileReader reader) {
+	VariantContextWriter getWriter(VCFHeader header) {
 		// construct factory object for VariantContextWriter
 		VariantContextWriterBuilder builder = new VariantContextWriterBuilder();
-		builder.setReferenceDictionary(reader.getFileHeader().getSequenceDictionary());
+		builder.setReferenceDictionary(header.getSequenceDictionary());
 		builder.setOutputFile(new File(options.outputPath));
 		// Be more lenient in missing header fields.
 		builder.setOption(Options.ALLOW_MISSING_FIELDS_IN_HEADER);
 		// Disable on-the-fly generation of Tribble index if the input file does not have a sequence dictionary.
-		if (reader.getFileHeader().getSequenceDictionary() == null)
+		if (header.getSequenceDictionary() == null)
 			builder.unsetOption(Options.INDEX_ON_THE_FLY);
 
 		// construct VariantContextWriter and write out header
 		VariantContextWriter out = builder.build();
-		out.writeHeader(reader.getFileHeader());
+		out.writeHeader(header);
 		return out;
 	}
 
@@ -55,6 +55,20 @@ public class JPedCommandLineParser {
 					cmd.getOptionValue("inheritance-mode"));
 
 		result.geneWise = cmd.hasOption("gene-wise");
+		if (cmd.hasOption("read-ahead-threads")) {
+			try {
+				result.readAheadThreads = Integer.parseInt(cmd.getOptionValue("read-ahead-threads"));
+			} catch (NumberFormatException e) {
+				throw new ParseException("invalid value for --read-ahead-threads: "
+						+ cmd.getOptionValue("read-ahead-threads"));
+			}
+			if (result.readAheadThreads < 0)
+				throw new ParseException("--read-ahead-threads must not be negative, was: " + result.readAheadThreads);
+		}
+		if (cmd.hasOption("metrics-json"))
+			result.metricsJSONPath = cmd.getOptionValue("metrics-json");
+		if (cmd.hasOption("jfr"))
+			result.jfrPath = cmd.getOptionValue("jfr");
 		if (cmd.getOptionValue("database") != null)
 			result.jannovarDB = cmd.getOptionValue("database");
 
@@ -75,6 +89,13 @@ public class JPedCommandLineParser {
 		options.addOption(new Option("m", "inheritance-mode", true, "enable very verbose output"));
 		options.addOption(new Option("g", "gene-wise", false,
 				"gene-wise instead of variant-wise processing (required for compound heterozygous filtration)"));
+		options.addOption(new Option(null, "read-ahead-threads", true,
+				"read and decode the input VCF file in the background, decompressing it with the given number "
+						+ "of threads"));
+		options.addOption(new Option(null, "metrics-json", true,
+				"collect timing and counter metrics and write them as JSON to the given path"));
+		options.addOption(new Option(null, "jfr", true,
+				"record JDK Flight Recorder events, including Jannovar's, to the given .jfr file"));
 
 		parser = new GnuParser();
 	}
@@ -32,6 +32,15 @@ public class JPedOptions {
 	/** gene-wise instead of variant-wise processing (required for composite heterozygous) */
 	boolean geneWise = false;
 
+	/** number of threads for decompressing the input when reading ahead, 0 for reading in the main thread */
+	int readAheadThreads = 0;
+
+	/** path to JSON file to write the metrics to, <code>null</code> for not collecting metrics */
+	String metricsJSONPath = null;
+
+	/** path to JDK Flight Recorder file to write, <code>null</code> for not recording */
+	String jfrPath = null;
+
 	/**
 	 * Print option values to stderr.
 	 */
@@ -43,6 +52,9 @@ public class JPedOptions {
 		out.println("output path: " + outputPath);
 		out.println("modeOfInheritance: " + modeOfInheritance);
 		out.println("geneWise: " + geneWise);
+		out.println("read-ahead threads: " + readAheadThreads);
+		out.println("metrics JSON path: " + metricsJSONPath);
+		out.println("JFR path: " + jfrPath);
 	}
 
 }